@@ -0,0 +1,41 @@
+package ru.noties.cursormock;
+
+import android.support.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Keys of {@link CursorJoin} &amp; {@link CursorGroupBy} that are compared with `equals`
+ */
+class ColumnKeys {
+
+    // integral numbers are Long, integral floating point numbers are Long too (so `1` and `1.0` are
+    // the same key), BLOBs are wrapped to be compared by content
+    @NonNull
+    static Object normalize(@NonNull Object value) {
+        if (value instanceof Double || value instanceof Float) {
+            final double d = ((Number) value).doubleValue();
+            final long l = (long) d;
+            return l == d
+                    ? (Object) l
+                    : (Object) d;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof byte[]) {
+            return ByteBuffer.wrap((byte[]) value);
+        }
+        return value;
+    }
+
+    // reverse of `normalize` for BLOBs, numbers stay normalized
+    @NonNull
+    static Object denormalize(@NonNull Object value) {
+        return value instanceof ByteBuffer
+                ? ((ByteBuffer) value).array()
+                : value;
+    }
+
+    private ColumnKeys() {}
+}
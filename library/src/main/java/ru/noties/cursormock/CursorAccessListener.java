@@ -0,0 +1,58 @@
+package ru.noties.cursormock;
+
+/**
+ * Listener that receives notifications about how a {@link CursorMock} is accessed. It's not set
+ * by default, so {@link CursorMock} doesn't pay for it unless {@link CursorMock#setAccessListener(CursorAccessListener)}
+ * was called. All methods are called on the thread that accesses a {@link CursorMock}.
+ *
+ * @see CursorMetrics
+ * @see CursorMock#setAccessListener(CursorAccessListener)
+ */
+@SuppressWarnings("WeakerAccess")
+public interface CursorAccessListener {
+
+    /**
+     * Data getters of a {@link android.database.Cursor}
+     */
+    enum Getter {
+        BLOB,
+        STRING,
+        SHORT,
+        INT,
+        LONG,
+        FLOAT,
+        DOUBLE,
+        TYPE,
+        IS_NULL
+    }
+
+    /**
+     * Called when {@link CursorMock#getCount()} is called
+     */
+    void onCount();
+
+    /**
+     * Called for each call of any `move*` method of {@link CursorMock}
+     *
+     * @param from position before the move
+     * @param to position after the move (can be `-1` or `count` if cursor was moved out of bounds)
+     * @param result value returned by the `move*` method (if cursor is positioned at a valid row)
+     */
+    void onMove(int from, int to, boolean result);
+
+    /**
+     * Called for each call of {@link CursorMock#getColumnIndex(String)} and {@link CursorMock#getColumnIndexOrThrow(String)}
+     *
+     * @param columnName requested column name
+     */
+    void onColumnIndex(String columnName);
+
+    /**
+     * Called for each data getter call (after position was validated)
+     *
+     * @param getter {@link Getter} that was called
+     * @param row current position of a {@link CursorMock}
+     * @param column requested column index
+     */
+    void onRead(Getter getter, int row, int column);
+}
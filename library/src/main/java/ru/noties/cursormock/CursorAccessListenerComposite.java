@@ -0,0 +1,62 @@
+package ru.noties.cursormock;
+
+import android.support.annotation.NonNull;
+
+/**
+ * {@link CursorAccessListener} that dispatches all notifications to a number of listeners
+ * (in the order they were supplied)
+ *
+ * @see CursorMock#setAccessListener(CursorAccessListener)
+ */
+@SuppressWarnings("WeakerAccess")
+public class CursorAccessListenerComposite implements CursorAccessListener {
+
+    /**
+     * Adds a listener to a {@link CursorMock} keeping already set one (if any)
+     *
+     * @param mock {@link CursorMock} to add a listener to
+     * @param listener {@link CursorAccessListener} to add
+     */
+    public static void add(@NonNull CursorMock mock, @NonNull CursorAccessListener listener) {
+        final CursorAccessListener current = mock.getAccessListener();
+        if (current == null) {
+            mock.setAccessListener(listener);
+        } else {
+            mock.setAccessListener(new CursorAccessListenerComposite(current, listener));
+        }
+    }
+
+    private final CursorAccessListener[] mListeners;
+
+    public CursorAccessListenerComposite(@NonNull CursorAccessListener... listeners) {
+        mListeners = listeners.clone();
+    }
+
+    @Override
+    public void onCount() {
+        for (CursorAccessListener listener: mListeners) {
+            listener.onCount();
+        }
+    }
+
+    @Override
+    public void onMove(int from, int to, boolean result) {
+        for (CursorAccessListener listener: mListeners) {
+            listener.onMove(from, to, result);
+        }
+    }
+
+    @Override
+    public void onColumnIndex(String columnName) {
+        for (CursorAccessListener listener: mListeners) {
+            listener.onColumnIndex(columnName);
+        }
+    }
+
+    @Override
+    public void onRead(Getter getter, int row, int column) {
+        for (CursorAccessListener listener: mListeners) {
+            listener.onRead(getter, row, column);
+        }
+    }
+}
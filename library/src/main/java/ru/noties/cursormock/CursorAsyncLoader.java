@@ -0,0 +1,141 @@
+package ru.noties.cursormock;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+
+/**
+ * Builds a {@link CursorMock} in background: a cursor is returned immediately and rows continue
+ * to be added by a {@link Source} on another thread:
+ * {@code
+ *     final CursorMock mock = CursorAsyncLoader.forColumns("_id", "name")
+ *          .rowCount(1_000_000)
+ *          .load(new CursorAsyncLoader.Source() {
+ *              public void load(CursorAsyncLoader.Sink sink) throws Exception {
+ *                  for (int i = 0; i < 1_000_000 && !sink.isCancelled(); i++) {
+ *                      sink.addRow((long) i, "name" + i);
+ *                  }
+ *              }
+ *          });
+ * }
+ *
+ * Reading an already loaded row does not block. Reading a row that is not loaded yet blocks until
+ * it is added. If row count is specified {@link CursorMock#getCount()} returns it immediately,
+ * otherwise it blocks until all rows are loaded. If a source fails, reading of not loaded rows
+ * throws an {@link IllegalStateException} with the failure as the cause.
+ *
+ * Closing the returned cursor cancels loading ({@link Sink#addRow(Object...)} throws a
+ * {@link CancellationException}).
+ */
+@SuppressWarnings("WeakerAccess")
+public class CursorAsyncLoader {
+
+    /**
+     * Provides rows, called on a background thread
+     */
+    public interface Source {
+
+        /**
+         * @param sink to add rows to
+         * @throws Exception to fail loading
+         */
+        void load(@NonNull Sink sink) throws Exception;
+    }
+
+    public interface Sink {
+
+        /**
+         * @param values of a row, added row is visible to readers immediately
+         * @throws IllegalArgumentException if values do not match columns
+         * @throws IllegalStateException if more rows than specified by {@link #rowCount(int)} are added
+         * @throws CancellationException if cursor is closed
+         */
+        void addRow(Object... values) throws IllegalArgumentException, IllegalStateException, CancellationException;
+
+        /**
+         * @return true if cursor is closed and no more rows are needed
+         */
+        boolean isCancelled();
+    }
+
+    /**
+     * Factory method to start building a {@link CursorMock} based on column names.
+     * Column types are detected by added values.
+     */
+    @NonNull
+    public static CursorAsyncLoader forColumns(@NonNull String firstColumn, String... otherColumns) {
+        return new CursorAsyncLoader(CursorSchemaFactory.raw(firstColumn, otherColumns));
+    }
+
+    private final CursorSchema mCursorSchema;
+
+    private int mRowCount = -1;
+    private Executor mExecutor;
+
+    CursorAsyncLoader(@NonNull CursorSchema cursorSchema) {
+        mCursorSchema = cursorSchema;
+    }
+
+    /**
+     * @param rowCount exact number of rows a source adds, so {@link CursorMock#getCount()} does not block
+     * @return self to chain calls
+     */
+    @SuppressLint("DefaultLocale")
+    public CursorAsyncLoader rowCount(int rowCount) throws IllegalArgumentException {
+        if (rowCount < 0) {
+            throw new IllegalArgumentException(String.format("Row count must not be negative, actual: %d", rowCount));
+        }
+        mRowCount = rowCount;
+        return this;
+    }
+
+    /**
+     * @param executor to run a {@link Source} on, by default a new daemon thread is started for each load
+     * @return self to chain calls
+     */
+    public CursorAsyncLoader executor(@Nullable Executor executor) {
+        mExecutor = executor;
+        return this;
+    }
+
+    /**
+     * Can be called multiple times, each call starts a new loading
+     *
+     * @param source of rows
+     * @return {@link CursorMock} that is filled with rows in background
+     */
+    @NonNull
+    public CursorMock load(@NonNull final Source source) {
+
+        final CursorRowsAsync rows = new CursorRowsAsync(mCursorSchema, mRowCount);
+
+        final Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                Throwable error = null;
+                try {
+                    source.load(rows);
+                } catch (CancellationException e) {
+                    // cursor is closed
+                } catch (Throwable t) {
+                    error = t;
+                } finally {
+                    rows.finish(error);
+                }
+            }
+        };
+
+        if (mExecutor != null) {
+            mExecutor.execute(runnable);
+        } else {
+            final Thread thread = new Thread(runnable, "CursorAsyncLoader");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        return new CursorMock(mCursorSchema, rows);
+    }
+}
@@ -0,0 +1,216 @@
+package ru.noties.cursormock;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * A batch of consecutive rows stored by columns, emitted by {@link CursorPublisher}. Values of
+ * a column are available as one of: `long[]` (if all non-null values are integral), `double[]`
+ * (if all non-null values are floating point) or `Object[]` (TEXT, BLOB or values of mixed types),
+ * only first {@link #size()} elements of an array are valid:
+ * {@code
+ *     final long[] ids = batch.longs(0);
+ *     for (int i = 0, size = batch.size(); i < size; i++) {
+ *         if (!batch.isNull(0, i)) {
+ *             process(ids[i]);
+ *         }
+ *     }
+ * }
+ *
+ * An instance (and its arrays) is reused for the next batch, so it is valid only until
+ * {@link CursorPublisher.Subscriber#onNext(CursorBatch)} returns.
+ */
+@SuppressWarnings("WeakerAccess")
+public class CursorBatch {
+
+    private final CursorSchema mCursorSchema;
+    private final Slice[] mSlices;
+    private final CursorColumnValues[] mValues;
+
+    private int mStart;
+    private int mSize;
+
+    CursorBatch(@NonNull CursorSchema cursorSchema, @NonNull CursorRows cursorRows, int capacity) {
+        final int columns = cursorSchema.columnCount();
+        mCursorSchema = cursorSchema;
+        mSlices = new Slice[columns];
+        mValues = new CursorColumnValues[columns];
+        for (int i = 0; i < columns; i++) {
+            mSlices[i] = new Slice(capacity);
+            mValues[i] = new CursorColumnValues(cursorRows, i);
+        }
+    }
+
+    /**
+     * @return index of the first row of this batch in the cursor
+     */
+    public int startRow() {
+        return mStart;
+    }
+
+    /**
+     * @return number of rows in this batch
+     */
+    public int size() {
+        return mSize;
+    }
+
+    public int columnCount() {
+        return mSlices.length;
+    }
+
+    @Nullable
+    public String columnName(int column) {
+        return mCursorSchema.columnName(column);
+    }
+
+    public boolean isNull(int column, int index) {
+        return CursorRowsColumnar.isBitSet(mSlices[column].nulls, index);
+    }
+
+    /**
+     * @return values of a column if all its non-null values in this batch are integral, otherwise null
+     */
+    @Nullable
+    public long[] longs(int column) {
+        final Slice slice = mSlices[column];
+        return slice.kind == Slice.LONGS
+                ? slice.longs()
+                : null;
+    }
+
+    /**
+     * @return values of a column if all its non-null values in this batch are floating point, otherwise null
+     */
+    @Nullable
+    public double[] doubles(int column) {
+        final Slice slice = mSlices[column];
+        return slice.kind == Slice.DOUBLES
+                ? slice.doubles()
+                : null;
+    }
+
+    /**
+     * @return values of a column if it is not available as {@link #longs(int)} or {@link #doubles(int)},
+     *          otherwise null
+     */
+    @Nullable
+    public Object[] objects(int column) {
+        final Slice slice = mSlices[column];
+        return slice.kind == Slice.OBJECTS
+                ? slice.objects()
+                : null;
+    }
+
+    // reads rows [start, start + size) into this batch
+    void fill(int start, int size) {
+        mStart = start;
+        mSize = size;
+        for (int i = 0; i < mSlices.length; i++) {
+            fill(mSlices[i], mCursorSchema.columnType(i), mValues[i], start, size);
+        }
+    }
+
+    private static void fill(
+            @NonNull Slice slice,
+            @Nullable ColumnType type,
+            @NonNull CursorColumnValues values,
+            int start,
+            int size) {
+
+        Arrays.fill(slice.nulls, 0, (size + 63) >>> 6, 0L);
+
+        slice.kind = type == ColumnType.INT
+                ? Slice.LONGS
+                : type == ColumnType.FLOAT ? Slice.DOUBLES : Slice.OBJECTS;
+
+        for (int i = 0; i < size; i++) {
+
+            final int row = start + i;
+
+            if (values.isNull(row)) {
+                slice.nulls[i >>> 6] |= 1L << i;
+                if (slice.kind == Slice.OBJECTS) {
+                    slice.objects()[i] = null;
+                }
+                continue;
+            }
+
+            if (slice.kind == Slice.LONGS) {
+                if (values.isInteger(row)) {
+                    slice.longs()[i] = values.getLong(row);
+                    continue;
+                }
+                slice.toObjects(i);
+            } else if (slice.kind == Slice.DOUBLES) {
+                if (values.isReal(row)) {
+                    slice.doubles()[i] = values.getDouble(row);
+                    continue;
+                }
+                slice.toObjects(i);
+            }
+
+            slice.objects()[i] = values.get(row);
+        }
+    }
+
+    private static class Slice {
+
+        static final int LONGS = 0;
+        static final int DOUBLES = 1;
+        static final int OBJECTS = 2;
+
+        final int capacity;
+        final long[] nulls;
+
+        int kind;
+
+        // created when needed
+        long[] longs;
+        double[] doubles;
+        Object[] objects;
+
+        Slice(int capacity) {
+            this.capacity = capacity;
+            this.nulls = new long[(capacity + 63) >>> 6];
+        }
+
+        long[] longs() {
+            if (longs == null) {
+                longs = new long[capacity];
+            }
+            return longs;
+        }
+
+        double[] doubles() {
+            if (doubles == null) {
+                doubles = new double[capacity];
+            }
+            return doubles;
+        }
+
+        Object[] objects() {
+            if (objects == null) {
+                objects = new Object[capacity];
+            }
+            return objects;
+        }
+
+        // a value of another type is found, first `count` values are moved to objects
+        void toObjects(int count) {
+            final Object[] objects = objects();
+            for (int i = 0; i < count; i++) {
+                if (CursorRowsColumnar.isBitSet(nulls, i)) {
+                    objects[i] = null;
+                } else if (kind == LONGS) {
+                    objects[i] = longs[i];
+                } else {
+                    objects[i] = doubles[i];
+                }
+            }
+            kind = OBJECTS;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package ru.noties.cursormock;
+
+import android.annotation.SuppressLint;
+import android.database.Cursor;
+import android.support.annotation.NonNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Captures data of any {@link Cursor} (for example returned by a ContentProvider or SQLiteDatabase)
+ * into a {@link CursorMock}, so it can be replayed later without the original data source.
+ *
+ * {@code
+ *     final CursorMock mock = CursorCapture.capture(cursor);
+ * }
+ *
+ * Values are read by {@link Cursor#getType(int)} into typed column storage. Position of a cursor is
+ * restored after capture, supplied cursor is not closed.
+ *
+ * A cursor that is too large for the heap can be captured to a file:
+ * {@code
+ *     final CursorMock mock = CursorCapture.captureToFile(cursor, new File(dir, "messages.cursor"));
+ *     // later, possibly in another process
+ *     final CursorMock replay = CursorCapture.open(new File(dir, "messages.cursor"));
+ * }
+ * Rows are streamed to the file and then the file is memory-mapped, values are copied to the heap
+ * only when they are read. File size is limited to 2GB.
+ */
+@SuppressWarnings("WeakerAccess")
+public class CursorCapture {
+
+    /**
+     * Captures all rows of the cursor to the heap. Values of a column must have the same type
+     * (INT values are widened in a FLOAT column), otherwise use {@link #captureToFile(Cursor, File)}
+     *
+     * @param cursor to capture
+     * @return {@link CursorMock} with the same columns &amp; rows as the supplied cursor
+     * @throws IllegalArgumentException if a column has values of different types
+     */
+    @NonNull
+    @SuppressLint("DefaultLocale")
+    public static CursorMock capture(@NonNull Cursor cursor) throws IllegalArgumentException {
+
+        final CursorSchema schema = new CursorSchemaImpl(
+                cursor.getColumnNames(),
+                new ColumnType[cursor.getColumnCount()]
+        );
+
+        final int columns = schema.columnCount();
+        final CursorRowsColumnarBuilder builder = new CursorRowsColumnarBuilder(schema, cursor.getCount());
+
+        final int position = cursor.getPosition();
+        try {
+            if (cursor.moveToFirst()) {
+                do {
+                    builder.nextRow();
+                    for (int i = 0; i < columns; i++) {
+                        try {
+                            switch (cursor.getType(i)) {
+                                case Cursor.FIELD_TYPE_INTEGER:
+                                    builder.putLong(i, cursor.getLong(i));
+                                    break;
+                                case Cursor.FIELD_TYPE_FLOAT:
+                                    builder.putDouble(i, cursor.getDouble(i));
+                                    break;
+                                case Cursor.FIELD_TYPE_STRING:
+                                    builder.putString(i, cursor.getString(i));
+                                    break;
+                                case Cursor.FIELD_TYPE_BLOB:
+                                    builder.putBlob(i, cursor.getBlob(i));
+                                    break;
+                            }
+                        } catch (IllegalArgumentException e) {
+                            throw new IllegalArgumentException(String.format("Column `%s` has values of " +
+                                    "different types, use CursorCapture#captureToFile to capture such a cursor",
+                                    schema.columnName(i)), e);
+                        }
+                    }
+                } while (cursor.moveToNext());
+            }
+        } finally {
+            cursor.moveToPosition(position);
+        }
+
+        return new CursorMock(schema, builder.build());
+    }
+
+    /**
+     * Captures all rows of the cursor to the file (an existing file is overwritten) and returns
+     * a {@link CursorMock} that reads values from the memory-mapped file. Values of a column can
+     * have different types.
+     *
+     * @param cursor to capture
+     * @param file to write data to
+     * @return {@link CursorMock} with the same columns &amp; rows as the supplied cursor
+     * @throws IOException if data cannot be written or exceeds 2GB
+     * @see #open(File)
+     */
+    @NonNull
+    public static CursorMock captureToFile(@NonNull Cursor cursor, @NonNull File file) throws IOException {
+
+        final FileOutputStream outputStream = new FileOutputStream(file);
+        try {
+            final CursorRowsBufferWriter writer = new CursorRowsBufferWriter(
+                    outputStream.getChannel(),
+                    cursor.getColumnNames()
+            );
+            write(cursor, writer);
+            writer.finish();
+        } finally {
+            outputStream.close();
+        }
+
+        return open(file);
+    }
+
+    /**
+     * Opens a file previously written by {@link #captureToFile(Cursor, File)}
+     *
+     * @param file to read data from
+     * @return {@link CursorMock} that reads values from the memory-mapped file
+     * @throws IOException if file cannot be read
+     * @throws IllegalArgumentException if file has invalid format
+     */
+    @NonNull
+    public static CursorMock open(@NonNull File file) throws IOException, IllegalArgumentException {
+
+        final MappedByteBuffer buffer;
+
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = randomAccessFile.getChannel();
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File exceeds the maximum size of " + Integer.MAX_VALUE + " bytes");
+            }
+            // mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } finally {
+            randomAccessFile.close();
+        }
+
+        final CursorRowsBuffer rows = new CursorRowsBuffer(buffer);
+        return new CursorMock(rows.cursorSchema(), rows);
+    }
+
+    static void write(@NonNull Cursor cursor, @NonNull CursorRowsBufferWriter writer) throws IOException {
+
+        final int columns = cursor.getColumnCount();
+
+        final int position = cursor.getPosition();
+        try {
+            if (cursor.moveToFirst()) {
+                do {
+                    writer.nextRow();
+                    for (int i = 0; i < columns; i++) {
+                        switch (cursor.getType(i)) {
+                            case Cursor.FIELD_TYPE_INTEGER:
+                                writer.putLong(cursor.getLong(i));
+                                break;
+                            case Cursor.FIELD_TYPE_FLOAT:
+                                writer.putDouble(cursor.getDouble(i));
+                                break;
+                            case Cursor.FIELD_TYPE_STRING:
+                                writer.putString(cursor.getString(i));
+                                break;
+                            case Cursor.FIELD_TYPE_BLOB:
+                                writer.putBlob(cursor.getBlob(i));
+                                break;
+                            default:
+                                writer.putNull();
+                        }
+                    }
+                } while (cursor.moveToNext());
+            }
+        } finally {
+            cursor.moveToPosition(position);
+        }
+    }
+
+    private CursorCapture() {}
+}
@@ -0,0 +1,71 @@
+package ru.noties.cursormock;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A clock that is used by {@link CursorLatency} to account simulated cursor costs.
+ *
+ * @see Simulated
+ * @see Sleeping
+ * @see CursorLatencyModel
+ */
+@SuppressWarnings("WeakerAccess")
+public interface CursorClock {
+
+    /**
+     * @return current time of this clock in nanoseconds
+     */
+    long nanoTime();
+
+    /**
+     * Called when an operation costs `nanos`
+     *
+     * @param nanos time that an operation costs in nanoseconds (always positive)
+     */
+    void elapse(long nanos);
+
+    /**
+     * Deterministic clock that doesn't block, but only advances its time by elapsed nanoseconds.
+     * Can be shared between multiple threads.
+     */
+    class Simulated implements CursorClock {
+
+        private final AtomicLong mNanos = new AtomicLong();
+
+        @Override
+        public long nanoTime() {
+            return mNanos.get();
+        }
+
+        @Override
+        public void elapse(long nanos) {
+            mNanos.addAndGet(nanos);
+        }
+    }
+
+    /**
+     * Clock that blocks calling thread for elapsed nanoseconds, so the cost of operations is real
+     */
+    class Sleeping implements CursorClock {
+
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void elapse(long nanos) {
+            final long end = System.nanoTime() + nanos;
+            long left = nanos;
+            while (left > 0) {
+                try {
+                    Thread.sleep(left / 1000000L, (int) (left % 1000000L));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                left = end - System.nanoTime();
+            }
+        }
+    }
+}
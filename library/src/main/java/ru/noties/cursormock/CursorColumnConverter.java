@@ -0,0 +1,603 @@
+package ru.noties.cursormock;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteException;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+/**
+ * Converts values of a column as SQLite {@link android.database.CursorWindow} does:
+ * <ul>
+ *     <li>getString: INT -&gt; decimal string, FLOAT -&gt; `%g` of C (`4.5`, `1e+06`), BLOB -&gt; exception</li>
+ *     <li>getLong: FLOAT -&gt; truncated value, TEXT -&gt; `strtoll` of C (leading numeric prefix or `0`), BLOB -&gt; exception</li>
+ *     <li>getDouble: INT -&gt; value, TEXT -&gt; `strtod` of C, BLOB -&gt; exception</li>
+ *     <li>getBlob: TEXT -&gt; UTF-8 bytes with a trailing zero byte, INT &amp; FLOAT -&gt; exception</li>
+ *     <li>NULL is `null` for objects and `0` for numbers</li>
+ * </ul>
+ *
+ * A converter is resolved once for a column (from {@link CursorSchema#columnType(int)} and the storage
+ * of {@link CursorRows}) and is not shared between {@link CursorMock} instances.
+ */
+abstract class CursorColumnConverter {
+
+    /**
+     * @param stringCacheSize number of rows to cache results of `getString` for INT and FLOAT columns,
+     *                        0 to disable the cache
+     * @return a converter for the column or null if type of the column is not known yet
+     */
+    @Nullable
+    static CursorColumnConverter create(
+            @NonNull CursorSchema cursorSchema,
+            @NonNull CursorRows cursorRows,
+            int column,
+            int stringCacheSize) {
+
+        final CursorRowsColumnar.Column data = cursorRows instanceof CursorRowsColumnar
+                ? ((CursorRowsColumnar) cursorRows).column(column)
+                : null;
+
+        if (data instanceof CursorRowsColumnar.TaggedColumn) {
+            // has no type in the schema
+            return new TaggedColumnConverter((CursorRowsColumnar.TaggedColumn) data);
+        }
+
+        final ColumnType type = cursorSchema.columnType(column);
+        if (type == null) {
+            return null;
+        }
+
+        if (data instanceof CursorRowsColumnar.LongColumn) {
+            return new LongColumnConverter((CursorRowsColumnar.LongColumn) data, stringCacheSize);
+        }
+        if (data instanceof CursorRowsColumnar.DoubleColumn) {
+            return new DoubleColumnConverter((CursorRowsColumnar.DoubleColumn) data, stringCacheSize);
+        }
+
+        switch (type) {
+            case INT:
+            case FLOAT:
+                return new NumberConverter(stringCacheSize);
+            case TEXT:
+                return new TextConverter();
+            default:
+                return DYNAMIC;
+        }
+    }
+
+    /**
+     * Converter that checks type of each value, used for columns without type information
+     */
+    static final CursorColumnConverter DYNAMIC = new CursorColumnConverter() {
+    };
+
+    @Nullable
+    String getString(@NonNull CursorRows rows, int row, int column) {
+        return toString(rows.get(Object.class, row, column));
+    }
+
+    long getLong(@NonNull CursorRows rows, int row, int column) {
+        return toLong(rows.get(Object.class, row, column));
+    }
+
+    double getDouble(@NonNull CursorRows rows, int row, int column) {
+        return toDouble(rows.get(Object.class, row, column));
+    }
+
+    @Nullable
+    byte[] getBlob(@NonNull CursorRows rows, int row, int column) {
+        return toBlob(rows.get(Object.class, row, column));
+    }
+
+    @Nullable
+    static String toString(@Nullable Object value) throws SQLiteException {
+        if (value == null || value instanceof String) {
+            return (String) value;
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return formatDouble(((Number) value).doubleValue());
+        }
+        if (value instanceof Number) {
+            return Long.toString(((Number) value).longValue());
+        }
+        throw unableToConvert(value, "string");
+    }
+
+    static long toLong(@Nullable Object value) throws SQLiteException {
+        if (value == null) {
+            return 0L;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof String) {
+            return parseLong((String) value);
+        }
+        throw unableToConvert(value, "long");
+    }
+
+    static double toDouble(@Nullable Object value) throws SQLiteException {
+        if (value == null) {
+            return .0D;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String) {
+            return parseDouble((String) value);
+        }
+        throw unableToConvert(value, "double");
+    }
+
+    @Nullable
+    static byte[] toBlob(@Nullable Object value) throws SQLiteException {
+        if (value == null || value instanceof byte[]) {
+            return (byte[]) value;
+        }
+        if (value instanceof String) {
+            // CursorWindow stores strings with a null terminator and returns it as a part of a blob
+            final byte[] bytes = ((String) value).getBytes(Utf8.CHARSET);
+            return Arrays.copyOf(bytes, bytes.length + 1);
+        }
+        throw unableToConvert(value, "blob");
+    }
+
+    private static SQLiteException unableToConvert(@NonNull Object value, @NonNull String to) {
+        final String from;
+        if (value instanceof byte[]) {
+            from = "BLOB";
+        } else if (value instanceof Double || value instanceof Float) {
+            from = "FLOAT";
+        } else if (value instanceof Number) {
+            from = "INTEGER";
+        } else {
+            from = value.getClass().getName();
+        }
+        return new SQLiteException("Unable to convert " + from + " to " + to);
+    }
+
+    /**
+     * Formats a double as `printf("%g", value)` of C does: 6 significant digits, trailing zeros
+     * are removed, exponent notation is used if exponent is less than -4 or greater than 5
+     */
+    @NonNull
+    static String formatDouble(double value) {
+
+        if (Double.isNaN(value)) {
+            return "nan";
+        }
+
+        if (Double.isInfinite(value)) {
+            return value > 0
+                    ? "inf"
+                    : "-inf";
+        }
+
+        if (value == .0D) {
+            return (1.D / value) < 0
+                    ? "-0"
+                    : "0";
+        }
+
+        final BigDecimal decimal = new BigDecimal(value).round(new MathContext(6, RoundingMode.HALF_EVEN));
+        final int exponent = decimal.precision() - decimal.scale() - 1;
+
+        if (exponent < -4 || exponent >= 6) {
+
+            final String digits = decimal.unscaledValue().abs().toString();
+
+            int end = digits.length();
+            while (end > 1 && digits.charAt(end - 1) == '0') {
+                end -= 1;
+            }
+
+            final StringBuilder builder = new StringBuilder(16);
+            if (decimal.signum() < 0) {
+                builder.append('-');
+            }
+            builder.append(digits.charAt(0));
+            if (end > 1) {
+                builder.append('.').append(digits, 1, end);
+            }
+            builder.append('e').append(exponent < 0 ? '-' : '+');
+            final int absExponent = Math.abs(exponent);
+            if (absExponent < 10) {
+                builder.append('0');
+            }
+            return builder.append(absExponent).toString();
+        }
+
+        final BigDecimal stripped = decimal.stripTrailingZeros();
+        return stripped.scale() < 0
+                ? stripped.setScale(0).toPlainString()
+                : stripped.toPlainString();
+    }
+
+    /**
+     * Parses a long as `strtoll(value, NULL, 0)` of C does: leading whitespace is skipped, `0x` prefix
+     * is hexadecimal, leading `0` is octal, parsing stops at the first invalid character, an
+     * overflow is clamped. A string without a number is `0`
+     */
+    static long parseLong(@NonNull String value) {
+
+        final int length = value.length();
+
+        int i = 0;
+        while (i < length && isSpace(value.charAt(i))) {
+            i += 1;
+        }
+
+        boolean negative = false;
+        if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+            negative = value.charAt(i) == '-';
+            i += 1;
+        }
+
+        int radix = 10;
+        if (i < length && value.charAt(i) == '0') {
+            if (i + 2 < length
+                    && (value.charAt(i + 1) == 'x' || value.charAt(i + 1) == 'X')
+                    && Character.digit(value.charAt(i + 2), 16) >= 0) {
+                radix = 16;
+                i += 2;
+            } else {
+                radix = 8;
+            }
+        }
+
+        // accumulate negative value, so Long.MIN_VALUE can be parsed
+        final long limit = negative
+                ? Long.MIN_VALUE
+                : -Long.MAX_VALUE;
+        final long multiplyLimit = limit / radix;
+
+        long result = 0L;
+        boolean overflow = false;
+        int digit;
+
+        for (; i < length; i++) {
+            digit = Character.digit(value.charAt(i), radix);
+            if (digit < 0 || value.charAt(i) > 0x7F) {
+                break;
+            }
+            if (overflow) {
+                continue;
+            }
+            if (result < multiplyLimit || result * radix < limit + digit) {
+                overflow = true;
+                result = limit;
+                continue;
+            }
+            result = result * radix - digit;
+        }
+
+        if (overflow) {
+            return negative
+                    ? Long.MIN_VALUE
+                    : Long.MAX_VALUE;
+        }
+
+        return negative
+                ? result
+                : -result;
+    }
+
+    /**
+     * Parses a double as `strtod` of C does for decimal values: leading whitespace is skipped,
+     * parsing stops at the first invalid character. A string without a number is `0`
+     */
+    static double parseDouble(@NonNull String value) {
+
+        final int length = value.length();
+
+        int i = 0;
+        while (i < length && isSpace(value.charAt(i))) {
+            i += 1;
+        }
+
+        final int start = i;
+
+        if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+            i += 1;
+        }
+
+        if (value.regionMatches(true, i, "inf", 0, 3)) {
+            return value.charAt(start) == '-'
+                    ? Double.NEGATIVE_INFINITY
+                    : Double.POSITIVE_INFINITY;
+        }
+
+        if (value.regionMatches(true, i, "nan", 0, 3)) {
+            return Double.NaN;
+        }
+
+        int digits = 0;
+        while (i < length && isDigit(value.charAt(i))) {
+            i += 1;
+            digits += 1;
+        }
+
+        if (i < length && value.charAt(i) == '.') {
+            i += 1;
+            while (i < length && isDigit(value.charAt(i))) {
+                i += 1;
+                digits += 1;
+            }
+        }
+
+        if (digits == 0) {
+            return .0D;
+        }
+
+        int end = i;
+
+        if (i < length && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+            i += 1;
+            if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+                i += 1;
+            }
+            if (i < length && isDigit(value.charAt(i))) {
+                while (i < length && isDigit(value.charAt(i))) {
+                    i += 1;
+                }
+                end = i;
+            }
+        }
+
+        return Double.parseDouble(value.substring(start, end));
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || (c >= '\t' && c <= '\r');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // direct-mapped cache of `getString` results for numeric columns
+    private static class StringCache {
+
+        private final int mMask;
+        private final int[] mRows;
+        private final String[] mValues;
+
+        StringCache(int size) {
+            // round to power of two, so a slot is obtained with a mask
+            final int capacity = size > 1
+                    ? Integer.highestOneBit(size - 1) << 1
+                    : 1;
+            mMask = capacity - 1;
+            mRows = new int[capacity];
+            mValues = new String[capacity];
+            Arrays.fill(mRows, -1);
+        }
+
+        @Nullable
+        String get(int row) {
+            final int slot = row & mMask;
+            return mRows[slot] == row
+                    ? mValues[slot]
+                    : null;
+        }
+
+        void put(int row, @NonNull String value) {
+            final int slot = row & mMask;
+            mRows[slot] = row;
+            mValues[slot] = value;
+        }
+    }
+
+    @Nullable
+    private static StringCache stringCache(int size) {
+        return size > 0
+                ? new StringCache(size)
+                : null;
+    }
+
+    // INT & FLOAT columns that store boxed values
+    private static class NumberConverter extends CursorColumnConverter {
+
+        private final StringCache mStringCache;
+
+        NumberConverter(int stringCacheSize) {
+            mStringCache = stringCache(stringCacheSize);
+        }
+
+        @Override
+        String getString(@NonNull CursorRows rows, int row, int column) {
+
+            if (mStringCache == null) {
+                return super.getString(rows, row, column);
+            }
+
+            String value = mStringCache.get(row);
+            if (value == null) {
+                value = super.getString(rows, row, column);
+                if (value != null) {
+                    mStringCache.put(row, value);
+                }
+            }
+            return value;
+        }
+
+        @Override
+        long getLong(@NonNull CursorRows rows, int row, int column) {
+            final Object value = rows.get(Object.class, row, column);
+            return value instanceof Number
+                    ? ((Number) value).longValue()
+                    : toLong(value);
+        }
+
+        @Override
+        double getDouble(@NonNull CursorRows rows, int row, int column) {
+            final Object value = rows.get(Object.class, row, column);
+            return value instanceof Number
+                    ? ((Number) value).doubleValue()
+                    : toDouble(value);
+        }
+    }
+
+    private static class TextConverter extends CursorColumnConverter {
+
+        @Override
+        String getString(@NonNull CursorRows rows, int row, int column) {
+            final Object value = rows.get(Object.class, row, column);
+            return value == null || value instanceof String
+                    ? (String) value
+                    : toString(value);
+        }
+    }
+
+    // INT column of CursorRowsColumnar, values are read without boxing
+    private static class LongColumnConverter extends CursorColumnConverter {
+
+        private final CursorRowsColumnar.LongColumn mColumn;
+        private final StringCache mStringCache;
+
+        LongColumnConverter(@NonNull CursorRowsColumnar.LongColumn column, int stringCacheSize) {
+            mColumn = column;
+            mStringCache = stringCache(stringCacheSize);
+        }
+
+        @Override
+        String getString(@NonNull CursorRows rows, int row, int column) {
+
+            if (mColumn.isNull(row)) {
+                return null;
+            }
+
+            if (mStringCache == null) {
+                return Long.toString(mColumn.values[row]);
+            }
+
+            String value = mStringCache.get(row);
+            if (value == null) {
+                value = Long.toString(mColumn.values[row]);
+                mStringCache.put(row, value);
+            }
+            return value;
+        }
+
+        @Override
+        long getLong(@NonNull CursorRows rows, int row, int column) {
+            return mColumn.isNull(row)
+                    ? 0L
+                    : mColumn.values[row];
+        }
+
+        @Override
+        double getDouble(@NonNull CursorRows rows, int row, int column) {
+            return mColumn.isNull(row)
+                    ? .0D
+                    : mColumn.values[row];
+        }
+    }
+
+    // FLOAT column of CursorRowsColumnar, values are read without boxing
+    private static class DoubleColumnConverter extends CursorColumnConverter {
+
+        private final CursorRowsColumnar.DoubleColumn mColumn;
+        private final StringCache mStringCache;
+
+        DoubleColumnConverter(@NonNull CursorRowsColumnar.DoubleColumn column, int stringCacheSize) {
+            mColumn = column;
+            mStringCache = stringCache(stringCacheSize);
+        }
+
+        @Override
+        String getString(@NonNull CursorRows rows, int row, int column) {
+
+            if (mColumn.isNull(row)) {
+                return null;
+            }
+
+            if (mStringCache == null) {
+                return formatDouble(mColumn.values[row]);
+            }
+
+            String value = mStringCache.get(row);
+            if (value == null) {
+                value = formatDouble(mColumn.values[row]);
+                mStringCache.put(row, value);
+            }
+            return value;
+        }
+
+        @Override
+        long getLong(@NonNull CursorRows rows, int row, int column) {
+            return mColumn.isNull(row)
+                    ? 0L
+                    : (long) mColumn.values[row];
+        }
+
+        @Override
+        double getDouble(@NonNull CursorRows rows, int row, int column) {
+            return mColumn.isNull(row)
+                    ? .0D
+                    : mColumn.values[row];
+        }
+    }
+
+    // column of CursorRowsColumnar with values of different types, values are read by type tags without boxing
+    private static class TaggedColumnConverter extends CursorColumnConverter {
+
+        private final CursorRowsColumnar.TaggedColumn mColumn;
+
+        TaggedColumnConverter(@NonNull CursorRowsColumnar.TaggedColumn column) {
+            mColumn = column;
+        }
+
+        @Override
+        String getString(@NonNull CursorRows rows, int row, int column) {
+            final CursorRowsColumnar.TaggedColumn data = mColumn;
+            switch (data.types[row]) {
+                case Cursor.FIELD_TYPE_NULL:
+                    return null;
+                case Cursor.FIELD_TYPE_INTEGER:
+                    return Long.toString(data.primitives[row]);
+                case Cursor.FIELD_TYPE_FLOAT:
+                    return formatDouble(Double.longBitsToDouble(data.primitives[row]));
+                default:
+                    //noinspection ConstantConditions
+                    return toString(data.objects[row]);
+            }
+        }
+
+        @Override
+        long getLong(@NonNull CursorRows rows, int row, int column) {
+            final CursorRowsColumnar.TaggedColumn data = mColumn;
+            switch (data.types[row]) {
+                case Cursor.FIELD_TYPE_NULL:
+                    return 0L;
+                case Cursor.FIELD_TYPE_INTEGER:
+                    return data.primitives[row];
+                case Cursor.FIELD_TYPE_FLOAT:
+                    return (long) Double.longBitsToDouble(data.primitives[row]);
+                default:
+                    //noinspection ConstantConditions
+                    return toLong(data.objects[row]);
+            }
+        }
+
+        @Override
+        double getDouble(@NonNull CursorRows rows, int row, int column) {
+            final CursorRowsColumnar.TaggedColumn data = mColumn;
+            switch (data.types[row]) {
+                case Cursor.FIELD_TYPE_NULL:
+                    return .0D;
+                case Cursor.FIELD_TYPE_INTEGER:
+                    return data.primitives[row];
+                case Cursor.FIELD_TYPE_FLOAT:
+                    return Double.longBitsToDouble(data.primitives[row]);
+                default:
+                    //noinspection ConstantConditions
+                    return toDouble(data.objects[row]);
+            }
+        }
+    }
+}
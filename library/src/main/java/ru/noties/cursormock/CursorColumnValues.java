@@ -0,0 +1,151 @@
+package ru.noties.cursormock;
+
+import android.database.Cursor;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Reads values of a single column of {@link CursorRows}. Primitive values of {@link CursorRowsColumnar}
+ * are read without boxing (by type tags for columns with values of different types), other rows are read with {@link CursorRows#get(Class, int, int)}
+ * (the last read value is kept, as usually a value is checked for NULL and then read).
+ *
+ * An instance must not be shared between threads.
+ */
+class CursorColumnValues {
+
+    private final CursorRows mRows;
+    private final int mColumn;
+
+    private final long[] mLongs;
+    private final double[] mDoubles;
+    private final long[] mNulls;
+    private final CursorRowsColumnar.TaggedColumn mTagged;
+
+    private int mRow = -1;
+    private Object mValue;
+
+    CursorColumnValues(@NonNull CursorRows rows, int column) {
+        mRows = rows;
+        mColumn = column;
+        final CursorRowsColumnar.Column data = rows instanceof CursorRowsColumnar
+                ? ((CursorRowsColumnar) rows).column(column)
+                : null;
+        if (data instanceof CursorRowsColumnar.LongColumn) {
+            mLongs = ((CursorRowsColumnar.LongColumn) data).values;
+            mDoubles = null;
+            mNulls = ((CursorRowsColumnar.LongColumn) data).nulls;
+            mTagged = null;
+        } else if (data instanceof CursorRowsColumnar.DoubleColumn) {
+            mLongs = null;
+            mDoubles = ((CursorRowsColumnar.DoubleColumn) data).values;
+            mNulls = ((CursorRowsColumnar.DoubleColumn) data).nulls;
+            mTagged = null;
+        } else {
+            mLongs = null;
+            mDoubles = null;
+            mNulls = null;
+            mTagged = data instanceof CursorRowsColumnar.TaggedColumn
+                    ? (CursorRowsColumnar.TaggedColumn) data
+                    : null;
+        }
+    }
+
+    boolean isNull(int row) {
+        if (mLongs != null || mDoubles != null) {
+            return CursorRowsColumnar.isBitSet(mNulls, row);
+        }
+        if (mTagged != null) {
+            return mTagged.types[row] == Cursor.FIELD_TYPE_NULL;
+        }
+        return get(row) == null;
+    }
+
+    /**
+     * @return true if a value is an integral number
+     */
+    boolean isInteger(int row) {
+        if (mLongs != null) {
+            return true;
+        }
+        if (mDoubles != null) {
+            return false;
+        }
+        if (mTagged != null) {
+            return mTagged.types[row] == Cursor.FIELD_TYPE_INTEGER;
+        }
+        final Object value = get(row);
+        return value instanceof Long
+                || value instanceof Integer
+                || value instanceof Short
+                || value instanceof Byte;
+    }
+
+    /**
+     * @return true if a value is a floating point number
+     */
+    boolean isReal(int row) {
+        if (mDoubles != null) {
+            return true;
+        }
+        if (mLongs != null) {
+            return false;
+        }
+        if (mTagged != null) {
+            return mTagged.types[row] == Cursor.FIELD_TYPE_FLOAT;
+        }
+        final Object value = get(row);
+        return value instanceof Double
+                || value instanceof Float;
+    }
+
+    long getLong(int row) {
+        if (mLongs != null) {
+            return mLongs[row];
+        }
+        if (mDoubles != null) {
+            return (long) mDoubles[row];
+        }
+        if (mTagged != null) {
+            switch (mTagged.types[row]) {
+                case Cursor.FIELD_TYPE_INTEGER:
+                    return mTagged.primitives[row];
+                case Cursor.FIELD_TYPE_FLOAT:
+                    return (long) Double.longBitsToDouble(mTagged.primitives[row]);
+            }
+        }
+        return CursorColumnConverter.toLong(get(row));
+    }
+
+    double getDouble(int row) {
+        if (mLongs != null) {
+            return mLongs[row];
+        }
+        if (mDoubles != null) {
+            return mDoubles[row];
+        }
+        if (mTagged != null) {
+            switch (mTagged.types[row]) {
+                case Cursor.FIELD_TYPE_INTEGER:
+                    return mTagged.primitives[row];
+                case Cursor.FIELD_TYPE_FLOAT:
+                    return Double.longBitsToDouble(mTagged.primitives[row]);
+            }
+        }
+        return CursorColumnConverter.toDouble(get(row));
+    }
+
+    @Nullable
+    Object get(int row) {
+        if (mLongs != null) {
+            return CursorRowsColumnar.isBitSet(mNulls, row) ? null : mLongs[row];
+        }
+        if (mDoubles != null) {
+            return CursorRowsColumnar.isBitSet(mNulls, row) ? null : mDoubles[row];
+        }
+        if (mRow != row) {
+            mValue = mRows.get(Object.class, row, mColumn);
+            mRow = row;
+        }
+        return mValue;
+    }
+}
@@ -0,0 +1,104 @@
+package ru.noties.cursormock;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Presents multiple {@link CursorMock}s with the same columns as one cursor (as {@link android.database.MergeCursor}
+ * does), for example to concatenate pages of data:
+ * {@code
+ *     final CursorMock all = CursorConcat.of(firstPage, secondPage, thirdPage);
+ * }
+ *
+ * Rows are not copied, the resulting cursor references rows of the supplied cursors, so they must
+ * not be reused (for example with {@link CursorMockPool}) while the resulting cursor is in use.
+ * Closing the resulting cursor does not close the supplied ones.
+ *
+ * All cursors must have the same column names (in the same order). Column types must not
+ * contradict each other (a column can have no type information in some of the cursors).
+ */
+@SuppressWarnings("WeakerAccess")
+public class CursorConcat {
+
+    /**
+     * @return a cursor that has rows of all supplied cursors
+     * @throws IllegalArgumentException if cursors have different columns
+     */
+    @NonNull
+    public static CursorMock of(@NonNull CursorMock first, CursorMock... others) throws IllegalArgumentException {
+
+        return new CursorMock(schema(first, others), new CursorRowsConcat(segments(first, others)));
+    }
+
+    /**
+     * @return schema with columns of all cursors (type of a column is taken from the first cursor that has it)
+     * @throws IllegalArgumentException if cursors have different columns
+     */
+    @NonNull
+    static CursorSchema schema(@NonNull CursorMock first, @Nullable CursorMock[] others) throws IllegalArgumentException {
+
+        final CursorSchema schema = first.cursorSchema();
+        final String[] names = schema.columnNames();
+        final ColumnType[] types = new ColumnType[names.length];
+        for (int i = 0; i < names.length; i++) {
+            types[i] = schema.columnType(i);
+        }
+
+        if (others != null) {
+            for (int i = 0; i < others.length; i++) {
+                merge(names, types, others[i].cursorSchema(), i + 1);
+            }
+        }
+
+        return new CursorSchemaImpl(names, types);
+    }
+
+    @NonNull
+    static CursorRows[] segments(@NonNull CursorMock first, @Nullable CursorMock[] others) {
+
+        final int length = others != null
+                ? others.length + 1
+                : 1;
+
+        final CursorRows[] segments = new CursorRows[length];
+        segments[0] = first.cursorRows();
+        for (int i = 1; i < length; i++) {
+            //noinspection ConstantConditions
+            segments[i] = others[i - 1].cursorRows();
+        }
+        return segments;
+    }
+
+    @SuppressLint("DefaultLocale")
+    private static void merge(
+            @NonNull String[] names,
+            @NonNull ColumnType[] types,
+            @NonNull CursorSchema schema,
+            int index) throws IllegalArgumentException {
+
+        final String[] columns = schema.columnNames();
+        if (!Arrays.equals(names, columns)) {
+            throw new IllegalArgumentException(String.format("Cursor at index: %d has different columns. " +
+                    "Expected: %s, actual: %s", index, Arrays.toString(names), Arrays.toString(columns)));
+        }
+
+        ColumnType type;
+        for (int i = 0; i < types.length; i++) {
+            type = schema.columnType(i);
+            if (type == null) {
+                continue;
+            }
+            if (types[i] == null) {
+                types[i] = type;
+            } else if (types[i] != type) {
+                throw new IllegalArgumentException(String.format("Cursor at index: %d has different type " +
+                        "of a column `%s`. Expected: %s, actual: %s", index, names[i], types[i], type));
+            }
+        }
+    }
+
+    private CursorConcat() {}
+}
@@ -0,0 +1,615 @@
+package ru.noties.cursormock;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Imports CSV/TSV data (UTF-8) into a {@link CursorMock}.
+ *
+ * {@code
+ *     final CursorMock mock = CursorCsvImporter.csv()
+ *          .expectedRowCount(100000)
+ *          .importFrom(new File("messages.csv"));
+ * }
+ *
+ * Data is read from a {@link ReadableByteChannel} in large buffers and values are written directly
+ * into typed column storage (numbers are parsed from bytes, without creating a String for each field).
+ *
+ * Column names are taken from the first (header) record, or must be specified explicitly with
+ * {@link #columns(String...)} if data has no header. Column types are inferred from the first
+ * {@link #sampleRows(int)} records: a column is INT if all non-empty values in the sample are
+ * integers, FLOAT if they are numbers, and TEXT otherwise. A type can also be specified explicitly
+ * with {@link #columnType(String, ColumnType)} (BLOB columns receive raw bytes of a field).
+ * If an INT column receives a floating point number after the sample, it's widened to FLOAT.
+ *
+ * Empty unquoted fields are NULL values. Quoted fields follow RFC 4180 (a quote inside a quoted
+ * field is escaped by another quote, quoted fields can contain delimiters and line breaks).
+ */
+@SuppressWarnings("WeakerAccess")
+public class CursorCsvImporter {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 18;
+    public static final int DEFAULT_SAMPLE_ROWS = 1000;
+
+    /**
+     * @return an importer of comma separated values
+     */
+    @NonNull
+    public static CursorCsvImporter csv() {
+        return new CursorCsvImporter((byte) ',');
+    }
+
+    /**
+     * @return an importer of tab separated values
+     */
+    @NonNull
+    public static CursorCsvImporter tsv() {
+        return new CursorCsvImporter((byte) '\t');
+    }
+
+    private final byte mDelimiter;
+
+    private String[] mColumns;
+    private final Map<String, ColumnType> mColumnTypes = new HashMap<>(3);
+    private int mSampleRows = DEFAULT_SAMPLE_ROWS;
+    private int mBufferSize = DEFAULT_BUFFER_SIZE;
+    private int mExpectedRowCount;
+
+    CursorCsvImporter(byte delimiter) {
+        mDelimiter = delimiter;
+    }
+
+    /**
+     * Specifies column names for data without a header record
+     *
+     * @param columns names of the columns
+     * @return self to chain calls
+     */
+    public CursorCsvImporter columns(@NonNull String... columns) {
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("At least one column must be specified");
+        }
+        mColumns = columns.clone();
+        return this;
+    }
+
+    /**
+     * @param columnName name of a column (case insensitive)
+     * @param columnType type of the column, disables type inference for this column (an INT column is
+     *                   not widened to FLOAT, a floating point value is an error)
+     * @return self to chain calls
+     */
+    public CursorCsvImporter columnType(@NonNull String columnName, @NonNull ColumnType columnType) {
+        mColumnTypes.put(columnName.toLowerCase(Locale.US), columnType);
+        return this;
+    }
+
+    /**
+     * @param sampleRows number of records to infer column types from (default {@link #DEFAULT_SAMPLE_ROWS})
+     * @return self to chain calls
+     */
+    @SuppressLint("DefaultLocale")
+    public CursorCsvImporter sampleRows(int sampleRows) {
+        if (sampleRows < 1) {
+            throw new IllegalArgumentException(String.format("Sample rows must be greater than 0, " +
+                    "actual: %d", sampleRows));
+        }
+        mSampleRows = sampleRows;
+        return this;
+    }
+
+    /**
+     * @param bufferSize size of a buffer to read data (default {@link #DEFAULT_BUFFER_SIZE}).
+     *                   A buffer grows if a single record doesn't fit in it
+     * @return self to chain calls
+     */
+    @SuppressLint("DefaultLocale")
+    public CursorCsvImporter bufferSize(int bufferSize) {
+        if (bufferSize < 16) {
+            throw new IllegalArgumentException(String.format("Buffer size must be at least 16 bytes, " +
+                    "actual: %d", bufferSize));
+        }
+        mBufferSize = bufferSize;
+        return this;
+    }
+
+    /**
+     * @param expectedRowCount a hint of how many rows data contains
+     * @return self to chain calls
+     */
+    public CursorCsvImporter expectedRowCount(int expectedRowCount) {
+        mExpectedRowCount = expectedRowCount;
+        return this;
+    }
+
+    @NonNull
+    public CursorMock importFrom(@NonNull File file) throws IOException {
+        final FileInputStream inputStream = new FileInputStream(file);
+        try {
+            return importFrom(inputStream.getChannel());
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Please note that supplied InputStream is not closed
+     */
+    @NonNull
+    public CursorMock importFrom(@NonNull InputStream inputStream) throws IOException {
+        return importFrom(Channels.newChannel(inputStream));
+    }
+
+    /**
+     * Please note that supplied channel is not closed
+     *
+     * @param channel to read data from
+     * @return {@link CursorMock} with imported data
+     * @throws IOException if thrown by the channel
+     * @throws IllegalArgumentException if data is malformed or a value cannot be stored
+     *          in a column of inferred type
+     */
+    @NonNull
+    public CursorMock importFrom(@NonNull ReadableByteChannel channel) throws IOException, IllegalArgumentException {
+        return new Import(channel).execute();
+    }
+
+    private class Import {
+
+        private final ReadableByteChannel mChannel;
+        private final NumberParser mParser = new NumberParser();
+
+        private ByteBuffer mBuffer;
+        private int mLimit;
+        private boolean mIsEof;
+
+        // fields of current record
+        private int mFieldCount;
+        private int[] mFieldStarts = new int[8];
+        private int[] mFieldEnds = new int[8];
+        private boolean[] mFieldQuoted = new boolean[8];
+        private boolean[] mFieldEscaped = new boolean[8];
+
+        private byte[] mUnescaped = new byte[64];
+
+        private int mRecord;
+
+        private ColumnType[] mTypes;
+        // columns with a type specified by `columnType`, they are not widened
+        private boolean[] mIsSpecified;
+        private CursorSchema mCursorSchema;
+        private CursorRowsColumnarBuilder mRowsBuilder;
+
+        Import(@NonNull ReadableByteChannel channel) {
+            mChannel = channel;
+            mBuffer = ByteBuffer.allocate(mBufferSize);
+        }
+
+        @NonNull
+        CursorMock execute() throws IOException {
+
+            String[] columns = mColumns;
+
+            // records are kept in the sample until column types are inferred
+            final List<byte[][]> sample = new ArrayList<>();
+            final List<boolean[]> sampleQuoted = new ArrayList<>();
+
+            int position = 0;
+            int next;
+
+            fill();
+
+            while (true) {
+
+                if (position >= mLimit) {
+                    if (mIsEof) {
+                        break;
+                    }
+                    position = compactAndFill(position);
+                    continue;
+                }
+
+                next = parseRecord(position);
+
+                if (next < 0) {
+                    position = compactAndFill(position);
+                    continue;
+                }
+
+                mRecord += 1;
+
+                if (isBlankRecord()) {
+                    position = next;
+                    continue;
+                }
+
+                final byte[] bytes = mBuffer.array();
+
+                if (columns == null) {
+                    columns = new String[mFieldCount];
+                    for (int i = 0; i < mFieldCount; i++) {
+                        final int length = fieldLength(bytes, i);
+                        columns[i] = new String(mUnescaped, 0, length, Utf8.CHARSET);
+                    }
+                } else if (mRowsBuilder == null) {
+                    checkFieldCount(columns.length);
+                    final byte[][] fields = new byte[mFieldCount][];
+                    final boolean[] quoted = new boolean[mFieldCount];
+                    for (int i = 0; i < mFieldCount; i++) {
+                        // `fieldLength` can grow `mUnescaped`, so it must be called before the copy
+                        final int length = fieldLength(bytes, i);
+                        fields[i] = Arrays.copyOf(mUnescaped, length);
+                        quoted[i] = mFieldQuoted[i];
+                    }
+                    sample.add(fields);
+                    sampleQuoted.add(quoted);
+                    if (sample.size() == mSampleRows) {
+                        startRows(columns, sample, sampleQuoted);
+                    }
+                } else {
+                    checkFieldCount(columns.length);
+                    mRowsBuilder.nextRow();
+                    for (int i = 0; i < mFieldCount; i++) {
+                        if (mFieldEscaped[i]) {
+                            final int length = fieldLength(bytes, i);
+                            writeField(i, mUnescaped, 0, length, true);
+                        } else {
+                            writeField(i, bytes, mFieldStarts[i], mFieldEnds[i], mFieldQuoted[i]);
+                        }
+                    }
+                }
+
+                position = next;
+            }
+
+            if (columns == null) {
+                throw new IllegalArgumentException("Supplied data has no header");
+            }
+
+            if (mRowsBuilder == null) {
+                startRows(columns, sample, sampleQuoted);
+            }
+
+            return new CursorMock(mCursorSchema, mRowsBuilder.build());
+        }
+
+        private void startRows(String[] columns, List<byte[][]> sample, List<boolean[]> sampleQuoted) {
+
+            final int length = columns.length;
+
+            mTypes = new ColumnType[length];
+            mIsSpecified = new boolean[length];
+            for (int i = 0; i < length; i++) {
+                final ColumnType type = mColumnTypes.get(columns[i].toLowerCase(Locale.US));
+                mIsSpecified[i] = type != null;
+                mTypes[i] = type != null
+                        ? type
+                        : inferType(sample, i);
+            }
+
+            // types are copied, so schema changes (widening) do not affect inferred types
+            mCursorSchema = new CursorSchemaImpl(columns, mTypes.clone());
+            mRowsBuilder = new CursorRowsColumnarBuilder(
+                    mCursorSchema,
+                    Math.max(mExpectedRowCount, sample.size())
+            );
+
+            for (int r = 0, size = sample.size(); r < size; r++) {
+                final byte[][] fields = sample.get(r);
+                final boolean[] quoted = sampleQuoted.get(r);
+                mRowsBuilder.nextRow();
+                for (int i = 0; i < fields.length; i++) {
+                    writeField(i, fields[i], 0, fields[i].length, quoted[i]);
+                }
+            }
+
+            sample.clear();
+            sampleQuoted.clear();
+        }
+
+        private ColumnType inferType(List<byte[][]> sample, int column) {
+
+            boolean isInt = true;
+            boolean isFloat = true;
+
+            for (byte[][] fields: sample) {
+                if (column >= fields.length || fields[column].length == 0) {
+                    continue;
+                }
+                final byte[] field = fields[column];
+                if (isInt && !mParser.parseLong(field, 0, field.length)) {
+                    isInt = false;
+                }
+                if (!isInt && !mParser.parseDouble(field, 0, field.length)) {
+                    isFloat = false;
+                    break;
+                }
+            }
+
+            final ColumnType type;
+            if (isInt) {
+                // a column without values in the sample is treated as TEXT
+                type = hasValues(sample, column)
+                        ? ColumnType.INT
+                        : ColumnType.TEXT;
+            } else if (isFloat) {
+                type = ColumnType.FLOAT;
+            } else {
+                type = ColumnType.TEXT;
+            }
+            return type;
+        }
+
+        private boolean hasValues(List<byte[][]> sample, int column) {
+            for (byte[][] fields: sample) {
+                if (column < fields.length && fields[column].length > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void writeField(int column, byte[] bytes, int start, int end, boolean quoted) {
+
+            if (start == end) {
+                if (quoted && mTypes[column] == ColumnType.TEXT) {
+                    mRowsBuilder.putString(column, "");
+                }
+                return;
+            }
+
+            final ColumnType type = mRowsBuilder.columnType(column);
+
+            //noinspection ConstantConditions
+            switch (type) {
+
+                case INT:
+                    if (mParser.parseLong(bytes, start, end)) {
+                        mRowsBuilder.putLong(column, mParser.longValue);
+                        break;
+                    }
+                    if (mIsSpecified[column]) {
+                        throw notANumber(column, bytes, start, end, type);
+                    }
+                    // fall through, inferred INT column is widened if value is a floating point number
+
+                case FLOAT:
+                    if (mParser.parseDouble(bytes, start, end)) {
+                        mRowsBuilder.putDouble(column, mParser.doubleValue);
+                    } else {
+                        throw notANumber(column, bytes, start, end, type);
+                    }
+                    break;
+
+                case TEXT:
+                    mRowsBuilder.putString(column, new String(bytes, start, end - start, Utf8.CHARSET));
+                    break;
+
+                default:
+                    mRowsBuilder.putBlob(column, Arrays.copyOfRange(bytes, start, end));
+            }
+        }
+
+        @NonNull
+        @SuppressLint("DefaultLocale")
+        private IllegalArgumentException notANumber(int column, byte[] bytes, int start, int end, ColumnType type) {
+            return new IllegalArgumentException(String.format("Value `%s` at record: %d, column: %d " +
+                    "is not a number, column type: %s", new String(bytes, start, end - start, Utf8.CHARSET),
+                    mRecord, column, type));
+        }
+
+        @SuppressLint("DefaultLocale")
+        private void checkFieldCount(int columns) {
+            if (mFieldCount > columns) {
+                throw new IllegalArgumentException(String.format("Record: %d has more fields than " +
+                        "columns. Expected: %d, actual: %d", mRecord, columns, mFieldCount));
+            }
+        }
+
+        private boolean isBlankRecord() {
+            return mFieldCount == 1
+                    && !mFieldQuoted[0]
+                    && mFieldStarts[0] == mFieldEnds[0];
+        }
+
+        // returns length of a field, escaped fields are unescaped into `mUnescaped`,
+        // fields that are copied to the sample are also put in `mUnescaped`
+        private int fieldLength(byte[] bytes, int field) {
+
+            final int start = mFieldStarts[field];
+            final int end = mFieldEnds[field];
+            final int length = end - start;
+
+            if (mUnescaped.length < length) {
+                mUnescaped = new byte[Math.max(length, mUnescaped.length * 2)];
+            }
+
+            if (!mFieldEscaped[field]) {
+                System.arraycopy(bytes, start, mUnescaped, 0, length);
+                return length;
+            }
+
+            int out = 0;
+            for (int i = start; i < end; i++) {
+                mUnescaped[out++] = bytes[i];
+                if (bytes[i] == '"') {
+                    // skip the second quote
+                    i += 1;
+                }
+            }
+            return out;
+        }
+
+        // parses a record starting at `start`, returns the start of the next record
+        // or -1 if more data is required
+        @SuppressLint("DefaultLocale")
+        private int parseRecord(int start) {
+
+            final byte[] bytes = mBuffer.array();
+            final int limit = mLimit;
+            final boolean eof = mIsEof;
+            final byte delimiter = mDelimiter;
+
+            mFieldCount = 0;
+
+            int p = start;
+
+            while (true) {
+
+                final int fieldStart;
+                final int fieldEnd;
+                boolean quoted = false;
+                boolean escaped = false;
+
+                if (p < limit && bytes[p] == '"') {
+
+                    quoted = true;
+
+                    int q = p + 1;
+                    fieldStart = q;
+
+                    while (true) {
+                        if (q >= limit) {
+                            if (eof) {
+                                throw new IllegalArgumentException(String.format("Record: %d has " +
+                                        "unterminated quoted field", mRecord + 1));
+                            }
+                            return -1;
+                        }
+                        if (bytes[q] == '"') {
+                            if (q + 1 >= limit && !eof) {
+                                // cannot tell if it's an escaped quote
+                                return -1;
+                            }
+                            if (q + 1 < limit && bytes[q + 1] == '"') {
+                                escaped = true;
+                                q += 2;
+                                continue;
+                            }
+                            break;
+                        }
+                        q += 1;
+                    }
+
+                    fieldEnd = q;
+                    p = q + 1;
+
+                } else {
+
+                    fieldStart = p;
+
+                    byte b;
+                    while (p < limit) {
+                        b = bytes[p];
+                        if (b == delimiter || b == '\n' || b == '\r') {
+                            break;
+                        }
+                        p += 1;
+                    }
+
+                    if (p >= limit && !eof) {
+                        return -1;
+                    }
+
+                    fieldEnd = p;
+                }
+
+                addField(fieldStart, fieldEnd, quoted, escaped);
+
+                if (p >= limit) {
+                    // end of data
+                    return p;
+                }
+
+                final byte b = bytes[p];
+
+                if (b == delimiter) {
+                    p += 1;
+                } else if (b == '\n') {
+                    return p + 1;
+                } else if (b == '\r') {
+                    if (p + 1 >= limit) {
+                        return eof ? p + 1 : -1;
+                    }
+                    return bytes[p + 1] == '\n'
+                            ? p + 2
+                            : p + 1;
+                } else {
+                    throw new IllegalArgumentException(String.format("Record: %d has unexpected " +
+                            "character after a quoted field", mRecord + 1));
+                }
+            }
+        }
+
+        private void addField(int start, int end, boolean quoted, boolean escaped) {
+            final int index = mFieldCount;
+            if (index == mFieldStarts.length) {
+                final int length = index * 2;
+                mFieldStarts = Arrays.copyOf(mFieldStarts, length);
+                mFieldEnds = Arrays.copyOf(mFieldEnds, length);
+                mFieldQuoted = Arrays.copyOf(mFieldQuoted, length);
+                mFieldEscaped = Arrays.copyOf(mFieldEscaped, length);
+            }
+            mFieldStarts[index] = start;
+            mFieldEnds[index] = end;
+            mFieldQuoted[index] = quoted;
+            mFieldEscaped[index] = escaped;
+            mFieldCount = index + 1;
+        }
+
+        // moves unparsed data to the beginning of the buffer and reads more data,
+        // returns new position of the unparsed data
+        private int compactAndFill(int position) throws IOException {
+
+            final int remaining = mLimit - position;
+
+            if (position == 0 && remaining == mBuffer.capacity()) {
+                // a single record doesn't fit in the buffer
+                final ByteBuffer buffer = ByteBuffer.allocate(mBuffer.capacity() * 2);
+                System.arraycopy(mBuffer.array(), 0, buffer.array(), 0, remaining);
+                mBuffer = buffer;
+            } else if (position > 0) {
+                final byte[] bytes = mBuffer.array();
+                System.arraycopy(bytes, position, bytes, 0, remaining);
+            }
+
+            mLimit = remaining;
+            fill();
+
+            return 0;
+        }
+
+        private void fill() throws IOException {
+            final ByteBuffer buffer = mBuffer;
+            buffer.clear();
+            buffer.position(mLimit);
+            int read;
+            while (buffer.hasRemaining()) {
+                read = mChannel.read(buffer);
+                if (read < 0) {
+                    mIsEof = true;
+                    break;
+                }
+                if (read == 0) {
+                    // non-blocking channel has no data at the moment, parse what we have
+                    break;
+                }
+            }
+            mLimit = buffer.position();
+        }
+    }
+}
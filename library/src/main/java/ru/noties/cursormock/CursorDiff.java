@@ -0,0 +1,480 @@
+package ru.noties.cursormock;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares two {@link CursorMock}s by their {@link CursorSchema} and {@link CursorRows} (without
+ * going through the {@link android.database.Cursor} API) and reports the first differences:
+ * {@code
+ *     final CursorDiff.Result result = CursorDiff.of(expected, actual).compare();
+ *     assertTrue(result.toString(), result.isEqual());
+ * }
+ *
+ * Rows are split in blocks of {@link #BLOCK_SIZE} rows. For each block a 64-bit hash of each column
+ * is computed for both cursors and only columns with different hashes are compared cell by cell,
+ * so identical regions are skipped after a single pass. Large inputs (at least {@link #PARALLEL_THRESHOLD} rows)
+ * are processed by multiple threads.
+ *
+ * Values are equal if they have the same type and value: `1` (INT) is not equal to `1.0` (FLOAT),
+ * BLOBs are compared by content, NULL is equal only to NULL.
+ */
+@SuppressWarnings("WeakerAccess")
+public class CursorDiff {
+
+    public static final int DEFAULT_MAX_DIFFERENCES = 10;
+    public static final int BLOCK_SIZE = 1024;
+    public static final int PARALLEL_THRESHOLD = 1 << 15;
+
+    @NonNull
+    public static CursorDiff of(@NonNull CursorMock expected, @NonNull CursorMock actual) {
+        return new CursorDiff(
+                expected.cursorSchema(),
+                expected.cursorRows(),
+                actual.cursorSchema(),
+                actual.cursorRows()
+        );
+    }
+
+    public enum Kind {
+        COLUMN_COUNT,
+        COLUMN_NAME,
+        COLUMN_TYPE,
+        ROW_COUNT,
+        VALUE
+    }
+
+    /**
+     * A difference between expected and actual cursors. For a {@link Kind#VALUE} difference `row`
+     * and `column` point to a cell, for schema differences `row` is -1
+     * (and `column` is -1 for {@link Kind#COLUMN_COUNT} &amp; {@link Kind#ROW_COUNT})
+     */
+    public static class Difference {
+
+        public final Kind kind;
+        public final int row;
+        public final int column;
+        public final String columnName;
+        public final Object expected;
+        public final Object actual;
+
+        Difference(
+                @NonNull Kind kind,
+                int row,
+                int column,
+                @Nullable String columnName,
+                @Nullable Object expected,
+                @Nullable Object actual) {
+            this.kind = kind;
+            this.row = row;
+            this.column = column;
+            this.columnName = columnName;
+            this.expected = expected;
+            this.actual = actual;
+        }
+
+        @Override
+        @SuppressLint("DefaultLocale")
+        public String toString() {
+            final String values = String.format("expected: %s, actual: %s", valueToString(expected), valueToString(actual));
+            switch (kind) {
+                case VALUE:
+                    return String.format("row: %d, column: `%s`, %s", row, columnName, values);
+                case COLUMN_NAME:
+                case COLUMN_TYPE:
+                    return String.format("%s at column: %d, %s", kind, column, values);
+                default:
+                    return String.format("%s, %s", kind, values);
+            }
+        }
+
+        private static String valueToString(@Nullable Object value) {
+            if (value instanceof byte[]) {
+                return Arrays.toString((byte[]) value);
+            }
+            if (value instanceof String) {
+                return "`" + value + "`";
+            }
+            return String.valueOf(value);
+        }
+    }
+
+    public static class Result {
+
+        private final List<Difference> mDifferences;
+
+        Result(@NonNull List<Difference> differences) {
+            mDifferences = Collections.unmodifiableList(differences);
+        }
+
+        public boolean isEqual() {
+            return mDifferences.isEmpty();
+        }
+
+        /**
+         * @return differences ordered by row and column (schema differences go first),
+         *          the number of differences is limited by {@link #maxDifferences(int)}
+         */
+        @NonNull
+        public List<Difference> differences() {
+            return mDifferences;
+        }
+
+        @Override
+        public String toString() {
+            if (mDifferences.isEmpty()) {
+                return "Cursors are equal";
+            }
+            final StringBuilder builder = new StringBuilder("Cursors are different:");
+            for (Difference difference: mDifferences) {
+                builder.append("\n  ").append(difference);
+            }
+            return builder.toString();
+        }
+    }
+
+    private static final long NULL_HASH = 0x9E3779B97F4A7C15L;
+    private static final long REAL_SALT = 0x632BE59BD9B4E019L;
+    private static final long TEXT_SALT = 0x85EBCA77C2B2AE63L;
+    private static final long BLOB_SALT = 0xC2B2AE3D27D4EB4FL;
+
+    private final CursorSchema mExpectedSchema;
+    private final CursorRows mExpectedRows;
+    private final CursorSchema mActualSchema;
+    private final CursorRows mActualRows;
+
+    private int mMaxDifferences = DEFAULT_MAX_DIFFERENCES;
+    private int mParallelism = Runtime.getRuntime().availableProcessors();
+
+    CursorDiff(
+            @NonNull CursorSchema expectedSchema,
+            @NonNull CursorRows expectedRows,
+            @NonNull CursorSchema actualSchema,
+            @NonNull CursorRows actualRows) {
+        mExpectedSchema = expectedSchema;
+        mExpectedRows = expectedRows;
+        mActualSchema = actualSchema;
+        mActualRows = actualRows;
+    }
+
+    /**
+     * @param maxDifferences maximum number of differences to report (default {@link #DEFAULT_MAX_DIFFERENCES}),
+     *                       comparison stops after this number of differences is found
+     * @return self to chain calls
+     */
+    @SuppressLint("DefaultLocale")
+    public CursorDiff maxDifferences(int maxDifferences) {
+        if (maxDifferences < 1) {
+            throw new IllegalArgumentException(String.format("Max differences must be greater than 0, " +
+                    "actual: %d", maxDifferences));
+        }
+        mMaxDifferences = maxDifferences;
+        return this;
+    }
+
+    /**
+     * @param parallelism maximum number of threads to compare large inputs
+     *                    (default is number of available processors), 1 to always compare on the calling thread
+     * @return self to chain calls
+     */
+    @SuppressLint("DefaultLocale")
+    public CursorDiff parallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(String.format("Parallelism must be greater than 0, " +
+                    "actual: %d", parallelism));
+        }
+        mParallelism = parallelism;
+        return this;
+    }
+
+    @NonNull
+    public Result compare() {
+
+        final List<Difference> differences = new ArrayList<>();
+
+        final int columns = compareSchemas(differences);
+
+        final int expectedCount = mExpectedRows.count();
+        final int actualCount = mActualRows.count();
+        if (expectedCount != actualCount) {
+            differences.add(new Difference(Kind.ROW_COUNT, -1, -1, null, expectedCount, actualCount));
+        }
+
+        if (differences.size() >= mMaxDifferences || mExpectedRows == mActualRows) {
+            return result(differences);
+        }
+
+        final int rows = Math.min(expectedCount, actualCount);
+        final int blocks = (rows + BLOCK_SIZE - 1) / BLOCK_SIZE;
+
+        final Comparison comparison = new Comparison(columns, rows, blocks, mMaxDifferences - differences.size());
+
+        final int threads = rows < PARALLEL_THRESHOLD
+                ? 1
+                : Math.min(mParallelism, blocks);
+
+        comparison.run(threads);
+
+        comparison.collect(differences);
+
+        return result(differences);
+    }
+
+    @NonNull
+    private Result result(@NonNull List<Difference> differences) {
+        return new Result(differences.size() > mMaxDifferences
+                ? differences.subList(0, mMaxDifferences)
+                : differences);
+    }
+
+    // returns number of columns to compare values of
+    private int compareSchemas(@NonNull List<Difference> differences) {
+
+        final int expectedColumns = mExpectedSchema.columnCount();
+        final int actualColumns = mActualSchema.columnCount();
+
+        if (expectedColumns != actualColumns) {
+            differences.add(new Difference(Kind.COLUMN_COUNT, -1, -1, null, expectedColumns, actualColumns));
+        }
+
+        final int columns = Math.min(expectedColumns, actualColumns);
+
+        for (int i = 0; i < columns; i++) {
+            final String expected = mExpectedSchema.columnName(i);
+            final String actual = mActualSchema.columnName(i);
+            //noinspection ConstantConditions
+            if (!expected.equals(actual)) {
+                differences.add(new Difference(Kind.COLUMN_NAME, -1, i, expected, expected, actual));
+            }
+            if (mExpectedSchema.columnType(i) != mActualSchema.columnType(i)) {
+                differences.add(new Difference(Kind.COLUMN_TYPE, -1, i, expected,
+                        mExpectedSchema.columnType(i), mActualSchema.columnType(i)));
+            }
+        }
+
+        return columns;
+    }
+
+    private class Comparison {
+
+        private final int mColumns;
+        private final int mRows;
+        private final int mBlocks;
+        private final int mLimit;
+
+        private final AtomicInteger mNextBlock = new AtomicInteger();
+
+        // blocks after this one are not needed, as this block has enough differences
+        private final AtomicInteger mStopBlock = new AtomicInteger(Integer.MAX_VALUE);
+
+        // differences of each block (null if block has no differences)
+        private final List<?>[] mResults;
+
+        // other workers stop when one fails
+        private volatile boolean mIsFailed;
+
+        Comparison(int columns, int rows, int blocks, int limit) {
+            mColumns = columns;
+            mRows = rows;
+            mBlocks = blocks;
+            mLimit = limit;
+            mResults = new List<?>[blocks];
+        }
+
+        void run(int threads) {
+
+            final Runnable work = new Runnable() {
+                @Override
+                public void run() {
+                    work();
+                }
+            };
+
+            final Runnable[] tasks = new Runnable[threads];
+            Arrays.fill(tasks, work);
+
+            // errors of workers are rethrown on the calling thread
+            Workers.run("CursorDiff", tasks);
+        }
+
+        void collect(@NonNull List<Difference> differences) {
+            for (List<?> result: mResults) {
+                if (result != null) {
+                    for (Object difference: result) {
+                        differences.add((Difference) difference);
+                    }
+                }
+            }
+        }
+
+        private void work() {
+
+            // readers are not shared between threads
+            final CursorColumnValues[] expected = new CursorColumnValues[mColumns];
+            final CursorColumnValues[] actual = new CursorColumnValues[mColumns];
+            for (int i = 0; i < mColumns; i++) {
+                expected[i] = new CursorColumnValues(mExpectedRows, i);
+                actual[i] = new CursorColumnValues(mActualRows, i);
+            }
+
+            final boolean[] different = new boolean[mColumns];
+
+            boolean isCompleted = false;
+            try {
+                int block;
+                while ((block = mNextBlock.getAndIncrement()) < mBlocks
+                        && block <= mStopBlock.get()
+                        && !mIsFailed) {
+                    compareBlock(block, expected, actual, different);
+                }
+                isCompleted = true;
+            } finally {
+                if (!isCompleted) {
+                    mIsFailed = true;
+                }
+            }
+        }
+
+        private void compareBlock(
+                int block,
+                @NonNull CursorColumnValues[] expected,
+                @NonNull CursorColumnValues[] actual,
+                @NonNull boolean[] different) {
+
+            final int from = block * BLOCK_SIZE;
+            final int to = Math.min(from + BLOCK_SIZE, mRows);
+
+            boolean hasDifferent = false;
+            for (int c = 0; c < mColumns; c++) {
+                different[c] = hash(expected[c], from, to) != hash(actual[c], from, to);
+                hasDifferent |= different[c];
+            }
+
+            if (!hasDifferent) {
+                return;
+            }
+
+            final List<Difference> differences = new ArrayList<>();
+
+            rows:
+            for (int row = from; row < to; row++) {
+                for (int c = 0; c < mColumns; c++) {
+                    if (different[c] && !equal(expected[c], actual[c], row)) {
+                        differences.add(new Difference(
+                                Kind.VALUE,
+                                row,
+                                c,
+                                mExpectedSchema.columnName(c),
+                                expected[c].get(row),
+                                actual[c].get(row)
+                        ));
+                        if (differences.size() == mLimit) {
+                            stopAfter(block);
+                            break rows;
+                        }
+                    }
+                }
+            }
+
+            mResults[block] = differences;
+        }
+
+        private void stopAfter(int block) {
+            int stop;
+            while ((stop = mStopBlock.get()) > block) {
+                if (mStopBlock.compareAndSet(stop, block)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private static long hash(@NonNull CursorColumnValues values, int from, int to) {
+        long hash = 0xCBF29CE484222325L;
+        for (int row = from; row < to; row++) {
+            hash = hash * 0x100000001B3L + hash(values, row);
+        }
+        return hash;
+    }
+
+    private static long hash(@NonNull CursorColumnValues values, int row) {
+
+        if (values.isNull(row)) {
+            return NULL_HASH;
+        }
+
+        if (values.isInteger(row)) {
+            return mix(values.getLong(row));
+        }
+
+        if (values.isReal(row)) {
+            return mix(Double.doubleToLongBits(values.getDouble(row)) ^ REAL_SALT);
+        }
+
+        final Object value = values.get(row);
+
+        if (value instanceof String) {
+            final String text = (String) value;
+            long hash = TEXT_SALT;
+            for (int i = 0, length = text.length(); i < length; i++) {
+                hash = (hash ^ text.charAt(i)) * 0x100000001B3L;
+            }
+            return mix(hash);
+        }
+
+        if (value instanceof byte[]) {
+            final byte[] blob = (byte[]) value;
+            long hash = BLOB_SALT;
+            for (byte b: blob) {
+                hash = (hash ^ (b & 0xFF)) * 0x100000001B3L;
+            }
+            return mix(hash);
+        }
+
+        //noinspection ConstantConditions
+        return mix(value.hashCode());
+    }
+
+    private static boolean equal(@NonNull CursorColumnValues expected, @NonNull CursorColumnValues actual, int row) {
+
+        final boolean expectedNull = expected.isNull(row);
+        if (expectedNull || actual.isNull(row)) {
+            return expectedNull && actual.isNull(row);
+        }
+
+        if (expected.isInteger(row)) {
+            return actual.isInteger(row)
+                    && expected.getLong(row) == actual.getLong(row);
+        }
+
+        if (expected.isReal(row)) {
+            return actual.isReal(row)
+                    && Double.doubleToLongBits(expected.getDouble(row)) == Double.doubleToLongBits(actual.getDouble(row));
+        }
+
+        final Object expectedValue = expected.get(row);
+        final Object actualValue = actual.get(row);
+
+        if (expectedValue instanceof byte[]) {
+            return actualValue instanceof byte[]
+                    && Arrays.equals((byte[]) expectedValue, (byte[]) actualValue);
+        }
+
+        //noinspection ConstantConditions
+        return expectedValue.equals(actualValue);
+    }
+
+    // finalizer of SplitMix64 (also used by CursorGenerator to derive random values)
+    static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
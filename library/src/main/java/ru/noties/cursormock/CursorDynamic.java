@@ -0,0 +1,213 @@
+package ru.noties.cursormock;
+
+import android.annotation.SuppressLint;
+import android.database.Cursor;
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Builds {@link CursorMock}s which columns can hold values of different types in different rows
+ * (as SQLite does), for example a `value` column with INT, TEXT &amp; NULL values:
+ * {@code
+ *     final CursorMock mock = CursorDynamic.forColumns("key", "value")
+ *          .addRow("count", 42L)
+ *          .addRow("ratio", 0.5D)
+ *          .addRow("title", "Hello")
+ *          .build();
+ * }
+ *
+ * A type tag (one of `Cursor.FIELD_TYPE_*`) is stored for each value, so {@link CursorMock#getType(int)}
+ * returns the type of a value in the current row. INT &amp; FLOAT values are stored in primitive arrays
+ * (no boxing), TEXT &amp; BLOB values in object arrays. Getters convert values as SQLite cursor does.
+ *
+ * Columns of a built {@link CursorMock} have no type in {@link CursorSchema#columnType(int)}, views of it
+ * (for example {@link CursorConcat} or {@link CursorSlice}) derive the type of a value from its class.
+ */
+@SuppressWarnings("WeakerAccess")
+public class CursorDynamic {
+
+    /**
+     * @see Builder#ensureCapacity(int)
+     */
+    @NonNull
+    public static Builder forColumns(@NonNull String firstColumn, String... otherColumns) {
+        return new Builder(CursorSchemaFactory.raw(firstColumn, otherColumns));
+    }
+
+    public static class Builder {
+
+        private static final int DEFAULT_CAPACITY = 16;
+
+        private final CursorSchema mCursorSchema;
+        private final ColumnData[] mColumns;
+
+        // tags of a row that is being added, so a row with an invalid value is not added
+        private final byte[] mRowTypes;
+
+        private int mCapacity = DEFAULT_CAPACITY;
+        private int mCount;
+
+        private boolean mIsBuilt;
+
+        Builder(@NonNull CursorSchema cursorSchema) {
+            final int columns = cursorSchema.columnCount();
+            mCursorSchema = cursorSchema;
+            mColumns = new ColumnData[columns];
+            for (int i = 0; i < columns; i++) {
+                mColumns[i] = new ColumnData();
+            }
+            mRowTypes = new byte[columns];
+        }
+
+        /**
+         * Pre-sizes the storage for the specified number of rows
+         *
+         * @param expectedRowCount a hint of how many rows will be added
+         * @return self to chain calls
+         */
+        public Builder ensureCapacity(int expectedRowCount) {
+            if (expectedRowCount > mCapacity) {
+                mCapacity = expectedRowCount;
+                for (ColumnData data: mColumns) {
+                    // columns without values are allocated with the first value
+                    if (data.types != null) {
+                        data.grow(expectedRowCount);
+                    }
+                }
+            }
+            return this;
+        }
+
+        /**
+         * @param rowValues values of a new row (missing trailing values are NULL), each value
+         *                  can have any type supported by {@link ColumnTypeUtils#columnType(Class)}
+         * @return self to chain calls
+         * @throws IllegalArgumentException if there are more values than columns or a value has
+         *          a not supported type
+         */
+        @SuppressLint("DefaultLocale")
+        public Builder addRow(Object... rowValues) throws IllegalArgumentException, IllegalStateException {
+
+            if (mIsBuilt) {
+                throw new IllegalStateException("CursorMock was already built");
+            }
+
+            final int length = rowValues != null
+                    ? rowValues.length
+                    : 0;
+
+            if (length > mColumns.length) {
+                throw new IllegalArgumentException(String.format("Row has more values: %d than columns: %d",
+                        length, mColumns.length));
+            }
+
+            final byte[] types = mRowTypes;
+            for (int i = 0; i < length; i++) {
+                final Object value = rowValues[i];
+                types[i] = value == null
+                        ? Cursor.FIELD_TYPE_NULL
+                        : (byte) ColumnTypeUtils.columnType(value.getClass()).value;
+            }
+
+            final int row = mCount;
+            if (row == mCapacity) {
+                mCapacity = mCapacity + (mCapacity >> 1);
+            }
+
+            for (int i = 0; i < length; i++) {
+
+                final byte type = types[i];
+                if (type == Cursor.FIELD_TYPE_NULL) {
+                    continue;
+                }
+
+                final ColumnData data = mColumns[i];
+                data.grow(mCapacity);
+                data.types[row] = type;
+
+                final Object value = rowValues[i];
+                switch (type) {
+                    case Cursor.FIELD_TYPE_INTEGER:
+                        data.primitives[row] = ((Number) value).longValue();
+                        break;
+                    case Cursor.FIELD_TYPE_FLOAT:
+                        data.primitives[row] = Double.doubleToRawLongBits(((Number) value).doubleValue());
+                        break;
+                    default:
+                        data.objects(mCapacity)[row] = value;
+                }
+            }
+
+            mCount = row + 1;
+
+            return this;
+        }
+
+        /**
+         * Can be called only once
+         */
+        @NonNull
+        public CursorMock build() throws IllegalStateException {
+
+            if (mIsBuilt) {
+                throw new IllegalStateException("CursorMock was already built");
+            }
+            mIsBuilt = true;
+
+            final int count = mCount;
+            if (count == 0) {
+                return new CursorMock(mCursorSchema, CursorRows.EMPTY);
+            }
+
+            final int length = mColumns.length;
+            final CursorRowsColumnar.Column[] columns = new CursorRowsColumnar.Column[length];
+
+            for (int i = 0; i < length; i++) {
+                final ColumnData data = mColumns[i];
+                if (data.types == null) {
+                    columns[i] = new CursorRowsColumnar.NullColumn(null);
+                } else {
+                    // storage must cover all rows, trailing NULL values might not have been written
+                    data.grow(count);
+                    columns[i] = new CursorRowsColumnar.TaggedColumn(data.types, data.primitives, data.objects);
+                }
+            }
+
+            return new CursorMock(mCursorSchema, new CursorRowsColumnar(columns, count));
+        }
+    }
+
+    private static class ColumnData {
+
+        // allocated with the first non-null value
+        byte[] types;
+        long[] primitives;
+
+        // allocated with the first TEXT or BLOB value
+        Object[] objects;
+
+        void grow(int capacity) {
+            if (types == null) {
+                types = new byte[capacity];
+                primitives = new long[capacity];
+            } else if (types.length < capacity) {
+                types = Arrays.copyOf(types, capacity);
+                primitives = Arrays.copyOf(primitives, capacity);
+                if (objects != null) {
+                    objects = Arrays.copyOf(objects, capacity);
+                }
+            }
+        }
+
+        @NonNull
+        Object[] objects(int capacity) {
+            if (objects == null) {
+                objects = new Object[Math.max(capacity, types.length)];
+            }
+            return objects;
+        }
+    }
+
+    private CursorDynamic() {}
+}
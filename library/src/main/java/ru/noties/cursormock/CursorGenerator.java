@@ -0,0 +1,339 @@
+package ru.noties.cursormock;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds a {@link CursorMock} with synthetic rows for load testing. Rows are not stored, each value is
+ * computed from (seed, row, column) when it is read, so a cursor with millions of rows takes
+ * a constant amount of memory and returns the same values for the same seed:
+ * {@code
+ *     final CursorMock mock = CursorGenerator.rows(5_000_000)
+ *          .seed(42L)
+ *          .column("_id", CursorGenerator.sequence(1L, 1L))
+ *          .column("title", CursorGenerator.zipf("title_", 10_000, 1.1D))
+ *          .column("created", CursorGenerator.uniform(from, to))
+ *          .column("note", CursorGenerator.nullable(.3D, CursorGenerator.zipf("note_", 100, 1.D)))
+ *          .build();
+ * }
+ *
+ * Custom distributions can be supplied by implementing {@link Distribution}.
+ */
+@SuppressWarnings("WeakerAccess")
+public class CursorGenerator {
+
+    /**
+     * Computes a value of a cell. Must be deterministic: the same arguments must produce an equal value
+     */
+    public interface Distribution {
+
+        /**
+         * @return type of values (null for a column without type information)
+         */
+        @Nullable
+        ColumnType type();
+
+        /**
+         * @param row index of a row
+         * @param random uniformly distributed random bits for this cell
+         * @return value of supported by {@link android.database.Cursor} type
+         * @see CursorGenerator#nextRandom(long)
+         */
+        @Nullable
+        Object value(int row, long random);
+    }
+
+    /**
+     * @param count number of rows
+     * @return new builder
+     */
+    @NonNull
+    @SuppressLint("DefaultLocale")
+    public static CursorGenerator rows(int count) throws IllegalArgumentException {
+        if (count < 0) {
+            throw new IllegalArgumentException(String.format("Row count must not be negative, actual: %d", count));
+        }
+        return new CursorGenerator(count);
+    }
+
+    /**
+     * @return INT values `start`, `start + step`, `start + 2 * step`, ... (for example row ids)
+     */
+    @NonNull
+    public static Distribution sequence(final long start, final long step) {
+        return new Distribution() {
+            @Override
+            public ColumnType type() {
+                return ColumnType.INT;
+            }
+
+            @Override
+            public Object value(int row, long random) {
+                return start + row * step;
+            }
+        };
+    }
+
+    /**
+     * @return INT values uniformly distributed in range [min, max] (for example timestamps)
+     */
+    @NonNull
+    @SuppressLint("DefaultLocale")
+    public static Distribution uniform(final long min, final long max) throws IllegalArgumentException {
+        if (min > max) {
+            throw new IllegalArgumentException(String.format("Min: %d must not be greater than max: %d", min, max));
+        }
+        // (max - min + 1) can overflow, unsigned remainder is used
+        final long span = max - min + 1;
+        return new Distribution() {
+            @Override
+            public ColumnType type() {
+                return ColumnType.INT;
+            }
+
+            @Override
+            public Object value(int row, long random) {
+                return span == 0
+                        ? random
+                        : min + remainderUnsigned(random, span);
+            }
+        };
+    }
+
+    /**
+     * @return FLOAT values uniformly distributed in range [min, max)
+     */
+    @NonNull
+    public static Distribution uniform(final double min, final double max) throws IllegalArgumentException {
+        if (!(min <= max)) {
+            throw new IllegalArgumentException("Min: " + min + " must not be greater than max: " + max);
+        }
+        return new Distribution() {
+            @Override
+            public ColumnType type() {
+                return ColumnType.FLOAT;
+            }
+
+            @Override
+            public Object value(int row, long random) {
+                return min + (max - min) * toDouble(random);
+            }
+        };
+    }
+
+    /**
+     * Strings `prefix + rank`, where rank is in range [1, count] and follows Zipf's law with
+     * specified exponent (rank 1 is the most frequent), as words or tags in real data do
+     *
+     * @param prefix of generated strings
+     * @param count number of distinct strings
+     * @param exponent of distribution (greater than 0), usually close to 1
+     */
+    @NonNull
+    public static Distribution zipf(@NonNull final String prefix, int count, double exponent) throws IllegalArgumentException {
+        final Zipf zipf = new Zipf(count, exponent);
+        return new Distribution() {
+            @Override
+            public ColumnType type() {
+                return ColumnType.TEXT;
+            }
+
+            @Override
+            public Object value(int row, long random) {
+                return prefix + zipf.sample(random);
+            }
+        };
+    }
+
+    /**
+     * @param ratio of NULL values in range [0, 1]
+     * @param distribution of non-null values
+     */
+    @NonNull
+    public static Distribution nullable(final double ratio, @NonNull final Distribution distribution) throws IllegalArgumentException {
+        if (!(ratio >= .0D && ratio <= 1.D)) {
+            throw new IllegalArgumentException("Null ratio must be in range [0, 1], actual: " + ratio);
+        }
+        return new Distribution() {
+            @Override
+            public ColumnType type() {
+                return distribution.type();
+            }
+
+            @Override
+            public Object value(int row, long random) {
+                return toDouble(random) < ratio
+                        ? null
+                        : distribution.value(row, nextRandom(random));
+            }
+        };
+    }
+
+    /**
+     * Derives new random bits, for {@link Distribution}s that need more than one random number for a value
+     */
+    public static long nextRandom(long random) {
+        return CursorDiff.mix(random + 0x9E3779B97F4A7C15L);
+    }
+
+    private final int mCount;
+    private final List<String> mNames = new ArrayList<>(3);
+    private final List<Distribution> mDistributions = new ArrayList<>(3);
+
+    private long mSeed;
+
+    CursorGenerator(int count) {
+        mCount = count;
+    }
+
+    /**
+     * @param seed of generated values (0 by default), cursors with the same seed &amp; columns have the same values
+     * @return self to chain calls
+     */
+    public CursorGenerator seed(long seed) {
+        mSeed = seed;
+        return this;
+    }
+
+    /**
+     * @param name of a column
+     * @param distribution of column values
+     * @return self to chain calls
+     */
+    public CursorGenerator column(@NonNull String name, @NonNull Distribution distribution) {
+        mNames.add(name);
+        mDistributions.add(distribution);
+        return this;
+    }
+
+    /**
+     * @return new {@link CursorMock} with generated rows
+     * @throws IllegalStateException if no columns were added
+     */
+    @NonNull
+    public CursorMock build() throws IllegalStateException {
+
+        final int columns = mNames.size();
+        if (columns == 0) {
+            throw new IllegalStateException("No columns were added");
+        }
+
+        final Distribution[] distributions = mDistributions.toArray(new Distribution[columns]);
+        final ColumnType[] types = new ColumnType[columns];
+        for (int i = 0; i < columns; i++) {
+            types[i] = distributions[i].type();
+        }
+
+        return new CursorMock(
+                new CursorSchemaImpl(mNames.toArray(new String[columns]), types),
+                new CursorRowsGenerated(mCount, mSeed, distributions)
+        );
+    }
+
+    // uniform double in range [0, 1)
+    static double toDouble(long random) {
+        return (random >>> 11) * 0x1.0p-53;
+    }
+
+    private static long remainderUnsigned(long dividend, long divisor) {
+        if (divisor < 0) {
+            // divisor is greater than Long.MAX_VALUE (unsigned), so the quotient is either 0 or 1
+            return compareUnsigned(dividend, divisor) < 0
+                    ? dividend
+                    : dividend - divisor;
+        }
+        final long quotient = ((dividend >>> 1) / divisor) << 1;
+        final long remainder = dividend - quotient * divisor;
+        return compareUnsigned(remainder, divisor) < 0
+                ? remainder
+                : remainder - divisor;
+    }
+
+    private static int compareUnsigned(long left, long right) {
+        left ^= Long.MIN_VALUE;
+        right ^= Long.MIN_VALUE;
+        return left < right ? -1 : (left == right ? 0 : 1);
+    }
+
+    /**
+     * Rejection-inversion sampling of Zipf distribution (W. Hormann, G. Derflinger,
+     * "Rejection-inversion to generate variates from monotone discrete distributions"), takes
+     * constant time &amp; memory regardless of the number of elements
+     */
+    static class Zipf {
+
+        private final int mCount;
+        private final double mExponent;
+        private final double mIntegralX1;
+        private final double mIntegralCount;
+        private final double mS;
+
+        @SuppressLint("DefaultLocale")
+        Zipf(int count, double exponent) throws IllegalArgumentException {
+            if (count < 1) {
+                throw new IllegalArgumentException(String.format("Count must be greater than 0, actual: %d", count));
+            }
+            if (!(exponent > 0)) {
+                throw new IllegalArgumentException("Exponent must be greater than 0, actual: " + exponent);
+            }
+            mCount = count;
+            mExponent = exponent;
+            mIntegralX1 = integral(1.5D) - 1.D;
+            mIntegralCount = integral(count + .5D);
+            mS = 2.D - integralInverse(integral(2.5D) - h(2.D));
+        }
+
+        // rank in range [1, count]
+        int sample(long random) {
+            while (true) {
+                final double u = mIntegralCount + toDouble(random) * (mIntegralX1 - mIntegralCount);
+                final double x = integralInverse(u);
+                int k = (int) (x + .5D);
+                if (k < 1) {
+                    k = 1;
+                } else if (k > mCount) {
+                    k = mCount;
+                }
+                if (k - x <= mS || u >= integral(k + .5D) - h(k)) {
+                    return k;
+                }
+                random = nextRandom(random);
+            }
+        }
+
+        private double integral(double x) {
+            final double log = Math.log(x);
+            return helper2((1.D - mExponent) * log) * log;
+        }
+
+        private double h(double x) {
+            return Math.exp(-mExponent * Math.log(x));
+        }
+
+        private double integralInverse(double x) {
+            double t = x * (1.D - mExponent);
+            if (t < -1.D) {
+                t = -1.D;
+            }
+            return Math.exp(helper1(t) * x);
+        }
+
+        // log(1 + x) / x
+        private static double helper1(double x) {
+            return Math.abs(x) > 1e-8
+                    ? Math.log1p(x) / x
+                    : 1.D - x * (.5D - x * (1.D / 3.D - .25D * x));
+        }
+
+        // (exp(x) - 1) / x
+        private static double helper2(double x) {
+            return Math.abs(x) > 1e-8
+                    ? Math.expm1(x) / x
+                    : 1.D + x * .5D * (1.D + x * (1.D / 3.D) * (1.D + .25D * x));
+        }
+    }
+}
@@ -0,0 +1,802 @@
+package ru.noties.cursormock;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Groups rows of a {@link CursorMock} by a key column and computes aggregates for each group
+ * (as SQL `SELECT key, COUNT(*), SUM(value) ... GROUP BY key` does):
+ * {@code
+ *     final CursorMock perConversation = CursorGroupBy.of(messages, "conversation_id")
+ *          .count("messages_count")
+ *          .max("date", "last_date")
+ *          .build();
+ * }
+ *
+ * The result has the key column followed by aggregate columns (in the order they were added).
+ * Rows are ordered by key (NULL key forms its own group and goes first, then numbers, TEXT and BLOB values).
+ * Aggregates follow SQLite rules: NULL values are ignored, SUM, MIN, MAX &amp; AVG of a group without
+ * values are NULL, SUM of integers is an integer (an overflow throws {@link ArithmeticException}),
+ * AVG is always a floating point number. If a key or an aggregated column has no type (for example
+ * of {@link CursorDynamic}), the result column keeps the type of each value, as SQLite does.
+ *
+ * If key column has INT type, groups are found with an open-addressing hash map of primitive keys.
+ * Inputs with at least {@link #PARALLEL_THRESHOLD} rows are split between threads, each thread
+ * aggregates its part and partial results are merged, so {@link CursorRows} of the supplied
+ * cursor must allow reading from multiple threads (all implementations in this library do).
+ */
+@SuppressWarnings("WeakerAccess")
+public class CursorGroupBy {
+
+    public static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    /**
+     * @param mock to group rows of
+     * @param keyColumn name of a column to group rows by
+     * @return {@link CursorGroupBy} to add aggregates to
+     * @throws IllegalArgumentException if there is no such column
+     */
+    @NonNull
+    public static CursorGroupBy of(@NonNull CursorMock mock, @NonNull String keyColumn) throws IllegalArgumentException {
+        return new CursorGroupBy(mock.cursorSchema(), mock.cursorRows(), keyColumn);
+    }
+
+    private static final int COUNT_ALL = 0;
+    private static final int COUNT = 1;
+    private static final int SUM = 2;
+    private static final int MIN = 3;
+    private static final int MAX = 4;
+    private static final int AVG = 5;
+
+    private final CursorSchema mCursorSchema;
+    private final CursorRows mCursorRows;
+    private final int mKeyColumn;
+
+    private final List<Aggregate> mAggregates = new ArrayList<>(3);
+
+    private int mParallelism = Runtime.getRuntime().availableProcessors();
+
+    CursorGroupBy(@NonNull CursorSchema cursorSchema, @NonNull CursorRows cursorRows, @NonNull String keyColumn) {
+        mCursorSchema = cursorSchema;
+        mCursorRows = cursorRows;
+        mKeyColumn = column(keyColumn);
+    }
+
+    /**
+     * `COUNT(*)`, number of rows in a group
+     */
+    public CursorGroupBy count(@NonNull String alias) {
+        mAggregates.add(new Aggregate(COUNT_ALL, -1, alias));
+        return this;
+    }
+
+    /**
+     * `COUNT(column)`, number of non-NULL values in a group
+     */
+    public CursorGroupBy count(@NonNull String column, @NonNull String alias) throws IllegalArgumentException {
+        return add(COUNT, column, alias);
+    }
+
+    public CursorGroupBy sum(@NonNull String column, @NonNull String alias) throws IllegalArgumentException {
+        return add(SUM, column, alias);
+    }
+
+    public CursorGroupBy min(@NonNull String column, @NonNull String alias) throws IllegalArgumentException {
+        return add(MIN, column, alias);
+    }
+
+    public CursorGroupBy max(@NonNull String column, @NonNull String alias) throws IllegalArgumentException {
+        return add(MAX, column, alias);
+    }
+
+    public CursorGroupBy avg(@NonNull String column, @NonNull String alias) throws IllegalArgumentException {
+        return add(AVG, column, alias);
+    }
+
+    /**
+     * @param parallelism maximum number of threads to aggregate large inputs
+     *                    (default is number of available processors), 1 to always aggregate on the calling thread
+     * @return self to chain calls
+     */
+    @SuppressLint("DefaultLocale")
+    public CursorGroupBy parallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(String.format("Parallelism must be greater than 0, " +
+                    "actual: %d", parallelism));
+        }
+        mParallelism = parallelism;
+        return this;
+    }
+
+    @NonNull
+    public CursorMock build() {
+
+        final int count = mCursorRows.count();
+        final boolean primitive = mCursorSchema.columnType(mKeyColumn) == ColumnType.INT;
+
+        final int threads = count < PARALLEL_THRESHOLD
+                ? 1
+                : Math.min(mParallelism, count / (PARALLEL_THRESHOLD / 4));
+
+        final Partial result;
+
+        if (threads <= 1) {
+            result = new Partial(primitive, 0, count);
+            result.run();
+        } else {
+            result = parallel(primitive, count, threads);
+        }
+
+        return result.toCursorMock();
+    }
+
+    private Partial parallel(boolean primitive, int count, int threads) {
+
+        final Partial[] partials = new Partial[threads];
+
+        final int step = count / threads;
+        for (int i = 0; i < threads; i++) {
+            final int from = i * step;
+            final int to = i == threads - 1
+                    ? count
+                    : from + step;
+            partials[i] = new Partial(primitive, from, to);
+        }
+
+        // the first part is aggregated on the calling thread, errors of parts are rethrown
+        Workers.run("CursorGroupBy", partials);
+
+        final Partial result = partials[0];
+        for (int i = 1; i < threads; i++) {
+            result.merge(partials[i]);
+        }
+        return result;
+    }
+
+    private CursorGroupBy add(int kind, @NonNull String column, @NonNull String alias) throws IllegalArgumentException {
+        mAggregates.add(new Aggregate(kind, column(column), alias));
+        return this;
+    }
+
+    @SuppressLint("DefaultLocale")
+    private int column(@NonNull String name) throws IllegalArgumentException {
+        final int column = mCursorSchema.columnIndex(name);
+        if (column < 0) {
+            throw new IllegalArgumentException(String.format("Cannot find a `%s` column, columns: %s",
+                    name, Arrays.toString(mCursorSchema.columnNames())));
+        }
+        return column;
+    }
+
+    private static class Aggregate {
+
+        final int kind;
+        final int column;
+        final String alias;
+
+        Aggregate(int kind, int column, @NonNull String alias) {
+            this.kind = kind;
+            this.column = column;
+            this.alias = alias;
+        }
+    }
+
+    // groups & aggregates of a part of rows
+    private class Partial implements Runnable {
+
+        private final boolean mPrimitive;
+        private final int mFrom;
+        private final int mTo;
+
+        private final CursorColumnValues mKeys;
+        private final Aggregator[] mAggregators;
+
+        // map of primitive keys to groups (each key has a single group in its chain)
+        private LongHashIndex mPrimitiveGroups;
+
+        // map of non-primitive (normalized) keys to groups
+        private Map<Object, Integer> mObjectGroups;
+
+        private int mNullGroup = -1;
+
+        // key of each group (only one of these arrays is used)
+        private long[] mGroupLongKeys;
+        private Object[] mGroupObjectKeys;
+
+        private int mGroups;
+        private int mCapacity;
+
+        Partial(boolean primitive, int from, int to) {
+
+            mPrimitive = primitive;
+            mFrom = from;
+            mTo = to;
+            mKeys = new CursorColumnValues(mCursorRows, mKeyColumn);
+
+            final int size = mAggregates.size();
+            mAggregators = new Aggregator[size];
+            for (int i = 0; i < size; i++) {
+                mAggregators[i] = aggregator(mAggregates.get(i));
+            }
+
+            if (primitive) {
+                mPrimitiveGroups = new LongHashIndex(16);
+            } else {
+                mObjectGroups = new HashMap<>();
+            }
+
+            grow(16);
+        }
+
+        @Override
+        public void run() {
+            final Aggregator[] aggregators = mAggregators;
+            int group;
+            for (int row = mFrom; row < mTo; row++) {
+                group = group(row);
+                for (Aggregator aggregator: aggregators) {
+                    aggregator.add(group, row);
+                }
+            }
+        }
+
+        void merge(@NonNull Partial other) {
+
+            final Aggregator[] aggregators = mAggregators;
+            final int length = aggregators.length;
+
+            int group;
+
+            for (int g = 0; g < other.mGroups; g++) {
+                if (g == other.mNullGroup) {
+                    group = nullGroup();
+                } else if (mPrimitive) {
+                    group = primitiveGroup(other.mGroupLongKeys[g]);
+                } else {
+                    group = objectGroup(other.mGroupObjectKeys[g]);
+                }
+                for (int i = 0; i < length; i++) {
+                    aggregators[i].merge(group, other.mAggregators[i], g);
+                }
+            }
+        }
+
+        private int group(int row) {
+            if (mKeys.isNull(row)) {
+                return nullGroup();
+            }
+            if (mPrimitive) {
+                return primitiveGroup(mKeys.getLong(row));
+            }
+            return objectGroup(ColumnKeys.normalize(mKeys.get(row)));
+        }
+
+        private int nullGroup() {
+            if (mNullGroup == -1) {
+                mNullGroup = newGroup();
+            }
+            return mNullGroup;
+        }
+
+        private int primitiveGroup(long key) {
+            int group = mPrimitiveGroups.first(key);
+            if (group == -1) {
+                group = newGroup();
+                mGroupLongKeys[group] = key;
+                mPrimitiveGroups.add(key, group);
+            }
+            return group;
+        }
+
+        private int objectGroup(@NonNull Object key) {
+            final Integer existing = mObjectGroups.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            final int group = newGroup();
+            mGroupObjectKeys[group] = key;
+            mObjectGroups.put(key, group);
+            return group;
+        }
+
+        private int newGroup() {
+            final int group = mGroups;
+            if (group == mCapacity) {
+                grow(mCapacity * 2);
+            }
+            mGroups = group + 1;
+            return group;
+        }
+
+        private void grow(int capacity) {
+            if (mPrimitive) {
+                mGroupLongKeys = mGroupLongKeys == null
+                        ? new long[capacity]
+                        : Arrays.copyOf(mGroupLongKeys, capacity);
+            } else {
+                mGroupObjectKeys = mGroupObjectKeys == null
+                        ? new Object[capacity]
+                        : Arrays.copyOf(mGroupObjectKeys, capacity);
+            }
+            for (Aggregator aggregator: mAggregators) {
+                aggregator.grow(capacity);
+            }
+            mCapacity = capacity;
+        }
+
+        @NonNull
+        private Aggregator aggregator(@NonNull Aggregate aggregate) {
+            final CursorColumnValues values = aggregate.column < 0
+                    ? null
+                    : new CursorColumnValues(mCursorRows, aggregate.column);
+            switch (aggregate.kind) {
+                case COUNT_ALL:
+                    return new CountAggregator(null);
+                case COUNT:
+                    return new CountAggregator(values);
+                case SUM:
+                    return new SumAggregator(values);
+                case AVG:
+                    return new AvgAggregator(values);
+                default:
+                    //noinspection ConstantConditions
+                    return new MinMaxAggregator(values, aggregate.kind == MAX, mCursorSchema.columnType(aggregate.column));
+            }
+        }
+
+        @NonNull
+        CursorMock toCursorMock() {
+
+            final int aggregates = mAggregates.size();
+            final String[] names = new String[aggregates + 1];
+            final ColumnType[] types = new ColumnType[names.length];
+
+            names[0] = mCursorSchema.columnName(mKeyColumn);
+            types[0] = mCursorSchema.columnType(mKeyColumn);
+
+            Aggregate aggregate;
+            for (int i = 0; i < aggregates; i++) {
+                aggregate = mAggregates.get(i);
+                names[i + 1] = aggregate.alias;
+                types[i + 1] = resultType(aggregate);
+            }
+
+            final CursorSchema schema = new CursorSchemaImpl(names, types);
+            final CursorRowsColumnarBuilder builder = new CursorRowsColumnarBuilder(schema, mGroups);
+
+            // columns without a type (keys & MIN/MAX of untyped columns) can have values of different types
+            for (int i = 0; i < types.length; i++) {
+                if (types[i] == null) {
+                    builder.tagged(i);
+                }
+            }
+
+            for (int group: sortedGroups()) {
+                builder.nextRow();
+                if (group != mNullGroup) {
+                    if (mPrimitive) {
+                        builder.putLong(0, mGroupLongKeys[group]);
+                    } else {
+                        builder.put(0, ColumnKeys.denormalize(mGroupObjectKeys[group]));
+                    }
+                }
+                for (int i = 0; i < aggregates; i++) {
+                    mAggregators[i].put(builder, i + 1, group);
+                }
+            }
+
+            return new CursorMock(schema, builder.build());
+        }
+
+        @Nullable
+        private ColumnType resultType(@NonNull Aggregate aggregate) {
+            switch (aggregate.kind) {
+                case COUNT_ALL:
+                case COUNT:
+                    return ColumnType.INT;
+                case AVG:
+                    return ColumnType.FLOAT;
+                case SUM:
+                    final ColumnType type = mCursorSchema.columnType(aggregate.column);
+                    return type == ColumnType.INT || type == ColumnType.FLOAT
+                            ? type
+                            : null;
+                default:
+                    return mCursorSchema.columnType(aggregate.column);
+            }
+        }
+
+        @NonNull
+        private int[] sortedGroups() {
+
+            final int[] out = new int[mGroups];
+            int index = 0;
+
+            if (mNullGroup != -1) {
+                out[index++] = mNullGroup;
+            }
+
+            if (mPrimitive) {
+                // sort primitive keys and find their groups, no boxing is involved
+                final int size = mGroups - index;
+                final long[] keys = new long[size];
+                for (int g = 0, k = 0; g < mGroups; g++) {
+                    if (g != mNullGroup) {
+                        keys[k++] = mGroupLongKeys[g];
+                    }
+                }
+                Arrays.sort(keys);
+                for (long key: keys) {
+                    out[index++] = primitiveGroup(key);
+                }
+            } else {
+                final Integer[] groups = new Integer[mGroups - index];
+                for (int g = 0, k = 0; g < mGroups; g++) {
+                    if (g != mNullGroup) {
+                        groups[k++] = g;
+                    }
+                }
+                Arrays.sort(groups, new Comparator<Integer>() {
+                    @Override
+                    public int compare(Integer lhs, Integer rhs) {
+                        return CursorGroupBy.compare(mGroupObjectKeys[lhs], mGroupObjectKeys[rhs]);
+                    }
+                });
+                for (Integer group: groups) {
+                    out[index++] = group;
+                }
+            }
+
+            return out;
+        }
+    }
+
+    private static abstract class Aggregator {
+
+        abstract void grow(int capacity);
+
+        abstract void add(int group, int row);
+
+        abstract void merge(int group, @NonNull Aggregator other, int otherGroup);
+
+        abstract void put(@NonNull CursorRowsColumnarBuilder builder, int column, int group);
+    }
+
+    private static class CountAggregator extends Aggregator {
+
+        // null for COUNT(*)
+        private final CursorColumnValues mValues;
+        private long[] mCounts;
+
+        CountAggregator(@Nullable CursorColumnValues values) {
+            mValues = values;
+        }
+
+        @Override
+        void grow(int capacity) {
+            mCounts = mCounts == null
+                    ? new long[capacity]
+                    : Arrays.copyOf(mCounts, capacity);
+        }
+
+        @Override
+        void add(int group, int row) {
+            if (mValues == null || !mValues.isNull(row)) {
+                mCounts[group] += 1;
+            }
+        }
+
+        @Override
+        void merge(int group, @NonNull Aggregator other, int otherGroup) {
+            mCounts[group] += ((CountAggregator) other).mCounts[otherGroup];
+        }
+
+        @Override
+        void put(@NonNull CursorRowsColumnarBuilder builder, int column, int group) {
+            builder.putLong(column, mCounts[group]);
+        }
+    }
+
+    private static final byte EMPTY = 0;
+    private static final byte INTEGER = 1;
+    private static final byte REAL = 2;
+
+    private static class SumAggregator extends Aggregator {
+
+        private final CursorColumnValues mValues;
+
+        private byte[] mStates;
+        private long[] mLongs;
+        private double[] mDoubles;
+
+        SumAggregator(@NonNull CursorColumnValues values) {
+            mValues = values;
+        }
+
+        @Override
+        void grow(int capacity) {
+            if (mStates == null) {
+                mStates = new byte[capacity];
+                mLongs = new long[capacity];
+                mDoubles = new double[capacity];
+            } else {
+                mStates = Arrays.copyOf(mStates, capacity);
+                mLongs = Arrays.copyOf(mLongs, capacity);
+                mDoubles = Arrays.copyOf(mDoubles, capacity);
+            }
+        }
+
+        @Override
+        void add(int group, int row) {
+            final CursorColumnValues values = mValues;
+            if (values.isNull(row)) {
+                return;
+            }
+            if (mStates[group] != REAL && values.isInteger(row)) {
+                addLong(group, values.getLong(row));
+            } else {
+                addDouble(group, values.getDouble(row));
+            }
+        }
+
+        @Override
+        void merge(int group, @NonNull Aggregator other, int otherGroup) {
+            final SumAggregator sum = (SumAggregator) other;
+            final byte state = sum.mStates[otherGroup];
+            if (state == INTEGER && mStates[group] != REAL) {
+                addLong(group, sum.mLongs[otherGroup]);
+            } else if (state == INTEGER) {
+                addDouble(group, sum.mLongs[otherGroup]);
+            } else if (state == REAL) {
+                addDouble(group, sum.mDoubles[otherGroup]);
+            }
+        }
+
+        private void addLong(int group, long value) {
+            final long sum = mLongs[group];
+            final long result = sum + value;
+            if (((sum ^ result) & (value ^ result)) < 0) {
+                throw new ArithmeticException("integer overflow");
+            }
+            mLongs[group] = result;
+            mStates[group] = INTEGER;
+        }
+
+        private void addDouble(int group, double value) {
+            if (mStates[group] == INTEGER) {
+                mDoubles[group] = mLongs[group];
+            }
+            mDoubles[group] += value;
+            mStates[group] = REAL;
+        }
+
+        @Override
+        void put(@NonNull CursorRowsColumnarBuilder builder, int column, int group) {
+            final byte state = mStates[group];
+            if (state == INTEGER) {
+                builder.putLong(column, mLongs[group]);
+            } else if (state == REAL) {
+                builder.putDouble(column, mDoubles[group]);
+            }
+        }
+    }
+
+    private static class AvgAggregator extends Aggregator {
+
+        private final CursorColumnValues mValues;
+
+        private double[] mSums;
+        private long[] mCounts;
+
+        AvgAggregator(@NonNull CursorColumnValues values) {
+            mValues = values;
+        }
+
+        @Override
+        void grow(int capacity) {
+            if (mSums == null) {
+                mSums = new double[capacity];
+                mCounts = new long[capacity];
+            } else {
+                mSums = Arrays.copyOf(mSums, capacity);
+                mCounts = Arrays.copyOf(mCounts, capacity);
+            }
+        }
+
+        @Override
+        void add(int group, int row) {
+            if (!mValues.isNull(row)) {
+                mSums[group] += mValues.getDouble(row);
+                mCounts[group] += 1;
+            }
+        }
+
+        @Override
+        void merge(int group, @NonNull Aggregator other, int otherGroup) {
+            final AvgAggregator avg = (AvgAggregator) other;
+            mSums[group] += avg.mSums[otherGroup];
+            mCounts[group] += avg.mCounts[otherGroup];
+        }
+
+        @Override
+        void put(@NonNull CursorRowsColumnarBuilder builder, int column, int group) {
+            final long count = mCounts[group];
+            if (count > 0) {
+                builder.putDouble(column, mSums[group] / count);
+            }
+        }
+    }
+
+    private static class MinMaxAggregator extends Aggregator {
+
+        private final CursorColumnValues mValues;
+        private final boolean mIsMax;
+
+        // INT & FLOAT columns are compared as primitives, others as objects
+        private final ColumnType mType;
+
+        private boolean[] mHasValue;
+        private long[] mLongs;
+        private double[] mDoubles;
+        private Object[] mObjects;
+
+        MinMaxAggregator(@NonNull CursorColumnValues values, boolean isMax, @Nullable ColumnType type) {
+            mValues = values;
+            mIsMax = isMax;
+            mType = type;
+        }
+
+        @Override
+        void grow(int capacity) {
+            mHasValue = mHasValue == null
+                    ? new boolean[capacity]
+                    : Arrays.copyOf(mHasValue, capacity);
+            if (mType == ColumnType.INT) {
+                mLongs = mLongs == null
+                        ? new long[capacity]
+                        : Arrays.copyOf(mLongs, capacity);
+            } else if (mType == ColumnType.FLOAT) {
+                mDoubles = mDoubles == null
+                        ? new double[capacity]
+                        : Arrays.copyOf(mDoubles, capacity);
+            } else {
+                mObjects = mObjects == null
+                        ? new Object[capacity]
+                        : Arrays.copyOf(mObjects, capacity);
+            }
+        }
+
+        @Override
+        void add(int group, int row) {
+            final CursorColumnValues values = mValues;
+            if (values.isNull(row)) {
+                return;
+            }
+            if (mType == ColumnType.INT) {
+                addLong(group, values.getLong(row));
+            } else if (mType == ColumnType.FLOAT) {
+                addDouble(group, values.getDouble(row));
+            } else {
+                addObject(group, values.get(row));
+            }
+        }
+
+        @Override
+        void merge(int group, @NonNull Aggregator other, int otherGroup) {
+            final MinMaxAggregator minMax = (MinMaxAggregator) other;
+            if (!minMax.mHasValue[otherGroup]) {
+                return;
+            }
+            if (mType == ColumnType.INT) {
+                addLong(group, minMax.mLongs[otherGroup]);
+            } else if (mType == ColumnType.FLOAT) {
+                addDouble(group, minMax.mDoubles[otherGroup]);
+            } else {
+                addObject(group, minMax.mObjects[otherGroup]);
+            }
+        }
+
+        private void addLong(int group, long value) {
+            if (!mHasValue[group] || (mIsMax ? value > mLongs[group] : value < mLongs[group])) {
+                mLongs[group] = value;
+                mHasValue[group] = true;
+            }
+        }
+
+        private void addDouble(int group, double value) {
+            if (!mHasValue[group] || (mIsMax ? value > mDoubles[group] : value < mDoubles[group])) {
+                mDoubles[group] = value;
+                mHasValue[group] = true;
+            }
+        }
+
+        private void addObject(int group, @NonNull Object value) {
+            if (!mHasValue[group]) {
+                mObjects[group] = value;
+                mHasValue[group] = true;
+                return;
+            }
+            final int result = compare(value, mObjects[group]);
+            if (mIsMax ? result > 0 : result < 0) {
+                mObjects[group] = value;
+            }
+        }
+
+        @Override
+        void put(@NonNull CursorRowsColumnarBuilder builder, int column, int group) {
+            if (!mHasValue[group]) {
+                return;
+            }
+            if (mType == ColumnType.INT) {
+                builder.putLong(column, mLongs[group]);
+            } else if (mType == ColumnType.FLOAT) {
+                builder.putDouble(column, mDoubles[group]);
+            } else {
+                builder.put(column, mObjects[group]);
+            }
+        }
+    }
+
+    // SQLite order of values: numbers, TEXT, BLOB
+    private static int compare(@NonNull Object lhs, @NonNull Object rhs) {
+
+        final int lhsClass = storageClass(lhs);
+        final int rhsClass = storageClass(rhs);
+
+        if (lhsClass != rhsClass) {
+            return lhsClass < rhsClass ? -1 : 1;
+        }
+
+        switch (lhsClass) {
+
+            case 0:
+                if (isIntegral(lhs) && isIntegral(rhs)) {
+                    final long l = ((Number) lhs).longValue();
+                    final long r = ((Number) rhs).longValue();
+                    return l < r ? -1 : (l == r ? 0 : 1);
+                }
+                return Double.compare(((Number) lhs).doubleValue(), ((Number) rhs).doubleValue());
+
+            case 1:
+                return ((String) lhs).compareTo((String) rhs);
+
+            default:
+                final byte[] l = blob(lhs);
+                final byte[] r = blob(rhs);
+                for (int i = 0, length = Math.min(l.length, r.length); i < length; i++) {
+                    final int result = (l[i] & 0xFF) - (r[i] & 0xFF);
+                    if (result != 0) {
+                        return result;
+                    }
+                }
+                return l.length - r.length;
+        }
+    }
+
+    private static int storageClass(@NonNull Object value) {
+        if (value instanceof Number) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return 1;
+        }
+        return 2;
+    }
+
+    private static boolean isIntegral(@NonNull Object value) {
+        return !(value instanceof Double || value instanceof Float);
+    }
+
+    @NonNull
+    private static byte[] blob(@NonNull Object value) {
+        return (byte[]) ColumnKeys.denormalize(value);
+    }
+}
@@ -0,0 +1,271 @@
+package ru.noties.cursormock;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Joins two {@link CursorMock}s by key columns (as SQL `JOIN ... ON left.key = right.key` does):
+ * {@code
+ *     final CursorMock joined = CursorJoin.inner(messages, "user_id", users, "_id");
+ * }
+ *
+ * Resulting cursor has all columns of the left cursor followed by all columns of the right one
+ * (if both cursors have a column with the same name, {@link CursorMock#getColumnIndex(String)} will
+ * return the left one). Rows are ordered by the left rows and then by the right rows.
+ *
+ * A hash index is built on the cursor with fewer rows. If both key columns have INT type the index
+ * is keyed by primitive values, otherwise values are compared with `equals` (integral numbers are
+ * equal to floating point numbers with the same value, BLOBs are compared by content).
+ * NULL keys never match.
+ *
+ * Values are not copied: rows of a joined cursor reference rows of the original cursors, so original
+ * cursors must not be reused (for example with {@link CursorMockPool}) while a joined cursor is in use.
+ * Closing a joined cursor does not close the original ones.
+ */
+@SuppressWarnings("WeakerAccess")
+public class CursorJoin {
+
+    /**
+     * Inner join, only rows that have a match in both cursors are present in the result
+     */
+    @NonNull
+    public static CursorMock inner(
+            @NonNull CursorMock left,
+            @NonNull String leftKey,
+            @NonNull CursorMock right,
+            @NonNull String rightKey) throws IllegalArgumentException {
+        return join(left, leftKey, right, rightKey, false);
+    }
+
+    /**
+     * Left outer join, rows of the left cursor without a match are present in the result with
+     * NULL values in the right columns
+     */
+    @NonNull
+    public static CursorMock leftOuter(
+            @NonNull CursorMock left,
+            @NonNull String leftKey,
+            @NonNull CursorMock right,
+            @NonNull String rightKey) throws IllegalArgumentException {
+        return join(left, leftKey, right, rightKey, true);
+    }
+
+    private static CursorMock join(
+            @NonNull CursorMock left,
+            @NonNull String leftKey,
+            @NonNull CursorMock right,
+            @NonNull String rightKey,
+            boolean outer) throws IllegalArgumentException {
+
+        final CursorSchema leftSchema = left.cursorSchema();
+        final CursorSchema rightSchema = right.cursorSchema();
+
+        final Side leftSide = new Side(left.cursorRows(), keyColumn(leftSchema, leftKey));
+        final Side rightSide = new Side(right.cursorRows(), keyColumn(rightSchema, rightKey));
+
+        final boolean primitive = leftSchema.columnType(leftSide.column) == ColumnType.INT
+                && rightSchema.columnType(rightSide.column) == ColumnType.INT;
+
+        leftSide.readKeys(primitive);
+        rightSide.readKeys(primitive);
+
+        final Pairs pairs = new Pairs(Math.max(leftSide.count, rightSide.count));
+
+        if (leftSide.count <= rightSide.count) {
+            // index the left side, then pairs must be sorted by the left rows
+            final LongHashIndex index = leftSide.index();
+            final long[] matched = outer
+                    ? new long[(leftSide.count >>> 6) + 1]
+                    : null;
+            for (int r = 0; r < rightSide.count; r++) {
+                if (rightSide.isNull(r)) {
+                    continue;
+                }
+                for (int l = index.first(rightSide.keys[r]); l != -1; l = index.next(l)) {
+                    if (leftSide.equals(l, rightSide, r)) {
+                        pairs.add(l, r);
+                        if (matched != null) {
+                            matched[l >>> 6] |= 1L << l;
+                        }
+                    }
+                }
+            }
+            if (matched != null) {
+                for (int l = 0; l < leftSide.count; l++) {
+                    if (!CursorRowsColumnar.isBitSet(matched, l)) {
+                        pairs.add(l, -1);
+                    }
+                }
+            }
+            pairs.sort();
+        } else {
+            // index the right side, pairs are produced in the order of the left rows
+            final LongHashIndex index = rightSide.index();
+            for (int l = 0; l < leftSide.count; l++) {
+                final int size = pairs.size;
+                if (!leftSide.isNull(l)) {
+                    for (int r = index.first(leftSide.keys[l]); r != -1; r = index.next(r)) {
+                        if (rightSide.equals(r, leftSide, l)) {
+                            pairs.add(l, r);
+                        }
+                    }
+                }
+                if (outer && size == pairs.size) {
+                    pairs.add(l, -1);
+                }
+            }
+        }
+
+        final int leftColumns = leftSchema.columnCount();
+        final int rightColumns = rightSchema.columnCount();
+        final String[] names = new String[leftColumns + rightColumns];
+        final ColumnType[] types = new ColumnType[names.length];
+        for (int i = 0; i < leftColumns; i++) {
+            names[i] = leftSchema.columnName(i);
+            types[i] = leftSchema.columnType(i);
+        }
+        for (int i = 0; i < rightColumns; i++) {
+            names[leftColumns + i] = rightSchema.columnName(i);
+            types[leftColumns + i] = rightSchema.columnType(i);
+        }
+
+        final int count = pairs.size;
+        final int[] leftRows = new int[count];
+        final int[] rightRows = new int[count];
+        long pair;
+        for (int i = 0; i < count; i++) {
+            pair = pairs.values[i];
+            leftRows[i] = (int) (pair >>> 32);
+            rightRows[i] = (int) pair;
+        }
+
+        return new CursorMock(
+                new CursorSchemaImpl(names, types),
+                new CursorRowsJoin(leftSide.rows, rightSide.rows, leftColumns, leftRows, rightRows, count)
+        );
+    }
+
+    @SuppressLint("DefaultLocale")
+    private static int keyColumn(@NonNull CursorSchema schema, @NonNull String key) throws IllegalArgumentException {
+        final int column = schema.columnIndex(key);
+        if (column < 0) {
+            throw new IllegalArgumentException(String.format("Cannot find a `%s` column, columns: %s",
+                    key, Arrays.toString(schema.columnNames())));
+        }
+        return column;
+    }
+
+    // rows & keys of one side of a join
+    private static class Side {
+
+        final CursorRows rows;
+        final int column;
+        final int count;
+
+        // primitive values or hashes of keys
+        long[] keys;
+
+        // normalized keys for non-primitive comparison, null for primitive keys
+        Object[] values;
+
+        // bit is set for NULL keys
+        long[] nulls;
+
+        Side(@NonNull CursorRows rows, int column) {
+            this.rows = rows;
+            this.column = column;
+            this.count = rows.count();
+        }
+
+        void readKeys(boolean primitive) {
+
+            final long[] keys = new long[count];
+            final Object[] values = primitive
+                    ? null
+                    : new Object[count];
+
+            // read primitive values directly from columnar storage
+            if (primitive && rows instanceof CursorRowsColumnar) {
+                final CursorRowsColumnar.Column data = ((CursorRowsColumnar) rows).column(column);
+                if (data instanceof CursorRowsColumnar.LongColumn) {
+                    final CursorRowsColumnar.LongColumn longColumn = (CursorRowsColumnar.LongColumn) data;
+                    System.arraycopy(longColumn.values, 0, keys, 0, count);
+                    this.keys = keys;
+                    this.nulls = longColumn.nulls;
+                    return;
+                }
+            }
+
+            Object value;
+
+            for (int r = 0; r < count; r++) {
+                value = rows.get(Object.class, r, column);
+                if (value == null) {
+                    if (nulls == null) {
+                        nulls = new long[(count >>> 6) + 1];
+                    }
+                    nulls[r >>> 6] |= 1L << r;
+                } else if (primitive) {
+                    keys[r] = ((Number) value).longValue();
+                } else {
+                    value = ColumnKeys.normalize(value);
+                    values[r] = value;
+                    keys[r] = value instanceof Long
+                            ? (Long) value
+                            : value.hashCode();
+                }
+            }
+
+            this.keys = keys;
+            this.values = values;
+        }
+
+        boolean isNull(int row) {
+            return CursorRowsColumnar.isBitSet(nulls, row);
+        }
+
+        @NonNull
+        LongHashIndex index() {
+            final LongHashIndex index = new LongHashIndex(count);
+            // added in reverse order, so chains are iterated in ascending order
+            for (int r = count - 1; r >= 0; r--) {
+                if (!isNull(r)) {
+                    index.add(keys[r], r);
+                }
+            }
+            return index;
+        }
+
+        boolean equals(int row, @NonNull Side other, int otherRow) {
+            // primitive keys are equal if they are in the same chain
+            return values == null
+                    || values[row].equals(other.values[otherRow]);
+        }
+    }
+
+    // (left, right) row pairs packed in longs
+    private static class Pairs {
+
+        long[] values;
+        int size;
+
+        Pairs(int capacity) {
+            values = new long[Math.max(capacity, 16)];
+        }
+
+        void add(int left, int right) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size + (size >> 1));
+            }
+            values[size++] = ((long) left << 32) | (right & 0xFFFFFFFFL);
+        }
+
+        void sort() {
+            Arrays.sort(values, 0, size);
+        }
+    }
+
+    private CursorJoin() {}
+}
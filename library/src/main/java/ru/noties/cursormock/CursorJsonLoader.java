@@ -0,0 +1,738 @@
+package ru.noties.cursormock;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+import android.util.Base64;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Loads a JSON array of objects (UTF-8) into a {@link CursorMock} without creating intermediate
+ * objects for each row:
+ * {@code
+ *     final CursorMock mock = CursorJsonLoader.forColumns("id", "name", "rating")
+ *          .load(new File("messages.json"));
+ * }
+ *
+ * Keys of an object are mapped to the columns of a {@link CursorSchema} (case insensitive, as
+ * {@link CursorSchema#columnIndex(String)} does), values are written directly into typed column
+ * storage. Keys that have no column are skipped (including nested objects and arrays), missing
+ * keys and `null` values are NULL values.
+ *
+ * Value mapping:
+ * <ul>
+ *     <li>integer numbers - INT (a column is widened to FLOAT if it receives a fractional number)</li>
+ *     <li>fractional numbers - FLOAT</li>
+ *     <li>`true` &amp; `false` - INT `1` &amp; `0`</li>
+ *     <li>strings - TEXT, or BLOB if the column has BLOB type (a string must be Base64 encoded)</li>
+ *     <li>numbers in a TEXT column are stored as they appear in JSON</li>
+ * </ul>
+ *
+ * If supplied schema has no type information for a column (and implements {@link CursorSchemaMutable}),
+ * the type is taken from the first non-null value.
+ */
+@SuppressWarnings("WeakerAccess")
+public class CursorJsonLoader {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    // keys are looked up linearly, so only first distinct keys that are not column names are remembered
+    private static final int MAX_OTHER_KEYS = 32;
+
+    /**
+     * @param cursorSchema to map keys of JSON objects to
+     * @return {@link CursorJsonLoader}
+     */
+    @NonNull
+    public static CursorJsonLoader forSchema(@NonNull CursorSchema cursorSchema) {
+        return new CursorJsonLoader(cursorSchema);
+    }
+
+    /**
+     * @see CursorSchemaFactory#raw(String, String...)
+     */
+    @NonNull
+    public static CursorJsonLoader forColumns(@NonNull String firstColumn, String... otherColumns) {
+        return new CursorJsonLoader(CursorSchemaFactory.raw(firstColumn, otherColumns));
+    }
+
+    private final CursorSchema mCursorSchema;
+
+    private int mBufferSize = DEFAULT_BUFFER_SIZE;
+    private int mExpectedRowCount;
+
+    CursorJsonLoader(@NonNull CursorSchema cursorSchema) {
+        mCursorSchema = cursorSchema;
+    }
+
+    /**
+     * @param bufferSize size of a buffer to read data (default {@link #DEFAULT_BUFFER_SIZE})
+     * @return self to chain calls
+     */
+    @SuppressLint("DefaultLocale")
+    public CursorJsonLoader bufferSize(int bufferSize) {
+        if (bufferSize < 16) {
+            throw new IllegalArgumentException(String.format("Buffer size must be at least 16 bytes, " +
+                    "actual: %d", bufferSize));
+        }
+        mBufferSize = bufferSize;
+        return this;
+    }
+
+    /**
+     * @param expectedRowCount a hint of how many objects data contains
+     * @return self to chain calls
+     */
+    public CursorJsonLoader expectedRowCount(int expectedRowCount) {
+        mExpectedRowCount = expectedRowCount;
+        return this;
+    }
+
+    @NonNull
+    public CursorMock load(@NonNull File file) throws IOException {
+        final FileInputStream inputStream = new FileInputStream(file);
+        try {
+            return load(inputStream.getChannel());
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Please note that supplied InputStream is not closed
+     */
+    @NonNull
+    public CursorMock load(@NonNull InputStream inputStream) throws IOException {
+        return load(Channels.newChannel(inputStream));
+    }
+
+    /**
+     * Please note that supplied channel is not closed
+     *
+     * @param channel to read data from
+     * @return {@link CursorMock} with loaded data
+     * @throws IOException if thrown by the channel
+     * @throws IllegalArgumentException if data is malformed or a value cannot be stored in a column
+     */
+    @NonNull
+    public CursorMock load(@NonNull ReadableByteChannel channel) throws IOException, IllegalArgumentException {
+        return new Load(channel).execute();
+    }
+
+    private class Load {
+
+        private final ReadableByteChannel mChannel;
+        private final ByteBuffer mBuffer;
+        private final byte[] mBytes;
+        private final NumberParser mParser = new NumberParser();
+
+        private final CursorRowsColumnarBuilder mRowsBuilder;
+
+        // UTF-8 bytes of column names, to match keys without creating Strings
+        private final byte[][] mColumnNames;
+
+        // keys that do not match column names exactly (different case or no column at all),
+        // at most MAX_OTHER_KEYS
+        private byte[][] mOtherKeys = new byte[4][];
+        private int[] mOtherKeysColumns = new int[4];
+        private int mOtherKeysCount;
+
+        private int mPosition;
+        private int mLimit;
+        private long mOffset;
+        private boolean mIsEof;
+
+        // a token (string or number) is located either in the read buffer or in `mScratch`
+        private byte[] mToken;
+        private int mTokenStart;
+        private int mTokenEnd;
+        private boolean mIsNumberFractional;
+
+        private byte[] mScratch = new byte[64];
+
+        Load(@NonNull ReadableByteChannel channel) {
+            mChannel = channel;
+            mBuffer = ByteBuffer.allocate(mBufferSize);
+            mBytes = mBuffer.array();
+            mRowsBuilder = new CursorRowsColumnarBuilder(mCursorSchema, mExpectedRowCount);
+            final int columns = mCursorSchema.columnCount();
+            mColumnNames = new byte[columns][];
+            for (int i = 0; i < columns; i++) {
+                //noinspection ConstantConditions
+                mColumnNames[i] = mCursorSchema.columnName(i).getBytes(Utf8.CHARSET);
+            }
+        }
+
+        @NonNull
+        CursorMock execute() throws IOException {
+
+            skipByteOrderMark();
+
+            expect('[');
+
+            if (peekToken() == ']') {
+                mPosition += 1;
+            } else {
+                while (true) {
+                    readObject();
+                    final int b = nextToken();
+                    if (b == ']') {
+                        break;
+                    }
+                    if (b != ',') {
+                        throw unexpected(b, "`,` or `]`");
+                    }
+                }
+            }
+
+            final int b = peekToken();
+            if (b != -1) {
+                throw unexpected(b, "end of data");
+            }
+
+            return new CursorMock(mCursorSchema, mRowsBuilder.build());
+        }
+
+        private void readObject() throws IOException {
+
+            expect('{');
+
+            mRowsBuilder.nextRow();
+
+            if (peekToken() == '}') {
+                mPosition += 1;
+                return;
+            }
+
+            // keys usually go in the same order in each object, so the next column is checked first
+            int expected = 0;
+
+            while (true) {
+
+                expect('"');
+                readString();
+
+                final int column = column(expected);
+                if (column >= 0) {
+                    expected = column + 1;
+                }
+
+                expect(':');
+
+                if (column < 0) {
+                    skipValue();
+                } else {
+                    readValue(column);
+                }
+
+                final int b = nextToken();
+                if (b == '}') {
+                    break;
+                }
+                if (b != ',') {
+                    throw unexpected(b, "`,` or `}`");
+                }
+            }
+        }
+
+        @SuppressLint("DefaultLocale")
+        private void readValue(int column) throws IOException {
+
+            final int b = peekToken();
+
+            switch (b) {
+
+                case '"':
+                    mPosition += 1;
+                    readString();
+                    if (mRowsBuilder.columnType(column) == ColumnType.BLOB) {
+                        final byte[] value;
+                        try {
+                            value = Base64.decode(mToken, mTokenStart, mTokenEnd - mTokenStart, Base64.DEFAULT);
+                        } catch (IllegalArgumentException e) {
+                            throw new IllegalArgumentException(String.format("Value of the key `%s` at offset: %d " +
+                                    "is not a Base64 encoded string", mCursorSchema.columnName(column), mOffset + mPosition), e);
+                        }
+                        mRowsBuilder.putBlob(column, value);
+                    } else {
+                        mRowsBuilder.putString(column, tokenString());
+                    }
+                    break;
+
+                case 't':
+                    expectLiteral("true");
+                    mRowsBuilder.putLong(column, 1L);
+                    break;
+
+                case 'f':
+                    expectLiteral("false");
+                    mRowsBuilder.putLong(column, 0L);
+                    break;
+
+                case 'n':
+                    expectLiteral("null");
+                    break;
+
+                case '{':
+                case '[':
+                    throw new IllegalArgumentException(String.format("Value of the key `%s` at offset: %d " +
+                            "is an object or an array, which cannot be stored in a column",
+                            mCursorSchema.columnName(column), mOffset + mPosition));
+
+                default:
+                    readNumber();
+                    putNumber(column);
+            }
+        }
+
+        @SuppressLint("DefaultLocale")
+        private void putNumber(int column) {
+
+            final byte[] token = mToken;
+            final int start = mTokenStart;
+            final int end = mTokenEnd;
+
+            if (mRowsBuilder.columnType(column) == ColumnType.TEXT) {
+                mRowsBuilder.putString(column, tokenString());
+            } else if (!mIsNumberFractional && mParser.parseLong(token, start, end)) {
+                mRowsBuilder.putLong(column, mParser.longValue);
+            } else if (mParser.parseDouble(token, start, end)) {
+                mRowsBuilder.putDouble(column, mParser.doubleValue);
+            } else {
+                throw new IllegalArgumentException(String.format("Malformed number `%s` at offset: %d",
+                        tokenString(), mOffset + mPosition));
+            }
+        }
+
+        // returns index of a column for the current token (key) or -1
+        private int column(int expected) {
+
+            final byte[][] names = mColumnNames;
+            final int length = names.length;
+
+            if (expected < length && tokenEquals(names[expected])) {
+                return expected;
+            }
+
+            for (int i = 0; i < length; i++) {
+                if (i != expected && tokenEquals(names[i])) {
+                    return i;
+                }
+            }
+
+            for (int i = 0; i < mOtherKeysCount; i++) {
+                if (tokenEquals(mOtherKeys[i])) {
+                    return mOtherKeysColumns[i];
+                }
+            }
+
+            // a new key, resolve it with the schema (case insensitive) and remember the result
+            final int column = mCursorSchema.columnIndex(tokenString());
+            if (mOtherKeysCount == MAX_OTHER_KEYS) {
+                return column;
+            }
+            if (mOtherKeysCount == mOtherKeys.length) {
+                mOtherKeys = Arrays.copyOf(mOtherKeys, mOtherKeysCount * 2);
+                mOtherKeysColumns = Arrays.copyOf(mOtherKeysColumns, mOtherKeysCount * 2);
+            }
+            mOtherKeys[mOtherKeysCount] = Arrays.copyOfRange(mToken, mTokenStart, mTokenEnd);
+            mOtherKeysColumns[mOtherKeysCount] = column;
+            mOtherKeysCount += 1;
+
+            return column;
+        }
+
+        private boolean tokenEquals(byte[] bytes) {
+            final int length = bytes.length;
+            if (length != mTokenEnd - mTokenStart) {
+                return false;
+            }
+            final byte[] token = mToken;
+            for (int i = 0, t = mTokenStart; i < length; i++, t++) {
+                if (bytes[i] != token[t]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String tokenString() {
+            return new String(mToken, mTokenStart, mTokenEnd - mTokenStart, Utf8.CHARSET);
+        }
+
+        // reads a string, opening quote must be already consumed
+        private void readString() throws IOException {
+
+            final byte[] bytes = mBytes;
+            final int start = mPosition;
+
+            int p = start;
+            byte b;
+
+            // fast path: a string without escapes that is fully contained in the buffer
+            while (p < mLimit) {
+                b = bytes[p];
+                if (b == '"') {
+                    mToken = bytes;
+                    mTokenStart = start;
+                    mTokenEnd = p;
+                    mPosition = p + 1;
+                    return;
+                }
+                if (b == '\\' || (b >= 0 && b < 0x20)) {
+                    break;
+                }
+                p += 1;
+            }
+
+            // slow path: copy the string to the scratch buffer
+            int length = 0;
+            for (int i = start; i < p; i++) {
+                length = append(length, bytes[i]);
+            }
+            mPosition = p;
+
+            int c;
+
+            while (true) {
+
+                c = next();
+
+                if (c == -1) {
+                    throw malformed("Unterminated string");
+                }
+
+                if (c == '"') {
+                    break;
+                }
+
+                if (c < 0x20) {
+                    throw malformed("Control character in a string");
+                }
+
+                if (c != '\\') {
+                    length = append(length, (byte) c);
+                    continue;
+                }
+
+                c = next();
+
+                switch (c) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        length = append(length, (byte) c);
+                        break;
+                    case 'b':
+                        length = append(length, (byte) '\b');
+                        break;
+                    case 'f':
+                        length = append(length, (byte) '\f');
+                        break;
+                    case 'n':
+                        length = append(length, (byte) '\n');
+                        break;
+                    case 'r':
+                        length = append(length, (byte) '\r');
+                        break;
+                    case 't':
+                        length = append(length, (byte) '\t');
+                        break;
+                    case 'u':
+                        length = appendCodePoint(length, readCodePoint());
+                        break;
+                    default:
+                        throw malformed("Invalid escape sequence");
+                }
+            }
+
+            mToken = mScratch;
+            mTokenStart = 0;
+            mTokenEnd = length;
+        }
+
+        // reads a code point of the `\\uXXXX` escape (`\\u` is already consumed), combines surrogate pairs
+        private int readCodePoint() throws IOException {
+
+            final int unit = readHex();
+
+            if (!Character.isHighSurrogate((char) unit)) {
+                return unit;
+            }
+
+            if (peek() == '\\') {
+                mPosition += 1;
+                if (next() != 'u') {
+                    throw malformed("Invalid escape sequence");
+                }
+                final int low = readHex();
+                if (Character.isLowSurrogate((char) low)) {
+                    return Character.toCodePoint((char) unit, (char) low);
+                }
+                throw malformed("Invalid surrogate pair");
+            }
+
+            // lone surrogate cannot be encoded, replace it as String does
+            return 0xFFFD;
+        }
+
+        private int readHex() throws IOException {
+            int value = 0;
+            int c;
+            for (int i = 0; i < 4; i++) {
+                c = next();
+                final int digit = Character.digit(c, 16);
+                if (c == -1 || digit < 0) {
+                    throw malformed("Invalid unicode escape");
+                }
+                value = (value << 4) | digit;
+            }
+            return value;
+        }
+
+        private int appendCodePoint(int length, int codePoint) {
+            if (codePoint < 0x80) {
+                return append(length, (byte) codePoint);
+            }
+            if (codePoint < 0x800) {
+                length = append(length, (byte) (0xC0 | (codePoint >> 6)));
+                return append(length, (byte) (0x80 | (codePoint & 0x3F)));
+            }
+            if (codePoint < 0x10000) {
+                length = append(length, (byte) (0xE0 | (codePoint >> 12)));
+                length = append(length, (byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                return append(length, (byte) (0x80 | (codePoint & 0x3F)));
+            }
+            length = append(length, (byte) (0xF0 | (codePoint >> 18)));
+            length = append(length, (byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+            length = append(length, (byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+            return append(length, (byte) (0x80 | (codePoint & 0x3F)));
+        }
+
+        private int append(int length, byte b) {
+            if (length == mScratch.length) {
+                mScratch = Arrays.copyOf(mScratch, length * 2);
+            }
+            mScratch[length] = b;
+            return length + 1;
+        }
+
+        private void readNumber() throws IOException {
+
+            final int first = peek();
+            if (first != '-' && (first < '0' || first > '9')) {
+                throw unexpected(first, "a value");
+            }
+
+            final byte[] bytes = mBytes;
+            final int start = mPosition;
+
+            boolean fractional = false;
+
+            int p = start;
+            byte b;
+
+            while (p < mLimit) {
+                b = bytes[p];
+                if (isNumberEnd(b)) {
+                    break;
+                }
+                if (b == '.' || b == 'e' || b == 'E') {
+                    fractional = true;
+                }
+                p += 1;
+            }
+
+            if (p < mLimit || mIsEof) {
+                mToken = bytes;
+                mTokenStart = start;
+                mTokenEnd = p;
+            } else {
+                // number crosses the buffer boundary
+                int length = 0;
+                for (int i = start; i < p; i++) {
+                    length = append(length, bytes[i]);
+                }
+                mPosition = p;
+                int c;
+                while ((c = peek()) != -1 && !isNumberEnd((byte) c)) {
+                    if (c == '.' || c == 'e' || c == 'E') {
+                        fractional = true;
+                    }
+                    length = append(length, (byte) c);
+                    mPosition += 1;
+                }
+                p = mPosition;
+                mToken = mScratch;
+                mTokenStart = 0;
+                mTokenEnd = length;
+            }
+
+            mIsNumberFractional = fractional;
+            mPosition = p;
+        }
+
+        private boolean isNumberEnd(byte b) {
+            return b == ',' || b == '}' || b == ']' || b == ' ' || b == '\n' || b == '\r' || b == '\t';
+        }
+
+        // skips a value of a key that has no column, nested values are skipped without recursion
+        private void skipValue() throws IOException {
+
+            int depth = 0;
+            int b;
+
+            do {
+                b = peekToken();
+                switch (b) {
+                    case '"':
+                        mPosition += 1;
+                        readString();
+                        break;
+                    case '{':
+                    case '[':
+                        mPosition += 1;
+                        depth += 1;
+                        break;
+                    case '}':
+                    case ']':
+                        mPosition += 1;
+                        depth -= 1;
+                        break;
+                    case ',':
+                    case ':':
+                        if (depth == 0) {
+                            throw unexpected(b, "a value");
+                        }
+                        mPosition += 1;
+                        break;
+                    case 't':
+                        expectLiteral("true");
+                        break;
+                    case 'f':
+                        expectLiteral("false");
+                        break;
+                    case 'n':
+                        expectLiteral("null");
+                        break;
+                    case -1:
+                        throw malformed("Unexpected end of data");
+                    default:
+                        readNumber();
+                }
+            } while (depth > 0);
+
+            if (depth < 0) {
+                throw unexpected(b, "a value");
+            }
+        }
+
+        private void expectLiteral(String literal) throws IOException {
+            for (int i = 0, length = literal.length(); i < length; i++) {
+                if (next() != literal.charAt(i)) {
+                    throw malformed("Invalid literal, expected `" + literal + "`");
+                }
+            }
+        }
+
+        private void expect(char c) throws IOException {
+            final int b = nextToken();
+            if (b != c) {
+                throw unexpected(b, "`" + c + "`");
+            }
+        }
+
+        private void skipByteOrderMark() throws IOException {
+            if (peek() == 0xEF) {
+                mPosition += 1;
+                if (next() != 0xBB || next() != 0xBF) {
+                    throw malformed("Invalid byte order mark");
+                }
+            }
+        }
+
+        // skips whitespace and returns the next byte without consuming it
+        private int peekToken() throws IOException {
+            int b;
+            while (true) {
+                b = peek();
+                if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                    mPosition += 1;
+                } else {
+                    return b;
+                }
+            }
+        }
+
+        private int nextToken() throws IOException {
+            final int b = peekToken();
+            if (b != -1) {
+                mPosition += 1;
+            }
+            return b;
+        }
+
+        private int peek() throws IOException {
+            if (mPosition == mLimit && !fill()) {
+                return -1;
+            }
+            return mBytes[mPosition] & 0xFF;
+        }
+
+        private int next() throws IOException {
+            final int b = peek();
+            if (b != -1) {
+                mPosition += 1;
+            }
+            return b;
+        }
+
+        // replaces consumed data in the buffer, returns false if there is no more data
+        private boolean fill() throws IOException {
+
+            if (mIsEof) {
+                return false;
+            }
+
+            mOffset += mLimit;
+            mPosition = 0;
+            mLimit = 0;
+
+            final ByteBuffer buffer = mBuffer;
+            buffer.clear();
+
+            int read;
+            while (buffer.position() == 0) {
+                read = mChannel.read(buffer);
+                if (read < 0) {
+                    mIsEof = true;
+                    break;
+                }
+            }
+
+            mLimit = buffer.position();
+            return mLimit > 0;
+        }
+
+        @SuppressLint("DefaultLocale")
+        private IllegalArgumentException unexpected(int b, String expected) {
+            final String actual = b == -1
+                    ? "end of data"
+                    : "`" + (char) b + "`";
+            return new IllegalArgumentException(String.format("Unexpected %s at offset: %d, expected: %s",
+                    actual, mOffset + mPosition, expected));
+        }
+
+        @SuppressLint("DefaultLocale")
+        private IllegalArgumentException malformed(String message) {
+            return new IllegalArgumentException(String.format("%s at offset: %d", message, mOffset + mPosition));
+        }
+    }
+}
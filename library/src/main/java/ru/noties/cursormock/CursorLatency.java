@@ -0,0 +1,96 @@
+package ru.noties.cursormock;
+
+import android.support.annotation.NonNull;
+
+/**
+ * {@link CursorAccessListener} that accounts costs of a {@link CursorLatencyModel} for a single
+ * {@link CursorMock}. Window fills follow Android `SQLiteCursor` behaviour: a window is filled
+ * starting a third of window capacity before the requested position.
+ *
+ * @see CursorLatencyModel#inject(CursorMock)
+ */
+@SuppressWarnings("WeakerAccess")
+public class CursorLatency implements CursorAccessListener {
+
+    private final CursorLatencyModel mModel;
+    private final CursorMock mMock;
+
+    private boolean mIsCounted;
+
+    // current window is [mWindowStart, mWindowEnd)
+    private int mWindowStart = -1;
+    private int mWindowEnd = -1;
+
+    private int mWindowFills;
+    private long mElapsedNanos;
+
+    CursorLatency(@NonNull CursorLatencyModel model, @NonNull CursorMock mock) {
+        mModel = model;
+        mMock = mock;
+    }
+
+    @Override
+    public void onCount() {
+        ensureCounted();
+    }
+
+    @Override
+    public void onMove(int from, int to, boolean result) {
+
+        // a real cursor obtains count on each move
+        ensureCounted();
+
+        if (result && (to < mWindowStart || to >= mWindowEnd)) {
+            fillWindow(Math.max(to - mModel.windowRows / 3, 0));
+        }
+    }
+
+    @Override
+    public void onColumnIndex(String columnName) {
+        // no op
+    }
+
+    @Override
+    public void onRead(Getter getter, int row, int column) {
+        elapse(mModel.getterNanos);
+    }
+
+    /**
+     * @return number of window fills so far
+     */
+    public int windowFills() {
+        return mWindowFills;
+    }
+
+    /**
+     * @return total cost accounted by this instance in nanoseconds
+     */
+    public long elapsedNanos() {
+        return mElapsedNanos;
+    }
+
+    private void ensureCounted() {
+        if (!mIsCounted) {
+            mIsCounted = true;
+            elapse(mModel.firstCountNanos);
+            // counting rows fills the first window
+            fillWindow(0);
+        }
+    }
+
+    private void fillWindow(int start) {
+        mWindowStart = start;
+        mWindowEnd = start + mModel.windowRows;
+        mWindowFills += 1;
+        // only existing rows are put in a window
+        final int rows = Math.max(Math.min(mWindowEnd, mMock.cursorRows().count()) - start, 0);
+        elapse(mModel.windowFillNanos + mModel.rowFillNanos * rows);
+    }
+
+    private void elapse(long nanos) {
+        if (nanos > 0L) {
+            mElapsedNanos += nanos;
+            mModel.clock.elapse(nanos);
+        }
+    }
+}
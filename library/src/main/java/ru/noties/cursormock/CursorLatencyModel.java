@@ -0,0 +1,171 @@
+package ru.noties.cursormock;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+
+/**
+ * A cost model of a real SQLite cursor. {@link CursorMock} returns data instantly, so performance
+ * tests against it hide the cost of filling a cursor window and counting rows. This model is
+ * applied to a {@link CursorMock} as a {@link CursorAccessListener} that accounts the following
+ * costs on a {@link CursorClock}:
+ *  * first row count (a real cursor executes the query and counts all rows on first
+ *  {@link CursorMock#getCount()} or move)
+ *  * window fill (a real cursor fills a window of rows when it's moved outside of current window)
+ *  * each data getter call
+ *
+ * {@code
+ *     final CursorLatencyModel model = CursorLatencyModel.builder()
+ *          .firstCount(TimeUnit.MILLISECONDS.toNanos(12))
+ *          .windowFill(TimeUnit.MILLISECONDS.toNanos(4))
+ *          .windowRows(250)
+ *          .getter(150)
+ *          .clock(new CursorClock.Sleeping())
+ *          .build();
+ *     model.inject(mock);
+ * }
+ *
+ * An instance of this class is immutable and can be used with any number of cursors.
+ *
+ * @see CursorLatency
+ * @see CursorClock
+ */
+@SuppressWarnings("WeakerAccess")
+public class CursorLatencyModel {
+
+    /**
+     * Default number of rows that fit in a window
+     */
+    public static final int DEFAULT_WINDOW_ROWS = 1000;
+
+    @NonNull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    final CursorClock clock;
+    final long firstCountNanos;
+    final long windowFillNanos;
+    final long rowFillNanos;
+    final int windowRows;
+    final long getterNanos;
+
+    CursorLatencyModel(@NonNull Builder builder) {
+        this.clock = builder.clock != null
+                ? builder.clock
+                : new CursorClock.Simulated();
+        this.firstCountNanos = builder.firstCountNanos;
+        this.windowFillNanos = builder.windowFillNanos;
+        this.rowFillNanos = builder.rowFillNanos;
+        this.windowRows = builder.windowRows;
+        this.getterNanos = builder.getterNanos;
+    }
+
+    /**
+     * Adds a new {@link CursorLatency} as a {@link CursorAccessListener} to the supplied {@link CursorMock}
+     * (already set listener is kept)
+     *
+     * @param mock {@link CursorMock} to apply this model to
+     * @return {@link CursorLatency} that accounts costs for the supplied `mock`
+     */
+    @NonNull
+    public CursorLatency inject(@NonNull CursorMock mock) {
+        final CursorLatency latency = new CursorLatency(this, mock);
+        CursorAccessListenerComposite.add(mock, latency);
+        return latency;
+    }
+
+    /**
+     * @return {@link CursorClock} that is used by this model
+     */
+    @NonNull
+    public CursorClock clock() {
+        return clock;
+    }
+
+    public static class Builder {
+
+        private CursorClock clock;
+        private long firstCountNanos;
+        private long windowFillNanos;
+        private long rowFillNanos;
+        private int windowRows = DEFAULT_WINDOW_ROWS;
+        private long getterNanos;
+
+        Builder() {
+        }
+
+        /**
+         * @param clock {@link CursorClock} to account costs on. If not specified a new instance
+         *              of {@link CursorClock.Simulated} will be used
+         * @return self to chain calls
+         */
+        public Builder clock(@NonNull CursorClock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * @param nanos cost of the first row count
+         * @return self to chain calls
+         */
+        public Builder firstCount(long nanos) {
+            this.firstCountNanos = checkNanos(nanos);
+            return this;
+        }
+
+        /**
+         * @param nanos fixed cost of filling a window
+         * @return self to chain calls
+         */
+        public Builder windowFill(long nanos) {
+            this.windowFillNanos = checkNanos(nanos);
+            return this;
+        }
+
+        /**
+         * @param nanos cost of each row that is put in a window when it's filled
+         * @return self to chain calls
+         */
+        public Builder rowFill(long nanos) {
+            this.rowFillNanos = checkNanos(nanos);
+            return this;
+        }
+
+        /**
+         * @param rows number of rows that fit in a window, default is {@link #DEFAULT_WINDOW_ROWS}
+         * @return self to chain calls
+         */
+        @SuppressLint("DefaultLocale")
+        public Builder windowRows(int rows) {
+            if (rows < 1) {
+                throw new IllegalArgumentException(String.format("Window rows must be greater " +
+                        "than 0, actual: %d", rows));
+            }
+            this.windowRows = rows;
+            return this;
+        }
+
+        /**
+         * @param nanos cost of each data getter call
+         * @return self to chain calls
+         */
+        public Builder getter(long nanos) {
+            this.getterNanos = checkNanos(nanos);
+            return this;
+        }
+
+        @NonNull
+        public CursorLatencyModel build() {
+            return new CursorLatencyModel(this);
+        }
+
+        @SuppressLint("DefaultLocale")
+        private static long checkNanos(long nanos) {
+            if (nanos < 0L) {
+                throw new IllegalArgumentException(String.format("Cost must not be negative, " +
+                        "actual: %d", nanos));
+            }
+            return nanos;
+        }
+    }
+}
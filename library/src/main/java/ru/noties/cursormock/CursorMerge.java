@@ -0,0 +1,212 @@
+package ru.noties.cursormock;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+
+/**
+ * Merges multiple {@link CursorMock}s that are sorted by a key column into one sorted cursor
+ * (for example local &amp; remote pages of messages sorted by date):
+ * {@code
+ *     final CursorMock merged = CursorMerge.of("date", local, remotePage1, remotePage2)
+ *          .descending()
+ *          .build();
+ * }
+ *
+ * Rows are not copied: heads of all cursors are kept in a heap of primitive keys, and only
+ * a cursor index &amp; a row index are stored for each merged row. Rows with equal keys keep
+ * the order of supplied cursors. The resulting cursor references rows of the supplied cursors,
+ * so they must not be reused (for example with {@link CursorMockPool}) while it is in use.
+ * Closing the resulting cursor does not close the supplied ones.
+ *
+ * All cursors must have the same column names (in the same order), as for {@link CursorConcat}.
+ * Key column must be INT or FLOAT (or have no type, then keys are compared as numbers), NULL keys
+ * go first in ascending order and last in descending order (as SQLite sorts them), NaN keys are NULL.
+ */
+@SuppressWarnings("WeakerAccess")
+public class CursorMerge {
+
+    /**
+     * @param keyColumn name of a column that all cursors are sorted by
+     * @return {@link CursorMerge} to build a merged cursor with
+     * @throws IllegalArgumentException if cursors have different columns, there is no such column
+     *          or it is not numeric
+     */
+    @NonNull
+    public static CursorMerge of(
+            @NonNull String keyColumn,
+            @NonNull CursorMock first,
+            CursorMock... others) throws IllegalArgumentException {
+        return new CursorMerge(
+                CursorConcat.schema(first, others),
+                CursorConcat.segments(first, others),
+                keyColumn
+        );
+    }
+
+    private final CursorSchema mCursorSchema;
+    private final CursorRows[] mSegments;
+    private final int mKeyColumn;
+
+    private boolean mIsDescending;
+
+    CursorMerge(@NonNull CursorSchema cursorSchema, @NonNull CursorRows[] segments, @NonNull String keyColumn) {
+        mCursorSchema = cursorSchema;
+        mSegments = segments;
+        mKeyColumn = SortKeys.keyColumn(cursorSchema, keyColumn);
+    }
+
+    /**
+     * Cursors are sorted in descending order of keys (ascending by default)
+     *
+     * @return self to chain calls
+     */
+    public CursorMerge descending() {
+        mIsDescending = true;
+        return this;
+    }
+
+    /**
+     * @return merged cursor
+     * @throws IllegalArgumentException if a cursor is not sorted by the key column
+     */
+    @NonNull
+    public CursorMock build() throws IllegalArgumentException {
+        return new CursorMock(mCursorSchema, new Merger().merge());
+    }
+
+    private class Merger {
+
+        private final CursorRows[] mRows = mSegments;
+        private final int mLength = mRows.length;
+
+        private final boolean mIsInteger = mCursorSchema.columnType(mKeyColumn) == ColumnType.INT;
+
+        private final CursorColumnValues[] mValues = new CursorColumnValues[mLength];
+        private final int[] mCounts = new int[mLength];
+
+        // head of each cursor: its row, key and if key is NULL
+        private final int[] mHeads = new int[mLength];
+        private final long[] mKeys = new long[mLength];
+        private final boolean[] mNulls = new boolean[mLength];
+
+        // binary heap of cursor indexes, ordered by their heads
+        private final int[] mHeap = new int[mLength];
+        private int mHeapSize;
+
+        @NonNull
+        CursorRows merge() {
+
+            int total = 0;
+
+            for (int i = 0; i < mLength; i++) {
+                final int count = mRows[i].count();
+                mCounts[i] = count;
+                total += count;
+                if (count > 0) {
+                    mValues[i] = new CursorColumnValues(mRows[i], mKeyColumn);
+                    readKey(i, 0);
+                    mHeap[mHeapSize] = i;
+                    siftUp(mHeapSize);
+                    mHeapSize += 1;
+                }
+            }
+
+            if (total == 0) {
+                return CursorRows.EMPTY;
+            }
+
+            final int[] segmentOfRow = new int[total];
+            final int[] rowInSegment = new int[total];
+
+            for (int row = 0; row < total; row++) {
+
+                final int segment = mHeap[0];
+                final int head = mHeads[segment];
+
+                segmentOfRow[row] = segment;
+                rowInSegment[row] = head;
+
+                if (head + 1 < mCounts[segment]) {
+                    final long key = mKeys[segment];
+                    final boolean isNull = mNulls[segment];
+                    readKey(segment, head + 1);
+                    if (SortKeys.compare(isNull, key, mNulls[segment], mKeys[segment], mIsDescending) > 0) {
+                        throw notSorted(segment, head + 1);
+                    }
+                } else {
+                    // cursor is exhausted, the last element takes its place
+                    mHeapSize -= 1;
+                    mHeap[0] = mHeap[mHeapSize];
+                }
+
+                if (mHeapSize > 0) {
+                    siftDown(0);
+                }
+            }
+
+            return new CursorRowsMerged(mRows, segmentOfRow, rowInSegment, total);
+        }
+
+        private void readKey(int segment, int row) {
+            final CursorColumnValues values = mValues[segment];
+            mHeads[segment] = row;
+            if (SortKeys.isNull(values, row, mIsInteger)) {
+                mNulls[segment] = true;
+                mKeys[segment] = 0L;
+            } else {
+                mNulls[segment] = false;
+                mKeys[segment] = SortKeys.key(values, row, mIsInteger);
+            }
+        }
+
+        // heads with equal keys are ordered by index of a cursor, so merge is stable
+        private boolean isBefore(int left, int right) {
+            final int result = SortKeys.compare(mNulls[left], mKeys[left], mNulls[right], mKeys[right], mIsDescending);
+            return result < 0
+                    || (result == 0 && left < right);
+        }
+
+        private void siftUp(int index) {
+            final int[] heap = mHeap;
+            final int segment = heap[index];
+            while (index > 0) {
+                final int parent = (index - 1) >>> 1;
+                if (!isBefore(segment, heap[parent])) {
+                    break;
+                }
+                heap[index] = heap[parent];
+                index = parent;
+            }
+            heap[index] = segment;
+        }
+
+        private void siftDown(int index) {
+            final int[] heap = mHeap;
+            final int size = mHeapSize;
+            final int segment = heap[index];
+            while (true) {
+                int child = (index << 1) + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && isBefore(heap[child + 1], heap[child])) {
+                    child += 1;
+                }
+                if (!isBefore(heap[child], segment)) {
+                    break;
+                }
+                heap[index] = heap[child];
+                index = child;
+            }
+            heap[index] = segment;
+        }
+
+        @NonNull
+        @SuppressLint("DefaultLocale")
+        private IllegalArgumentException notSorted(int segment, int row) {
+            return new IllegalArgumentException(String.format("Cursor at index: %d is not sorted by `%s` " +
+                    "in %s order at row: %d", segment, mCursorSchema.columnName(mKeyColumn),
+                    mIsDescending ? "descending" : "ascending", row));
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package ru.noties.cursormock;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@link CursorAccessListener} that counts how a {@link CursorMock} is accessed. Helps to find
+ * wasteful access patterns in code under test (backward seeks, a lot of `getColumnIndex` calls
+ * per row, reading the same cell as a String multiple times, etc).
+ *
+ * {@code
+ *     final CursorMetrics metrics = CursorMetrics.instrument(mock);
+ *     adapter.bind(mock);
+ *     System.out.println(metrics.report());
+ * }
+ *
+ * Counters can be safely updated from multiple threads (one instance can be set as a listener for
+ * multiple same-shaped cursors), but repeated String reads are tracked correctly only for
+ * a cursor that is accessed by a single thread.
+ *
+ * @see CursorMock#setAccessListener(CursorAccessListener)
+ */
+@SuppressWarnings("WeakerAccess")
+public class CursorMetrics implements CursorAccessListener {
+
+    /**
+     * Creates a new instance of {@link CursorMetrics} and adds it as a {@link CursorAccessListener}
+     * for the supplied {@link CursorMock} (already set listener is kept)
+     *
+     * @param mock {@link CursorMock} to instrument
+     * @return {@link CursorMetrics} that will receive access notifications from the supplied `mock`
+     */
+    @NonNull
+    public static CursorMetrics instrument(@NonNull CursorMock mock) {
+        final CursorMetrics metrics = new CursorMetrics(mock.getColumnNames());
+        CursorAccessListenerComposite.add(mock, metrics);
+        return metrics;
+    }
+
+    private static final int COUNT = 0;
+    private static final int MOVES = 1;
+    private static final int MOVES_NEXT = 2;
+    private static final int SEEKS_FORWARD = 3;
+    private static final int SEEKS_BACKWARD = 4;
+    private static final int MOVES_SAME = 5;
+    private static final int ROWS_VISITED = 6;
+    private static final int COLUMN_INDEX = 7;
+    private static final int STRING_REPEATED = 8;
+    private static final int COUNTERS = 9;
+
+    private static final Getter[] GETTERS = Getter.values();
+
+    private final String[] mColumnNames;
+
+    private final AtomicLongArray mCounters;
+
+    // counters for each column & getter (column * GETTERS.length + getter.ordinal())
+    private final AtomicLongArray mReads;
+
+    // per column counters of repeated `getString` calls for the same row
+    private final AtomicLongArray mStringRepeated;
+
+    // the last row that was read by `getString` for each column
+    private final int[] mStringLastRow;
+
+    /**
+     * @param columnNames names of the columns of cursors this instance will be listening to
+     * @see #instrument(CursorMock)
+     */
+    public CursorMetrics(@NonNull String[] columnNames) {
+        final int columns = columnNames.length;
+        mColumnNames = columnNames.clone();
+        mCounters = new AtomicLongArray(COUNTERS);
+        mReads = new AtomicLongArray(columns * GETTERS.length);
+        mStringRepeated = new AtomicLongArray(columns);
+        mStringLastRow = new int[columns];
+        Arrays.fill(mStringLastRow, -1);
+    }
+
+    @Override
+    public void onCount() {
+        mCounters.incrementAndGet(COUNT);
+    }
+
+    @Override
+    public void onMove(int from, int to, boolean result) {
+
+        mCounters.incrementAndGet(MOVES);
+
+        final int counter;
+        if (to == from) {
+            counter = MOVES_SAME;
+        } else if (to == from + 1) {
+            counter = MOVES_NEXT;
+        } else if (to > from) {
+            counter = SEEKS_FORWARD;
+        } else {
+            counter = SEEKS_BACKWARD;
+        }
+        mCounters.incrementAndGet(counter);
+
+        if (result && to != from) {
+            mCounters.incrementAndGet(ROWS_VISITED);
+        }
+    }
+
+    @Override
+    public void onColumnIndex(String columnName) {
+        mCounters.incrementAndGet(COLUMN_INDEX);
+    }
+
+    @Override
+    public void onRead(Getter getter, int row, int column) {
+
+        if (column < 0 || column >= mColumnNames.length) {
+            // will most likely throw, nothing to count
+            return;
+        }
+
+        mReads.incrementAndGet(column * GETTERS.length + getter.ordinal());
+
+        if (getter == Getter.STRING) {
+            if (mStringLastRow[column] == row) {
+                mStringRepeated.incrementAndGet(column);
+                mCounters.incrementAndGet(STRING_REPEATED);
+            } else {
+                mStringLastRow[column] = row;
+            }
+        }
+    }
+
+    /**
+     * @return number of {@link CursorMock#getCount()} calls
+     */
+    public long countCalls() {
+        return mCounters.get(COUNT);
+    }
+
+    /**
+     * @return total number of `move*` calls
+     */
+    public long moves() {
+        return mCounters.get(MOVES);
+    }
+
+    /**
+     * @return number of moves to the next row (as {@link CursorMock#moveToNext()} does)
+     */
+    public long sequentialMoves() {
+        return mCounters.get(MOVES_NEXT);
+    }
+
+    /**
+     * @return number of moves forward that skip at least one row
+     */
+    public long forwardSeeks() {
+        return mCounters.get(SEEKS_FORWARD);
+    }
+
+    /**
+     * @return number of moves backward
+     */
+    public long backwardSeeks() {
+        return mCounters.get(SEEKS_BACKWARD);
+    }
+
+    /**
+     * @return number of moves that did not change the position
+     */
+    public long sameRowMoves() {
+        return mCounters.get(MOVES_SAME);
+    }
+
+    /**
+     * @return number of moves that changed the position to a valid row
+     */
+    public long rowsVisited() {
+        return mCounters.get(ROWS_VISITED);
+    }
+
+    /**
+     * @return number of {@link CursorMock#getColumnIndex(String)} calls
+     */
+    public long columnIndexLookups() {
+        return mCounters.get(COLUMN_INDEX);
+    }
+
+    /**
+     * @return average number of {@link CursorMock#getColumnIndex(String)} calls for a visited row
+     */
+    public double columnIndexLookupsPerRow() {
+        final long rows = rowsVisited();
+        return rows == 0
+                ? columnIndexLookups()
+                : (double) columnIndexLookups() / rows;
+    }
+
+    /**
+     * @param column index of a column
+     * @param getter {@link Getter} to obtain the counter for
+     * @return number of calls of the `getter` for the column
+     */
+    public long reads(int column, @NonNull Getter getter) {
+        return mReads.get(column * GETTERS.length + getter.ordinal());
+    }
+
+    /**
+     * @param column index of a column
+     * @return number of {@link CursorMock#getString(int)} calls for the same row that was
+     *          already read by this method
+     */
+    public long repeatedStringReads(int column) {
+        return mStringRepeated.get(column);
+    }
+
+    /**
+     * @return total number of repeated {@link CursorMock#getString(int)} calls
+     * @see #repeatedStringReads(int)
+     */
+    public long repeatedStringReads() {
+        return mCounters.get(STRING_REPEATED);
+    }
+
+    /**
+     * Resets all counters
+     */
+    public void reset() {
+        for (int i = 0; i < COUNTERS; i++) {
+            mCounters.set(i, 0L);
+        }
+        for (int i = 0, length = mReads.length(); i < length; i++) {
+            mReads.set(i, 0L);
+        }
+        for (int i = 0, length = mStringRepeated.length(); i < length; i++) {
+            mStringRepeated.set(i, 0L);
+        }
+        Arrays.fill(mStringLastRow, -1);
+    }
+
+    /**
+     * @return a human readable report of all counters
+     */
+    @NonNull
+    @SuppressLint("DefaultLocale")
+    public String report() {
+
+        final StringBuilder builder = new StringBuilder();
+
+        builder.append(String.format("getCount: %d%n", countCalls()))
+                .append(String.format("moves: %d (next: %d, forward seeks: %d, backward seeks: %d, same row: %d)%n",
+                        moves(), sequentialMoves(), forwardSeeks(), backwardSeeks(), sameRowMoves()))
+                .append(String.format("rows visited: %d%n", rowsVisited()))
+                .append(String.format("getColumnIndex: %d (%.2f per row)%n", columnIndexLookups(), columnIndexLookupsPerRow()))
+                .append(String.format("repeated getString: %d%n", repeatedStringReads()));
+
+        long reads;
+
+        for (int column = 0, columns = mColumnNames.length; column < columns; column++) {
+
+            builder.append(String.format("column `%s`:", mColumnNames[column]));
+
+            boolean hasReads = false;
+
+            for (Getter getter: GETTERS) {
+                reads = reads(column, getter);
+                if (reads > 0) {
+                    builder.append(String.format(" %s=%d", getter, reads));
+                    hasReads = true;
+                }
+            }
+
+            if (!hasReads) {
+                builder.append(" no reads");
+            }
+
+            reads = repeatedStringReads(column);
+            if (reads > 0) {
+                builder.append(String.format(" (repeated STRING=%d)", reads));
+            }
+
+            builder.append(String.format("%n"));
+        }
+
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return report();
+    }
+}
@@ -1,5 +1,6 @@
 package ru.noties.cursormock;
 
+import android.annotation.SuppressLint;
 import android.annotation.TargetApi;
 import android.content.ContentResolver;
 import android.database.CharArrayBuffer;
@@ -11,7 +12,10 @@ import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
@@ -39,6 +43,14 @@ import java.util.Set;
  * will return `true`, so if one need to iterate again (or to do other operations) make sure that
  * cursor is moved to required position.
  *
+ * Getters convert values between types as SQLite cursor does (for example `getString` on an INT
+ * column returns its decimal representation, `getLong` on a TEXT column parses its numeric prefix,
+ * reading a BLOB as a number throws {@link android.database.sqlite.SQLiteException}).
+ *
+ * Values of a column can be read for a range of rows at once (without moving the cursor) with
+ * `readLongs`, `readDoubles`, `readStrings` and `readNulls`. Tight read loops can use {@link #row()}
+ * which position is validated once for a move instead of each read.
+ *
  * Please note, that these methods are not implemented in CursorMock and if called will throw an
  * exception:
  *  * void copyStringToBuffer(int i, CharArrayBuffer charArrayBuffer)
@@ -61,11 +73,17 @@ import java.util.Set;
 @SuppressWarnings("WeakerAccess")
 public class CursorMock implements Cursor, Iterable<CursorMock> {
 
-    private final CursorSchema mCursorSchema;
-    private final CursorRows mCursorRows;
+    private CursorSchema mCursorSchema;
+    private CursorRows mCursorRows;
 
     private Set<DataSetObserver> mDataSetObservers;
 
+    private CursorAccessListener mAccessListener;
+
+    // resolved lazily for each column
+    private CursorColumnConverter[] mConverters;
+    private int mStringCacheSize;
+
     private int mIndex = -1;
 
     private boolean mIsClosed;
@@ -79,8 +97,61 @@ public class CursorMock implements Cursor, Iterable<CursorMock> {
         mCursorRows = cursorRows;
     }
 
+    CursorSchema cursorSchema() {
+        return mCursorSchema;
+    }
+
+    CursorRows cursorRows() {
+        return mCursorRows;
+    }
+
+    // brings a closed instance to its initial state with new data, used by CursorMockPool
+    void reuse(@NonNull CursorSchema cursorSchema, @NonNull CursorRows cursorRows) {
+        mCursorSchema = cursorSchema;
+        mCursorRows = cursorRows;
+        mDataSetObservers = null;
+        mAccessListener = null;
+        mConverters = null;
+        mStringCacheSize = 0;
+        mIndex = -1;
+        mIsClosed = false;
+    }
+
+    /**
+     * @param accessListener {@link CursorAccessListener} to be notified about access to this cursor,
+     *                       or null to remove previously set one
+     * @see CursorMetrics
+     */
+    public void setAccessListener(@Nullable CursorAccessListener accessListener) {
+        mAccessListener = accessListener;
+    }
+
+    @Nullable
+    public CursorAccessListener getAccessListener() {
+        return mAccessListener;
+    }
+
+    /**
+     * Enables a cache of {@link #getString(int)} results for INT and FLOAT columns, so repeated
+     * reads of the same row do not format a number each time. Disabled by default.
+     *
+     * @param rows number of rows to keep in the cache for each column, 0 to disable the cache
+     */
+    @SuppressLint("DefaultLocale")
+    public void setStringCacheSize(int rows) {
+        if (rows < 0) {
+            throw new IllegalArgumentException(String.format("String cache size must not be " +
+                    "negative, actual: %d", rows));
+        }
+        mStringCacheSize = rows;
+        mConverters = null;
+    }
+
     @Override
     public int getCount() {
+        if (mAccessListener != null) {
+            mAccessListener.onCount();
+        }
         return mCursorRows.count();
     }
 
@@ -100,8 +171,9 @@ public class CursorMock implements Cursor, Iterable<CursorMock> {
         checkState();
 
         final boolean result;
+        final int from = mIndex;
 
-        final int count = getCount();
+        final int count = mCursorRows.count();
         if (i >= count) {
             mIndex = count;
             result = false;
@@ -115,6 +187,10 @@ public class CursorMock implements Cursor, Iterable<CursorMock> {
             result = true;
         }
 
+        if (mAccessListener != null) {
+            mAccessListener.onMove(from, mIndex, result);
+        }
+
         return result;
     }
 
@@ -125,7 +201,7 @@ public class CursorMock implements Cursor, Iterable<CursorMock> {
 
     @Override
     public boolean moveToLast() {
-        return moveToPosition(getCount() - 1);
+        return moveToPosition(mCursorRows.count() - 1);
     }
 
     @Override
@@ -140,28 +216,31 @@ public class CursorMock implements Cursor, Iterable<CursorMock> {
 
     @Override
     public boolean isFirst() {
-        return mIndex == 0 && getCount() > 0;
+        return mIndex == 0 && mCursorRows.count() > 0;
     }
 
     @Override
     public boolean isLast() {
-        final int count = getCount();
+        final int count = mCursorRows.count();
         return count > 0 && mIndex == (count - 1);
     }
 
     @Override
     public boolean isBeforeFirst() {
-        return getCount() == 0 || mIndex == -1;
+        return mCursorRows.count() == 0 || mIndex == -1;
     }
 
     @Override
     public boolean isAfterLast() {
-        final int count = getCount();
+        final int count = mCursorRows.count();
         return count == 0 || mIndex == count;
     }
 
     @Override
     public int getColumnIndex(String s) {
+        if (mAccessListener != null) {
+            mAccessListener.onColumnIndex(s);
+        }
         return mCursorSchema.columnIndex(s);
     }
 
@@ -179,6 +258,10 @@ public class CursorMock implements Cursor, Iterable<CursorMock> {
         return mCursorSchema.columnName(i);
     }
 
+    /**
+     * @return column names, the array must not be modified: mocks with an interned schema
+     * ({@link CursorSchemaFactory#intern(CursorSchema)}) return the same shared array
+     */
     @Override
     public String[] getColumnNames() {
         return mCursorSchema.columnNames();
@@ -194,7 +277,11 @@ public class CursorMock implements Cursor, Iterable<CursorMock> {
 
         checkPosition();
 
-        return mCursorRows.get(byte[].class, mIndex, i);
+        if (mAccessListener != null) {
+            mAccessListener.onRead(CursorAccessListener.Getter.BLOB, mIndex, i);
+        }
+
+        return converter(i).getBlob(mCursorRows, mIndex, i);
     }
 
     @Override
@@ -202,7 +289,11 @@ public class CursorMock implements Cursor, Iterable<CursorMock> {
 
         checkPosition();
 
-        return mCursorRows.get(String.class, mIndex, i);
+        if (mAccessListener != null) {
+            mAccessListener.onRead(CursorAccessListener.Getter.STRING, mIndex, i);
+        }
+
+        return converter(i).getString(mCursorRows, mIndex, i);
     }
 
     @Override
@@ -215,16 +306,11 @@ public class CursorMock implements Cursor, Iterable<CursorMock> {
 
         checkPosition();
 
-        final short result;
-
-        final Number number = mCursorRows.get(Number.class, mIndex, i);
-        if (number == null) {
-            result = 0;
-        } else {
-            result = number.shortValue();
+        if (mAccessListener != null) {
+            mAccessListener.onRead(CursorAccessListener.Getter.SHORT, mIndex, i);
         }
 
-        return result;
+        return (short) converter(i).getLong(mCursorRows, mIndex, i);
     }
 
     @Override
@@ -232,16 +318,11 @@ public class CursorMock implements Cursor, Iterable<CursorMock> {
 
         checkPosition();
 
-        final int result;
-
-        final Number number = mCursorRows.get(Number.class, mIndex, i);
-        if (number == null) {
-            result = 0;
-        } else {
-            result = number.intValue();
+        if (mAccessListener != null) {
+            mAccessListener.onRead(CursorAccessListener.Getter.INT, mIndex, i);
         }
 
-        return result;
+        return (int) converter(i).getLong(mCursorRows, mIndex, i);
     }
 
     @Override
@@ -249,16 +330,11 @@ public class CursorMock implements Cursor, Iterable<CursorMock> {
 
         checkPosition();
 
-        final long result;
-
-        final Number number = mCursorRows.get(Number.class, mIndex, i);
-        if (number == null) {
-            result = 0L;
-        } else {
-            result = number.longValue();
+        if (mAccessListener != null) {
+            mAccessListener.onRead(CursorAccessListener.Getter.LONG, mIndex, i);
         }
 
-        return result;
+        return converter(i).getLong(mCursorRows, mIndex, i);
     }
 
     @Override
@@ -266,16 +342,11 @@ public class CursorMock implements Cursor, Iterable<CursorMock> {
 
         checkPosition();
 
-        final float result;
-
-        final Number number = mCursorRows.get(Number.class, mIndex, i);
-        if (number == null) {
-            result = .0F;
-        } else {
-            result = number.floatValue();
+        if (mAccessListener != null) {
+            mAccessListener.onRead(CursorAccessListener.Getter.FLOAT, mIndex, i);
         }
 
-        return result;
+        return (float) converter(i).getDouble(mCursorRows, mIndex, i);
     }
 
     @Override
@@ -283,16 +354,11 @@ public class CursorMock implements Cursor, Iterable<CursorMock> {
 
         checkPosition();
 
-        final double result;
-
-        final Number number = mCursorRows.get(Number.class, mIndex, i);
-        if (number == null) {
-            result = .0D;
-        } else {
-            result = number.doubleValue();
+        if (mAccessListener != null) {
+            mAccessListener.onRead(CursorAccessListener.Getter.DOUBLE, mIndex, i);
         }
 
-        return result;
+        return converter(i).getDouble(mCursorRows, mIndex, i);
     }
 
     @Override
@@ -300,19 +366,27 @@ public class CursorMock implements Cursor, Iterable<CursorMock> {
 
         checkPosition();
 
+        if (mAccessListener != null) {
+            mAccessListener.onRead(CursorAccessListener.Getter.TYPE, mIndex, i);
+        }
+
+        // columns with values of different types store a type tag for each value
+        final CursorRowsColumnar.Column data = columnarColumn(i);
+        if (data instanceof CursorRowsColumnar.TaggedColumn) {
+            return ((CursorRowsColumnar.TaggedColumn) data).types[mIndex];
+        }
+
         // okay, here we are going to ask CursorRows if it's NULL
         // if yes -> return NULL, else just return type from CursorSchema
-        final int type;
-        if (isNull(i)) {
-            type = Cursor.FIELD_TYPE_NULL;
-        } else {
-            final ColumnType columnType = mCursorSchema.columnType(i);
-            type = columnType == null
-                    ? Cursor.FIELD_TYPE_NULL
-                    : columnType.value;
+        // (or type of the value if column has no type, for example a view of CursorDynamic)
+        final Object value = mCursorRows.get(Object.class, mIndex, i);
+        if (value == null) {
+            return Cursor.FIELD_TYPE_NULL;
         }
-
-        return type;
+        final ColumnType columnType = mCursorSchema.columnType(i);
+        return columnType != null
+                ? columnType.value
+                : ColumnTypeUtils.columnType(value.getClass()).value;
     }
 
     @Override
@@ -320,9 +394,137 @@ public class CursorMock implements Cursor, Iterable<CursorMock> {
 
         checkPosition();
 
+        if (mAccessListener != null) {
+            mAccessListener.onRead(CursorAccessListener.Getter.IS_NULL, mIndex, i);
+        }
+
         return mCursorRows.get(Object.class, mIndex, i) == null;
     }
 
+    /**
+     * Returns an accessor for tight read loops, its position is validated once for a move and its
+     * reads are not checked (and are not reported to {@link CursorAccessListener}). The returned
+     * row is positioned where this cursor is and is moved independently.
+     *
+     * @return a new {@link CursorRow} of this cursor
+     * @throws IllegalStateException if this cursor is closed
+     * @see CursorRow
+     */
+    @NonNull
+    public CursorRow row() throws IllegalStateException {
+        checkState();
+        return new CursorRow(mCursorSchema, mCursorRows, mIndex);
+    }
+
+    /**
+     * Reads values of a column for a range of rows without moving the cursor, values are converted
+     * as {@link #getLong(int)} does (NULL is read as 0). Values of INT columns built by
+     * {@link CursorCsvImporter}, {@link CursorJsonLoader}, {@link CursorCapture#capture(android.database.Cursor)}
+     * (and others that store values by columns) are copied with {@link System#arraycopy(Object, int, Object, int, int)}
+     *
+     * @param column index of a column
+     * @param fromRow index of the first row to read
+     * @param dest array to write values to
+     * @param offset index in `dest` to write the first value to
+     * @param length number of rows to read
+     * @throws CursorIndexOutOfBoundsException if rows are out of bounds of this cursor
+     * @throws IndexOutOfBoundsException if `dest` cannot hold `length` values starting at `offset`
+     * @see #readNulls(int, int, boolean[], int, int)
+     */
+    public void readLongs(int column, int fromRow, @NonNull long[] dest, int offset, int length) {
+
+        checkRange(CursorAccessListener.Getter.LONG, column, fromRow, dest.length, offset, length);
+
+        final CursorRowsColumnar.Column data = columnarColumn(column);
+        if (data instanceof CursorRowsColumnar.LongColumn) {
+            final CursorRowsColumnar.LongColumn longColumn = (CursorRowsColumnar.LongColumn) data;
+            System.arraycopy(longColumn.values, fromRow, dest, offset, length);
+            if (longColumn.nulls != null) {
+                for (int i = 0; i < length; i++) {
+                    if (CursorRowsColumnar.isBitSet(longColumn.nulls, fromRow + i)) {
+                        dest[offset + i] = 0L;
+                    }
+                }
+            }
+        } else {
+            final CursorColumnConverter converter = converter(column);
+            for (int i = 0; i < length; i++) {
+                dest[offset + i] = converter.getLong(mCursorRows, fromRow + i, column);
+            }
+        }
+    }
+
+    /**
+     * Reads values of a column for a range of rows, values are converted as {@link #getDouble(int)}
+     * does (NULL is read as 0)
+     *
+     * @see #readLongs(int, int, long[], int, int)
+     */
+    public void readDoubles(int column, int fromRow, @NonNull double[] dest, int offset, int length) {
+
+        checkRange(CursorAccessListener.Getter.DOUBLE, column, fromRow, dest.length, offset, length);
+
+        final CursorRowsColumnar.Column data = columnarColumn(column);
+        if (data instanceof CursorRowsColumnar.DoubleColumn) {
+            final CursorRowsColumnar.DoubleColumn doubleColumn = (CursorRowsColumnar.DoubleColumn) data;
+            System.arraycopy(doubleColumn.values, fromRow, dest, offset, length);
+            if (doubleColumn.nulls != null) {
+                for (int i = 0; i < length; i++) {
+                    if (CursorRowsColumnar.isBitSet(doubleColumn.nulls, fromRow + i)) {
+                        dest[offset + i] = .0D;
+                    }
+                }
+            }
+        } else {
+            final CursorColumnConverter converter = converter(column);
+            for (int i = 0; i < length; i++) {
+                dest[offset + i] = converter.getDouble(mCursorRows, fromRow + i, column);
+            }
+        }
+    }
+
+    /**
+     * Reads values of a column for a range of rows, values are converted as {@link #getString(int)} does
+     *
+     * @see #readLongs(int, int, long[], int, int)
+     */
+    public void readStrings(int column, int fromRow, @NonNull String[] dest, int offset, int length) {
+
+        checkRange(CursorAccessListener.Getter.STRING, column, fromRow, dest.length, offset, length);
+
+        final CursorRowsColumnar.Column data = columnarColumn(column);
+        if (data instanceof CursorRowsColumnar.ObjectColumn
+                && data.type() == ColumnType.TEXT) {
+            System.arraycopy(((CursorRowsColumnar.ObjectColumn) data).values, fromRow, dest, offset, length);
+        } else {
+            final CursorColumnConverter converter = converter(column);
+            for (int i = 0; i < length; i++) {
+                dest[offset + i] = converter.getString(mCursorRows, fromRow + i, column);
+            }
+        }
+    }
+
+    /**
+     * Reads NULL flags of a column for a range of rows (as {@link #isNull(int)} does)
+     *
+     * @see #readLongs(int, int, long[], int, int)
+     */
+    public void readNulls(int column, int fromRow, @NonNull boolean[] dest, int offset, int length) {
+
+        checkRange(CursorAccessListener.Getter.IS_NULL, column, fromRow, dest.length, offset, length);
+
+        final CursorRowsColumnar.Column data = columnarColumn(column);
+        if (data != null) {
+            for (int i = 0; i < length; i++) {
+                dest[offset + i] = data.isNull(fromRow + i);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                dest[offset + i] = mCursorRows.get(Object.class, fromRow + i, column) == null;
+            }
+        }
+    }
+
     @Override
     @Deprecated
     public void deactivate() {
@@ -338,6 +540,13 @@ public class CursorMock implements Cursor, Iterable<CursorMock> {
     @Override
     public void close() {
         mIsClosed = true;
+        if (mCursorRows instanceof Closeable) {
+            try {
+                ((Closeable) mCursorRows).close();
+            } catch (IOException e) {
+                // rows own no external resources that can fail to close
+            }
+        }
         if (mDataSetObservers != null) {
             for (DataSetObserver dataSetObserver: mDataSetObservers) {
                 dataSetObserver.onInvalidated();
@@ -419,6 +628,74 @@ public class CursorMock implements Cursor, Iterable<CursorMock> {
         throw notImplemented("respond(Bundle)");
     }
     
+    @NonNull
+    private CursorColumnConverter converter(int column) {
+
+        CursorColumnConverter[] converters = mConverters;
+        if (converters == null) {
+            converters = mConverters = new CursorColumnConverter[mCursorSchema.columnCount()];
+        }
+
+        if (column < 0 || column >= converters.length) {
+            // let CursorRows report an invalid column
+            return CursorColumnConverter.DYNAMIC;
+        }
+
+        CursorColumnConverter converter = converters[column];
+        if (converter == null) {
+            converter = CursorColumnConverter.create(mCursorSchema, mCursorRows, column, mStringCacheSize);
+            if (converter == null) {
+                // type is not known yet, do not cache, so a converter is resolved when it's known
+                return CursorColumnConverter.DYNAMIC;
+            }
+            converters[column] = converter;
+        }
+        return converter;
+    }
+
+    @Nullable
+    private CursorRowsColumnar.Column columnarColumn(int column) {
+        return mCursorRows instanceof CursorRowsColumnar
+                ? ((CursorRowsColumnar) mCursorRows).column(column)
+                : null;
+    }
+
+    // validates arguments of bulk reads
+    @SuppressLint("DefaultLocale")
+    private void checkRange(
+            @NonNull CursorAccessListener.Getter getter,
+            int column,
+            int fromRow,
+            int destLength,
+            int offset,
+            int length) {
+
+        checkState();
+
+        if (column < 0 || column >= mCursorSchema.columnCount()) {
+            throw new IllegalArgumentException(String.format("Column index: %d is out of bounds, " +
+                    "column count: %d", column, mCursorSchema.columnCount()));
+        }
+
+        final int count = mCursorRows.count();
+        if (fromRow < 0 || length < 0 || fromRow > count - length) {
+            throw new CursorIndexOutOfBoundsException(String.format("Rows from: %d, length: %d are out " +
+                    "of bounds, count: %d", fromRow, length, count));
+        }
+
+        if (offset < 0 || offset > destLength - length) {
+            throw new IndexOutOfBoundsException(String.format("Offset: %d, length: %d are out of " +
+                    "bounds of an array with length: %d", offset, length, destLength));
+        }
+
+        if (mAccessListener != null) {
+            // bulk read is reported as reads of all rows, so listeners observe the same access pattern
+            for (int i = 0; i < length; i++) {
+                mAccessListener.onRead(getter, fromRow + i, column);
+            }
+        }
+    }
+
     private void checkState() throws IllegalStateException {
         if (mIsClosed) {
             throw new IllegalStateException("Cursor already closed");
@@ -426,8 +703,9 @@ public class CursorMock implements Cursor, Iterable<CursorMock> {
     }
 
     private void checkPosition() throws CursorIndexOutOfBoundsException {
-        if (mIndex == -1 || mIndex >= getCount()) {
-            throw new CursorIndexOutOfBoundsException(mIndex, getCount());
+        final int count = mCursorRows.count();
+        if (mIndex == -1 || mIndex >= count) {
+            throw new CursorIndexOutOfBoundsException(mIndex, count);
         }
     }
 
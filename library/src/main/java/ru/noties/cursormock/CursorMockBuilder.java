@@ -6,17 +6,25 @@ import android.support.annotation.Nullable;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.RandomAccess;
 
 /**
  * Basic implementation for fast {@link CursorMock} building. There are 2 ways to build a CursorMock:
  * by providing columns names manually and from a class definition.
+ * Both ways accept an optional `expectedRowCount` hint, that is passed to {@link CursorRowsBuilder}
+ * to pre-size the storage. A CursorMock can also be built lazily from a list of objects, in this case
+ * values are extracted only when they are read.
  *
  * @see #forColumns(String, String...)
  * @see #forClass(Class)
  * @see #forClass(Class, ObjectProcessor)
+ * @see #forColumns(int, String, String...)
+ * @see #forClass(Class, ObjectProcessor, int)
+ * @see #forList(Class, List)
  */
 @SuppressWarnings("WeakerAccess")
 public abstract class CursorMockBuilder {
@@ -79,7 +87,16 @@ public abstract class CursorMockBuilder {
      * @see CursorSchemaFactory#raw(String, String...)
      */
     public static ForColumns forColumns(@NonNull String firstColumn, String... otherColumns) {
-        return new ForColumns(CursorSchemaFactory.raw(firstColumn, otherColumns));
+        return new ForColumns(CursorSchemaFactory.raw(firstColumn, otherColumns), 0);
+    }
+
+    /**
+     * @param expectedRowCount a hint of how many rows will be added
+     * @see #forColumns(String, String...)
+     * @see CursorRowsBuilder#CursorRowsBuilder(CursorSchema, int)
+     */
+    public static ForColumns forColumns(int expectedRowCount, @NonNull String firstColumn, String... otherColumns) {
+        return new ForColumns(CursorSchemaFactory.raw(firstColumn, otherColumns), expectedRowCount);
     }
 
     /**
@@ -87,7 +104,15 @@ public abstract class CursorMockBuilder {
      * @see #forClass(Class, ObjectProcessor)
      */
     public static <T> ForClass<T> forClass(@NonNull Class<T> cl) throws IllegalArgumentException {
-        return new ForClass<>(cl, new ObjectProcessorImpl());
+        return new ForClass<>(cl, new ObjectProcessorImpl(), 0);
+    }
+
+    /**
+     * @param expectedRowCount a hint of how many rows will be added
+     * @see #forClass(Class, ObjectProcessor, int)
+     */
+    public static <T> ForClass<T> forClass(@NonNull Class<T> cl, int expectedRowCount) throws IllegalArgumentException {
+        return new ForClass<>(cl, new ObjectProcessorImpl(), expectedRowCount);
     }
 
     /**
@@ -111,15 +136,72 @@ public abstract class CursorMockBuilder {
      * @see ForClass#addAll(Collection)
      */
     public static <T> ForClass<T> forClass(@NonNull Class<T> cl, @NonNull ObjectProcessor processor) throws IllegalArgumentException {
-        return new ForClass<>(cl, processor);
+        return new ForClass<>(cl, processor, 0);
+    }
+
+    /**
+     * @param expectedRowCount a hint of how many rows will be added
+     * @see #forClass(Class, ObjectProcessor)
+     * @see CursorRowsBuilder#CursorRowsBuilder(CursorSchema, int)
+     */
+    public static <T> ForClass<T> forClass(
+            @NonNull Class<T> cl,
+            @NonNull ObjectProcessor processor,
+            int expectedRowCount
+    ) throws IllegalArgumentException {
+        return new ForClass<>(cl, processor, expectedRowCount);
+    }
+
+    /**
+     * @see ObjectProcessorImpl
+     * @see #forList(Class, ObjectProcessor, List)
+     */
+    public static <T> ForList<T> forList(@NonNull Class<T> cl, @NonNull List<? extends T> source) throws IllegalArgumentException {
+        return new ForList<>(cl, new ObjectProcessorImpl(), source);
+    }
+
+    /**
+     * Factory method to build a {@link CursorMock} that keeps a reference to a list of objects
+     * and extracts field values (via {@link ObjectProcessor#value(Field, Object)}) only when
+     * a cell is read. So building a cursor is O(1) regardless of the list size.
+     *
+     * {@code
+     *     final CursorMock mock = CursorMockBuilder.forList(MyClass.class, list)
+     *          .memoize("name")
+     *          .build();
+     * }
+     *
+     * Supplied list must not be modified after a CursorMock is built. If a list doesn't implement
+     * {@link RandomAccess}, its contents are copied to a new list.
+     *
+     * @param cl a {@link Class} to build {@link CursorSchema} from
+     * @param processor a {@link ObjectProcessor} to manipulate data (required)
+     * @param source a list of objects (can contain null values)
+     * @param <T> type of objects
+     * @return a {@link ForList} instance
+     * @throws IllegalArgumentException if supplied `cl` has no fields, or all fields were filtered
+     *          by {@link ObjectProcessor#ignore(Field)}
+     *
+     * @see ForList#memoize(String...)
+     */
+    public static <T> ForList<T> forList(
+            @NonNull Class<T> cl,
+            @NonNull ObjectProcessor processor,
+            @NonNull List<? extends T> source
+    ) throws IllegalArgumentException {
+        return new ForList<>(cl, processor, source);
     }
 
     protected final CursorSchema mCursorSchema;
     protected final CursorRowsBuilder mRowsBuilder;
 
     protected CursorMockBuilder(@NonNull CursorSchema schema) {
+        this(schema, 0);
+    }
+
+    protected CursorMockBuilder(@NonNull CursorSchema schema, int expectedRowCount) {
         mCursorSchema = schema;
-        mRowsBuilder = new CursorRowsBuilder(mCursorSchema);
+        mRowsBuilder = new CursorRowsBuilder(mCursorSchema, expectedRowCount);
     }
 
     /**
@@ -129,6 +211,39 @@ public abstract class CursorMockBuilder {
         return new CursorMock(mCursorSchema, mRowsBuilder.build());
     }
 
+    /**
+     * @param pool {@link CursorMockPool} to obtain a {@link CursorMock} instance from
+     * @return an instance of {@link CursorMock}
+     * @see CursorMockPool
+     */
+    public CursorMock build(@NonNull CursorMockPool pool) {
+        return pool.obtain(mCursorSchema, mRowsBuilder.build());
+    }
+
+    /**
+     * Builds a {@link CursorMock} with a canonical schema, so all mocks of the same shape share
+     * a single immutable schema instance. Column types must be known at this point (detected
+     * from added rows), as the interned schema cannot be changed
+     *
+     * @return an instance of {@link CursorMock}
+     * @see CursorSchemaFactory#intern(CursorSchema)
+     */
+    public CursorMock buildInterned() {
+        return new CursorMock(CursorSchemaFactory.intern(mCursorSchema), mRowsBuilder.build());
+    }
+
+    /**
+     * Clears all added rows, so this builder can be reused to build another {@link CursorMock}
+     * with the same {@link CursorSchema}
+     *
+     * @return self to chain calls
+     * @see CursorRowsBuilder#reset()
+     */
+    public CursorMockBuilder reset() {
+        mRowsBuilder.reset();
+        return this;
+    }
+
     /**
      * Helper class to build a {@link CursorMock} from column names.
      * Please note that column types will be detected in runtime based
@@ -139,8 +254,8 @@ public abstract class CursorMockBuilder {
      */
     public static class ForColumns extends CursorMockBuilder {
 
-        ForColumns(@NonNull CursorSchema schema) {
-            super(schema);
+        ForColumns(@NonNull CursorSchema schema, int expectedRowCount) {
+            super(schema, expectedRowCount);
         }
 
         /**
@@ -152,6 +267,12 @@ public abstract class CursorMockBuilder {
             mRowsBuilder.addRow(rowValues);
             return this;
         }
+
+        @Override
+        public ForColumns reset() {
+            mRowsBuilder.reset();
+            return this;
+        }
     }
 
     /**
@@ -166,9 +287,13 @@ public abstract class CursorMockBuilder {
 
         private final ObjectProcessor mProcessor;
 
-        ForClass(@NonNull Class<T> cl, @NonNull ObjectProcessor processor) throws IllegalArgumentException {
-            super(buildSchema(cl, processor));
+        // values are copied by CursorRowsBuilder, so the same array is used for all objects
+        private final Object[] mValues;
+
+        ForClass(@NonNull Class<T> cl, @NonNull ObjectProcessor processor, int expectedRowCount) throws IllegalArgumentException {
+            super(buildSchema(cl, processor), expectedRowCount);
             mProcessor = processor;
+            mValues = new Object[mCursorSchema.columnCount()];
         }
 
         /**
@@ -187,7 +312,7 @@ public abstract class CursorMockBuilder {
             } else {
                 final List<Field> fields = ((CursorSchemaFiltered) mCursorSchema).fields();
                 final int size = fields.size();
-                final Object[] values = new Object[size];
+                final Object[] values = mValues;
                 for (int i = 0; i < size; i++) {
                     values[i] = mProcessor.value(fields.get(i), object);
                 }
@@ -202,12 +327,19 @@ public abstract class CursorMockBuilder {
          * @return instance for chaining
          */
         public ForClass<T> addAll(@NonNull Collection<T> collection) {
+            mRowsBuilder.ensureCapacity(collection.size());
             for (T object: collection) {
                 add(object);
             }
             return this;
         }
 
+        @Override
+        public ForClass<T> reset() {
+            mRowsBuilder.reset();
+            return this;
+        }
+
         private static CursorSchemaFiltered buildSchema(Class<?> cl, ObjectProcessor processor) throws IllegalArgumentException {
 
             final Field[] fields = cl.getDeclaredFields();
@@ -264,6 +396,106 @@ public abstract class CursorMockBuilder {
         }
     }
 
+    /**
+     * A class for building {@link CursorMock} that lazily reads values from a list of objects.
+     * Type information for columns is taken from field types if {@link ObjectProcessorImpl} is used,
+     * otherwise it's detected when a non-null value is read for the first time.
+     *
+     * @see #forList(Class, ObjectProcessor, List)
+     */
+    public static class ForList<T> extends CursorMockBuilder {
+
+        private final ObjectProcessor mProcessor;
+        private final List<? extends T> mSource;
+        private final boolean[] mMemoize;
+
+        ForList(@NonNull Class<T> cl, @NonNull ObjectProcessor processor, @NonNull List<? extends T> source) throws IllegalArgumentException {
+            super(ForClass.buildSchema(cl, processor));
+            mProcessor = processor;
+            mSource = source instanceof RandomAccess
+                    ? source
+                    : new ArrayList<>(source);
+            mMemoize = new boolean[mCursorSchema.columnCount()];
+
+            if (ObjectProcessorImpl.class.equals(processor.getClass())) {
+                // values are taken from fields as-is, so we can obtain types without reading values
+                final List<Field> fields = ((ForClass.CursorSchemaFiltered) mCursorSchema).fields();
+                for (int i = 0, size = fields.size(); i < size; i++) {
+                    try {
+                        ((CursorSchemaMutable) mCursorSchema).columnType(i, ColumnTypeUtils.columnType(fields.get(i).getType()));
+                    } catch (IllegalArgumentException e) {
+                        // not supported type, an exception will be thrown when a value is read
+                    }
+                }
+            }
+        }
+
+        /**
+         * Values of specified columns will be extracted only once (first time they are read)
+         *
+         * @param columnNames names of columns to memoize
+         * @return self to chain calls
+         * @throws IllegalArgumentException if there is no column with a specified name
+         */
+        public ForList<T> memoize(@NonNull String... columnNames) throws IllegalArgumentException {
+            for (String columnName: columnNames) {
+                final int index = mCursorSchema.columnIndex(columnName);
+                if (index < 0) {
+                    throw new IllegalArgumentException("Cannot find a `" + columnName + "` column");
+                }
+                mMemoize[index] = true;
+            }
+            return this;
+        }
+
+        /**
+         * Values of all columns will be extracted only once
+         *
+         * @return self to chain calls
+         * @see #memoize(String...)
+         */
+        public ForList<T> memoizeAll() {
+            Arrays.fill(mMemoize, true);
+            return this;
+        }
+
+        @Override
+        public CursorMock build() {
+            return new CursorMock(mCursorSchema, rows());
+        }
+
+        @Override
+        public CursorMock build(@NonNull CursorMockPool pool) {
+            return pool.obtain(mCursorSchema, rows());
+        }
+
+        /**
+         * Not supported, as column types of lazily built rows are detected when values are read
+         *
+         * @throws IllegalStateException always
+         */
+        @Override
+        public CursorMock buildInterned() throws IllegalStateException {
+            throw new IllegalStateException("ForList detects column types lazily, its schema cannot be interned");
+        }
+
+        private CursorRows rows() {
+            final CursorRows rows;
+            if (mSource.size() == 0) {
+                rows = CursorRows.EMPTY;
+            } else {
+                rows = new CursorRowsLazy(
+                        mSource,
+                        ((ForClass.CursorSchemaFiltered) mCursorSchema).fields(),
+                        mProcessor,
+                        (CursorSchemaMutable) mCursorSchema,
+                        mMemoize.clone()
+                );
+            }
+            return rows;
+        }
+    }
+
     /**
      * Basic implementation of {@link ObjectProcessor}.
      * Default behaviour:
@@ -0,0 +1,137 @@
+package ru.noties.cursormock;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+
+/**
+ * A pool of closed {@link CursorMock} instances that can be reused with new {@link CursorRows}.
+ * Helps to reduce allocations when a lot of same-shaped cursors are built and closed repeatedly.
+ *
+ * {@code
+ *     final CursorMockPool pool = new CursorMockPool(4);
+ *     final CursorMockBuilder.ForColumns builder = CursorMockBuilder.forColumns("id", "name");
+ *
+ *     for (Fixture fixture: fixtures) {
+ *         builder.reset();
+ *         builder.addRow(fixture.id, fixture.name);
+ *         final CursorMock mock = builder.build(pool);
+ *         // ...
+ *         pool.release(mock);
+ *     }
+ * }
+ *
+ * When released {@link CursorMock} holds {@link CursorRows} that were built by a {@link CursorRowsBuilder},
+ * these rows are recycled, so the builder can reuse its storage after {@link CursorRowsBuilder#reset()}.
+ * This means that after a {@link CursorMock} is released neither it, nor its {@link CursorRows}
+ * must be used.
+ *
+ * This class is thread-safe.
+ *
+ * @see CursorMockBuilder#build(CursorMockPool)
+ * @see CursorRowsBuilder#reset()
+ */
+@SuppressWarnings("WeakerAccess")
+public class CursorMockPool {
+
+    private final CursorMock[] mPool;
+    private int mSize;
+
+    /**
+     * @param maxSize maximum number of instances that this pool holds
+     * @throws IllegalArgumentException if `maxSize` is less than 1
+     */
+    @SuppressLint("DefaultLocale")
+    public CursorMockPool(int maxSize) throws IllegalArgumentException {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException(String.format("Pool max size must be greater " +
+                    "than 0, actual: %d", maxSize));
+        }
+        mPool = new CursorMock[maxSize];
+    }
+
+    /**
+     * @param cursorSchema {@link CursorSchema} of a cursor
+     * @param cursorRows {@link CursorRows} of a cursor
+     * @return a pooled {@link CursorMock} instance (or a new one if this pool is empty)
+     */
+    @NonNull
+    public CursorMock obtain(@NonNull CursorSchema cursorSchema, @NonNull CursorRows cursorRows) {
+
+        final CursorMock mock;
+
+        synchronized (mPool) {
+            if (mSize > 0) {
+                mSize -= 1;
+                mock = mPool[mSize];
+                mPool[mSize] = null;
+            } else {
+                mock = null;
+            }
+        }
+
+        final CursorMock out;
+        if (mock == null) {
+            out = new CursorMock(cursorSchema, cursorRows);
+        } else {
+            mock.reuse(cursorSchema, cursorRows);
+            out = mock;
+        }
+        return out;
+    }
+
+    /**
+     * Closes (if it's not closed already) supplied {@link CursorMock} and puts it in this pool.
+     * Only instances of {@link CursorMock} class are pooled (subclasses are just closed).
+     *
+     * @param mock {@link CursorMock} to release
+     * @return a flag indicating if supplied `mock` was put in this pool
+     */
+    public boolean release(@NonNull CursorMock mock) {
+
+        if (!mock.isClosed()) {
+            mock.close();
+        }
+
+        final CursorRows rows = mock.cursorRows();
+        if (rows instanceof CursorRowsBuilder.Recyclable) {
+            ((CursorRowsBuilder.Recyclable) rows).recycle();
+        }
+
+        if (mock.getClass() != CursorMock.class) {
+            return false;
+        }
+
+        // do not hold references to data while in pool
+        mock.reuse(mock.cursorSchema(), CursorRows.EMPTY);
+        mock.close();
+
+        final boolean result;
+
+        synchronized (mPool) {
+            for (int i = 0; i < mSize; i++) {
+                if (mPool[i] == mock) {
+                    // already released
+                    return false;
+                }
+            }
+            if (mSize < mPool.length) {
+                mPool[mSize] = mock;
+                mSize += 1;
+                result = true;
+            } else {
+                result = false;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return number of instances currently held by this pool
+     */
+    public int size() {
+        synchronized (mPool) {
+            return mSize;
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package ru.noties.cursormock;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Maps rows of a {@link CursorMock} back to objects, a reverse of {@link CursorMockBuilder#forClass(Class)}:
+ * {@code
+ *     final List<Item> items = CursorObjectMapper.forClass(Item.class).map(mock);
+ * }
+ *
+ * Fields are discovered once with the same rules as {@link CursorMockBuilder.ObjectProcessor}
+ * (by default static &amp; transient fields are ignored and a field name is its column name) and each
+ * field gets a setter for its type. Column indexes are resolved once for each mapped cursor, fields
+ * without a column keep their default values, columns without a field are ignored. Values are converted
+ * as {@link CursorMock} getters do, NULL is mapped to null for object fields and to 0 for primitive ones.
+ *
+ * A class must have a constructor without arguments (it can be private). Supported field types
+ * are listed in {@link ColumnTypeUtils#columnType(Class)}. Instances are thread-safe, mappers
+ * obtained by {@link #forClass(Class)} are cached.
+ */
+@SuppressWarnings("WeakerAccess")
+public class CursorObjectMapper<T> {
+
+    public static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    private static final ConcurrentMap<Class<?>, CursorObjectMapper<?>> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * @return cached mapper that uses {@link CursorMockBuilder.ObjectProcessorImpl} rules
+     * @throws IllegalArgumentException if class has no constructor without arguments or has
+     *          fields of not supported types
+     */
+    @NonNull
+    public static <T> CursorObjectMapper<T> forClass(@NonNull Class<T> cl) throws IllegalArgumentException {
+        //noinspection unchecked
+        CursorObjectMapper<T> mapper = (CursorObjectMapper<T>) CACHE.get(cl);
+        if (mapper == null) {
+            mapper = new CursorObjectMapper<>(cl, new CursorMockBuilder.ObjectProcessorImpl());
+            //noinspection unchecked
+            final CursorObjectMapper<T> existing = (CursorObjectMapper<T>) CACHE.putIfAbsent(cl, mapper);
+            if (existing != null) {
+                mapper = existing;
+            }
+        }
+        return mapper;
+    }
+
+    /**
+     * @param processor that filters fields and provides their column names
+     *                  ({@link CursorMockBuilder.ObjectProcessor#value(Field, Object)} is not used)
+     * @see #forClass(Class)
+     */
+    @NonNull
+    public static <T> CursorObjectMapper<T> forClass(
+            @NonNull Class<T> cl,
+            @NonNull CursorMockBuilder.ObjectProcessor processor) throws IllegalArgumentException {
+        return new CursorObjectMapper<>(cl, processor);
+    }
+
+    private final Constructor<T> mConstructor;
+    private final String[] mColumnNames;
+    private final Setter[] mSetters;
+
+    CursorObjectMapper(@NonNull Class<T> cl, @NonNull CursorMockBuilder.ObjectProcessor processor) throws IllegalArgumentException {
+
+        try {
+            mConstructor = cl.getDeclaredConstructor();
+            mConstructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("Class `" + cl.getName() + "` has no constructor without arguments", e);
+        }
+
+        final List<String> names = new ArrayList<>();
+        final List<Setter> setters = new ArrayList<>();
+
+        for (Field field: cl.getDeclaredFields()) {
+
+            field.setAccessible(true);
+
+            if (processor.ignore(field)) {
+                continue;
+            }
+
+            names.add(processor.columnName(field));
+            setters.add(setter(field));
+        }
+
+        mColumnNames = names.toArray(new String[names.size()]);
+        mSetters = setters.toArray(new Setter[setters.size()]);
+    }
+
+    /**
+     * Maps all rows of a cursor, position of the cursor is not changed
+     *
+     * @return a new list of objects (one for each row)
+     * @throws IllegalStateException if cursor is closed
+     */
+    @NonNull
+    public List<T> map(@NonNull CursorMock mock) throws IllegalStateException {
+        return map(mock, 1);
+    }
+
+    /**
+     * @param parallelism maximum number of threads to map cursors with at least {@link #PARALLEL_THRESHOLD} rows
+     * @see #map(CursorMock)
+     */
+    @NonNull
+    @SuppressLint("DefaultLocale")
+    public List<T> map(@NonNull CursorMock mock, int parallelism) throws IllegalArgumentException, IllegalStateException {
+
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(String.format("Parallelism must be greater than 0, " +
+                    "actual: %d", parallelism));
+        }
+
+        if (mock.isClosed()) {
+            throw new IllegalStateException("Cursor already closed");
+        }
+
+        final CursorSchema schema = mock.cursorSchema();
+        final CursorRows rows = mock.cursorRows();
+        final int count = rows.count();
+
+        // resolved once for a cursor
+        final int[] columns = new int[mSetters.length];
+        final CursorColumnConverter[] converters = new CursorColumnConverter[mSetters.length];
+        for (int i = 0; i < columns.length; i++) {
+            final int column = schema.columnIndex(mColumnNames[i]);
+            columns[i] = column;
+            if (column >= 0) {
+                final CursorColumnConverter converter = CursorColumnConverter.create(schema, rows, column, 0);
+                converters[i] = converter != null
+                        ? converter
+                        : CursorColumnConverter.DYNAMIC;
+            }
+        }
+
+        final Object[] objects = new Object[count];
+
+        final int threads = count < PARALLEL_THRESHOLD
+                ? 1
+                : Math.min(parallelism, count / (PARALLEL_THRESHOLD / 4));
+
+        if (threads <= 1) {
+            new Chunk(rows, columns, converters, objects, 0, count).run();
+        } else {
+            runParallel(rows, columns, converters, objects, threads);
+        }
+
+        //noinspection unchecked
+        return new ArrayList<>((List<T>) Arrays.asList(objects));
+    }
+
+    private void runParallel(
+            @NonNull CursorRows rows,
+            @NonNull int[] columns,
+            @NonNull CursorColumnConverter[] converters,
+            @NonNull Object[] objects,
+            int threads) {
+
+        final int count = objects.length;
+        final int step = (count + threads - 1) / threads;
+
+        final Runnable[] chunks = new Runnable[threads];
+        for (int i = 0; i < threads; i++) {
+            final int from = i * step;
+            chunks[i] = new Chunk(rows, columns, converters, objects, from, Math.min(from + step, count));
+        }
+
+        // errors of chunks are rethrown on the calling thread
+        Workers.run("CursorObjectMapper", chunks);
+    }
+
+    @NonNull
+    private T newInstance() {
+        try {
+            return mConstructor.newInstance();
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot create an instance of `"
+                    + mConstructor.getDeclaringClass().getName() + "`", e);
+        }
+    }
+
+    private class Chunk implements Runnable {
+
+        private final CursorRows mRows;
+        private final int[] mColumns;
+        private final CursorColumnConverter[] mConverters;
+        private final Object[] mObjects;
+        private final int mFrom;
+        private final int mTo;
+
+        Chunk(
+                @NonNull CursorRows rows,
+                @NonNull int[] columns,
+                @NonNull CursorColumnConverter[] converters,
+                @NonNull Object[] objects,
+                int from,
+                int to) {
+            mRows = rows;
+            mColumns = columns;
+            mConverters = converters;
+            mObjects = objects;
+            mFrom = from;
+            mTo = to;
+        }
+
+        @Override
+        public void run() {
+
+            // readers are not shared between threads
+            final CursorColumnValues[] values = new CursorColumnValues[mColumns.length];
+            for (int i = 0; i < values.length; i++) {
+                if (mColumns[i] >= 0) {
+                    values[i] = new CursorColumnValues(mRows, mColumns[i]);
+                }
+            }
+
+            final Setter[] setters = mSetters;
+
+            try {
+                for (int row = mFrom; row < mTo; row++) {
+                    final T object = newInstance();
+                    for (int i = 0; i < setters.length; i++) {
+                        if (values[i] != null) {
+                            setters[i].set(object, mRows, mConverters[i], values[i], row, mColumns[i]);
+                        }
+                    }
+                    mObjects[row] = object;
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static abstract class Setter {
+
+        final Field field;
+
+        Setter(@NonNull Field field) {
+            this.field = field;
+        }
+
+        abstract void set(
+                @NonNull Object object,
+                @NonNull CursorRows rows,
+                @NonNull CursorColumnConverter converter,
+                @NonNull CursorColumnValues values,
+                int row,
+                int column) throws IllegalAccessException;
+    }
+
+    @NonNull
+    private static Setter setter(@NonNull Field field) throws IllegalArgumentException {
+
+        final Class<?> type = field.getType();
+
+        // throws for not supported types
+        ColumnTypeUtils.columnType(type);
+
+        if (type == long.class) {
+            return new Setter(field) {
+                @Override
+                void set(@NonNull Object object, @NonNull CursorRows rows, @NonNull CursorColumnConverter converter,
+                         @NonNull CursorColumnValues values, int row, int column) throws IllegalAccessException {
+                    field.setLong(object, converter.getLong(rows, row, column));
+                }
+            };
+        }
+
+        if (type == int.class) {
+            return new Setter(field) {
+                @Override
+                void set(@NonNull Object object, @NonNull CursorRows rows, @NonNull CursorColumnConverter converter,
+                         @NonNull CursorColumnValues values, int row, int column) throws IllegalAccessException {
+                    field.setInt(object, (int) converter.getLong(rows, row, column));
+                }
+            };
+        }
+
+        if (type == short.class) {
+            return new Setter(field) {
+                @Override
+                void set(@NonNull Object object, @NonNull CursorRows rows, @NonNull CursorColumnConverter converter,
+                         @NonNull CursorColumnValues values, int row, int column) throws IllegalAccessException {
+                    field.setShort(object, (short) converter.getLong(rows, row, column));
+                }
+            };
+        }
+
+        if (type == double.class) {
+            return new Setter(field) {
+                @Override
+                void set(@NonNull Object object, @NonNull CursorRows rows, @NonNull CursorColumnConverter converter,
+                         @NonNull CursorColumnValues values, int row, int column) throws IllegalAccessException {
+                    field.setDouble(object, converter.getDouble(rows, row, column));
+                }
+            };
+        }
+
+        if (type == float.class) {
+            return new Setter(field) {
+                @Override
+                void set(@NonNull Object object, @NonNull CursorRows rows, @NonNull CursorColumnConverter converter,
+                         @NonNull CursorColumnValues values, int row, int column) throws IllegalAccessException {
+                    field.setFloat(object, (float) converter.getDouble(rows, row, column));
+                }
+            };
+        }
+
+        if (type == String.class) {
+            return new Setter(field) {
+                @Override
+                void set(@NonNull Object object, @NonNull CursorRows rows, @NonNull CursorColumnConverter converter,
+                         @NonNull CursorColumnValues values, int row, int column) throws IllegalAccessException {
+                    field.set(object, converter.getString(rows, row, column));
+                }
+            };
+        }
+
+        if (type == byte[].class) {
+            return new Setter(field) {
+                @Override
+                void set(@NonNull Object object, @NonNull CursorRows rows, @NonNull CursorColumnConverter converter,
+                         @NonNull CursorColumnValues values, int row, int column) throws IllegalAccessException {
+                    field.set(object, converter.getBlob(rows, row, column));
+                }
+            };
+        }
+
+        // boxed types, NULL is kept
+        final boolean isInteger = type == Long.class || type == Integer.class || type == Short.class;
+
+        return new Setter(field) {
+            @Override
+            void set(@NonNull Object object, @NonNull CursorRows rows, @NonNull CursorColumnConverter converter,
+                     @NonNull CursorColumnValues values, int row, int column) throws IllegalAccessException {
+                final Object value;
+                if (values.isNull(row)) {
+                    value = null;
+                } else if (isInteger) {
+                    value = box(field.getType(), converter.getLong(rows, row, column));
+                } else {
+                    value = box(field.getType(), converter.getDouble(rows, row, column));
+                }
+                field.set(object, value);
+            }
+        };
+    }
+
+    @NonNull
+    private static Object box(@NonNull Class<?> type, long value) {
+        if (type == Long.class) {
+            return value;
+        }
+        if (type == Integer.class) {
+            return (int) value;
+        }
+        return (short) value;
+    }
+
+    @NonNull
+    private static Object box(@NonNull Class<?> type, double value) {
+        if (type == Double.class) {
+            return value;
+        }
+        return (float) value;
+    }
+}
@@ -0,0 +1,164 @@
+package ru.noties.cursormock;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+
+/**
+ * Builds {@link CursorMock}s which values are stored outside of the heap (in direct {@link java.nio.ByteBuffer}s),
+ * so large data sets do not increase heap usage &amp; garbage collection pauses:
+ * {@code
+ *     final CursorMock mock = CursorOffHeap.forColumns("_id", "name")
+ *          .addRow(1L, "Jimmy")
+ *          .build();
+ *     // or
+ *     final CursorMock copy = CursorOffHeap.copyOf(heapMock);
+ * }
+ *
+ * Memory is allocated in slabs of {@link #DEFAULT_SLAB_SIZE} bytes and is released when
+ * {@link CursorMock#close()} is called (reading values after that throws an {@link IllegalStateException},
+ * reads that are in progress on other threads finish before memory is released), so make sure to close such mocks.
+ *
+ * Type of a column is detected from the first value (INT column is widened to FLOAT if a double
+ * value is added), values of a column must have the same type.
+ */
+@SuppressWarnings("WeakerAccess")
+public class CursorOffHeap {
+
+    public static final int DEFAULT_SLAB_SIZE = 1 << 20;
+
+    /**
+     * @see Builder#slabSize(int)
+     */
+    @NonNull
+    public static Builder forColumns(@NonNull String firstColumn, String... otherColumns) {
+        return new Builder(CursorSchemaFactory.raw(firstColumn, otherColumns));
+    }
+
+    /**
+     * Copies all rows of supplied {@link CursorMock} (its position is not changed)
+     *
+     * @return a new {@link CursorMock} with the same columns &amp; rows stored off-heap
+     * @throws IllegalArgumentException if a column has values of different types
+     */
+    @NonNull
+    public static CursorMock copyOf(@NonNull CursorMock mock) throws IllegalArgumentException {
+        return copyOf(mock, DEFAULT_SLAB_SIZE);
+    }
+
+    /**
+     * @param slabSize size in bytes of a single direct buffer (power of two, not less than 64)
+     * @see #copyOf(CursorMock)
+     */
+    @NonNull
+    public static CursorMock copyOf(@NonNull CursorMock mock, int slabSize) throws IllegalArgumentException {
+
+        final CursorSchema source = mock.cursorSchema();
+        final int columns = source.columnCount();
+
+        final ColumnType[] types = new ColumnType[columns];
+        for (int i = 0; i < columns; i++) {
+            types[i] = source.columnType(i);
+        }
+        final CursorSchema schema = new CursorSchemaImpl(source.columnNames().clone(), types);
+
+        final CursorRows rows = mock.cursorRows();
+
+        final CursorRowsOffHeap offHeap = new CursorRowsOffHeap(schema, slabSize);
+        try {
+            for (int row = 0, count = rows.count(); row < count; row++) {
+                offHeap.nextRow();
+                for (int column = 0; column < columns; column++) {
+                    offHeap.put(column, rows.get(Object.class, row, column));
+                }
+            }
+        } catch (RuntimeException e) {
+            offHeap.close();
+            throw e;
+        }
+
+        return new CursorMock(schema, offHeap);
+    }
+
+    public static class Builder {
+
+        private final CursorSchema mCursorSchema;
+
+        private int mSlabSize = DEFAULT_SLAB_SIZE;
+        private CursorRowsOffHeap mRows;
+
+        private boolean mIsBuilt;
+
+        Builder(@NonNull CursorSchema cursorSchema) {
+            mCursorSchema = cursorSchema;
+        }
+
+        /**
+         * @param slabSize size in bytes of a single direct buffer (power of two, not less than 64),
+         *                 must be called before any row is added
+         * @return self to chain calls
+         */
+        @SuppressLint("DefaultLocale")
+        public Builder slabSize(int slabSize) throws IllegalArgumentException, IllegalStateException {
+            if (mRows != null) {
+                throw new IllegalStateException("Slab size must be set before rows are added");
+            }
+            if (slabSize < 64 || Integer.bitCount(slabSize) != 1) {
+                throw new IllegalArgumentException(String.format("Slab size must be a power of two " +
+                        "not less than 64, actual: %d", slabSize));
+            }
+            mSlabSize = slabSize;
+            return this;
+        }
+
+        /**
+         * @param rowValues values of a new row (missing trailing values are NULL)
+         * @return self to chain calls
+         * @throws IllegalArgumentException if there are more values than columns or a value has
+         *          a type that differs from the type of its column
+         */
+        @SuppressLint("DefaultLocale")
+        public Builder addRow(Object... rowValues) throws IllegalArgumentException {
+
+            final int length = rowValues != null
+                    ? rowValues.length
+                    : 0;
+
+            if (length > mCursorSchema.columnCount()) {
+                throw new IllegalArgumentException(String.format("Row has more values: %d than columns: %d",
+                        length, mCursorSchema.columnCount()));
+            }
+
+            final CursorRowsOffHeap rows = rows();
+            rows.nextRow();
+            for (int i = 0; i < length; i++) {
+                rows.put(i, rowValues[i]);
+            }
+            return this;
+        }
+
+        /**
+         * Can be called only once
+         *
+         * @return an instance of {@link CursorMock} that owns off-heap memory
+         */
+        @NonNull
+        public CursorMock build() throws IllegalStateException {
+            final CursorRowsOffHeap rows = rows();
+            mIsBuilt = true;
+            return new CursorMock(mCursorSchema, rows);
+        }
+
+        @NonNull
+        private CursorRowsOffHeap rows() throws IllegalStateException {
+            if (mIsBuilt) {
+                throw new IllegalStateException("CursorMock was already built");
+            }
+            if (mRows == null) {
+                mRows = new CursorRowsOffHeap(mCursorSchema, mSlabSize);
+            }
+            return mRows;
+        }
+    }
+
+    private CursorOffHeap() {}
+}
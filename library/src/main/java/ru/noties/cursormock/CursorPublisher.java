@@ -0,0 +1,202 @@
+package ru.noties.cursormock;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes rows of a {@link CursorMock} as {@link CursorBatch}es, honouring demand of a subscriber
+ * (one batch is emitted for each requested item). Interfaces follow `java.util.concurrent.Flow`
+ * (Reactive Streams) contracts, so an adapter to Flow, RxJava or another reactive library is trivial:
+ * {@code
+ *     CursorPublisher.of(mock).batchSize(512).subscribe(new CursorPublisher.Subscriber() {
+ *         public void onSubscribe(CursorPublisher.Subscription subscription) {
+ *             subscription.request(4);
+ *         }
+ *         public void onNext(CursorBatch batch) { ... }
+ *         public void onError(Throwable throwable) { ... }
+ *         public void onComplete() { ... }
+ *     });
+ * }
+ *
+ * Publisher is cold: each subscriber receives all rows starting with the first one. Batches
+ * are emitted on a thread that calls {@link Subscription#request(long)}, reading rows does
+ * not change position of the cursor. A single batch instance is reused for a subscription,
+ * so no objects are allocated for each row or each batch (except values that are stored as objects).
+ */
+@SuppressWarnings("WeakerAccess")
+public class CursorPublisher {
+
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+
+    public interface Subscriber {
+
+        void onSubscribe(@NonNull Subscription subscription);
+
+        /**
+         * @param batch valid only until this method returns
+         */
+        void onNext(@NonNull CursorBatch batch);
+
+        void onError(@NonNull Throwable throwable);
+
+        void onComplete();
+    }
+
+    public interface Subscription {
+
+        /**
+         * @param n number of batches to be additionally emitted (a non-positive value signals
+         *          an {@link IllegalArgumentException} to {@link Subscriber#onError(Throwable)})
+         */
+        void request(long n);
+
+        void cancel();
+    }
+
+    @NonNull
+    public static CursorPublisher of(@NonNull CursorMock mock) {
+        return new CursorPublisher(mock.cursorSchema(), mock.cursorRows());
+    }
+
+    private final CursorSchema mCursorSchema;
+    private final CursorRows mCursorRows;
+
+    private int mBatchSize = DEFAULT_BATCH_SIZE;
+
+    CursorPublisher(@NonNull CursorSchema cursorSchema, @NonNull CursorRows cursorRows) {
+        mCursorSchema = cursorSchema;
+        mCursorRows = cursorRows;
+    }
+
+    /**
+     * @param batchSize maximum number of rows in a batch (default {@link #DEFAULT_BATCH_SIZE})
+     * @return self to chain calls
+     */
+    @SuppressLint("DefaultLocale")
+    public CursorPublisher batchSize(int batchSize) throws IllegalArgumentException {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException(String.format("Batch size must be greater than 0, " +
+                    "actual: %d", batchSize));
+        }
+        mBatchSize = batchSize;
+        return this;
+    }
+
+    public void subscribe(@NonNull Subscriber subscriber) {
+        final BatchSubscription subscription = new BatchSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        // rows could have been requested in onSubscribe
+        subscription.drain();
+    }
+
+    private class BatchSubscription implements Subscription {
+
+        private final Subscriber mSubscriber;
+
+        private final AtomicLong mRequested = new AtomicLong();
+
+        // guards emission, so `request` can be called from `onNext` and from other threads
+        private final AtomicInteger mWorking = new AtomicInteger();
+
+        private volatile boolean mIsCancelled;
+        private volatile Throwable mInvalidRequest;
+
+        // accessed only by emitting thread
+        private CursorBatch mBatch;
+        private int mRow;
+        private boolean mIsDone;
+
+        BatchSubscription(@NonNull Subscriber subscriber) {
+            mSubscriber = subscriber;
+        }
+
+        @Override
+        @SuppressLint("DefaultLocale")
+        public void request(long n) {
+            if (n <= 0) {
+                mInvalidRequest = new IllegalArgumentException(String.format("Requested number " +
+                        "must be positive, actual: %d", n));
+            } else {
+                long requested;
+                long updated;
+                do {
+                    requested = mRequested.get();
+                    updated = requested + n;
+                    if (updated < 0) {
+                        updated = Long.MAX_VALUE;
+                    }
+                } while (!mRequested.compareAndSet(requested, updated));
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            mIsCancelled = true;
+        }
+
+        void drain() {
+
+            if (mWorking.getAndIncrement() != 0) {
+                // emitting thread will pick up new demand
+                return;
+            }
+
+            int missed = 1;
+
+            do {
+
+                if (mIsDone || mIsCancelled) {
+                    return;
+                }
+
+                final Throwable invalidRequest = mInvalidRequest;
+                if (invalidRequest != null) {
+                    mIsDone = true;
+                    mSubscriber.onError(invalidRequest);
+                    return;
+                }
+
+                final long requested = mRequested.get();
+                long emitted = 0L;
+
+                final int count;
+
+                try {
+                    count = mCursorRows.count();
+                    while (emitted != requested && mRow < count && !mIsCancelled) {
+                        final int size = Math.min(mBatchSize, count - mRow);
+                        if (mBatch == null) {
+                            mBatch = new CursorBatch(mCursorSchema, mCursorRows, Math.min(mBatchSize, count));
+                        }
+                        mBatch.fill(mRow, size);
+                        mRow += size;
+                        emitted += 1;
+                        mSubscriber.onNext(mBatch);
+                    }
+                } catch (RuntimeException e) {
+                    // rows cannot be read (for example closed off-heap rows) or subscriber failed
+                    mIsDone = true;
+                    mSubscriber.onError(e);
+                    return;
+                }
+
+                if (mRow >= count && !mIsCancelled) {
+                    mIsDone = true;
+                    mSubscriber.onComplete();
+                    return;
+                }
+
+                if (emitted != 0L && requested != Long.MAX_VALUE) {
+                    mRequested.addAndGet(-emitted);
+                }
+
+                missed = mWorking.addAndGet(-missed);
+
+            } while (missed != 0);
+        }
+    }
+}
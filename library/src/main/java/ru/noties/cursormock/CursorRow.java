@@ -0,0 +1,197 @@
+package ru.noties.cursormock;
+
+import android.database.Cursor;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * A lightweight accessor of {@link CursorMock} rows for tight read loops:
+ * {@code
+ *     final CursorRow row = mock.row();
+ *     while (row.moveToNext()) {
+ *         sum += row.getLong(0);
+ *     }
+ * }
+ *
+ * Position of a row is validated once when it is moved, reads are not checked: a column
+ * is not validated, cursor state is not checked and {@link CursorAccessListener} is not notified.
+ * Readers of columns are resolved once when a row is obtained, so INT and FLOAT values of columnar
+ * storage are read directly from primitive arrays. Values are converted as {@link CursorMock} getters do.
+ *
+ * A row has its own position (moving it does not move the cursor). Reading a value when a row
+ * is not positioned at a valid row or after the cursor is closed has undefined results. An instance
+ * must not be shared between threads.
+ *
+ * @see CursorMock#row()
+ */
+@SuppressWarnings("WeakerAccess")
+public class CursorRow {
+
+    private final CursorSchema mCursorSchema;
+    private final CursorRows mCursorRows;
+    private final int mCount;
+
+    // for each column, null if a column is not a part of columnar storage
+    private final CursorRowsColumnar.Column[] mColumns;
+    private final long[][] mLongs;
+    private final double[][] mDoubles;
+    private final long[][] mNulls;
+    private final CursorColumnConverter[] mConverters;
+
+    private int mRow;
+
+    CursorRow(@NonNull CursorSchema cursorSchema, @NonNull CursorRows cursorRows, int position) {
+
+        final int columns = cursorSchema.columnCount();
+        final int count = cursorRows.count();
+
+        mCursorSchema = cursorSchema;
+        mCursorRows = cursorRows;
+        mCount = count;
+
+        mColumns = new CursorRowsColumnar.Column[columns];
+        mLongs = new long[columns][];
+        mDoubles = new double[columns][];
+        mNulls = new long[columns][];
+        mConverters = new CursorColumnConverter[columns];
+
+        for (int i = 0; i < columns; i++) {
+
+            final CursorRowsColumnar.Column data = cursorRows instanceof CursorRowsColumnar
+                    ? ((CursorRowsColumnar) cursorRows).column(i)
+                    : null;
+
+            mColumns[i] = data;
+
+            if (data instanceof CursorRowsColumnar.LongColumn) {
+                mLongs[i] = ((CursorRowsColumnar.LongColumn) data).values;
+                mNulls[i] = ((CursorRowsColumnar.LongColumn) data).nulls;
+            } else if (data instanceof CursorRowsColumnar.DoubleColumn) {
+                mDoubles[i] = ((CursorRowsColumnar.DoubleColumn) data).values;
+                mNulls[i] = ((CursorRowsColumnar.DoubleColumn) data).nulls;
+            }
+
+            final CursorColumnConverter converter = CursorColumnConverter.create(cursorSchema, cursorRows, i, 0);
+            mConverters[i] = converter != null
+                    ? converter
+                    : CursorColumnConverter.DYNAMIC;
+        }
+
+        mRow = position < 0
+                ? -1
+                : Math.min(position, count);
+    }
+
+    /**
+     * @return number of rows (obtained once when this row was created)
+     */
+    public int count() {
+        return mCount;
+    }
+
+    /**
+     * @return current position, -1 before the first row and {@link #count()} after the last one
+     */
+    public int position() {
+        return mRow;
+    }
+
+    /**
+     * @return true if position is a valid row
+     */
+    public boolean moveToPosition(int position) {
+        if (position < 0) {
+            mRow = -1;
+            return false;
+        }
+        if (position >= mCount) {
+            mRow = mCount;
+            return false;
+        }
+        mRow = position;
+        return true;
+    }
+
+    public boolean moveToFirst() {
+        return moveToPosition(0);
+    }
+
+    public boolean moveToNext() {
+        final int row = mRow + 1;
+        if (row >= mCount) {
+            mRow = mCount;
+            return false;
+        }
+        mRow = row;
+        return true;
+    }
+
+    public boolean isNull(int column) {
+        final CursorRowsColumnar.Column data = mColumns[column];
+        return data != null
+                ? data.isNull(mRow)
+                : mCursorRows.get(Object.class, mRow, column) == null;
+    }
+
+    /**
+     * @return one of `Cursor.FIELD_TYPE_*` values
+     * @see Cursor#getType(int)
+     */
+    public int getType(int column) {
+        final CursorRowsColumnar.Column data = mColumns[column];
+        if (data instanceof CursorRowsColumnar.TaggedColumn) {
+            return ((CursorRowsColumnar.TaggedColumn) data).types[mRow];
+        }
+        if (isNull(column)) {
+            return Cursor.FIELD_TYPE_NULL;
+        }
+        final ColumnType type = mCursorSchema.columnType(column);
+        return type != null
+                ? type.value
+                : ColumnTypeUtils.columnType(mCursorRows.get(Object.class, mRow, column).getClass()).value;
+    }
+
+    public long getLong(int column) {
+        final long[] longs = mLongs[column];
+        if (longs != null) {
+            final int row = mRow;
+            return CursorRowsColumnar.isBitSet(mNulls[column], row)
+                    ? 0L
+                    : longs[row];
+        }
+        return mConverters[column].getLong(mCursorRows, mRow, column);
+    }
+
+    public int getInt(int column) {
+        return (int) getLong(column);
+    }
+
+    public short getShort(int column) {
+        return (short) getLong(column);
+    }
+
+    public double getDouble(int column) {
+        final double[] doubles = mDoubles[column];
+        if (doubles != null) {
+            final int row = mRow;
+            return CursorRowsColumnar.isBitSet(mNulls[column], row)
+                    ? .0D
+                    : doubles[row];
+        }
+        return mConverters[column].getDouble(mCursorRows, mRow, column);
+    }
+
+    public float getFloat(int column) {
+        return (float) getDouble(column);
+    }
+
+    @Nullable
+    public String getString(int column) {
+        return mConverters[column].getString(mCursorRows, mRow, column);
+    }
+
+    @Nullable
+    public byte[] getBlob(int column) {
+        return mConverters[column].getBlob(mCursorRows, mRow, column);
+    }
+}
@@ -0,0 +1,226 @@
+package ru.noties.cursormock;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+
+import java.io.Closeable;
+import java.util.concurrent.CancellationException;
+
+/**
+ * {@link CursorRows} that are added by a background thread while they are being read. Rows are stored
+ * in chunks of {@link CursorRowsBuilder#CHUNK_SIZE} rows (so no rows are copied when storage grows),
+ * each added row is published to readers with a single volatile write of the published row count,
+ * so reading an already loaded row takes no locks.
+ * Reading a row that is not loaded yet blocks until it is published (or loading fails).
+ *
+ * @see CursorAsyncLoader
+ */
+class CursorRowsAsync implements CursorRows, Closeable, CursorAsyncLoader.Sink {
+
+    private final CursorSchema mCursorSchema;
+    private final int mColumnCount;
+    private final boolean mIsSchemaMutable;
+
+    // -1 if not known
+    private final int mExpectedCount;
+
+    private final Object mLock = new Object();
+
+    // written only by loading thread, a new array is published when it grows
+    private volatile Object[][][] mChunks;
+
+    private volatile int mPublished;
+    private volatile boolean mIsFinished;
+    private volatile Throwable mError;
+    private volatile boolean mIsClosed;
+
+    // number of readers that are waiting for rows
+    private volatile int mWaiting;
+
+    // loading thread state
+    private int mCount;
+
+    CursorRowsAsync(@NonNull CursorSchema cursorSchema, int expectedCount) {
+        mCursorSchema = cursorSchema;
+        mColumnCount = cursorSchema.columnCount();
+        mIsSchemaMutable = cursorSchema instanceof CursorSchemaMutable;
+        mExpectedCount = expectedCount;
+        final int chunks = expectedCount > 0
+                ? ((expectedCount - 1) >> CursorRowsBuilder.CHUNK_SHIFT) + 1
+                : 4;
+        mChunks = new Object[chunks][][];
+    }
+
+    /**
+     * @return expected number of rows if it was specified, otherwise blocks until all rows are loaded
+     */
+    @Override
+    public int count() {
+        if (mExpectedCount >= 0) {
+            return mExpectedCount;
+        }
+        await(Integer.MAX_VALUE);
+        checkError();
+        return mPublished;
+    }
+
+    @Override
+    public <T> T get(Class<T> cl, int row, int column) {
+
+        if (mIsClosed) {
+            throw new IllegalStateException("CursorRows are closed");
+        }
+
+        if (row < 0) {
+            throw new IndexOutOfBoundsException("Row: " + row);
+        }
+
+        if (row >= mPublished) {
+            await(row);
+            if (row >= mPublished) {
+                checkError();
+                throw new IndexOutOfBoundsException("Row: " + row + ", count: " + mPublished);
+            }
+        }
+
+        //noinspection unchecked
+        return (T) mChunks[row >> CursorRowsBuilder.CHUNK_SHIFT][row & CursorRowsBuilder.CHUNK_MASK][column];
+    }
+
+    /**
+     * Cancels loading (a source is notified by {@link CursorAsyncLoader.Sink#isCancelled()}),
+     * readers that wait for rows are released with an {@link IllegalStateException}
+     */
+    @Override
+    public void close() {
+        mIsClosed = true;
+        wakeUp();
+    }
+
+    @Override
+    @SuppressLint("DefaultLocale")
+    public void addRow(Object... values) throws IllegalArgumentException, IllegalStateException, CancellationException {
+
+        if (mIsClosed) {
+            throw new CancellationException("CursorRows are closed");
+        }
+
+        if (mIsFinished) {
+            throw new IllegalStateException("Loading is finished");
+        }
+
+        final int row = mCount;
+
+        if (row == mExpectedCount) {
+            throw new IllegalStateException(String.format("Source adds more rows than expected: %d", mExpectedCount));
+        }
+
+        final int length = values != null ? values.length : 0;
+        if (length > mColumnCount) {
+            throw new IllegalArgumentException(String.format("Supplied values greater than " +
+                    "CursorScheme holds. Expected: %d, actual: %d", mColumnCount, length));
+        }
+
+        Object value;
+        ColumnType type;
+
+        for (int i = 0; i < length; i++) {
+            value = values[i];
+            if (value != null) {
+                type = ColumnTypeUtils.columnType(value.getClass());
+                if (mIsSchemaMutable && mCursorSchema.columnType(i) == null) {
+                    // set before the row is published, so readers observe it together with the value
+                    ((CursorSchemaMutable) mCursorSchema).columnType(i, type);
+                } else if (mCursorSchema.columnType(i) != type) {
+                    throw new IllegalArgumentException(String.format("Value `%s` at `%d` has" +
+                            " type `%s`, expected: `%s`", value, i, type, mCursorSchema.columnType(i)));
+                }
+            }
+        }
+
+        final Object[] copy = new Object[mColumnCount];
+        if (length > 0) {
+            System.arraycopy(values, 0, copy, 0, length);
+        }
+
+        final int chunk = row >> CursorRowsBuilder.CHUNK_SHIFT;
+
+        Object[][][] chunks = mChunks;
+        if (chunk == chunks.length) {
+            final Object[][][] grown = new Object[chunks.length * 2][][];
+            System.arraycopy(chunks, 0, grown, 0, chunks.length);
+            mChunks = chunks = grown;
+        }
+        if (chunks[chunk] == null) {
+            chunks[chunk] = new Object[CursorRowsBuilder.CHUNK_SIZE][];
+        }
+        chunks[chunk][row & CursorRowsBuilder.CHUNK_MASK] = copy;
+
+        mCount = row + 1;
+
+        publish();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return mIsClosed;
+    }
+
+    @SuppressLint("DefaultLocale")
+    void finish(Throwable error) {
+        if (error == null
+                && mExpectedCount >= 0
+                && mCount != mExpectedCount
+                && !mIsClosed) {
+            error = new IllegalStateException(String.format("Source added %d rows, expected: %d",
+                    mCount, mExpectedCount));
+        }
+        mError = error;
+        mPublished = mCount;
+        mIsFinished = true;
+        wakeUp();
+    }
+
+    private void publish() {
+        mPublished = mCount;
+        // both fields are volatile: either a waiting reader observes new count or it is observed here
+        if (mWaiting > 0) {
+            wakeUp();
+        }
+    }
+
+    private void wakeUp() {
+        synchronized (mLock) {
+            mLock.notifyAll();
+        }
+    }
+
+    // blocks until row is published or there will be no more rows
+    private void await(int row) {
+        synchronized (mLock) {
+            mWaiting += 1;
+            try {
+                while (row >= mPublished && !mIsFinished && !mIsClosed) {
+                    try {
+                        mLock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while waiting for rows to load", e);
+                    }
+                }
+            } finally {
+                mWaiting -= 1;
+            }
+        }
+        if (mIsClosed) {
+            throw new IllegalStateException("CursorRows are closed");
+        }
+    }
+
+    private void checkError() throws IllegalStateException {
+        final Throwable error = mError;
+        if (error != null) {
+            throw new IllegalStateException("Loading of rows failed", error);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package ru.noties.cursormock;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link CursorRows} that read values from a {@link ByteBuffer} (for example a memory-mapped file),
+ * values are not copied to the heap until they are read.
+ *
+ * Binary format (big-endian):
+ * <pre>
+ *     header:  int magic, int version
+ *     rows:    for each row, for each column: byte type (as in Cursor.FIELD_TYPE_*) followed by a value:
+ *              NULL - nothing, INT - long, FLOAT - double, TEXT (UTF-8) &amp; BLOB - int length, bytes
+ *     schema:  int column count, for each column: int length, UTF-8 name bytes, byte type (0 - unknown)
+ *     offsets: int offset of each row
+ *     footer:  int row count, int offset of schema, int offset of row offsets
+ * </pre>
+ *
+ * Each value keeps its own type, so a column can have values of different types (as SQLite allows).
+ *
+ * @see CursorRowsBufferWriter
+ */
+class CursorRowsBuffer implements CursorRows {
+
+    static final int MAGIC = 0x434d434b; // CMCK
+    static final int VERSION = 1;
+
+    static final int TYPE_NULL = 0;
+    static final int TYPE_INT = 1;
+    static final int TYPE_FLOAT = 2;
+    static final int TYPE_TEXT = 3;
+    static final int TYPE_BLOB = 4;
+
+    private static final int FOOTER_SIZE = 12;
+
+    private final ByteBuffer mBuffer;
+    private final CursorSchema mCursorSchema;
+    private final int mCount;
+    private final int mOffsets;
+
+    /**
+     * @param buffer with data written by {@link CursorRowsBufferWriter}, position &amp; limit are not used
+     * @throws IllegalArgumentException if buffer does not contain valid data
+     */
+    @SuppressLint("DefaultLocale")
+    CursorRowsBuffer(@NonNull ByteBuffer buffer) throws IllegalArgumentException {
+
+        final int capacity = buffer.capacity();
+
+        if (capacity < 8 + FOOTER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Supplied data is not in CursorRowsBuffer format");
+        }
+
+        final int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IllegalArgumentException(String.format("Unsupported version of CursorRowsBuffer format: %d, " +
+                    "expected: %d", version, VERSION));
+        }
+
+        final int footer = capacity - FOOTER_SIZE;
+        final int count = buffer.getInt(footer);
+        final int schema = buffer.getInt(footer + 4);
+        final int offsets = buffer.getInt(footer + 8);
+
+        if (count < 0 || schema < 8 || offsets < schema || offsets + 4L * count != footer) {
+            throw new IllegalArgumentException("Supplied data has invalid CursorRowsBuffer footer");
+        }
+
+        mBuffer = buffer;
+        mCount = count;
+        mOffsets = offsets;
+        mCursorSchema = readSchema(buffer, schema);
+    }
+
+    /**
+     * @return schema that was written with rows
+     */
+    @NonNull
+    CursorSchema cursorSchema() {
+        return mCursorSchema;
+    }
+
+    @Override
+    public int count() {
+        return mCount;
+    }
+
+    @Override
+    public <T> T get(Class<T> cl, int row, int column) {
+
+        final ByteBuffer buffer = mBuffer;
+
+        int position = offset(row, column);
+        final int type = buffer.get(position++);
+
+        final Object value;
+
+        switch (type) {
+
+            case TYPE_NULL:
+                value = null;
+                break;
+
+            case TYPE_INT:
+                value = buffer.getLong(position);
+                break;
+
+            case TYPE_FLOAT:
+                value = buffer.getDouble(position);
+                break;
+
+            default:
+                final byte[] bytes = bytes(position);
+                value = type == TYPE_TEXT
+                        ? new String(bytes, Utf8.CHARSET)
+                        : bytes;
+        }
+
+        //noinspection unchecked
+        return (T) value;
+    }
+
+    /**
+     * @return offset of a value (starting with its type) in the buffer
+     */
+    int offset(int row, int column) {
+
+        if (row < 0 || row >= mCount) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", count: " + mCount);
+        }
+
+        if (column < 0 || column >= mCursorSchema.columnCount()) {
+            throw new IndexOutOfBoundsException("Column: " + column + ", count: " + mCursorSchema.columnCount());
+        }
+
+        final ByteBuffer buffer = mBuffer;
+
+        int position = buffer.getInt(mOffsets + 4 * row);
+
+        for (int i = 0; i < column; i++) {
+            switch (buffer.get(position)) {
+                case TYPE_NULL:
+                    position += 1;
+                    break;
+                case TYPE_INT:
+                case TYPE_FLOAT:
+                    position += 9;
+                    break;
+                default:
+                    position += 5 + buffer.getInt(position + 1);
+            }
+        }
+
+        return position;
+    }
+
+    @NonNull
+    private byte[] bytes(int position) {
+        final int length = mBuffer.getInt(position);
+        final byte[] bytes = new byte[length];
+        // a duplicate is used, so reading from multiple threads is safe
+        final ByteBuffer duplicate = mBuffer.duplicate();
+        duplicate.position(position + 4);
+        duplicate.get(bytes);
+        return bytes;
+    }
+
+    @NonNull
+    private static CursorSchema readSchema(@NonNull ByteBuffer buffer, int position) {
+
+        final int columns = buffer.getInt(position);
+        position += 4;
+
+        final String[] names = new String[columns];
+        final ColumnType[] types = new ColumnType[columns];
+
+        final ByteBuffer duplicate = buffer.duplicate();
+
+        for (int i = 0; i < columns; i++) {
+            final int length = buffer.getInt(position);
+            final byte[] name = new byte[length];
+            duplicate.position(position + 4);
+            duplicate.get(name);
+            names[i] = new String(name, Utf8.CHARSET);
+            position += 4 + length;
+            types[i] = columnType(buffer.get(position));
+            position += 1;
+        }
+
+        return new CursorSchemaImpl(names, types);
+    }
+
+    private static ColumnType columnType(int type) {
+        switch (type) {
+            case TYPE_INT:
+                return ColumnType.INT;
+            case TYPE_FLOAT:
+                return ColumnType.FLOAT;
+            case TYPE_TEXT:
+                return ColumnType.TEXT;
+            case TYPE_BLOB:
+                return ColumnType.BLOB;
+            default:
+                return null;
+        }
+    }
+}
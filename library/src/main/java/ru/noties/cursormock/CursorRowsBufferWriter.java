@@ -0,0 +1,208 @@
+package ru.noties.cursormock;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Writes rows in the binary format of {@link CursorRowsBuffer}. Rows are streamed to a channel,
+ * only offsets of rows are kept in memory. Schema is written after all rows, so column types can be
+ * taken from written values.
+ *
+ * {@code
+ *     writer.nextRow();
+ *     writer.putLong(1L);
+ *     writer.putString("text");
+ *     // ...
+ *     writer.finish();
+ * }
+ */
+class CursorRowsBufferWriter {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final WritableByteChannel mChannel;
+    private final String[] mColumnNames;
+    private final ColumnType[] mColumnTypes;
+
+    private final ByteBuffer mBuffer;
+
+    // number of bytes already written to the channel
+    private long mWritten;
+
+    private int[] mOffsets = new int[64];
+    private int mCount;
+
+    // index of a column of the next value in current row
+    private int mColumn;
+
+    CursorRowsBufferWriter(@NonNull WritableByteChannel channel, @NonNull String[] columnNames) throws IOException {
+        mChannel = channel;
+        mColumnNames = columnNames;
+        mColumnTypes = new ColumnType[columnNames.length];
+        mBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+        mBuffer.putInt(CursorRowsBuffer.MAGIC);
+        mBuffer.putInt(CursorRowsBuffer.VERSION);
+        mColumn = columnNames.length;
+    }
+
+    void nextRow() throws IOException {
+        checkRowComplete();
+        final long offset = position();
+        if (offset > Integer.MAX_VALUE) {
+            throw new IOException("Data exceeds the maximum size of " + Integer.MAX_VALUE + " bytes");
+        }
+        if (mCount == mOffsets.length) {
+            mOffsets = Arrays.copyOf(mOffsets, mCount + (mCount >> 1));
+        }
+        mOffsets[mCount++] = (int) offset;
+        mColumn = 0;
+    }
+
+    void putNull() throws IOException {
+        checkColumn();
+        ensure(1);
+        mBuffer.put((byte) CursorRowsBuffer.TYPE_NULL);
+        mColumn += 1;
+    }
+
+    void putLong(long value) throws IOException {
+        type(ColumnType.INT);
+        ensure(9);
+        mBuffer.put((byte) CursorRowsBuffer.TYPE_INT);
+        mBuffer.putLong(value);
+    }
+
+    void putDouble(double value) throws IOException {
+        type(ColumnType.FLOAT);
+        ensure(9);
+        mBuffer.put((byte) CursorRowsBuffer.TYPE_FLOAT);
+        mBuffer.putDouble(value);
+    }
+
+    void putString(@NonNull String value) throws IOException {
+        type(ColumnType.TEXT);
+        putBytes(CursorRowsBuffer.TYPE_TEXT, value.getBytes(Utf8.CHARSET));
+    }
+
+    void putBlob(@NonNull byte[] value) throws IOException {
+        type(ColumnType.BLOB);
+        putBytes(CursorRowsBuffer.TYPE_BLOB, value);
+    }
+
+    int count() {
+        return mCount;
+    }
+
+    /**
+     * Writes schema &amp; row offsets and flushes all data to the channel (channel is not closed)
+     */
+    void finish() throws IOException {
+
+        checkRowComplete();
+
+        final int schemaOffset = (int) position();
+
+        ensure(4);
+        mBuffer.putInt(mColumnNames.length);
+        for (int i = 0; i < mColumnNames.length; i++) {
+            final byte[] name = mColumnNames[i].getBytes(Utf8.CHARSET);
+            ensure(4);
+            mBuffer.putInt(name.length);
+            write(name);
+            final ColumnType type = mColumnTypes[i];
+            ensure(1);
+            mBuffer.put(type == null
+                    ? (byte) CursorRowsBuffer.TYPE_NULL
+                    : (byte) type.value);
+        }
+
+        final long offsetsOffset = position();
+        if (offsetsOffset + 4L * mCount + 12 > Integer.MAX_VALUE) {
+            throw new IOException("Data exceeds the maximum size of " + Integer.MAX_VALUE + " bytes");
+        }
+
+        for (int i = 0; i < mCount; i++) {
+            ensure(4);
+            mBuffer.putInt(mOffsets[i]);
+        }
+
+        ensure(12);
+        mBuffer.putInt(mCount);
+        mBuffer.putInt(schemaOffset);
+        mBuffer.putInt((int) offsetsOffset);
+
+        flush();
+    }
+
+    @SuppressLint("DefaultLocale")
+    private void checkRowComplete() {
+        if (mColumn != mColumnNames.length) {
+            throw new IllegalStateException(String.format("Row: %d has %d values, expected: %d",
+                    mCount - 1, mColumn, mColumnNames.length));
+        }
+    }
+
+    private void checkColumn() {
+        if (mColumn >= mColumnNames.length) {
+            throw new IllegalStateException("Row has more values than columns, `nextRow` must be called first");
+        }
+    }
+
+    private void type(@NonNull ColumnType type) {
+        checkColumn();
+        final ColumnType current = mColumnTypes[mColumn];
+        if (current == null || (current == ColumnType.INT && type == ColumnType.FLOAT)) {
+            // a column has type of the first value (INT is widened to FLOAT),
+            // values of other types are stored as is
+            mColumnTypes[mColumn] = type;
+        }
+        mColumn += 1;
+    }
+
+    private void putBytes(int type, @NonNull byte[] bytes) throws IOException {
+        ensure(5);
+        mBuffer.put((byte) type);
+        mBuffer.putInt(bytes.length);
+        write(bytes);
+    }
+
+    private void write(@NonNull byte[] bytes) throws IOException {
+        if (bytes.length <= mBuffer.remaining()) {
+            mBuffer.put(bytes);
+            return;
+        }
+        flush();
+        if (bytes.length <= mBuffer.remaining()) {
+            mBuffer.put(bytes);
+        } else {
+            writeFully(ByteBuffer.wrap(bytes));
+        }
+    }
+
+    private long position() {
+        return mWritten + mBuffer.position();
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (mBuffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        mBuffer.flip();
+        writeFully(mBuffer);
+        mBuffer.clear();
+    }
+
+    private void writeFully(@NonNull ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            mWritten += mChannel.write(buffer);
+        }
+    }
+}
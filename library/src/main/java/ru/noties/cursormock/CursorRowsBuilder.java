@@ -3,8 +3,7 @@ package ru.noties.cursormock;
 import android.annotation.SuppressLint;
 import android.support.annotation.NonNull;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * A builder to create a {@link CursorRows} instance
@@ -15,11 +14,42 @@ import java.util.List;
 @SuppressWarnings("WeakerAccess")
 public class CursorRowsBuilder {
 
+    // rows that do not fit in the `head` block are stored in chunks of this size,
+    // so growing the storage never copies already added rows
+    static final int CHUNK_SHIFT = 10;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
     private final CursorSchema mCursorSchema;
     private final int mColumnCount;
-    private final List<Object[]> mRows;
     private final boolean mIsSchemaMutable;
 
+    private int mCapacity;
+
+    private Object[][] mHead;
+    private Object[][][] mChunks;
+    private int mChunksCount;
+    private int mCount;
+
+    // number of non-NULL values in added rows, used to choose sparse storage in `build`
+    private long mNonNullCount;
+
+    // a row without values, shared by all rows added with `addRow()`
+    private Object[] mEmptyRow;
+
+    // indicates that current storage was handed over to a CursorRows instance in `build`,
+    // so it must be copied before any modification
+    private boolean mIsShared;
+
+    // number of row arrays that are referenced by built CursorRows
+    private int mSharedCount;
+
+    // built instance (since last `reset`) that can give storage back when recycled
+    private CursorRows mBuilt;
+    private boolean mIsBuilt;
+
     /**
      * This builder detects type of a column based on {@link CursorSchema}. If it contains
      * type information in {@link CursorSchema#columnType(int)} than added data will be
@@ -34,10 +64,46 @@ public class CursorRowsBuilder {
      * @see CursorSchemaMutable
      */
     public CursorRowsBuilder(@NonNull CursorSchema cursorSchema) {
+        this(cursorSchema, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param cursorSchema an instance of {@link CursorSchema}
+     * @param expectedRowCount a hint of how many rows will be added. Rows up to this number
+     *                         are stored in a single pre-sized block, rows that exceed it
+     *                         are stored in additional chunks (no copying is involved)
+     * @throws IllegalArgumentException if `expectedRowCount` is negative
+     *
+     * @see #CursorRowsBuilder(CursorSchema)
+     */
+    @SuppressLint("DefaultLocale")
+    public CursorRowsBuilder(@NonNull CursorSchema cursorSchema, int expectedRowCount) throws IllegalArgumentException {
+
+        if (expectedRowCount < 0) {
+            throw new IllegalArgumentException(String.format("Expected row count must not be " +
+                    "negative, actual: %d", expectedRowCount));
+        }
+
         mCursorSchema = cursorSchema;
         mColumnCount = cursorSchema.columnCount();
-        mRows = new ArrayList<>(3);
         mIsSchemaMutable = cursorSchema instanceof CursorSchemaMutable;
+        mCapacity = expectedRowCount == 0
+                ? DEFAULT_CAPACITY
+                : expectedRowCount;
+    }
+
+    /**
+     * Pre-sizes the storage for the specified number of rows. Has effect only if no rows
+     * were added yet, as after that storage grows by fixed size chunks and doesn't need it.
+     *
+     * @param expectedRowCount a hint of how many rows will be added
+     * @return instance to chain method calls
+     */
+    public CursorRowsBuilder ensureCapacity(int expectedRowCount) {
+        if (mHead == null && expectedRowCount > mCapacity) {
+            mCapacity = expectedRowCount;
+        }
+        return this;
     }
 
     /**
@@ -84,7 +150,7 @@ public class CursorRowsBuilder {
 
         final int length = args != null ? args.length : 0;
         if (length == 0) {
-            mRows.add(new Object[mColumnCount]);
+            nextRow(true);
         } else {
 
             if (length > mColumnCount) {
@@ -92,14 +158,14 @@ public class CursorRowsBuilder {
                         "CursorScheme holds. Expected: %d, actual: %d", mColumnCount, length));
             }
 
-            final Object[] values = new Object[mColumnCount];
-
             Object value;
             ColumnType type;
+            int nonNull = 0;
 
             for (int i = 0; i < length; i++) {
                 value = args[i];
                 if (value != null) {
+                    nonNull += 1;
                     type = ColumnTypeUtils.columnType(value.getClass());
                     //noinspection ConstantConditions
                     if (mIsSchemaMutable && mCursorSchema.columnType(i) == null) {
@@ -112,27 +178,262 @@ public class CursorRowsBuilder {
                                 mCursorSchema.columnType(i)));
                     }
                 }
-                values[i] = value;
             }
-            mRows.add(values);
+
+            // values are copied only after validation, so a failed call doesn't add a row
+            if (nonNull == 0) {
+                nextRow(true);
+            } else {
+                System.arraycopy(args, 0, nextRow(false), 0, length);
+                mNonNullCount += nonNull;
+            }
         }
         return this;
     }
 
     /**
+     * Clears all added rows, so this builder can be used to build another {@link CursorRows}
+     * with the same {@link CursorSchema}. Type information detected for a {@link CursorSchemaMutable}
+     * is kept.
+     *
+     * Storage of this builder (including row arrays) is retained and reused by subsequent calls
+     * to {@link #addRow(Object...)} if it wasn't handed over in {@link #build()}, or if the
+     * built {@link CursorRows} were recycled (for example by {@link CursorMockPool#release(CursorMock)}).
+     * Otherwise new storage will be allocated, pre-sized to the number of rows this builder had.
+     *
+     * @return instance to chain method calls
+     *
+     * @see CursorMockPool
+     */
+    public CursorRowsBuilder reset() {
+
+        final boolean isReclaimed = mBuilt instanceof Recyclable
+                && ((Recyclable) mBuilt).isRecycled();
+
+        if (mIsShared) {
+            if (!isReclaimed) {
+                // cannot touch storage that is referenced by built CursorRows
+                mCapacity = Math.max(mCapacity, mCount);
+                mHead = null;
+                mChunks = null;
+                mChunksCount = 0;
+            }
+            mIsShared = false;
+        } else if (!isReclaimed) {
+            // blocks were copied after `build`, but rows before `mSharedCount` are still referenced
+            for (int i = 0; i < mSharedCount; i++) {
+                setRow(i, null);
+            }
+        }
+
+        mBuilt = null;
+        mIsBuilt = false;
+        mSharedCount = 0;
+        mCount = 0;
+        mNonNullCount = 0L;
+
+        return this;
+    }
+
+    /**
+     * Storage is handed over to the returned {@link CursorRows} without copying. If this builder
+     * is used after this call (more rows are added), then current storage is copied first, so
+     * already built {@link CursorRows} are not affected.
+     *
+     * If less than `1 / 8` of all values are non-NULL, values are copied to columns instead
+     * and a column with few non-NULL values stores only them (with indexes of their rows),
+     * so memory of returned {@link CursorRows} is proportional to the number of non-NULL values.
+     *
      * @return {@link CursorRows} based on values passed to {@link #addRow(Object...)}.
      *          If no rows were added {@link CursorRows#EMPTY} will be returned
      */
     public CursorRows build() {
 
         final CursorRows rows;
-        if (mRows.size() == 0) {
+        if (mCount == 0) {
             rows = CursorRows.EMPTY;
+        } else if (mNonNullCount * CursorRowsColumnar.SPARSE_DENSITY < (long) mCount * mColumnCount) {
+            // storage is copied, so it's not shared
+            rows = buildColumns();
+            mBuilt = null;
+            mIsBuilt = true;
         } else {
-            final Object[][] data = mRows.toArray(new Object[mRows.size()][]);
-            rows = new CursorRowsImpl(data);
+            if (mChunks == null) {
+                rows = new CursorRowsImpl(mHead, mCount);
+            } else {
+                rows = new CursorRowsChunked(mHead, mChunks, mCount);
+            }
+            mIsShared = true;
+            mSharedCount = mCount;
+
+            // storage can be reclaimed in `reset` only if it was handed over to a single instance
+            mBuilt = mIsBuilt
+                    ? null
+                    : rows;
+            mIsBuilt = true;
         }
 
         return rows;
     }
+
+    @NonNull
+    private CursorRows buildColumns() {
+
+        final int count = mCount;
+        final int columnCount = mColumnCount;
+
+        final int[] nonNull = new int[columnCount];
+        for (int row = 0; row < count; row++) {
+            final Object[] values = row(row);
+            if (values == mEmptyRow) {
+                continue;
+            }
+            for (int column = 0; column < columnCount; column++) {
+                if (values[column] != null) {
+                    nonNull[column] += 1;
+                }
+            }
+        }
+
+        final CursorRowsColumnar.Column[] columns = new CursorRowsColumnar.Column[columnCount];
+
+        for (int column = 0; column < columnCount; column++) {
+
+            final ColumnType type = mCursorSchema.columnType(column);
+            final int size = nonNull[column];
+
+            if (size == 0 || type == null) {
+                columns[column] = new CursorRowsColumnar.NullColumn(type);
+            } else if (CursorRowsColumnar.isSparse(size, count)) {
+                final int[] rows = new int[size];
+                final Object[] objects = new Object[size];
+                int index = 0;
+                for (int row = 0; row < count && index < size; row++) {
+                    final Object value = row(row)[column];
+                    if (value != null) {
+                        rows[index] = row;
+                        objects[index++] = value;
+                    }
+                }
+                columns[column] = new CursorRowsColumnar.SparseColumn(type, rows, size, null, null, objects);
+            } else {
+                final Object[] objects = new Object[count];
+                for (int row = 0; row < count; row++) {
+                    objects[row] = row(row)[column];
+                }
+                columns[column] = new CursorRowsColumnar.ObjectColumn(type, objects);
+            }
+        }
+
+        return new CursorRowsColumnar(columns, count);
+    }
+
+    @NonNull
+    private Object[] row(int row) {
+        final int headLength = mHead.length;
+        if (row < headLength) {
+            return mHead[row];
+        }
+        final int overflow = row - headLength;
+        return mChunks[overflow >> CHUNK_SHIFT][overflow & CHUNK_MASK];
+    }
+
+    // returns a cleared row array placed at the end of storage, a shared array (that must not
+    // be modified) is placed if row has no values
+    private Object[] nextRow(boolean isEmpty) {
+
+        if (mIsShared) {
+            copyStorage();
+        }
+
+        if (mHead == null) {
+            mHead = new Object[mCapacity][];
+        }
+
+        final Object[][] block;
+        final int index;
+
+        final int headLength = mHead.length;
+
+        if (mCount < headLength) {
+            block = mHead;
+            index = mCount;
+        } else {
+
+            final int overflow = mCount - headLength;
+            final int chunk = overflow >> CHUNK_SHIFT;
+
+            if (chunk == mChunksCount) {
+                if (mChunks == null) {
+                    mChunks = new Object[4][][];
+                } else if (chunk == mChunks.length) {
+                    // only references to chunks are copied here
+                    mChunks = Arrays.copyOf(mChunks, chunk * 2);
+                }
+                mChunks[chunk] = new Object[CHUNK_SIZE][];
+                mChunksCount += 1;
+            }
+
+            block = mChunks[chunk];
+            index = overflow & CHUNK_MASK;
+        }
+
+        Object[] values;
+        if (isEmpty) {
+            if (mEmptyRow == null) {
+                mEmptyRow = new Object[mColumnCount];
+            }
+            values = mEmptyRow;
+            block[index] = values;
+        } else {
+            // a row array can be present here only if it was retained by `reset`
+            values = block[index];
+            if (values == null || values == mEmptyRow) {
+                values = new Object[mColumnCount];
+                block[index] = values;
+            } else {
+                Arrays.fill(values, null);
+            }
+        }
+
+        mCount += 1;
+
+        return values;
+    }
+
+    private void setRow(int row, Object[] values) {
+        final int headLength = mHead.length;
+        if (row < headLength) {
+            mHead[row] = values;
+        } else {
+            final int overflow = row - headLength;
+            mChunks[overflow >> CHUNK_SHIFT][overflow & CHUNK_MASK] = values;
+        }
+    }
+
+    private void copyStorage() {
+        // shared row arrays are never modified, so only blocks are copied
+        mHead = mHead.clone();
+        if (mChunks != null) {
+            final Object[][][] chunks = new Object[mChunks.length][][];
+            for (int i = 0; i < mChunksCount; i++) {
+                chunks[i] = mChunks[i].clone();
+            }
+            mChunks = chunks;
+        }
+        mIsShared = false;
+    }
+
+    /**
+     * Implemented by {@link CursorRows} that hold storage handed over by this builder
+     */
+    interface Recyclable {
+
+        /**
+         * Marks that these rows won't be accessed anymore and their storage can be reused
+         */
+        void recycle();
+
+        boolean isRecycled();
+    }
 }
@@ -0,0 +1,54 @@
+package ru.noties.cursormock;
+
+import android.support.annotation.NonNull;
+
+/**
+ * {@link CursorRows} that are stored in a `head` block followed by a number of fixed size chunks.
+ * Created by {@link CursorRowsBuilder} when added rows do not fit in a pre-sized `head` block,
+ * so no rows are copied when storage grows.
+ *
+ * @see CursorRowsBuilder#CHUNK_SHIFT
+ */
+class CursorRowsChunked implements CursorRows, CursorRowsBuilder.Recyclable {
+
+    private final Object[][] mHead;
+    private final Object[][][] mChunks;
+    private final int mCount;
+
+    private volatile boolean mIsRecycled;
+
+    CursorRowsChunked(@NonNull Object[][] head, @NonNull Object[][][] chunks, int count) {
+        mHead = head;
+        mChunks = chunks;
+        mCount = count;
+    }
+
+    @Override
+    public int count() {
+        return mCount;
+    }
+
+    @Override
+    public <T> T get(Class<T> cl, int row, int column) {
+        final Object[] values;
+        final int headLength = mHead.length;
+        if (row < headLength) {
+            values = mHead[row];
+        } else {
+            final int overflow = row - headLength;
+            values = mChunks[overflow >> CursorRowsBuilder.CHUNK_SHIFT][overflow & CursorRowsBuilder.CHUNK_MASK];
+        }
+        //noinspection unchecked
+        return (T) values[column];
+    }
+
+    @Override
+    public void recycle() {
+        mIsRecycled = true;
+    }
+
+    @Override
+    public boolean isRecycled() {
+        return mIsRecycled;
+    }
+}
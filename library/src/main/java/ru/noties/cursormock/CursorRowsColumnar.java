@@ -0,0 +1,288 @@
+package ru.noties.cursormock;
+
+import android.database.Cursor;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * {@link CursorRows} that store values by columns. INT and FLOAT columns are stored in primitive
+ * arrays (with a bit set of NULL values), TEXT and BLOB columns in object arrays. Columns
+ * which values have different types are stored with a type tag for each value ({@link TaggedColumn}).
+ * Columns that have less than `1 / SPARSE_DENSITY` non-NULL values store only them with sorted indexes
+ * of their rows ({@link SparseColumn}), so memory is proportional to the number of non-NULL values.
+ *
+ * @see CursorRowsColumnarBuilder
+ * @see CursorDynamic
+ */
+class CursorRowsColumnar implements CursorRows {
+
+    // a column is stored as sparse if `nonNullCount * SPARSE_DENSITY < count`
+    static final int SPARSE_DENSITY = 8;
+
+    private final Column[] mColumns;
+    private final int mCount;
+
+    CursorRowsColumnar(@NonNull Column[] columns, int count) {
+        mColumns = columns;
+        mCount = count;
+    }
+
+    @Override
+    public int count() {
+        return mCount;
+    }
+
+    @Override
+    public <T> T get(Class<T> cl, int row, int column) {
+        //noinspection unchecked
+        return (T) mColumns[column].get(row);
+    }
+
+    Column column(int column) {
+        return mColumns[column];
+    }
+
+    int columnCount() {
+        return mColumns.length;
+    }
+
+    static boolean isBitSet(@Nullable long[] bits, int index) {
+        return bits != null && (bits[index >>> 6] & (1L << index)) != 0L;
+    }
+
+    static boolean isSparse(int nonNullCount, int count) {
+        return (long) nonNullCount * SPARSE_DENSITY < count;
+    }
+
+    static abstract class Column {
+
+        /**
+         * @return type of values in this column, can be null if column has only NULL values
+         */
+        @Nullable
+        abstract ColumnType type();
+
+        abstract boolean isNull(int row);
+
+        @Nullable
+        abstract Object get(int row);
+    }
+
+    static class LongColumn extends Column {
+
+        final long[] values;
+
+        // bit is set for NULL values, null if column has no NULL values
+        final long[] nulls;
+
+        LongColumn(@NonNull long[] values, @Nullable long[] nulls) {
+            this.values = values;
+            this.nulls = nulls;
+        }
+
+        @Override
+        ColumnType type() {
+            return ColumnType.INT;
+        }
+
+        @Override
+        boolean isNull(int row) {
+            return isBitSet(nulls, row);
+        }
+
+        @Override
+        Object get(int row) {
+            return isBitSet(nulls, row)
+                    ? null
+                    : values[row];
+        }
+    }
+
+    static class DoubleColumn extends Column {
+
+        final double[] values;
+
+        // bit is set for NULL values, null if column has no NULL values
+        final long[] nulls;
+
+        DoubleColumn(@NonNull double[] values, @Nullable long[] nulls) {
+            this.values = values;
+            this.nulls = nulls;
+        }
+
+        @Override
+        ColumnType type() {
+            return ColumnType.FLOAT;
+        }
+
+        @Override
+        boolean isNull(int row) {
+            return isBitSet(nulls, row);
+        }
+
+        @Override
+        Object get(int row) {
+            return isBitSet(nulls, row)
+                    ? null
+                    : values[row];
+        }
+    }
+
+    // TEXT & BLOB values (or boxed values of rows that were stored by rows)
+    static class ObjectColumn extends Column {
+
+        final ColumnType type;
+        final Object[] values;
+
+        ObjectColumn(@NonNull ColumnType type, @NonNull Object[] values) {
+            this.type = type;
+            this.values = values;
+        }
+
+        @Override
+        ColumnType type() {
+            return type;
+        }
+
+        @Override
+        boolean isNull(int row) {
+            return values[row] == null;
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+    }
+
+    // a column that has only NULL values
+    static class NullColumn extends Column {
+
+        final ColumnType type;
+
+        NullColumn(@Nullable ColumnType type) {
+            this.type = type;
+        }
+
+        @Override
+        ColumnType type() {
+            return type;
+        }
+
+        @Override
+        boolean isNull(int row) {
+            return true;
+        }
+
+        @Override
+        Object get(int row) {
+            return null;
+        }
+    }
+
+    // values of different types, a type tag (one of Cursor.FIELD_TYPE_*) is stored for each row.
+    // INT and FLOAT values share primitive slots (FLOAT values are stored as raw long bits)
+    static class TaggedColumn extends Column {
+
+        final byte[] types;
+        final long[] primitives;
+
+        // TEXT & BLOB values, null if column has none
+        final Object[] objects;
+
+        TaggedColumn(@NonNull byte[] types, @NonNull long[] primitives, @Nullable Object[] objects) {
+            this.types = types;
+            this.primitives = primitives;
+            this.objects = objects;
+        }
+
+        @Override
+        ColumnType type() {
+            // differs between rows
+            return null;
+        }
+
+        @Override
+        boolean isNull(int row) {
+            return types[row] == Cursor.FIELD_TYPE_NULL;
+        }
+
+        @Override
+        Object get(int row) {
+            switch (types[row]) {
+                case Cursor.FIELD_TYPE_NULL:
+                    return null;
+                case Cursor.FIELD_TYPE_INTEGER:
+                    return primitives[row];
+                case Cursor.FIELD_TYPE_FLOAT:
+                    return Double.longBitsToDouble(primitives[row]);
+                default:
+                    //noinspection ConstantConditions
+                    return objects[row];
+            }
+        }
+    }
+
+    // only non-NULL values are stored (packed), with sorted indexes of their rows. One of value arrays
+    // is present: `longs` for INT, `doubles` for FLOAT and `objects` for other values
+    static class SparseColumn extends Column {
+
+        final ColumnType type;
+        final int[] rows;
+        final int size;
+
+        final long[] longs;
+        final double[] doubles;
+        final Object[] objects;
+
+        SparseColumn(
+                @NonNull ColumnType type,
+                @NonNull int[] rows,
+                int size,
+                @Nullable long[] longs,
+                @Nullable double[] doubles,
+                @Nullable Object[] objects) {
+            this.type = type;
+            this.rows = rows;
+            this.size = size;
+            this.longs = longs;
+            this.doubles = doubles;
+            this.objects = objects;
+        }
+
+        @Override
+        ColumnType type() {
+            return type;
+        }
+
+        @Override
+        boolean isNull(int row) {
+            return index(row) < 0;
+        }
+
+        @Override
+        Object get(int row) {
+            final int index = index(row);
+            if (index < 0) {
+                return null;
+            }
+            if (longs != null) {
+                return longs[index];
+            }
+            if (doubles != null) {
+                return doubles[index];
+            }
+            //noinspection ConstantConditions
+            return objects[index];
+        }
+
+        /**
+         * @return index of a value of the row or a negative value if it is NULL
+         */
+        int index(int row) {
+            return Arrays.binarySearch(rows, 0, size, row);
+        }
+    }
+}
@@ -0,0 +1,473 @@
+package ru.noties.cursormock;
+
+import android.annotation.SuppressLint;
+import android.database.Cursor;
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Builder of {@link CursorRowsColumnar}. Values are written directly into typed column storage:
+ * {@code
+ *     builder.nextRow();
+ *     builder.putLong(0, 1L);
+ *     builder.putString(1, "name");
+ * }
+ * Columns that were not written in a row hold NULL values.
+ *
+ * Type of a column is taken from {@link CursorSchema} or detected from the first written value
+ * (and set to the schema if it implements {@link CursorSchemaMutable}). An INT column is widened
+ * to FLOAT when a double value is written to it. A column marked with {@link #tagged(int)} stores
+ * a type tag for each value instead (as {@link CursorDynamic} does), so its values can have different types.
+ *
+ * A builder can be used to build only one {@link CursorRows} instance, storage is handed over
+ * to it without copying.
+ */
+class CursorRowsColumnarBuilder {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final CursorSchema mCursorSchema;
+    private final ColumnData[] mColumns;
+
+    private int mCapacity;
+    private int mCount;
+
+    private boolean mIsBuilt;
+
+    CursorRowsColumnarBuilder(@NonNull CursorSchema cursorSchema, int expectedRowCount) {
+        final int columns = cursorSchema.columnCount();
+        mCursorSchema = cursorSchema;
+        mColumns = new ColumnData[columns];
+        for (int i = 0; i < columns; i++) {
+            mColumns[i] = new ColumnData(cursorSchema.columnType(i));
+        }
+        mCapacity = expectedRowCount > 0
+                ? expectedRowCount
+                : DEFAULT_CAPACITY;
+    }
+
+    /**
+     * Starts a new row, all subsequent `put` calls will write values into it
+     */
+    void nextRow() {
+        if (mIsBuilt) {
+            throw new IllegalStateException("CursorRows were already built");
+        }
+        if (mCount == mCapacity) {
+            mCapacity = mCapacity + (mCapacity >> 1);
+        }
+        mCount += 1;
+    }
+
+    int count() {
+        return mCount;
+    }
+
+    int columnCount() {
+        return mColumns.length;
+    }
+
+    /**
+     * @return current type of a column or null if it's not known yet
+     */
+    ColumnType columnType(int column) {
+        return mColumns[column].type;
+    }
+
+    /**
+     * Values of a column are stored with a type tag for each value, column has no type in
+     * {@link CursorSchema}. Must be called before values are written to the column
+     */
+    void tagged(int column) {
+        final ColumnData data = mColumns[column];
+        if (data.size > 0) {
+            throw new IllegalStateException("Column already has values");
+        }
+        data.tagged = true;
+        data.type = null;
+    }
+
+    void putLong(int column, long value) throws IllegalArgumentException {
+        final ColumnData data = mColumns[column];
+        if (data.tagged) {
+            putTagged(data, (byte) Cursor.FIELD_TYPE_INTEGER, value, null);
+            return;
+        }
+        if (data.type == ColumnType.FLOAT) {
+            putDouble(column, value);
+            return;
+        }
+        checkType(column, data, ColumnType.INT);
+        final int row = prepare(data);
+        data.longs[row] = value;
+    }
+
+    void putDouble(int column, double value) throws IllegalArgumentException {
+        final ColumnData data = mColumns[column];
+        if (data.tagged) {
+            putTagged(data, (byte) Cursor.FIELD_TYPE_FLOAT, Double.doubleToRawLongBits(value), null);
+            return;
+        }
+        if (data.type == ColumnType.INT) {
+            widen(column, data);
+        }
+        checkType(column, data, ColumnType.FLOAT);
+        final int row = prepare(data);
+        data.doubles[row] = value;
+    }
+
+    void putString(int column, @NonNull String value) throws IllegalArgumentException {
+        putObject(column, ColumnType.TEXT, value);
+    }
+
+    void putBlob(int column, @NonNull byte[] value) throws IllegalArgumentException {
+        putObject(column, ColumnType.BLOB, value);
+    }
+
+    /**
+     * @param value to write, must be an instance of a type supported by {@link ColumnTypeUtils#columnType(Class)}
+     *              or null (nothing is written in this case)
+     */
+    void put(int column, Object value) throws IllegalArgumentException {
+        if (value == null) {
+            return;
+        }
+        final ColumnType type = ColumnTypeUtils.columnType(value.getClass());
+        switch (type) {
+            case INT:
+                putLong(column, ((Number) value).longValue());
+                break;
+            case FLOAT:
+                putDouble(column, ((Number) value).doubleValue());
+                break;
+            default:
+                putObject(column, type, value);
+        }
+    }
+
+    @NonNull
+    CursorRows build() {
+
+        mIsBuilt = true;
+
+        final int count = mCount;
+        if (count == 0) {
+            return CursorRows.EMPTY;
+        }
+
+        final int length = mColumns.length;
+        final CursorRowsColumnar.Column[] columns = new CursorRowsColumnar.Column[length];
+
+        ColumnData data;
+
+        for (int i = 0; i < length; i++) {
+
+            data = mColumns[i];
+
+            final CursorRowsColumnar.Column column;
+
+            if (data.tagged) {
+                columns[i] = tagged(data, count);
+                continue;
+            }
+
+            final int nonNullCount = data.size == 0
+                    ? 0
+                    : nonNullCount(data, count);
+
+            if (nonNullCount == 0) {
+                column = new CursorRowsColumnar.NullColumn(data.type);
+            } else if (CursorRowsColumnar.isSparse(nonNullCount, count)) {
+                column = sparse(data, count, nonNullCount);
+            } else {
+                markNulls(data, data.size, count);
+                if (data.nulls != null && data.nulls.length <= ((count - 1) >>> 6)) {
+                    // bit set must cover all rows, it's not grown with values
+                    data.nulls = Arrays.copyOf(data.nulls, ((count - 1) >>> 6) + 1);
+                }
+                //noinspection ConstantConditions
+                switch (data.type) {
+                    case INT:
+                        // trailing rows might not have been written, arrays must cover all rows for bulk reads
+                        final long[] longs = data.longs.length < count
+                                ? Arrays.copyOf(data.longs, count)
+                                : data.longs;
+                        column = new CursorRowsColumnar.LongColumn(longs, data.nulls);
+                        break;
+                    case FLOAT:
+                        final double[] doubles = data.doubles.length < count
+                                ? Arrays.copyOf(data.doubles, count)
+                                : data.doubles;
+                        column = new CursorRowsColumnar.DoubleColumn(doubles, data.nulls);
+                        break;
+                    default:
+                        // trailing rows might not have been written
+                        final Object[] objects = data.objects.length < count
+                                ? Arrays.copyOf(data.objects, count)
+                                : data.objects;
+                        column = new CursorRowsColumnar.ObjectColumn(data.type, objects);
+                }
+            }
+
+            columns[i] = column;
+        }
+
+        return new CursorRowsColumnar(columns, count);
+    }
+
+    @NonNull
+    private static CursorRowsColumnar.Column tagged(@NonNull ColumnData data, int count) {
+        if (data.size == 0) {
+            return new CursorRowsColumnar.NullColumn(null);
+        }
+        // trailing rows might not have been written
+        return new CursorRowsColumnar.TaggedColumn(
+                data.tags.length < count ? Arrays.copyOf(data.tags, count) : data.tags,
+                data.longs.length < count ? Arrays.copyOf(data.longs, count) : data.longs,
+                data.objects == null || data.objects.length >= count ? data.objects : Arrays.copyOf(data.objects, count)
+        );
+    }
+
+    private static int nonNullCount(@NonNull ColumnData data, int count) {
+
+        // values after `size` are NULL
+        final int size = Math.min(data.size, count);
+
+        if (data.type == ColumnType.INT || data.type == ColumnType.FLOAT) {
+            int nulls = 0;
+            if (data.nulls != null) {
+                final int words = Math.min(data.nulls.length, ((size - 1) >>> 6) + 1);
+                for (int i = 0; i < words; i++) {
+                    nulls += Long.bitCount(data.nulls[i]);
+                }
+            }
+            return size - nulls;
+        }
+
+        int nonNull = 0;
+        final Object[] objects = data.objects;
+        for (int i = 0; i < size; i++) {
+            if (objects[i] != null) {
+                nonNull += 1;
+            }
+        }
+        return nonNull;
+    }
+
+    // packs non-NULL values of a column
+    @NonNull
+    private static CursorRowsColumnar.Column sparse(@NonNull ColumnData data, int count, int nonNullCount) {
+
+        final int size = Math.min(data.size, count);
+        final int[] rows = new int[nonNullCount];
+
+        //noinspection ConstantConditions
+        switch (data.type) {
+
+            case INT: {
+                final long[] longs = new long[nonNullCount];
+                int index = 0;
+                for (int i = 0; i < size; i++) {
+                    if (!CursorRowsColumnar.isBitSet(data.nulls, i)) {
+                        rows[index] = i;
+                        longs[index++] = data.longs[i];
+                    }
+                }
+                return new CursorRowsColumnar.SparseColumn(data.type, rows, nonNullCount, longs, null, null);
+            }
+
+            case FLOAT: {
+                final double[] doubles = new double[nonNullCount];
+                int index = 0;
+                for (int i = 0; i < size; i++) {
+                    if (!CursorRowsColumnar.isBitSet(data.nulls, i)) {
+                        rows[index] = i;
+                        doubles[index++] = data.doubles[i];
+                    }
+                }
+                return new CursorRowsColumnar.SparseColumn(data.type, rows, nonNullCount, null, doubles, null);
+            }
+
+            default: {
+                final Object[] objects = new Object[nonNullCount];
+                int index = 0;
+                for (int i = 0; i < size; i++) {
+                    if (data.objects[i] != null) {
+                        rows[index] = i;
+                        objects[index++] = data.objects[i];
+                    }
+                }
+                return new CursorRowsColumnar.SparseColumn(data.type, rows, nonNullCount, null, null, objects);
+            }
+        }
+    }
+
+    private void putObject(int column, ColumnType type, Object value) {
+        final ColumnData data = mColumns[column];
+        if (data.tagged) {
+            putTagged(data, (byte) type.value, 0L, value);
+            return;
+        }
+        checkType(column, data, type);
+        final int row = prepare(data);
+        data.objects[row] = value;
+    }
+
+    private void putTagged(@NonNull ColumnData data, byte tag, long bits, Object value) {
+
+        if (mCount == 0) {
+            throw new IllegalStateException("`nextRow` must be called before writing values");
+        }
+
+        final int row = mCount - 1;
+
+        if (data.capacity <= row) {
+            final int capacity = Math.max(mCapacity, row + 1);
+            data.tags = data.tags == null
+                    ? new byte[capacity]
+                    : Arrays.copyOf(data.tags, capacity);
+            data.longs = data.longs == null
+                    ? new long[capacity]
+                    : Arrays.copyOf(data.longs, capacity);
+            if (data.objects != null) {
+                data.objects = Arrays.copyOf(data.objects, capacity);
+            }
+            data.capacity = capacity;
+        }
+
+        data.tags[row] = tag;
+        if (value != null) {
+            if (data.objects == null) {
+                data.objects = new Object[data.capacity];
+            }
+            data.objects[row] = value;
+        } else {
+            data.longs[row] = bits;
+        }
+
+        data.size = row + 1;
+    }
+
+    @SuppressLint("DefaultLocale")
+    private void checkType(int column, ColumnData data, ColumnType type) throws IllegalArgumentException {
+        if (data.type == null) {
+            data.type = type;
+            if (mCursorSchema instanceof CursorSchemaMutable) {
+                ((CursorSchemaMutable) mCursorSchema).columnType(column, type);
+            }
+        } else if (data.type != type) {
+            throw new IllegalArgumentException(String.format("Value at row: %d, column: `%s` has type " +
+                    "`%s`, expected: `%s`", mCount - 1, mCursorSchema.columnName(column), type, data.type));
+        }
+    }
+
+    @SuppressLint("DefaultLocale")
+    private void widen(int column, ColumnData data) throws IllegalArgumentException {
+
+        if (mCursorSchema instanceof CursorSchemaMutable) {
+            ((CursorSchemaMutable) mCursorSchema).columnType(column, ColumnType.FLOAT);
+        } else if (mCursorSchema.columnType(column) == ColumnType.INT) {
+            throw new IllegalArgumentException(String.format("Cannot write a FLOAT value at row: %d, " +
+                    "column: `%s` of type INT", mCount - 1, mCursorSchema.columnName(column)));
+        }
+
+        data.type = ColumnType.FLOAT;
+
+        final long[] longs = data.longs;
+        if (longs != null) {
+            final double[] doubles = new double[longs.length];
+            for (int i = 0, size = data.size; i < size; i++) {
+                doubles[i] = longs[i];
+            }
+            data.doubles = doubles;
+            data.longs = null;
+        }
+    }
+
+    // ensures capacity of a column and returns the index of current row
+    private int prepare(ColumnData data) {
+
+        if (mCount == 0) {
+            throw new IllegalStateException("`nextRow` must be called before writing values");
+        }
+
+        final int row = mCount - 1;
+
+        if (data.capacity <= row) {
+            final int capacity = Math.max(mCapacity, row + 1);
+            //noinspection ConstantConditions
+            switch (data.type) {
+                case INT:
+                    data.longs = data.longs == null
+                            ? new long[capacity]
+                            : Arrays.copyOf(data.longs, capacity);
+                    break;
+                case FLOAT:
+                    data.doubles = data.doubles == null
+                            ? new double[capacity]
+                            : Arrays.copyOf(data.doubles, capacity);
+                    break;
+                default:
+                    data.objects = data.objects == null
+                            ? new Object[capacity]
+                            : Arrays.copyOf(data.objects, capacity);
+            }
+            data.capacity = capacity;
+        }
+
+        if (data.size < row) {
+            // rows that were skipped hold NULL values
+            markNulls(data, data.size, row);
+        }
+
+        if (data.size <= row) {
+            data.size = row + 1;
+        }
+
+        return row;
+    }
+
+    private static void markNulls(ColumnData data, int from, int to) {
+
+        if (from >= to || (data.type != ColumnType.INT && data.type != ColumnType.FLOAT)) {
+            // object columns have `null` for NULL values
+            return;
+        }
+
+        final int words = ((to - 1) >>> 6) + 1;
+        if (data.nulls == null) {
+            data.nulls = new long[Math.max(words, ((data.capacity - 1) >>> 6) + 1)];
+        } else if (data.nulls.length < words) {
+            data.nulls = Arrays.copyOf(data.nulls, Math.max(words, ((data.capacity - 1) >>> 6) + 1));
+        }
+
+        final long[] nulls = data.nulls;
+        for (int i = from; i < to; i++) {
+            nulls[i >>> 6] |= 1L << i;
+        }
+    }
+
+    private static class ColumnData {
+
+        ColumnType type;
+
+        // values of different types, `longs` hold bits of INT & FLOAT values
+        boolean tagged;
+        byte[] tags;
+
+        long[] longs;
+        double[] doubles;
+        Object[] objects;
+
+        long[] nulls;
+
+        // number of rows that have values (including NULL values of skipped rows)
+        int size;
+        int capacity;
+
+        ColumnData(ColumnType type) {
+            this.type = type;
+        }
+    }
+}
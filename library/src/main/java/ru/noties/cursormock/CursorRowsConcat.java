@@ -0,0 +1,78 @@
+package ru.noties.cursormock;
+
+import android.support.annotation.NonNull;
+
+/**
+ * {@link CursorRows} that present rows of multiple {@link CursorRows} one after another. Rows are not
+ * copied, a position is mapped to a segment with a prefix sum of segment sizes and a binary search.
+ * The last used segment is remembered, so sequential reads do not search.
+ *
+ * @see CursorConcat
+ */
+class CursorRowsConcat implements CursorRows {
+
+    private final CursorRows[] mSegments;
+
+    // index of the first row of each segment, the last element is total count
+    private final int[] mStarts;
+
+    // the last used segment, a race between threads only causes an extra search
+    private int mSegment;
+
+    CursorRowsConcat(@NonNull CursorRows[] segments) {
+        final int length = segments.length;
+        mSegments = segments;
+        mStarts = new int[length + 1];
+        for (int i = 0; i < length; i++) {
+            mStarts[i + 1] = mStarts[i] + segments[i].count();
+        }
+    }
+
+    @Override
+    public int count() {
+        return mStarts[mSegments.length];
+    }
+
+    @Override
+    public <T> T get(Class<T> cl, int row, int column) {
+        final int segment = segment(row);
+        return mSegments[segment].get(cl, row - mStarts[segment], column);
+    }
+
+    /**
+     * @return index of a segment that contains specified row
+     */
+    int segment(int row) {
+
+        final int[] starts = mStarts;
+
+        int segment = mSegment;
+        if (row >= starts[segment] && row < starts[segment + 1]) {
+            return segment;
+        }
+
+        // sequential moves go to the next non-empty segment
+        segment += 1;
+        if (segment < mSegments.length && row >= starts[segment] && row < starts[segment + 1]) {
+            mSegment = segment;
+            return segment;
+        }
+
+        // the last segment that starts at or before the row (empty segments are skipped,
+        // as they start at the same row as the next one)
+        int low = 0;
+        int high = mSegments.length - 1;
+        int mid;
+        while (low < high) {
+            mid = (low + high + 1) >>> 1;
+            if (starts[mid] <= row) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        mSegment = low;
+        return low;
+    }
+}
@@ -0,0 +1,42 @@
+package ru.noties.cursormock;
+
+import android.support.annotation.NonNull;
+
+/**
+ * {@link CursorRows} without storage: each value is computed from (seed, row, column) when it is read,
+ * so the same value is returned for a cell on each read.
+ *
+ * @see CursorGenerator
+ */
+class CursorRowsGenerated implements CursorRows {
+
+    private final int mCount;
+    private final long mSeed;
+    private final CursorGenerator.Distribution[] mDistributions;
+
+    CursorRowsGenerated(int count, long seed, @NonNull CursorGenerator.Distribution[] distributions) {
+        mCount = count;
+        mSeed = seed;
+        mDistributions = distributions;
+    }
+
+    @Override
+    public int count() {
+        return mCount;
+    }
+
+    @Override
+    public <T> T get(Class<T> cl, int row, int column) {
+
+        if (row < 0 || row >= mCount) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", count: " + mCount);
+        }
+
+        //noinspection unchecked
+        return (T) mDistributions[column].value(row, random(mSeed, row, column));
+    }
+
+    static long random(long seed, int row, int column) {
+        return CursorDiff.mix(CursorDiff.mix(seed ^ row * 0x9E3779B97F4A7C15L) + column * 0xC2B2AE3D27D4EB4FL);
+    }
+}
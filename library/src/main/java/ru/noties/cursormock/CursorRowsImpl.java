@@ -2,17 +2,26 @@ package ru.noties.cursormock;
 
 import android.support.annotation.NonNull;
 
-class CursorRowsImpl implements CursorRows {
+class CursorRowsImpl implements CursorRows, CursorRowsBuilder.Recyclable {
 
     private final Object[][] mData;
+    private final int mCount;
+
+    private volatile boolean mIsRecycled;
 
     CursorRowsImpl(@NonNull Object[][] data) {
+        this(data, data.length);
+    }
+
+    // `data` can be greater than `count` (a pre-sized storage handed over by CursorRowsBuilder)
+    CursorRowsImpl(@NonNull Object[][] data, int count) {
         mData = data;
+        mCount = count;
     }
 
     @Override
     public int count() {
-        return mData.length;
+        return mCount;
     }
 
     @Override
@@ -20,4 +29,14 @@ class CursorRowsImpl implements CursorRows {
         //noinspection unchecked
         return (T) mData[row][column];
     }
+
+    @Override
+    public void recycle() {
+        mIsRecycled = true;
+    }
+
+    @Override
+    public boolean isRecycled() {
+        return mIsRecycled;
+    }
 }
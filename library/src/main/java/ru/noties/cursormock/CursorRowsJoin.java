@@ -0,0 +1,61 @@
+package ru.noties.cursormock;
+
+import android.support.annotation.NonNull;
+
+/**
+ * {@link CursorRows} of a join. Each row is a pair of row indices in the original rows, values
+ * are not copied. A right row index of `-1` means that a left row has no match (all right columns are NULL).
+ *
+ * @see CursorJoin
+ */
+class CursorRowsJoin implements CursorRows {
+
+    private final CursorRows mLeft;
+    private final CursorRows mRight;
+    private final int mLeftColumns;
+
+    private final int[] mLeftRows;
+    private final int[] mRightRows;
+    private final int mCount;
+
+    CursorRowsJoin(
+            @NonNull CursorRows left,
+            @NonNull CursorRows right,
+            int leftColumns,
+            @NonNull int[] leftRows,
+            @NonNull int[] rightRows,
+            int count) {
+        mLeft = left;
+        mRight = right;
+        mLeftColumns = leftColumns;
+        mLeftRows = leftRows;
+        mRightRows = rightRows;
+        mCount = count;
+    }
+
+    @Override
+    public int count() {
+        return mCount;
+    }
+
+    @Override
+    public <T> T get(Class<T> cl, int row, int column) {
+
+        if (column < mLeftColumns) {
+            return mLeft.get(cl, mLeftRows[row], column);
+        }
+
+        final int rightRow = mRightRows[row];
+        return rightRow < 0
+                ? null
+                : mRight.get(cl, rightRow, column - mLeftColumns);
+    }
+
+    int leftRow(int row) {
+        return mLeftRows[row];
+    }
+
+    int rightRow(int row) {
+        return mRightRows[row];
+    }
+}
@@ -0,0 +1,114 @@
+package ru.noties.cursormock;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+/**
+ * {@link CursorRows} that keep a reference to a list of objects and extract field values
+ * only when a cell is read. Values of memoized columns are extracted only once.
+ *
+ * @see CursorMockBuilder#forList(Class, List)
+ */
+class CursorRowsLazy implements CursorRows {
+
+    // marks a memoized null value
+    private static final Object NULL = new Object();
+
+    private final List<?> mSource;
+    private final int mCount;
+    private final List<Field> mFields;
+    private final CursorMockBuilder.ObjectProcessor mProcessor;
+    private final CursorSchemaMutable mCursorSchema;
+
+    private final boolean[] mMemoize;
+    private final Object[][] mMemo;
+
+    // a class of a value that was already validated against column type (for each column)
+    private final Class<?>[] mValidated;
+
+    CursorRowsLazy(
+            @NonNull List<?> source,
+            @NonNull List<Field> fields,
+            @NonNull CursorMockBuilder.ObjectProcessor processor,
+            @NonNull CursorSchemaMutable cursorSchema,
+            @NonNull boolean[] memoize
+    ) {
+        final int columns = fields.size();
+        mSource = source;
+        mCount = source.size();
+        mFields = fields;
+        mProcessor = processor;
+        mCursorSchema = cursorSchema;
+        mMemoize = memoize;
+        mMemo = new Object[columns][];
+        mValidated = new Class<?>[columns];
+    }
+
+    @Override
+    public int count() {
+        return mCount;
+    }
+
+    @Override
+    public <T> T get(Class<T> cl, int row, int column) {
+
+        Object[] memo = null;
+
+        if (mMemoize[column]) {
+            memo = mMemo[column];
+            if (memo == null) {
+                memo = new Object[mCount];
+                mMemo[column] = memo;
+            } else {
+                final Object value = memo[row];
+                if (value != null) {
+                    //noinspection unchecked
+                    return value == NULL
+                            ? null
+                            : (T) value;
+                }
+            }
+        }
+
+        final Object holder = mSource.get(row);
+        final Object value = holder == null
+                ? null
+                : mProcessor.value(mFields.get(column), holder);
+
+        if (value != null) {
+            validate(column, value);
+        }
+
+        if (memo != null) {
+            memo[row] = value == null
+                    ? NULL
+                    : value;
+        }
+
+        //noinspection unchecked
+        return (T) value;
+    }
+
+    @SuppressLint("DefaultLocale")
+    private void validate(int column, Object value) throws IllegalArgumentException {
+
+        final Class<?> valueClass = value.getClass();
+        if (valueClass == mValidated[column]) {
+            return;
+        }
+
+        final ColumnType type = ColumnTypeUtils.columnType(valueClass);
+        final ColumnType columnType = mCursorSchema.columnType(column);
+        if (columnType == null) {
+            mCursorSchema.columnType(column, type);
+        } else if (columnType != type) {
+            throw new IllegalArgumentException(String.format("Value `%s` at `%d` has" +
+                    " type `%s`, expected: `%s`", value, column, type, columnType));
+        }
+
+        mValidated[column] = valueClass;
+    }
+}
@@ -0,0 +1,30 @@
+package ru.noties.cursormock;
+
+import android.support.annotation.NonNull;
+
+/**
+ * {@link CursorRows} that present selected rows of other {@link CursorRows} in an arbitrary order,
+ * only an index of a source row is stored for each row.
+ *
+ * @see CursorSlice
+ */
+class CursorRowsMapped implements CursorRows {
+
+    private final CursorRows mCursorRows;
+    private final int[] mRows;
+
+    CursorRowsMapped(@NonNull CursorRows cursorRows, @NonNull int[] rows) {
+        mCursorRows = cursorRows;
+        mRows = rows;
+    }
+
+    @Override
+    public int count() {
+        return mRows.length;
+    }
+
+    @Override
+    public <T> T get(Class<T> cl, int row, int column) {
+        return mCursorRows.get(cl, mRows[row], column);
+    }
+}
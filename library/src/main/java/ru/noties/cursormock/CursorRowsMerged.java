@@ -0,0 +1,41 @@
+package ru.noties.cursormock;
+
+import android.support.annotation.NonNull;
+
+/**
+ * {@link CursorRows} that present rows of multiple {@link CursorRows} in an arbitrary order. Rows are not
+ * copied, only a segment index and a row index in that segment are stored for each row.
+ *
+ * @see CursorMerge
+ */
+class CursorRowsMerged implements CursorRows {
+
+    private final CursorRows[] mSegments;
+    private final int[] mSegmentOfRow;
+    private final int[] mRowInSegment;
+    private final int mCount;
+
+    CursorRowsMerged(
+            @NonNull CursorRows[] segments,
+            @NonNull int[] segmentOfRow,
+            @NonNull int[] rowInSegment,
+            int count) {
+        mSegments = segments;
+        mSegmentOfRow = segmentOfRow;
+        mRowInSegment = rowInSegment;
+        mCount = count;
+    }
+
+    @Override
+    public int count() {
+        return mCount;
+    }
+
+    @Override
+    public <T> T get(Class<T> cl, int row, int column) {
+        if (row < 0 || row >= mCount) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", count: " + mCount);
+        }
+        return mSegments[mSegmentOfRow[row]].get(cl, mRowInSegment[row], column);
+    }
+}
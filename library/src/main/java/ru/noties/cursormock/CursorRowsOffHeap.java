@@ -0,0 +1,476 @@
+package ru.noties.cursormock;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link CursorRows} that store values outside of the heap in direct {@link ByteBuffer}s allocated
+ * in slabs. Each column has a fixed-width (8 bytes per row) slab array of values (INT &amp; FLOAT)
+ * or addresses of TEXT &amp; BLOB data (stored in a shared arena), and a bitset of non-null values
+ * (in 64 times smaller slabs, so a slab of the bitset covers the same rows as a slab of values).
+ *
+ * Rows are written by `nextRow` &amp; `put*` methods and can be read at any moment by one thread,
+ * after writing is finished they can be read by multiple threads. Memory is released by {@link #close()}
+ * (called by {@link CursorMock#close()}), after that reading throws an {@link IllegalStateException}.
+ * Active reads are counted, so if {@link #close()} is called while other threads read values, memory
+ * is released by the last of them (and not freed under a read). Writing must be finished before closing.
+ *
+ * @see CursorOffHeap
+ */
+class CursorRowsOffHeap implements CursorRows, Closeable {
+
+    private static final int CLOSED = 1 << 30;
+
+    private final CursorSchema mCursorSchema;
+    private final Column[] mColumns;
+    private final Arena mArena;
+    private final int mSlabSize;
+    private final int mBitsetSlabSize;
+
+    private int mCount;
+
+    // number of active reads & the CLOSED flag, memory is freed when it's closed and there are no reads
+    private final AtomicInteger mState = new AtomicInteger();
+    private final AtomicBoolean mIsFreed = new AtomicBoolean();
+
+    /**
+     * @param slabSize size in bytes of a single direct buffer, power of two not less than 64
+     */
+    @SuppressLint("DefaultLocale")
+    CursorRowsOffHeap(@NonNull CursorSchema cursorSchema, int slabSize) throws IllegalArgumentException {
+
+        if (slabSize < 64 || Integer.bitCount(slabSize) != 1) {
+            throw new IllegalArgumentException(String.format("Slab size must be a power of two " +
+                    "not less than 64, actual: %d", slabSize));
+        }
+
+        final int columns = cursorSchema.columnCount();
+
+        mCursorSchema = cursorSchema;
+        mColumns = new Column[columns];
+        mArena = new Arena(slabSize);
+        mSlabSize = slabSize;
+        // not less than a single long
+        mBitsetSlabSize = Math.max(8, slabSize >>> 6);
+
+        for (int i = 0; i < columns; i++) {
+            mColumns[i] = new Column(cursorSchema.columnType(i));
+        }
+    }
+
+    @Override
+    public int count() {
+        return mCount;
+    }
+
+    @Override
+    public <T> T get(Class<T> cl, int row, int column) {
+
+        if ((mState.incrementAndGet() & CLOSED) != 0) {
+            endRead();
+            throw new IllegalStateException("CursorRows are closed");
+        }
+
+        try {
+            //noinspection unchecked
+            return (T) read(row, column);
+        } finally {
+            endRead();
+        }
+    }
+
+    private Object read(int row, int column) {
+
+        if (row < 0 || row >= mCount) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", count: " + mCount);
+        }
+
+        final Column data = mColumns[column];
+
+        final Object value;
+
+        if (data.values == null || !isPresent(data, row)) {
+            value = null;
+        } else {
+            final long bits = data.values.get(row);
+            switch (data.type) {
+                case INT:
+                    value = bits;
+                    break;
+                case FLOAT:
+                    value = Double.longBitsToDouble(bits);
+                    break;
+                case TEXT:
+                    value = new String(mArena.get(bits), Utf8.CHARSET);
+                    break;
+                default:
+                    value = mArena.get(bits);
+            }
+        }
+
+        return value;
+    }
+
+    private void endRead() {
+        // the last read after closing frees memory
+        if (mState.decrementAndGet() == CLOSED) {
+            free();
+        }
+    }
+
+    /**
+     * Releases all memory (right away or after active reads are finished), can be called multiple times
+     */
+    @Override
+    public void close() {
+        while (true) {
+            final int state = mState.get();
+            if ((state & CLOSED) != 0) {
+                return;
+            }
+            if (mState.compareAndSet(state, state | CLOSED)) {
+                if (state == 0) {
+                    free();
+                }
+                return;
+            }
+        }
+    }
+
+    private void free() {
+        if (!mIsFreed.compareAndSet(false, true)) {
+            return;
+        }
+        for (Column column: mColumns) {
+            if (column.values != null) {
+                column.values.free();
+                column.present.free();
+            }
+        }
+        mArena.free();
+    }
+
+    boolean isClosed() {
+        return (mState.get() & CLOSED) != 0;
+    }
+
+    /**
+     * @return size in bytes of all allocated direct buffers
+     */
+    long allocated() {
+        long allocated = mArena.allocated();
+        for (Column column: mColumns) {
+            if (column.values != null) {
+                allocated += column.values.allocated() + column.present.allocated();
+            }
+        }
+        return allocated;
+    }
+
+    /**
+     * Starts a new row, values that are not written in a row are NULL
+     */
+    void nextRow() {
+        if (isClosed()) {
+            throw new IllegalStateException("CursorRows are closed");
+        }
+        if (mCount == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Maximum number of rows is reached");
+        }
+        mCount += 1;
+    }
+
+    void putLong(int column, long value) throws IllegalArgumentException {
+        final Column data = mColumns[column];
+        if (data.type == ColumnType.FLOAT) {
+            put(column, data, ColumnType.FLOAT, Double.doubleToRawLongBits(value));
+        } else {
+            put(column, data, ColumnType.INT, value);
+        }
+    }
+
+    void putDouble(int column, double value) throws IllegalArgumentException {
+        final Column data = mColumns[column];
+        if (data.type == ColumnType.INT) {
+            widen(column, data);
+        }
+        put(column, data, ColumnType.FLOAT, Double.doubleToRawLongBits(value));
+    }
+
+    void putString(int column, @NonNull String value) throws IllegalArgumentException {
+        final Column data = mColumns[column];
+        checkWritable();
+        checkType(column, data, ColumnType.TEXT);
+        put(data, mArena.put(value.getBytes(Utf8.CHARSET)));
+    }
+
+    void putBlob(int column, @NonNull byte[] value) throws IllegalArgumentException {
+        final Column data = mColumns[column];
+        checkWritable();
+        checkType(column, data, ColumnType.BLOB);
+        put(data, mArena.put(value));
+    }
+
+    /**
+     * @param value of one of supported by {@link android.database.Cursor} types or null
+     */
+    @SuppressLint("DefaultLocale")
+    void put(int column, Object value) throws IllegalArgumentException {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Long
+                || value instanceof Integer
+                || value instanceof Short
+                || value instanceof Byte) {
+            putLong(column, ((Number) value).longValue());
+        } else if (value instanceof Double
+                || value instanceof Float) {
+            putDouble(column, ((Number) value).doubleValue());
+        } else if (value instanceof String) {
+            putString(column, (String) value);
+        } else if (value instanceof byte[]) {
+            putBlob(column, (byte[]) value);
+        } else {
+            throw new IllegalArgumentException(String.format("Value at row: %d, column: `%s` has type `%s` " +
+                    "that is not natively supported by a Cursor", mCount - 1, mCursorSchema.columnName(column),
+                    value.getClass().getName()));
+        }
+    }
+
+    /**
+     * @return current type of a column or null if it's not known yet
+     */
+    ColumnType columnType(int column) {
+        return mColumns[column].type;
+    }
+
+    private void put(int column, @NonNull Column data, @NonNull ColumnType type, long bits) {
+        checkWritable();
+        checkType(column, data, type);
+        put(data, bits);
+    }
+
+    private void checkWritable() throws IllegalStateException {
+
+        if (isClosed()) {
+            throw new IllegalStateException("CursorRows are closed");
+        }
+
+        if (mCount == 0) {
+            throw new IllegalStateException("`nextRow` must be called before writing values");
+        }
+    }
+
+    private void put(@NonNull Column data, long bits) {
+
+        final int row = mCount - 1;
+
+        if (data.values == null) {
+            data.values = new Slabs(mSlabSize);
+            data.present = new Slabs(mBitsetSlabSize);
+        }
+
+        data.values.set(row, bits);
+
+        final Slabs present = data.present;
+        final int word = row >>> 6;
+        present.set(word, (word < present.size() ? present.get(word) : 0L) | (1L << row));
+    }
+
+    private static boolean isPresent(@NonNull Column data, int row) {
+        final Slabs present = data.present;
+        final int word = row >>> 6;
+        return word < present.size()
+                && (present.get(word) & (1L << row)) != 0L;
+    }
+
+    @SuppressLint("DefaultLocale")
+    private void checkType(int column, @NonNull Column data, @NonNull ColumnType type) throws IllegalArgumentException {
+        if (data.type == null) {
+            data.type = type;
+            if (mCursorSchema instanceof CursorSchemaMutable) {
+                ((CursorSchemaMutable) mCursorSchema).columnType(column, type);
+            }
+        } else if (data.type != type) {
+            throw new IllegalArgumentException(String.format("Value at row: %d, column: `%s` has type " +
+                    "`%s`, expected: `%s`", mCount - 1, mCursorSchema.columnName(column), type, data.type));
+        }
+    }
+
+    @SuppressLint("DefaultLocale")
+    private void widen(int column, @NonNull Column data) throws IllegalArgumentException {
+
+        if (mCursorSchema instanceof CursorSchemaMutable) {
+            ((CursorSchemaMutable) mCursorSchema).columnType(column, ColumnType.FLOAT);
+        } else if (mCursorSchema.columnType(column) == ColumnType.INT) {
+            throw new IllegalArgumentException(String.format("Cannot write a FLOAT value at row: %d, " +
+                    "column: `%s` of type INT", mCount - 1, mCursorSchema.columnName(column)));
+        }
+
+        data.type = ColumnType.FLOAT;
+
+        // values are converted in place
+        final Slabs values = data.values;
+        if (values != null) {
+            for (int i = 0, size = values.size(); i < size; i++) {
+                values.set(i, Double.doubleToRawLongBits((double) values.get(i)));
+            }
+        }
+    }
+
+    private static class Column {
+
+        ColumnType type;
+
+        // both are created with the first non-null value
+        Slabs values;
+        Slabs present;
+
+        Column(ColumnType type) {
+            this.type = type;
+        }
+    }
+
+    /**
+     * An array of longs stored in direct buffers of the same size
+     */
+    static class Slabs {
+
+        private final int mShift;
+        private final int mMask;
+
+        private ByteBuffer[] mSlabs = new ByteBuffer[4];
+        private int mSlabCount;
+
+        // number of elements in allocated slabs
+        private int mSize;
+
+        Slabs(int slabSize) {
+            // 8 bytes per element
+            mShift = Integer.numberOfTrailingZeros(slabSize) - 3;
+            mMask = (1 << mShift) - 1;
+        }
+
+        int size() {
+            return mSize;
+        }
+
+        long allocated() {
+            return (long) mSize << 3;
+        }
+
+        long get(int index) {
+            return mSlabs[index >>> mShift].getLong((index & mMask) << 3);
+        }
+
+        void set(int index, long value) {
+            while (index >= mSize) {
+                allocate();
+            }
+            mSlabs[index >>> mShift].putLong((index & mMask) << 3, value);
+        }
+
+        void free() {
+            for (int i = 0; i < mSlabCount; i++) {
+                DirectBuffers.free(mSlabs[i]);
+                mSlabs[i] = null;
+            }
+            mSlabCount = 0;
+            mSize = 0;
+        }
+
+        private void allocate() {
+            if (mSlabCount == mSlabs.length) {
+                final ByteBuffer[] slabs = new ByteBuffer[mSlabCount * 2];
+                System.arraycopy(mSlabs, 0, slabs, 0, mSlabCount);
+                mSlabs = slabs;
+            }
+            // direct buffers are zero-filled
+            mSlabs[mSlabCount++] = ByteBuffer.allocateDirect((mMask + 1) << 3);
+            mSize += mMask + 1;
+        }
+    }
+
+    /**
+     * Variable length values stored in direct buffers, each value is prefixed with its length.
+     * Address of a value is index of a slab (high 32 bits) and position in it (low 32 bits).
+     * A value that does not fit in a slab gets its own buffer.
+     */
+    static class Arena {
+
+        private final int mSlabSize;
+        private final List<ByteBuffer> mSlabs = new ArrayList<>();
+
+        private ByteBuffer mCurrent;
+        private int mCurrentIndex = -1;
+
+        Arena(int slabSize) {
+            mSlabSize = slabSize;
+        }
+
+        long put(@NonNull byte[] value) {
+
+            final int required = value.length + 4;
+
+            final ByteBuffer buffer;
+            final int index;
+
+            if (required > mSlabSize) {
+                buffer = ByteBuffer.allocateDirect(required);
+                mSlabs.add(buffer);
+                index = mSlabs.size() - 1;
+            } else {
+                if (mCurrent == null || mCurrent.remaining() < required) {
+                    mCurrent = ByteBuffer.allocateDirect(mSlabSize);
+                    mSlabs.add(mCurrent);
+                    mCurrentIndex = mSlabs.size() - 1;
+                }
+                buffer = mCurrent;
+                index = mCurrentIndex;
+            }
+
+            final int position = buffer.position();
+            buffer.putInt(value.length);
+            buffer.put(value);
+
+            return ((long) index << 32) | position;
+        }
+
+        @NonNull
+        byte[] get(long address) {
+            final ByteBuffer slab = mSlabs.get((int) (address >>> 32));
+            final int position = (int) address;
+            final byte[] bytes = new byte[slab.getInt(position)];
+            // a duplicate is used, so reading from multiple threads is safe
+            final ByteBuffer duplicate = slab.duplicate();
+            duplicate.position(position + 4);
+            duplicate.get(bytes);
+            return bytes;
+        }
+
+        long allocated() {
+            long allocated = 0L;
+            for (ByteBuffer slab: mSlabs) {
+                allocated += slab.capacity();
+            }
+            return allocated;
+        }
+
+        void free() {
+            for (ByteBuffer slab: mSlabs) {
+                DirectBuffers.free(slab);
+            }
+            mSlabs.clear();
+            mCurrent = null;
+            mCurrentIndex = -1;
+        }
+    }
+}
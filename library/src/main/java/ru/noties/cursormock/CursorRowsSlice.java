@@ -0,0 +1,35 @@
+package ru.noties.cursormock;
+
+import android.support.annotation.NonNull;
+
+/**
+ * {@link CursorRows} that present a range of consecutive rows of other {@link CursorRows},
+ * a position is mapped by adding an offset.
+ *
+ * @see CursorSlice
+ */
+class CursorRowsSlice implements CursorRows {
+
+    private final CursorRows mCursorRows;
+    private final int mOffset;
+    private final int mCount;
+
+    CursorRowsSlice(@NonNull CursorRows cursorRows, int offset, int count) {
+        mCursorRows = cursorRows;
+        mOffset = offset;
+        mCount = count;
+    }
+
+    @Override
+    public int count() {
+        return mCount;
+    }
+
+    @Override
+    public <T> T get(Class<T> cl, int row, int column) {
+        if (row < 0 || row >= mCount) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", count: " + mCount);
+        }
+        return mCursorRows.get(cl, mOffset + row, column);
+    }
+}
@@ -0,0 +1,86 @@
+package ru.noties.cursormock;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Immutable {@link CursorSchema} returned by {@link CursorSchemaFactory#intern(CursorSchema)}.
+ * Hash code is computed once and {@link #columnNames()} returns the same array on each call
+ * (it must not be modified). Lookups, `equals` &amp; `hashCode` use a private copy of column names,
+ * so a caller that modifies the returned array does not break them (or the intern registry).
+ */
+final class CursorSchemaCanonical implements CursorSchema {
+
+    // returned from `columnNames`, not used by this schema
+    private final String[] mColumnNames;
+
+    private final String[] mNames;
+    private final ColumnType[] mColumnTypes;
+    private final int mHashCode;
+
+    // arrays are not copied, caller must not keep references to them
+    CursorSchemaCanonical(@NonNull String[] columnNames, @NonNull ColumnType[] columnTypes) {
+        mColumnNames = columnNames;
+        mNames = columnNames.clone();
+        mColumnTypes = columnTypes;
+        mHashCode = 31 * Arrays.hashCode(mNames) + Arrays.hashCode(columnTypes);
+    }
+
+    @Override
+    public int columnIndex(String columnName) {
+        final String[] names = mNames;
+        for (int i = 0, count = names.length; i < count; i++) {
+            if (names[i].equalsIgnoreCase(columnName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Nullable
+    @Override
+    public String columnName(int columnIndex) {
+        if (columnIndex < 0 || columnIndex >= mNames.length) {
+            return null;
+        }
+        return mNames[columnIndex];
+    }
+
+    @Override
+    public String[] columnNames() {
+        return mColumnNames;
+    }
+
+    @Override
+    public int columnCount() {
+        return mNames.length;
+    }
+
+    @Nullable
+    @Override
+    public ColumnType columnType(int columnIndex) {
+        if (columnIndex < 0 || columnIndex >= mColumnTypes.length) {
+            throw new IllegalArgumentException("Specified column index is out of this schema bounds");
+        }
+        return mColumnTypes[columnIndex];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        final CursorSchemaCanonical that = (CursorSchemaCanonical) o;
+
+        return mHashCode == that.mHashCode
+                && Arrays.equals(mNames, that.mNames)
+                && Arrays.equals(mColumnTypes, that.mColumnTypes);
+    }
+
+    @Override
+    public int hashCode() {
+        return mHashCode;
+    }
+}
@@ -2,9 +2,17 @@ package ru.noties.cursormock;
 
 import android.support.annotation.NonNull;
 
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 @SuppressWarnings("WeakerAccess")
 public class CursorSchemaFactory {
 
+    // values are weak also, as a value strongly referencing its own key would never be collected
+    private static final Map<CursorSchemaCanonical, WeakReference<CursorSchemaCanonical>> INTERNED =
+            new WeakHashMap<>();
+
     /**
      * @param firstColumn a non-null value for the first column name
      * @param otherColumns optional other columnNames
@@ -25,5 +33,51 @@ public class CursorSchemaFactory {
         return new CursorSchemaImpl(columns, new ColumnType[columns.length]);
     }
 
+    /**
+     * Returns a canonical immutable instance of a schema with the same column names &amp; types, so
+     * mocks of the same shape can share a single schema object:
+     * {@code
+     *     final CursorSchema schema = CursorSchemaFactory.intern(CursorSchemaFactory.raw("_id", "name"));
+     *     assertTrue(schema == CursorSchemaFactory.intern(CursorSchemaFactory.raw("_id", "name")));
+     * }
+     *
+     * Returned schema caches its hash code and returns the same array from {@link CursorSchema#columnNames()}
+     * (thus {@link CursorMock#getColumnNames()} does not allocate). This array is shared by all mocks
+     * with the returned schema and must not be modified.
+     * Type information is copied, so later changes to a {@link CursorSchemaMutable} are not reflected.
+     * A canonical instance is kept only while it is referenced.
+     *
+     * @param schema to obtain canonical instance of
+     * @return canonical instance (an already canonical schema is returned as is)
+     * @see CursorMockBuilder#buildInterned()
+     */
+    @NonNull
+    public static CursorSchema intern(@NonNull CursorSchema schema) {
+
+        if (schema instanceof CursorSchemaCanonical) {
+            return schema;
+        }
+
+        final int count = schema.columnCount();
+        final ColumnType[] types = new ColumnType[count];
+        for (int i = 0; i < count; i++) {
+            types[i] = schema.columnType(i);
+        }
+
+        final CursorSchemaCanonical candidate = new CursorSchemaCanonical(schema.columnNames().clone(), types);
+
+        synchronized (INTERNED) {
+            final WeakReference<CursorSchemaCanonical> reference = INTERNED.get(candidate);
+            final CursorSchemaCanonical canonical = reference != null
+                    ? reference.get()
+                    : null;
+            if (canonical != null) {
+                return canonical;
+            }
+            INTERNED.put(candidate, new WeakReference<>(candidate));
+            return candidate;
+        }
+    }
+
     private CursorSchemaFactory() {}
 }
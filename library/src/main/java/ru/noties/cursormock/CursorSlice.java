@@ -0,0 +1,261 @@
+package ru.noties.cursormock;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Views of a part of a {@link CursorMock}, as SQL `LIMIT n OFFSET m` and `ORDER BY x LIMIT n OFFSET m` do:
+ * {@code
+ *     final CursorMock page = CursorSlice.limit(messages, 20, 40);
+ *     final CursorMock latest = CursorSlice.orderBy(messages, "date")
+ *          .descending()
+ *          .limit(20, 40)
+ *          .build();
+ * }
+ *
+ * Rows are not copied, the resulting cursor references rows of the supplied cursor, so it must
+ * not be reused (for example with {@link CursorMockPool}) while the resulting cursor is in use.
+ * Closing the resulting cursor does not close the supplied one.
+ *
+ * {@link #limit(CursorMock, int, int)} maps positions by adding an offset. {@link TopK} keeps
+ * only `offset + limit` best rows in a bounded heap of primitive keys (instead of sorting all rows),
+ * key column must be INT or FLOAT (or have no type, then keys are compared as numbers). NULL keys
+ * (and NaN keys) go first in ascending order and last in descending order, rows with equal keys keep their order.
+ */
+@SuppressWarnings("WeakerAccess")
+public class CursorSlice {
+
+    /**
+     * @see #limit(CursorMock, int, int)
+     */
+    @NonNull
+    public static CursorMock limit(@NonNull CursorMock mock, int limit) throws IllegalArgumentException {
+        return limit(mock, limit, 0);
+    }
+
+    /**
+     * @param limit maximum number of rows
+     * @param offset number of rows to skip
+     * @return a cursor with rows `[offset, offset + limit)` of supplied cursor (can be empty)
+     * @throws IllegalArgumentException if limit or offset is negative
+     */
+    @NonNull
+    public static CursorMock limit(@NonNull CursorMock mock, int limit, int offset) throws IllegalArgumentException {
+
+        checkLimit(limit, offset);
+
+        final CursorRows rows = mock.cursorRows();
+        final int count = count(rows.count(), limit, offset);
+
+        return new CursorMock(
+                mock.cursorSchema(),
+                count == 0 ? CursorRows.EMPTY : new CursorRowsSlice(rows, offset, count)
+        );
+    }
+
+    /**
+     * @param keyColumn name of a column to order rows by
+     * @return {@link TopK} to specify order &amp; limit with
+     * @throws IllegalArgumentException if there is no such column or it is not numeric
+     */
+    @NonNull
+    public static TopK orderBy(@NonNull CursorMock mock, @NonNull String keyColumn) throws IllegalArgumentException {
+        return new TopK(mock.cursorSchema(), mock.cursorRows(), keyColumn);
+    }
+
+    public static class TopK {
+
+        private final CursorSchema mCursorSchema;
+        private final CursorRows mCursorRows;
+        private final int mKeyColumn;
+
+        private boolean mIsDescending;
+        private int mLimit = Integer.MAX_VALUE;
+        private int mOffset;
+
+        // bounded heap of rows, the row that goes last is at the top
+        private int[] mHeap;
+        private long[] mKeys;
+        private boolean[] mNulls;
+        private int mSize;
+
+        TopK(@NonNull CursorSchema cursorSchema, @NonNull CursorRows cursorRows, @NonNull String keyColumn) {
+            mCursorSchema = cursorSchema;
+            mCursorRows = cursorRows;
+            mKeyColumn = SortKeys.keyColumn(cursorSchema, keyColumn);
+        }
+
+        /**
+         * Rows are ordered in descending order of keys (ascending by default)
+         *
+         * @return self to chain calls
+         */
+        public TopK descending() {
+            mIsDescending = true;
+            return this;
+        }
+
+        /**
+         * @see #limit(int, int)
+         */
+        public TopK limit(int limit) throws IllegalArgumentException {
+            return limit(limit, 0);
+        }
+
+        /**
+         * @param limit maximum number of rows (all rows by default)
+         * @param offset number of ordered rows to skip
+         * @return self to chain calls
+         * @throws IllegalArgumentException if limit or offset is negative
+         */
+        public TopK limit(int limit, int offset) throws IllegalArgumentException {
+            checkLimit(limit, offset);
+            mLimit = limit;
+            mOffset = offset;
+            return this;
+        }
+
+        /**
+         * @return a cursor with ordered rows `[offset, offset + limit)` (can be empty)
+         */
+        @NonNull
+        public CursorMock build() {
+
+            final int total = mCursorRows.count();
+            final int count = count(total, mLimit, mOffset);
+            if (count == 0) {
+                return new CursorMock(mCursorSchema, CursorRows.EMPTY);
+            }
+
+            // only rows before the end of the requested range are kept
+            final int capacity = mOffset + count;
+
+            mHeap = new int[capacity];
+            mKeys = new long[capacity];
+            mNulls = new boolean[capacity];
+            mSize = 0;
+
+            final boolean isInteger = mCursorSchema.columnType(mKeyColumn) == ColumnType.INT;
+            final CursorColumnValues values = new CursorColumnValues(mCursorRows, mKeyColumn);
+
+            for (int row = 0; row < total; row++) {
+
+                final boolean isNull = SortKeys.isNull(values, row, isInteger);
+                final long key = isNull
+                        ? 0L
+                        : SortKeys.key(values, row, isInteger);
+
+                if (mSize < capacity) {
+                    mHeap[mSize] = row;
+                    mKeys[mSize] = key;
+                    mNulls[mSize] = isNull;
+                    siftUp(mSize);
+                    mSize += 1;
+                } else if (compare(isNull, key, row, mNulls[0], mKeys[0], mHeap[0]) < 0) {
+                    // goes before the last kept row, which is dropped
+                    mHeap[0] = row;
+                    mKeys[0] = key;
+                    mNulls[0] = isNull;
+                    siftDown(0);
+                }
+            }
+
+            // heap sort: the last row is moved to the end until the heap is empty
+            while (mSize > 1) {
+                mSize -= 1;
+                swap(0, mSize);
+                siftDown(0);
+            }
+
+            final int[] rows = Arrays.copyOfRange(mHeap, mOffset, capacity);
+
+            mHeap = null;
+            mKeys = null;
+            mNulls = null;
+
+            return new CursorMock(mCursorSchema, new CursorRowsMapped(mCursorRows, rows));
+        }
+
+        // compares rows in the requested order, rows with equal keys are ordered by their position
+        private int compare(boolean leftNull, long left, int leftRow, boolean rightNull, long right, int rightRow) {
+            int result = SortKeys.compare(leftNull, left, rightNull, right, mIsDescending);
+            if (result == 0) {
+                result = leftRow < rightRow
+                        ? -1
+                        : leftRow == rightRow ? 0 : 1;
+            }
+            return result;
+        }
+
+        // true if row at `left` index of the heap goes after the row at `right` index
+        private boolean isAfter(int left, int right) {
+            return compare(mNulls[left], mKeys[left], mHeap[left], mNulls[right], mKeys[right], mHeap[right]) > 0;
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                final int parent = (index - 1) >>> 1;
+                if (!isAfter(index, parent)) {
+                    break;
+                }
+                swap(index, parent);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            final int size = mSize;
+            while (true) {
+                int child = (index << 1) + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && isAfter(child + 1, child)) {
+                    child += 1;
+                }
+                if (!isAfter(child, index)) {
+                    break;
+                }
+                swap(index, child);
+                index = child;
+            }
+        }
+
+        private void swap(int left, int right) {
+
+            final int row = mHeap[left];
+            mHeap[left] = mHeap[right];
+            mHeap[right] = row;
+
+            final long key = mKeys[left];
+            mKeys[left] = mKeys[right];
+            mKeys[right] = key;
+
+            final boolean isNull = mNulls[left];
+            mNulls[left] = mNulls[right];
+            mNulls[right] = isNull;
+        }
+    }
+
+    @SuppressLint("DefaultLocale")
+    private static void checkLimit(int limit, int offset) throws IllegalArgumentException {
+        if (limit < 0) {
+            throw new IllegalArgumentException(String.format("Limit must not be negative, actual: %d", limit));
+        }
+        if (offset < 0) {
+            throw new IllegalArgumentException(String.format("Offset must not be negative, actual: %d", offset));
+        }
+    }
+
+    // number of rows in `[offset, offset + limit)` range of `total` rows
+    private static int count(int total, int limit, int offset) {
+        if (offset >= total) {
+            return 0;
+        }
+        return Math.min(limit, total - offset);
+    }
+
+    private CursorSlice() {}
+}
@@ -0,0 +1,108 @@
+package ru.noties.cursormock;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * Releases memory of direct {@link ByteBuffer}s without waiting for garbage collection. There is
+ * no public API for that, so platform specific methods are looked up by reflection:
+ *  * Android - `java.nio.NioUtils#freeDirectBuffer(ByteBuffer)`
+ *  * Java 9+ - `sun.misc.Unsafe#invokeCleaner(ByteBuffer)`
+ *  * Java 8 - `sun.nio.ch.DirectBuffer#cleaner()#clean()`
+ * If none is available a buffer is left to be freed by garbage collector.
+ *
+ * A freed buffer must not be accessed.
+ */
+abstract class DirectBuffers {
+
+    private static final DirectBuffers INSTANCE = create();
+
+    static void free(@NonNull ByteBuffer buffer) {
+        if (buffer.isDirect()) {
+            try {
+                INSTANCE.release(buffer);
+            } catch (Throwable t) {
+                // buffer will be freed by garbage collector
+            }
+        }
+    }
+
+    abstract void release(@NonNull ByteBuffer buffer) throws Throwable;
+
+    @NonNull
+    private static DirectBuffers create() {
+        DirectBuffers buffers = android();
+        if (buffers == null) {
+            buffers = unsafe();
+        }
+        if (buffers == null) {
+            buffers = cleaner();
+        }
+        if (buffers == null) {
+            buffers = new DirectBuffers() {
+                @Override
+                void release(@NonNull ByteBuffer buffer) {
+                    // no-op
+                }
+            };
+        }
+        return buffers;
+    }
+
+    @Nullable
+    private static DirectBuffers android() {
+        try {
+            final Method method = Class.forName("java.nio.NioUtils").getMethod("freeDirectBuffer", ByteBuffer.class);
+            return new DirectBuffers() {
+                @Override
+                void release(@NonNull ByteBuffer buffer) throws Throwable {
+                    method.invoke(null, buffer);
+                }
+            };
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static DirectBuffers unsafe() {
+        try {
+            final Class<?> cl = Class.forName("sun.misc.Unsafe");
+            final Method method = cl.getMethod("invokeCleaner", ByteBuffer.class);
+            final Field field = cl.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            final Object unsafe = field.get(null);
+            return new DirectBuffers() {
+                @Override
+                void release(@NonNull ByteBuffer buffer) throws Throwable {
+                    method.invoke(unsafe, buffer);
+                }
+            };
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static DirectBuffers cleaner() {
+        try {
+            final Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+            final Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+            return new DirectBuffers() {
+                @Override
+                void release(@NonNull ByteBuffer buffer) throws Throwable {
+                    final Object value = cleaner.invoke(buffer);
+                    if (value != null) {
+                        clean.invoke(value);
+                    }
+                }
+            };
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+}
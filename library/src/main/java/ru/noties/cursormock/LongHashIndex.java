@@ -0,0 +1,109 @@
+package ru.noties.cursormock;
+
+import java.util.Arrays;
+
+/**
+ * Hash index of rows by a primitive long key (open addressing, no boxing). Rows with the same key
+ * are linked in a chain, so the index holds only a few arrays regardless of the number of rows.
+ *
+ * {@code
+ *     for (int row = index.first(key); row != -1; row = index.next(row)) {}
+ * }
+ *
+ * Rows of a chain are iterated in the reverse order of addition. The index grows if more rows
+ * or keys than expected are added (an index can also map keys to ids, for example of groups).
+ */
+class LongHashIndex {
+
+    private int mShift;
+    private int mMask;
+
+    private long[] mKeys;
+
+    // first row of a chain for each slot, -1 for an empty slot
+    private int[] mHeads;
+
+    // next row of a chain for each row, -1 for the last one
+    private int[] mNext;
+
+    // number of distinct keys
+    private int mSize;
+
+    /**
+     * @param rows number of rows (maximum row index + 1) that are expected to be added to this index
+     */
+    LongHashIndex(int rows) {
+        // load factor is not greater than 0.5
+        allocate(Math.max(2, 32 - Integer.numberOfLeadingZeros(Math.max(rows, 1)) + 1));
+        mNext = new int[Math.max(rows, 0)];
+    }
+
+    void add(long key, int row) {
+
+        if (row >= mNext.length) {
+            mNext = Arrays.copyOf(mNext, Math.max(row + 1, mNext.length * 2));
+        }
+
+        int slot = slot(key);
+        if (mHeads[slot] == -1) {
+            if ((mSize + 1) * 2 > mHeads.length) {
+                rehash();
+                slot = slot(key);
+            }
+            mSize += 1;
+        }
+
+        mKeys[slot] = key;
+        mNext[row] = mHeads[slot];
+        mHeads[slot] = row;
+    }
+
+    /**
+     * @return the first row with specified key or -1
+     */
+    int first(long key) {
+        final int slot = slot(key);
+        return mHeads[slot];
+    }
+
+    /**
+     * @return the next row with the same key or -1
+     */
+    int next(int row) {
+        return mNext[row];
+    }
+
+    private void allocate(int bits) {
+        final int capacity = 1 << bits;
+        mShift = 64 - bits;
+        mMask = capacity - 1;
+        mKeys = new long[capacity];
+        mHeads = new int[capacity];
+        Arrays.fill(mHeads, -1);
+    }
+
+    // doubles the table, chains are kept as they are
+    private void rehash() {
+        final long[] keys = mKeys;
+        final int[] heads = mHeads;
+        allocate(64 - mShift + 1);
+        for (int i = 0; i < heads.length; i++) {
+            if (heads[i] != -1) {
+                final int slot = slot(keys[i]);
+                mKeys[slot] = keys[i];
+                mHeads[slot] = heads[i];
+            }
+        }
+    }
+
+    // returns a slot that has the key or an empty slot where it should be
+    private int slot(long key) {
+        final long[] keys = mKeys;
+        final int[] heads = mHeads;
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> mShift);
+        while (heads[slot] != -1 && keys[slot] != key) {
+            slot = (slot + 1) & mMask;
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,186 @@
+package ru.noties.cursormock;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Parses numbers directly from (ASCII/UTF-8) bytes without creating intermediate String objects.
+ * Results are stored in {@link #longValue} and {@link #doubleValue}, so a single instance must
+ * not be shared between threads.
+ */
+class NumberParser {
+
+    // 10^0..10^22 are exactly representable as a double
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // maximum number of significant digits for which a mantissa is exactly representable
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    long longValue;
+    double doubleValue;
+
+    /**
+     * @return true if bytes in [start, end) represent a decimal integer that fits in a long,
+     *          parsed value is stored in {@link #longValue}
+     */
+    boolean parseLong(@NonNull byte[] bytes, int start, int end) {
+
+        if (start >= end) {
+            return false;
+        }
+
+        int i = start;
+        boolean negative = false;
+
+        final byte first = bytes[i];
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i += 1;
+            if (i == end) {
+                return false;
+            }
+        }
+
+        // accumulate negative value, so Long.MIN_VALUE can be parsed
+        final long limit = negative
+                ? Long.MIN_VALUE
+                : -Long.MAX_VALUE;
+        final long multiplyLimit = limit / 10;
+
+        long result = 0L;
+        int digit;
+
+        for (; i < end; i++) {
+            digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return false;
+            }
+            if (result < multiplyLimit) {
+                return false;
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                return false;
+            }
+            result -= digit;
+        }
+
+        longValue = negative
+                ? result
+                : -result;
+        return true;
+    }
+
+    /**
+     * @return true if bytes in [start, end) represent a decimal floating point number,
+     *          parsed value is stored in {@link #doubleValue}
+     */
+    boolean parseDouble(@NonNull byte[] bytes, int start, int end) {
+
+        if (start >= end) {
+            return false;
+        }
+
+        int i = start;
+        boolean negative = false;
+
+        final byte first = bytes[i];
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i += 1;
+        }
+
+        long mantissa = 0L;
+        int digits = 0;
+        int significant = 0;
+        int exponent = 0;
+        boolean hasPoint = false;
+        byte b;
+
+        for (; i < end; i++) {
+            b = bytes[i];
+            if (b >= '0' && b <= '9') {
+                digits += 1;
+                if (mantissa == 0L && b == '0') {
+                    // leading zeros are not significant
+                    if (hasPoint) {
+                        exponent -= 1;
+                    }
+                    continue;
+                }
+                significant += 1;
+                if (significant <= 18) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (hasPoint) {
+                        exponent -= 1;
+                    }
+                } else if (!hasPoint) {
+                    exponent += 1;
+                }
+            } else if (b == '.' && !hasPoint) {
+                hasPoint = true;
+            } else {
+                break;
+            }
+        }
+
+        if (digits == 0) {
+            return false;
+        }
+
+        if (i < end) {
+            b = bytes[i];
+            if (b != 'e' && b != 'E') {
+                return false;
+            }
+            i += 1;
+            boolean negativeExponent = false;
+            if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+                negativeExponent = bytes[i] == '-';
+                i += 1;
+            }
+            if (i == end) {
+                return false;
+            }
+            int value = 0;
+            int digit;
+            for (; i < end; i++) {
+                digit = bytes[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    return false;
+                }
+                if (value < 100000) {
+                    value = value * 10 + digit;
+                }
+            }
+            exponent += negativeExponent
+                    ? -value
+                    : value;
+        }
+
+        final double result;
+
+        if (mantissa == 0L) {
+            result = 0.D;
+        } else if (significant <= MAX_EXACT_DIGITS
+                && exponent >= -22
+                && exponent <= 22) {
+            // both mantissa and power of ten are exact, so a single operation is correctly rounded
+            result = exponent < 0
+                    ? mantissa / POWERS_OF_TEN[-exponent]
+                    : mantissa * POWERS_OF_TEN[exponent];
+        } else {
+            // rare case, let the platform do correct rounding
+            result = Double.parseDouble(new String(bytes, start, end - start, Utf8.CHARSET));
+            doubleValue = result;
+            return true;
+        }
+
+        doubleValue = negative
+                ? -result
+                : result;
+        return true;
+    }
+}
@@ -0,0 +1,81 @@
+package ru.noties.cursormock;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Primitive keys of {@link CursorMerge} &amp; {@link CursorSlice} ordering. Key column must be INT
+ * or FLOAT (or have no type, then keys are compared as numbers), NULL keys go first in ascending
+ * order and last in descending order (as SQLite sorts them). NaN is a NULL key (SQLite stores NaN
+ * as NULL), `-0.0` &amp; `0.0` are equal keys.
+ */
+class SortKeys {
+
+    /**
+     * @return index of the key column
+     * @throws IllegalArgumentException if there is no such column or it is not numeric
+     */
+    @SuppressLint("DefaultLocale")
+    static int keyColumn(@NonNull CursorSchema cursorSchema, @NonNull String keyColumn) throws IllegalArgumentException {
+
+        final int column = cursorSchema.columnIndex(keyColumn);
+        if (column < 0) {
+            throw new IllegalArgumentException(String.format("Cannot find a `%s` column, columns: %s",
+                    keyColumn, Arrays.toString(cursorSchema.columnNames())));
+        }
+
+        final ColumnType type = cursorSchema.columnType(column);
+        if (type == ColumnType.TEXT || type == ColumnType.BLOB) {
+            throw new IllegalArgumentException(String.format("Key column `%s` must be INT or FLOAT, " +
+                    "actual: %s", keyColumn, type));
+        }
+
+        return column;
+    }
+
+    /**
+     * @return if a key is NULL, {@link #key(CursorColumnValues, int, boolean)} must not be called for such keys
+     */
+    static boolean isNull(@NonNull CursorColumnValues values, int row, boolean isInteger) {
+        return values.isNull(row)
+                || (!isInteger && Double.isNaN(values.getDouble(row)));
+    }
+
+    /**
+     * @return key of a not NULL value, keys have the same order as values
+     */
+    static long key(@NonNull CursorColumnValues values, int row, boolean isInteger) {
+        return isInteger
+                ? values.getLong(row)
+                : sortable(values.getDouble(row));
+    }
+
+    // compares keys in the requested order
+    static int compare(boolean leftNull, long left, boolean rightNull, long right, boolean descending) {
+        final int result;
+        if (leftNull || rightNull) {
+            result = leftNull == rightNull
+                    ? 0
+                    : leftNull ? -1 : 1;
+        } else {
+            result = left < right
+                    ? -1
+                    : left == right ? 0 : 1;
+        }
+        return descending
+                ? -result
+                : result;
+    }
+
+    // maps a double (not NaN) to a long with the same order, `-0.0` is mapped as `0.0`
+    static long sortable(double value) {
+        final long bits = value == .0D
+                ? 0L
+                : Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    private SortKeys() {}
+}
@@ -0,0 +1,11 @@
+package ru.noties.cursormock;
+
+import java.nio.charset.Charset;
+
+class Utf8 {
+
+    // StandardCharsets are available only since API 19
+    static final Charset CHARSET = Charset.forName("UTF-8");
+
+    private Utf8() {}
+}
@@ -0,0 +1,88 @@
+package ru.noties.cursormock;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Runs tasks of a parallel operation ({@link CursorDiff}, {@link CursorGroupBy}, {@link CursorObjectMapper}):
+ * the first task is run on the calling thread and each other task on a new thread.
+ */
+class Workers {
+
+    /**
+     * Waits for all tasks to finish (if the calling thread is interrupted while waiting,
+     * its interrupted status is restored after that). If tasks throw, the error of the first
+     * failed task (in order of tasks) is rethrown on the calling thread.
+     *
+     * @param name prefix of names of threads
+     */
+    static void run(@NonNull String name, @NonNull Runnable[] tasks) {
+
+        final int length = tasks.length;
+        final Throwable[] errors = new Throwable[length];
+
+        final Thread[] workers = new Thread[length - 1];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Thread(new Task(tasks[i + 1], errors, i + 1), name + "-" + (i + 1));
+            workers[i].start();
+        }
+
+        new Task(tasks[0], errors, 0).run();
+
+        boolean interrupted = false;
+        for (Thread worker: workers) {
+            while (true) {
+                try {
+                    worker.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        // `join` makes errors of workers visible
+        for (Throwable error: errors) {
+            if (error != null) {
+                throw rethrow(error);
+            }
+        }
+    }
+
+    @NonNull
+    private static RuntimeException rethrow(@NonNull Throwable throwable) {
+        if (throwable instanceof RuntimeException) {
+            throw (RuntimeException) throwable;
+        }
+        if (throwable instanceof Error) {
+            throw (Error) throwable;
+        }
+        throw new IllegalStateException(throwable);
+    }
+
+    private static class Task implements Runnable {
+
+        private final Runnable mRunnable;
+        private final Throwable[] mErrors;
+        private final int mIndex;
+
+        Task(@NonNull Runnable runnable, @NonNull Throwable[] errors, int index) {
+            mRunnable = runnable;
+            mErrors = errors;
+            mIndex = index;
+        }
+
+        @Override
+        public void run() {
+            try {
+                mRunnable.run();
+            } catch (Throwable t) {
+                mErrors[mIndex] = t;
+            }
+        }
+    }
+
+    private Workers() {}
+}
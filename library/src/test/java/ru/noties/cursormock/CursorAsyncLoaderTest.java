@@ -0,0 +1,130 @@
+package ru.noties.cursormock;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class CursorAsyncLoaderTest {
+
+    @Test
+    public void testBlocksUntilRowIsLoaded() throws InterruptedException {
+
+        final CountDownLatch firstChunk = new CountDownLatch(1);
+
+        final CursorMock mock = CursorAsyncLoader.forColumns("_id", "name")
+                .rowCount(5000)
+                .load(new CursorAsyncLoader.Source() {
+                    @Override
+                    public void load(@NonNull CursorAsyncLoader.Sink sink) throws Exception {
+                        for (int i = 0; i < 5000; i++) {
+                            if (i == 100) {
+                                // reader must not wait for other rows
+                                assertTrue(firstChunk.await(5, TimeUnit.SECONDS));
+                            }
+                            sink.addRow((long) i, "name" + i);
+                        }
+                    }
+                });
+
+        // known count does not block
+        assertEquals(5000, mock.getCount());
+
+        assertTrue(mock.moveToPosition(99));
+        assertEquals(99L, mock.getLong(0));
+        firstChunk.countDown();
+
+        // blocks until loaded
+        assertTrue(mock.moveToLast());
+        assertEquals("name4999", mock.getString(1));
+
+        int i = 0;
+        mock.moveToPosition(-1);
+        while (mock.moveToNext()) {
+            assertEquals(i++, mock.getLong(0));
+        }
+        assertEquals(5000, i);
+    }
+
+    @Test
+    public void testUnknownCount() {
+
+        final CursorMock mock = CursorAsyncLoader.forColumns("value")
+                .load(new CursorAsyncLoader.Source() {
+                    @Override
+                    public void load(@NonNull CursorAsyncLoader.Sink sink) {
+                        for (int i = 0; i < 3000; i++) {
+                            sink.addRow(i * 2.D);
+                        }
+                    }
+                });
+
+        assertEquals(3000, mock.getCount());
+        assertTrue(mock.moveToPosition(2999));
+        assertEquals(5998.D, mock.getDouble(0), .0D);
+    }
+
+    @Test
+    public void testFailure() {
+
+        final CursorMock mock = CursorAsyncLoader.forColumns("value")
+                .rowCount(10)
+                .load(new CursorAsyncLoader.Source() {
+                    @Override
+                    public void load(@NonNull CursorAsyncLoader.Sink sink) throws Exception {
+                        sink.addRow(1L);
+                        throw new IOException("broken");
+                    }
+                });
+
+        assertTrue(mock.moveToFirst());
+        assertEquals(1L, mock.getLong(0));
+
+        assertTrue(mock.moveToNext());
+        try {
+            mock.getLong(0);
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void testCloseCancels() throws InterruptedException {
+
+        final CountDownLatch cancelled = new CountDownLatch(1);
+
+        final CursorMock mock = CursorAsyncLoader.forColumns("value")
+                .load(new CursorAsyncLoader.Source() {
+                    @Override
+                    public void load(@NonNull CursorAsyncLoader.Sink sink) {
+                        try {
+                            //noinspection InfiniteLoopStatement
+                            while (true) {
+                                sink.addRow(1L);
+                            }
+                        } finally {
+                            assertTrue(sink.isCancelled());
+                            cancelled.countDown();
+                        }
+                    }
+                });
+
+        assertFalse(mock.isClosed());
+        mock.close();
+        assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+    }
+}
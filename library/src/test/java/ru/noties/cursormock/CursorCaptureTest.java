@@ -0,0 +1,158 @@
+package ru.noties.cursormock;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class CursorCaptureTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static MatrixCursor source() {
+        final MatrixCursor cursor = new MatrixCursor(new String[] { "_id", "rating", "name", "data" });
+        cursor.addRow(new Object[] { 1L, 1.5D, "first", new byte[] { 1, 2 } });
+        cursor.addRow(new Object[] { 2L, null, null, null });
+        cursor.addRow(new Object[] { 3L, 3L, "third", new byte[0] });
+        return cursor;
+    }
+
+    @Test
+    public void testCapture() {
+
+        final MatrixCursor cursor = source();
+        cursor.moveToPosition(1);
+
+        final CursorMock mock = CursorCapture.capture(cursor);
+
+        // position is restored
+        assertEquals(1, cursor.getPosition());
+
+        assertArrayEquals(cursor.getColumnNames(), mock.getColumnNames());
+        assertEquals(3, mock.getCount());
+        assertTrue(mock.cursorRows() instanceof CursorRowsColumnar);
+
+        assertRows(mock);
+    }
+
+    @Test
+    public void testCaptureMixedTypes() {
+
+        final MatrixCursor cursor = new MatrixCursor(new String[] { "value" });
+        cursor.addRow(new Object[] { 1L });
+        cursor.addRow(new Object[] { "text" });
+
+        try {
+            CursorCapture.capture(cursor);
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testCaptureToFile() throws IOException {
+
+        final File file = folder.newFile();
+        final CursorMock mock = CursorCapture.captureToFile(source(), file);
+
+        assertTrue(mock.cursorRows() instanceof CursorRowsBuffer);
+        assertEquals(3, mock.getCount());
+        assertRows(mock);
+
+        // replay
+        final CursorMock replay = CursorCapture.open(file);
+        assertArrayEquals(new String[] { "_id", "rating", "name", "data" }, replay.getColumnNames());
+        assertRows(replay);
+    }
+
+    @Test
+    public void testCaptureToFileMixedTypes() throws IOException {
+
+        final MatrixCursor cursor = new MatrixCursor(new String[] { "value" });
+        cursor.addRow(new Object[] { 1L });
+        cursor.addRow(new Object[] { "text" });
+        cursor.addRow(new Object[] { null });
+
+        final CursorMock mock = CursorCapture.captureToFile(cursor, folder.newFile());
+        assertTrue(mock.moveToFirst());
+        assertEquals(Cursor.FIELD_TYPE_INTEGER, mock.getType(0));
+        assertEquals(1L, mock.getLong(0));
+        assertTrue(mock.moveToNext());
+        assertEquals("text", mock.getString(0));
+        assertTrue(mock.moveToNext());
+        assertTrue(mock.isNull(0));
+    }
+
+    @Test
+    public void testCaptureLargeToFile() throws IOException {
+
+        final int count = 5000;
+        final CursorMockBuilder.ForColumns builder = CursorMockBuilder.forColumns(count, "_id", "text");
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append('a');
+            builder.addRow((long) i, i % 100 == 0 ? text.toString() : "row" + i);
+        }
+
+        final CursorMock mock = CursorCapture.captureToFile(builder.build(), folder.newFile());
+        assertEquals(count, mock.getCount());
+        assertTrue(mock.moveToPosition(count - 1));
+        assertEquals("row" + (count - 1), mock.getString(1));
+        assertTrue(mock.moveToPosition(4900));
+        assertEquals(4901, mock.getString(1).length());
+    }
+
+    @Test
+    public void testOpenInvalid() throws IOException {
+
+        final File file = folder.newFile();
+        final FileOutputStream outputStream = new FileOutputStream(file);
+        outputStream.write(new byte[64]);
+        outputStream.close();
+
+        try {
+            CursorCapture.open(file);
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    private static void assertRows(CursorMock mock) {
+
+        assertTrue(mock.moveToFirst());
+        assertEquals(Cursor.FIELD_TYPE_INTEGER, mock.getType(0));
+        assertEquals(Cursor.FIELD_TYPE_FLOAT, mock.getType(1));
+        assertEquals(1L, mock.getLong(0));
+        assertEquals(1.5D, mock.getDouble(1), .0D);
+        assertEquals("first", mock.getString(2));
+        assertArrayEquals(new byte[] { 1, 2 }, mock.getBlob(3));
+
+        assertTrue(mock.moveToNext());
+        assertTrue(mock.isNull(1));
+        assertNull(mock.getString(2));
+        assertNull(mock.getBlob(3));
+
+        assertTrue(mock.moveToNext());
+        assertEquals(3.D, mock.getDouble(1), .0D);
+        assertArrayEquals(new byte[0], mock.getBlob(3));
+    }
+}
@@ -0,0 +1,163 @@
+package ru.noties.cursormock;
+
+import android.database.sqlite.SQLiteException;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class CursorColumnConverterTest {
+
+    @Test
+    public void testFormatDouble() {
+        assertEquals("4.5", CursorColumnConverter.formatDouble(4.5D));
+        assertEquals("0", CursorColumnConverter.formatDouble(.0D));
+        assertEquals("-0", CursorColumnConverter.formatDouble(-.0D));
+        assertEquals("100000", CursorColumnConverter.formatDouble(100000.D));
+        assertEquals("1e+06", CursorColumnConverter.formatDouble(1000000.D));
+        assertEquals("1e+06", CursorColumnConverter.formatDouble(999999.5D));
+        assertEquals("123457", CursorColumnConverter.formatDouble(123456.7D));
+        assertEquals("3.14159", CursorColumnConverter.formatDouble(Math.PI));
+        assertEquals("-1.5e-05", CursorColumnConverter.formatDouble(-.000015D));
+        assertEquals("0.0001", CursorColumnConverter.formatDouble(.0001D));
+        assertEquals("1.23457e+100", CursorColumnConverter.formatDouble(1.23456789e100));
+        assertEquals("inf", CursorColumnConverter.formatDouble(Double.POSITIVE_INFINITY));
+        assertEquals("nan", CursorColumnConverter.formatDouble(Double.NaN));
+    }
+
+    @Test
+    public void testParseLong() {
+        assertEquals(42L, CursorColumnConverter.parseLong("42"));
+        assertEquals(-42L, CursorColumnConverter.parseLong("  -42abc"));
+        assertEquals(0L, CursorColumnConverter.parseLong("abc"));
+        assertEquals(0L, CursorColumnConverter.parseLong(""));
+        assertEquals(16L, CursorColumnConverter.parseLong("0x10"));
+        assertEquals(8L, CursorColumnConverter.parseLong("010"));
+        assertEquals(0L, CursorColumnConverter.parseLong("0x"));
+        assertEquals(3L, CursorColumnConverter.parseLong("3.9"));
+        assertEquals(Long.MAX_VALUE, CursorColumnConverter.parseLong("99999999999999999999"));
+        assertEquals(Long.MIN_VALUE, CursorColumnConverter.parseLong("-99999999999999999999"));
+        assertEquals(Long.MIN_VALUE, CursorColumnConverter.parseLong("-9223372036854775808"));
+    }
+
+    @Test
+    public void testParseDouble() {
+        assertEquals(4.5D, CursorColumnConverter.parseDouble("4.5"), .0D);
+        assertEquals(-.5D, CursorColumnConverter.parseDouble(" -.5px"), .0D);
+        assertEquals(1000.D, CursorColumnConverter.parseDouble("1e3"), .0D);
+        assertEquals(1.D, CursorColumnConverter.parseDouble("1e"), .0D);
+        assertEquals(.0D, CursorColumnConverter.parseDouble("abc"), .0D);
+        assertEquals(Double.NEGATIVE_INFINITY, CursorColumnConverter.parseDouble("-Infinity"), .0D);
+    }
+
+    @Test
+    public void testMockConversions() {
+
+        final CursorMock mock = CursorMockBuilder.forColumns("int", "float", "text", "blob")
+                .addRow(42L, 2.75D, "12.5kg", new byte[] { 1 })
+                .addRow(null, null, null, null)
+                .build();
+
+        assertTrue(mock.moveToFirst());
+
+        assertEquals("42", mock.getString(0));
+        assertEquals(42.D, mock.getDouble(0), .0D);
+
+        assertEquals("2.75", mock.getString(1));
+        assertEquals(2L, mock.getLong(1));
+        assertEquals(2, mock.getShort(1));
+
+        assertEquals(12L, mock.getLong(2));
+        assertEquals(12.5D, mock.getDouble(2), .0D);
+        assertEquals(12.5F, mock.getFloat(2), .0F);
+        assertArrayEquals(new byte[] { '1', '2', '.', '5', 'k', 'g', 0 }, mock.getBlob(2));
+
+        assertSqliteException(mock, 0);
+        assertSqliteException(mock, 1);
+        assertSqliteException(mock, 3);
+
+        assertTrue(mock.moveToNext());
+        for (int i = 0; i < 4; i++) {
+            assertNull(mock.getString(i));
+            assertNull(mock.getBlob(i));
+            assertEquals(0L, mock.getLong(i));
+            assertEquals(.0D, mock.getDouble(i), .0D);
+        }
+    }
+
+    @Test
+    public void testColumnarConversions() throws IOException {
+
+        final CursorMock mock = CursorCsvImporter.csv()
+                .importFrom(new ByteArrayInputStream("id,value\n7,1e6\n,\n".getBytes(Utf8.CHARSET)));
+
+        assertTrue(mock.moveToFirst());
+        assertEquals("7", mock.getString(0));
+        assertEquals(7.D, mock.getDouble(0), .0D);
+        assertEquals("1e+06", mock.getString(1));
+        assertEquals(1000000L, mock.getLong(1));
+
+        assertTrue(mock.moveToNext());
+        assertNull(mock.getString(0));
+        assertNull(mock.getString(1));
+        assertEquals(0L, mock.getLong(1));
+    }
+
+    @Test
+    public void testStringCache() {
+
+        final CursorMock mock = CursorMockBuilder.forColumns("value")
+                .addRow(1.5D)
+                .addRow(2.5D)
+                .addRow((Object) null)
+                .build();
+
+        assertTrue(mock.moveToFirst());
+        assertTrue(mock.getString(0) != mock.getString(0));
+
+        mock.setStringCacheSize(1);
+
+        final String first = mock.getString(0);
+        assertEquals("1.5", first);
+        assertSame(first, mock.getString(0));
+
+        assertTrue(mock.moveToNext());
+        assertEquals("2.5", mock.getString(0));
+        assertTrue(mock.moveToNext());
+        assertNull(mock.getString(0));
+        assertTrue(mock.moveToFirst());
+        assertEquals("1.5", mock.getString(0));
+
+        try {
+            mock.setStringCacheSize(-1);
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    private static void assertSqliteException(CursorMock mock, int column) {
+        try {
+            if (column == 3) {
+                mock.getString(column);
+            } else {
+                mock.getBlob(column);
+            }
+            assertTrue(false);
+        } catch (SQLiteException e) {
+            assertTrue(true);
+        }
+    }
+}
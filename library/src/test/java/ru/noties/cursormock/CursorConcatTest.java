@@ -0,0 +1,88 @@
+package ru.noties.cursormock;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class CursorConcatTest {
+
+    private static CursorMock page(int from, int count) {
+        final CursorMockBuilder.ForColumns builder = CursorMockBuilder.forColumns("_id", "text");
+        for (int i = from; i < from + count; i++) {
+            builder.addRow((long) i, "text" + i);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testConcat() {
+
+        final CursorMock mock = CursorConcat.of(page(0, 3), page(3, 0), page(3, 1), page(4, 0), page(4, 5));
+
+        assertEquals(9, mock.getCount());
+
+        int i = 0;
+        while (mock.moveToNext()) {
+            assertEquals(i, mock.getLong(0));
+            assertEquals("text" + i, mock.getString(1));
+            i += 1;
+        }
+        assertEquals(9, i);
+
+        // random access
+        for (int position: new int[] { 8, 0, 3, 5, 2, 4 }) {
+            assertTrue(mock.moveToPosition(position));
+            assertEquals(position, mock.getLong(0));
+        }
+
+        final CursorRowsConcat rows = (CursorRowsConcat) mock.cursorRows();
+        assertEquals(0, rows.segment(2));
+        assertEquals(2, rows.segment(3));
+        assertEquals(4, rows.segment(4));
+        assertEquals(4, rows.segment(8));
+    }
+
+    @Test
+    public void testEmpty() {
+        final CursorMock mock = CursorConcat.of(page(0, 0), page(0, 0));
+        assertEquals(0, mock.getCount());
+        assertFalse(mock.moveToFirst());
+
+        final CursorMock single = CursorConcat.of(page(0, 2));
+        assertEquals(2, single.getCount());
+    }
+
+    @Test
+    public void testDifferentColumns() {
+        try {
+            CursorConcat.of(page(0, 1), CursorMockBuilder.forColumns("_id").addRow(1L).build());
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testDifferentTypes() {
+        try {
+            CursorConcat.of(page(0, 1), CursorMockBuilder.forColumns("_id", "text").addRow(1.5D, "a").build());
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testTypesMerged() {
+        final CursorMock mock = CursorConcat.of(CursorMockBuilder.forColumns("_id", "text").build(), page(0, 1));
+        assertTrue(mock.moveToFirst());
+        assertEquals(android.database.Cursor.FIELD_TYPE_INTEGER, mock.getType(0));
+    }
+}
@@ -0,0 +1,197 @@
+package ru.noties.cursormock;
+
+import android.database.Cursor;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class CursorCsvImporterTest {
+
+    @Test
+    public void testTypesInferred() throws IOException {
+
+        final CursorMock mock = CursorCsvImporter.csv()
+                .importFrom(stream("id,name,rating,note\n1,First,4.5,\n2,Second,-3,\"a, b\"\r\n-9223372036854775808,,1e3,\"quote \"\"q\"\"\"\n"));
+
+        assertArrayEquals(new String[] { "id", "name", "rating", "note" }, mock.getColumnNames());
+        assertEquals(3, mock.getCount());
+
+        assertTrue(mock.moveToFirst());
+        assertEquals(Cursor.FIELD_TYPE_INTEGER, mock.getType(0));
+        assertEquals(Cursor.FIELD_TYPE_STRING, mock.getType(1));
+        assertEquals(Cursor.FIELD_TYPE_FLOAT, mock.getType(2));
+        assertEquals(Cursor.FIELD_TYPE_NULL, mock.getType(3));
+        assertEquals(1L, mock.getLong(0));
+        assertEquals("First", mock.getString(1));
+        assertEquals(4.5D, mock.getDouble(2), .0D);
+
+        assertTrue(mock.moveToNext());
+        assertEquals(2L, mock.getLong(0));
+        assertEquals(-3.D, mock.getDouble(2), .0D);
+        assertEquals("a, b", mock.getString(3));
+
+        assertTrue(mock.moveToNext());
+        assertEquals(Long.MIN_VALUE, mock.getLong(0));
+        assertTrue(mock.isNull(1));
+        assertEquals(1000.D, mock.getDouble(2), .0D);
+        assertEquals("quote \"q\"", mock.getString(3));
+    }
+
+    @Test
+    public void testTsvNoHeader() throws IOException {
+
+        final CursorMock mock = CursorCsvImporter.tsv()
+                .columns("id", "value")
+                .importFrom(stream("1\tone\n2\ttwo"));
+
+        assertEquals(2, mock.getCount());
+        assertTrue(mock.moveToLast());
+        assertEquals(2L, mock.getLong(0));
+        assertEquals("two", mock.getString(1));
+    }
+
+    @Test
+    public void testSmallBufferAndSample() throws IOException {
+
+        final StringBuilder builder = new StringBuilder("id,text,value\n");
+        for (int i = 0; i < 500; i++) {
+            builder.append(i)
+                    .append(",\"line\nbreak ")
+                    .append(i)
+                    .append("\",")
+                    .append(i)
+                    .append('\n');
+        }
+        // after the sample an INT column receives a floating point value
+        builder.append("500,last,0.25\n");
+
+        final CursorMock mock = CursorCsvImporter.csv()
+                .bufferSize(16)
+                .sampleRows(10)
+                .importFrom(stream(builder.toString()));
+
+        assertEquals(501, mock.getCount());
+
+        for (int i = 0; i < 500; i++) {
+            assertTrue(mock.moveToPosition(i));
+            assertEquals(i, mock.getLong(0));
+            assertEquals("line\nbreak " + i, mock.getString(1));
+            assertEquals(Cursor.FIELD_TYPE_FLOAT, mock.getType(2));
+            assertEquals(i, mock.getDouble(2), .0D);
+        }
+
+        assertTrue(mock.moveToLast());
+        assertEquals("last", mock.getString(1));
+        assertEquals(.25D, mock.getDouble(2), .0D);
+    }
+
+    @Test
+    public void testLongSampledField() throws IOException {
+
+        final StringBuilder field = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            field.append('x');
+        }
+
+        final CursorMock mock = CursorCsvImporter.csv()
+                .importFrom(stream("id,name\n1," + field + "\n2,\"quoted " + field + "\"\n"));
+
+        assertTrue(mock.moveToFirst());
+        assertEquals(field.toString(), mock.getString(1));
+        assertTrue(mock.moveToNext());
+        assertEquals("quoted " + field, mock.getString(1));
+    }
+
+    @Test
+    public void testColumnTypeSpecified() throws IOException {
+
+        final CursorMock mock = CursorCsvImporter.csv()
+                .columnType("Code", ColumnType.TEXT)
+                .importFrom(stream("code\n007\n"));
+
+        assertTrue(mock.moveToFirst());
+        assertEquals("007", mock.getString(0));
+    }
+
+    @Test
+    public void testColumnTypeSpecifiedNotWidened() throws IOException {
+        try {
+            CursorCsvImporter.csv()
+                    .columnType("id", ColumnType.INT)
+                    .importFrom(stream("id\n1\n2.5\n"));
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("is not a number"));
+        }
+    }
+
+    @Test
+    public void testNotANumber() throws IOException {
+        try {
+            CursorCsvImporter.csv()
+                    .sampleRows(1)
+                    .importFrom(stream("id\n1\nnot a number\n"));
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testTooManyFields() throws IOException {
+        try {
+            CursorCsvImporter.csv()
+                    .importFrom(stream("id\n1,2\n"));
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testHeaderOnly() throws IOException {
+        final CursorMock mock = CursorCsvImporter.csv()
+                .importFrom(stream("id,name\n"));
+        assertEquals(2, mock.getColumnCount());
+        assertEquals(0, mock.getCount());
+        assertFalse(mock.moveToFirst());
+    }
+
+    @Test
+    public void testNumberParser() {
+        final NumberParser parser = new NumberParser();
+        assertTrue(parser.parseLong(bytes("9223372036854775807"), 0, 19));
+        assertEquals(Long.MAX_VALUE, parser.longValue);
+        assertFalse(parser.parseLong(bytes("9223372036854775808"), 0, 19));
+        assertFalse(parser.parseLong(bytes("1.0"), 0, 3));
+
+        final String[] doubles = { "0.1", "-0.05", "123456.789e-3", "1e300", "3.141592653589793238", ".5", "5." };
+        for (String value: doubles) {
+            assertTrue(value, parser.parseDouble(bytes(value), 0, value.length()));
+            assertEquals(value, Double.parseDouble(value), parser.doubleValue, .0D);
+        }
+
+        assertFalse(parser.parseDouble(bytes("1e"), 0, 2));
+        assertFalse(parser.parseDouble(bytes("abc"), 0, 3));
+    }
+
+    private static ByteArrayInputStream stream(String value) {
+        return new ByteArrayInputStream(bytes(value));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(Utf8.CHARSET);
+    }
+}
@@ -0,0 +1,207 @@
+package ru.noties.cursormock;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class CursorDiffTest {
+
+    private static CursorMock mock(int count, int differentRow) {
+        final CursorMockBuilder.ForColumns builder = CursorMockBuilder.forColumns("_id", "text", "value", "data");
+        for (int i = 0; i < count; i++) {
+            builder.addRow(
+                    (long) i,
+                    i == differentRow ? "changed" : "text" + i,
+                    i % 7 == 0 ? null : i / 2.0D,
+                    new byte[] { (byte) i }
+            );
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testEqual() {
+        final CursorDiff.Result result = CursorDiff.of(mock(100, -1), mock(100, -1)).compare();
+        assertTrue(result.toString(), result.isEqual());
+        assertEquals(0, result.differences().size());
+
+        final CursorMock mock = mock(10, -1);
+        assertTrue(CursorDiff.of(mock, mock).compare().isEqual());
+    }
+
+    @Test
+    public void testValueDifference() {
+
+        final CursorDiff.Result result = CursorDiff.of(mock(3000, -1), mock(3000, 2500)).compare();
+        assertFalse(result.isEqual());
+
+        final List<CursorDiff.Difference> differences = result.differences();
+        assertEquals(1, differences.size());
+
+        final CursorDiff.Difference difference = differences.get(0);
+        assertEquals(CursorDiff.Kind.VALUE, difference.kind);
+        assertEquals(2500, difference.row);
+        assertEquals(1, difference.column);
+        assertEquals("text", difference.columnName);
+        assertEquals("text2500", difference.expected);
+        assertEquals("changed", difference.actual);
+
+        assertTrue(result.toString(), result.toString().contains("row: 2500, column: `text`"));
+    }
+
+    @Test
+    public void testTypesAreCompared() {
+
+        final CursorMock expected = CursorMockBuilder.forColumns("value")
+                .addRow(1L)
+                .addRow((Object) null)
+                .build();
+
+        final CursorMock actual = CursorMockBuilder.forColumns("value")
+                .addRow(1.0D)
+                .addRow((Object) null)
+                .build();
+
+        final List<CursorDiff.Difference> differences = CursorDiff.of(expected, actual).compare().differences();
+        assertEquals(2, differences.size());
+        assertEquals(CursorDiff.Kind.COLUMN_TYPE, differences.get(0).kind);
+        assertEquals(ColumnType.INT, differences.get(0).expected);
+        assertEquals(ColumnType.FLOAT, differences.get(0).actual);
+        assertEquals(CursorDiff.Kind.VALUE, differences.get(1).kind);
+        assertEquals(0, differences.get(1).row);
+    }
+
+    @Test
+    public void testSchemaAndCount() {
+
+        final CursorMock expected = CursorMockBuilder.forColumns("_id", "name")
+                .addRow(1L, "a")
+                .addRow(2L, "b")
+                .build();
+
+        final CursorMock actual = CursorMockBuilder.forColumns("_id", "title", "extra")
+                .addRow(1L, "a", null)
+                .build();
+
+        final List<CursorDiff.Difference> differences = CursorDiff.of(expected, actual).compare().differences();
+        assertEquals(3, differences.size());
+
+        assertEquals(CursorDiff.Kind.COLUMN_COUNT, differences.get(0).kind);
+        assertEquals(2, differences.get(0).expected);
+        assertEquals(3, differences.get(0).actual);
+
+        assertEquals(CursorDiff.Kind.COLUMN_NAME, differences.get(1).kind);
+        assertEquals(1, differences.get(1).column);
+        assertEquals(-1, differences.get(1).row);
+
+        assertEquals(CursorDiff.Kind.ROW_COUNT, differences.get(2).kind);
+        assertEquals(2, differences.get(2).expected);
+        assertEquals(1, differences.get(2).actual);
+    }
+
+    @Test
+    public void testMaxDifferences() {
+
+        final CursorMock expected = mock(5000, -1);
+
+        final CursorMockBuilder.ForColumns builder = CursorMockBuilder.forColumns("_id", "text", "value", "data");
+        for (int i = 0; i < 5000; i++) {
+            builder.addRow((long) i + 1, "text" + i, i % 7 == 0 ? null : i / 2.0D, new byte[] { (byte) i });
+        }
+        final CursorMock actual = builder.build();
+
+        final List<CursorDiff.Difference> differences = CursorDiff.of(expected, actual)
+                .maxDifferences(3)
+                .compare()
+                .differences();
+        assertEquals(3, differences.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, differences.get(i).row);
+            assertEquals(0, differences.get(i).column);
+        }
+    }
+
+    @Test
+    public void testParallel() {
+
+        final CursorDiff.Result result = parallel(40000, 60000, 60001).compare();
+
+        final List<CursorDiff.Difference> differences = result.differences();
+        assertEquals(2, differences.size());
+        assertEquals(40000, differences.get(0).row);
+        assertEquals(60000, differences.get(1).row);
+        assertEquals(-1.0D, differences.get(1).actual);
+    }
+
+    @Test
+    public void testParallelStopBlock() {
+
+        // the block of row 10240 has enough differences, blocks after it are not needed
+        final int from = 10 * CursorDiff.BLOCK_SIZE;
+        final CursorDiff.Result result = parallel(from, from + 1, from + 2, 50000, 60000).compare();
+
+        final List<CursorDiff.Difference> differences = result.differences();
+        assertEquals(2, differences.size());
+        assertEquals(from, differences.get(0).row);
+        assertEquals(from + 1, differences.get(1).row);
+
+        // without the limit all differences are found
+        final List<CursorDiff.Difference> all = parallel(from, from + 1, from + 2, 50000, 60000)
+                .maxDifferences(10)
+                .compare()
+                .differences();
+        assertEquals(5, all.size());
+        assertEquals(60000, all.get(4).row);
+    }
+
+    // typed columns, `value` of actual rows is -1 at different rows
+    private static CursorDiff parallel(int... differentRows) {
+
+        final int count = CursorDiff.PARALLEL_THRESHOLD * 2;
+
+        final CursorSchema expectedSchema = CursorSchemaFactory.raw("_id", "value");
+        final CursorSchema actualSchema = CursorSchemaFactory.raw("_id", "value");
+
+        final CursorRowsColumnarBuilder expected = new CursorRowsColumnarBuilder(expectedSchema, count);
+        final CursorRowsColumnarBuilder actual = new CursorRowsColumnarBuilder(actualSchema, count);
+
+        int next = 0;
+        for (int i = 0; i < count; i++) {
+            expected.nextRow();
+            actual.nextRow();
+            expected.putLong(0, i);
+            actual.putLong(0, i);
+            expected.putDouble(1, i);
+            if (next < differentRows.length && differentRows[next] == i) {
+                actual.putDouble(1, -1);
+                next += 1;
+            } else {
+                actual.putDouble(1, i);
+            }
+        }
+
+        final CursorMock expectedMock = new CursorMock(expectedSchema, expected.build());
+        final CursorMock actualMock = new CursorMock(actualSchema, actual.build());
+
+        assertEquals(ColumnType.INT, expectedSchema.columnType(0));
+        assertEquals(ColumnType.FLOAT, actualSchema.columnType(1));
+
+        return CursorDiff.of(expectedMock, actualMock)
+                .parallelism(4)
+                .maxDifferences(2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxDifferences() {
+        CursorDiff.of(mock(1, -1), mock(1, -1)).maxDifferences(0);
+    }
+}
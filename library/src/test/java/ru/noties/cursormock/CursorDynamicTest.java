@@ -0,0 +1,192 @@
+package ru.noties.cursormock;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteException;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class CursorDynamicTest {
+
+    private static CursorMock mixed() {
+        return CursorDynamic.forColumns("key", "value", "empty")
+                .addRow("count", 42L)
+                .addRow("ratio", 2.5D)
+                .addRow("title", "17 items")
+                .addRow("data", new byte[] { 1, 2 })
+                .addRow("none")
+                .addRow("small", 3)
+                .build();
+    }
+
+    @Test
+    public void testTypes() {
+
+        final CursorMock mock = mixed();
+        assertEquals(6, mock.getCount());
+
+        final int[] expected = {
+                Cursor.FIELD_TYPE_INTEGER,
+                Cursor.FIELD_TYPE_FLOAT,
+                Cursor.FIELD_TYPE_STRING,
+                Cursor.FIELD_TYPE_BLOB,
+                Cursor.FIELD_TYPE_NULL,
+                Cursor.FIELD_TYPE_INTEGER
+        };
+
+        int row = 0;
+        for (CursorMock cursor: mock) {
+            assertEquals(Cursor.FIELD_TYPE_STRING, cursor.getType(0));
+            assertEquals(expected[row], cursor.getType(1));
+            assertEquals(expected[row] == Cursor.FIELD_TYPE_NULL, cursor.isNull(1));
+            assertEquals(Cursor.FIELD_TYPE_NULL, cursor.getType(2));
+            assertTrue(cursor.isNull(2));
+            row += 1;
+        }
+        assertEquals(expected.length, row);
+    }
+
+    @Test
+    public void testTypesOfView() {
+
+        // views have no tagged columns, types are derived from values
+        final CursorMock mock = CursorSlice.limit(CursorConcat.of(mixed(), mixed()), 6, 3);
+
+        final int[] expected = {
+                Cursor.FIELD_TYPE_BLOB,
+                Cursor.FIELD_TYPE_NULL,
+                Cursor.FIELD_TYPE_INTEGER,
+                Cursor.FIELD_TYPE_INTEGER,
+                Cursor.FIELD_TYPE_FLOAT,
+                Cursor.FIELD_TYPE_STRING
+        };
+
+        int row = 0;
+        for (CursorMock cursor: mock) {
+            assertEquals(Cursor.FIELD_TYPE_STRING, cursor.getType(0));
+            assertEquals(expected[row], cursor.getType(1));
+            assertEquals(expected[row], cursor.row().getType(1));
+            assertEquals(Cursor.FIELD_TYPE_NULL, cursor.getType(2));
+            row += 1;
+        }
+        assertEquals(expected.length, row);
+    }
+
+    @Test
+    public void testValues() {
+
+        final CursorMock mock = mixed();
+
+        mock.moveToPosition(0);
+        assertEquals(42L, mock.getLong(1));
+        assertEquals("42", mock.getString(1));
+        assertEquals(42.0D, mock.getDouble(1), .0D);
+
+        mock.moveToPosition(1);
+        assertEquals(2L, mock.getLong(1));
+        assertEquals("2.5", mock.getString(1));
+        assertEquals(2.5D, mock.getDouble(1), .0D);
+
+        // converted as SQLite does
+        mock.moveToPosition(2);
+        assertEquals(17L, mock.getLong(1));
+        assertEquals("17 items", mock.getString(1));
+
+        mock.moveToPosition(3);
+        assertTrue(Arrays.equals(new byte[] { 1, 2 }, mock.getBlob(1)));
+        try {
+            mock.getLong(1);
+            fail();
+        } catch (SQLiteException e) {
+            assertTrue(true);
+        }
+
+        mock.moveToPosition(4);
+        assertEquals(0L, mock.getLong(1));
+        assertNull(mock.getString(1));
+
+        mock.moveToPosition(5);
+        assertEquals(3, mock.getInt(1));
+    }
+
+    @Test
+    public void testBulkRead() {
+
+        final CursorMock mock = mixed();
+
+        final long[] longs = new long[3];
+        mock.readLongs(1, 0, longs, 0, 3);
+        assertTrue(Arrays.toString(longs), Arrays.equals(new long[] { 42L, 2L, 17L }, longs));
+
+        final boolean[] nulls = new boolean[6];
+        mock.readNulls(1, 0, nulls, 0, 6);
+        assertTrue(Arrays.equals(new boolean[] { false, false, false, false, true, false }, nulls));
+    }
+
+    @Test
+    public void testGrowth() {
+
+        final CursorDynamic.Builder builder = CursorDynamic.forColumns("value");
+        final int count = 1000;
+        for (int i = 0; i < count; i++) {
+            builder.addRow(i % 3 == 0 ? (Object) (long) i : i % 3 == 1 ? (Object) ("" + i) : null);
+        }
+        // trailing rows without values
+        builder.addRow();
+        builder.addRow();
+
+        final CursorMock mock = builder.build();
+        assertEquals(count + 2, mock.getCount());
+
+        for (int i = 0; i < count + 2; i++) {
+            mock.moveToPosition(i);
+            if (i >= count || i % 3 == 2) {
+                assertTrue(mock.isNull(0));
+            } else {
+                assertFalse(mock.isNull(0));
+                assertEquals(i, mock.getLong(0));
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidRow() {
+
+        final CursorDynamic.Builder builder = CursorDynamic.forColumns("a", "b");
+        try {
+            builder.addRow(1L, new Object());
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+
+        try {
+            builder.addRow(1L, 2L, 3L);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+
+        // failed rows are not added
+        assertEquals(0, builder.build().getCount());
+
+        try {
+            builder.build();
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(true);
+        }
+    }
+}
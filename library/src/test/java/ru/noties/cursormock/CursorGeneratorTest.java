@@ -0,0 +1,107 @@
+package ru.noties.cursormock;
+
+import android.database.Cursor;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class CursorGeneratorTest {
+
+    private static CursorMock mock(int count, long seed) {
+        return CursorGenerator.rows(count)
+                .seed(seed)
+                .column("_id", CursorGenerator.sequence(1L, 1L))
+                .column("title", CursorGenerator.zipf("title_", 1000, 1.D))
+                .column("created", CursorGenerator.uniform(1000L, 1999L))
+                .column("rating", CursorGenerator.uniform(-1.D, 1.D))
+                .column("note", CursorGenerator.nullable(.25D, CursorGenerator.zipf("note_", 10, 2.D)))
+                .build();
+    }
+
+    @Test
+    public void testValues() {
+
+        final CursorMock mock = mock(10000, 1L);
+        assertEquals(10000, mock.getCount());
+
+        int nulls = 0;
+        int mostFrequent = 0;
+        while (mock.moveToNext()) {
+            assertEquals(Cursor.FIELD_TYPE_INTEGER, mock.getType(0));
+            assertEquals(mock.getPosition() + 1, mock.getLong(0));
+
+            final String title = mock.getString(1);
+            assertTrue(title, title.startsWith("title_"));
+            final int rank = Integer.parseInt(title.substring("title_".length()));
+            assertTrue(String.valueOf(rank), rank >= 1 && rank <= 1000);
+            if (rank == 1) {
+                mostFrequent += 1;
+            }
+
+            final long created = mock.getLong(2);
+            assertTrue(String.valueOf(created), created >= 1000L && created <= 1999L);
+
+            final double rating = mock.getDouble(3);
+            assertTrue(String.valueOf(rating), rating >= -1.D && rating < 1.D);
+
+            if (mock.isNull(4)) {
+                nulls += 1;
+            }
+        }
+
+        // zipf with exponent 1 & 1000 elements gives ~13% to the first rank
+        assertTrue(String.valueOf(mostFrequent), mostFrequent > 1000 && mostFrequent < 1700);
+        assertTrue(String.valueOf(nulls), nulls > 2200 && nulls < 2800);
+    }
+
+    @Test
+    public void testDeterministic() {
+
+        final CursorMock first = mock(Integer.MAX_VALUE, 7L);
+        final CursorMock second = mock(Integer.MAX_VALUE, 7L);
+
+        for (int position: new int[] { Integer.MAX_VALUE - 1, 0, 123456789 }) {
+            assertTrue(first.moveToPosition(position));
+            assertTrue(second.moveToPosition(position));
+            for (int i = 0; i < first.getColumnCount(); i++) {
+                assertEquals(first.getString(i), second.getString(i));
+                // the same value on each read
+                assertEquals(first.getString(i), first.getString(i));
+            }
+        }
+
+        assertTrue(CursorDiff.of(mock(5000, 3L), mock(5000, 3L)).compare().isEqual());
+
+        final CursorMock other = mock(1, 8L);
+        assertTrue(first.moveToFirst());
+        assertTrue(other.moveToFirst());
+        assertNotEquals(first.getLong(2), other.getLong(2));
+    }
+
+    @Test
+    public void testFullLongRange() {
+        final CursorMock mock = CursorGenerator.rows(100)
+                .column("value", CursorGenerator.uniform(Long.MIN_VALUE, Long.MAX_VALUE))
+                .column("positive", CursorGenerator.uniform(0L, Long.MAX_VALUE))
+                .build();
+        boolean negative = false;
+        while (mock.moveToNext()) {
+            negative |= mock.getLong(0) < 0;
+            assertTrue(mock.getLong(1) >= 0);
+        }
+        assertTrue(negative);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNoColumns() {
+        CursorGenerator.rows(1).build();
+    }
+}
@@ -0,0 +1,214 @@
+package ru.noties.cursormock;
+
+import android.database.Cursor;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class CursorGroupByTest {
+
+    private static CursorMock messages() {
+        return CursorMockBuilder.forColumns("conversation_id", "size", "rating", "title")
+                .addRow(2L, 10L, 1.5D, "b")
+                .addRow(1L, 5L, null, "z")
+                .addRow(2L, null, 2.5D, "a")
+                .addRow(null, 7L, 4.D, null)
+                .addRow(2L, 1L, null, "c")
+                .build();
+    }
+
+    @Test
+    public void testAggregates() {
+
+        final CursorMock mock = CursorGroupBy.of(messages(), "conversation_id")
+                .count("count")
+                .count("size", "sizes")
+                .sum("size", "total")
+                .min("size", "min_size")
+                .max("title", "max_title")
+                .avg("rating", "avg_rating")
+                .sum("rating", "total_rating")
+                .build();
+
+        assertArrayEquals(new String[] { "conversation_id", "count", "sizes", "total", "min_size", "max_title",
+                "avg_rating", "total_rating" }, mock.getColumnNames());
+        assertEquals(3, mock.getCount());
+
+        // NULL key goes first
+        assertTrue(mock.moveToFirst());
+        assertTrue(mock.isNull(0));
+        assertEquals(1, mock.getInt(1));
+        assertEquals(7L, mock.getLong(3));
+        assertTrue(mock.isNull(5));
+
+        assertTrue(mock.moveToNext());
+        assertEquals(1L, mock.getLong(0));
+        assertEquals(1, mock.getInt(1));
+        assertEquals(5L, mock.getLong(3));
+        assertEquals("z", mock.getString(5));
+        assertTrue(mock.isNull(6));
+        assertTrue(mock.isNull(7));
+
+        assertTrue(mock.moveToNext());
+        assertEquals(2L, mock.getLong(0));
+        assertEquals(3, mock.getInt(1));
+        assertEquals(2, mock.getInt(2));
+        assertEquals(Cursor.FIELD_TYPE_INTEGER, mock.getType(3));
+        assertEquals(11L, mock.getLong(3));
+        assertEquals(1L, mock.getLong(4));
+        assertEquals("c", mock.getString(5));
+        assertEquals(Cursor.FIELD_TYPE_FLOAT, mock.getType(6));
+        assertEquals(2.D, mock.getDouble(6), .0D);
+        assertEquals(4.D, mock.getDouble(7), .0D);
+
+        assertFalse(mock.moveToNext());
+    }
+
+    @Test
+    public void testTextKeys() {
+
+        final CursorMock mock = CursorGroupBy.of(messages(), "title")
+                .count("count")
+                .build();
+
+        assertEquals(5, mock.getCount());
+        assertTrue(mock.moveToFirst());
+        assertTrue(mock.isNull(0));
+        assertTrue(mock.moveToNext());
+        assertEquals("a", mock.getString(0));
+        assertTrue(mock.moveToLast());
+        assertEquals("z", mock.getString(0));
+    }
+
+    @Test
+    public void testDynamicTypes() {
+
+        final CursorMock source = CursorDynamic.forColumns("key", "value")
+                .addRow(1L, 1L)
+                .addRow("a", 2L)
+                .addRow(1.0D, "x")
+                .addRow(2.5D, 3L)
+                .addRow(null, 4L)
+                .addRow("a", 5.5D)
+                .build();
+
+        final CursorMock mock = CursorGroupBy.of(source, "key")
+                .count("count")
+                .min("value", "min")
+                .max("value", "max")
+                .sum("value", "sum")
+                .build();
+
+        assertEquals(4, mock.getCount());
+
+        // NULL, numbers, TEXT
+        final int[] keyTypes = { Cursor.FIELD_TYPE_NULL, Cursor.FIELD_TYPE_INTEGER, Cursor.FIELD_TYPE_FLOAT, Cursor.FIELD_TYPE_STRING };
+        final String[] keys = { null, "1", "2.5", "a" };
+        final long[] counts = { 1L, 2L, 1L, 2L };
+        final int[] minTypes = { Cursor.FIELD_TYPE_INTEGER, Cursor.FIELD_TYPE_INTEGER, Cursor.FIELD_TYPE_INTEGER, Cursor.FIELD_TYPE_INTEGER };
+        final String[] mins = { "4", "1", "3", "2" };
+        final int[] maxTypes = { Cursor.FIELD_TYPE_INTEGER, Cursor.FIELD_TYPE_STRING, Cursor.FIELD_TYPE_INTEGER, Cursor.FIELD_TYPE_FLOAT };
+        final String[] maxs = { "4", "x", "3", "5.5" };
+        final int[] sumTypes = { Cursor.FIELD_TYPE_INTEGER, Cursor.FIELD_TYPE_FLOAT, Cursor.FIELD_TYPE_INTEGER, Cursor.FIELD_TYPE_FLOAT };
+
+        int row = 0;
+        for (CursorMock cursor: mock) {
+            assertEquals(keyTypes[row], cursor.getType(0));
+            assertEquals(keys[row], cursor.getString(0));
+            assertEquals(counts[row], cursor.getLong(1));
+            assertEquals(minTypes[row], cursor.getType(2));
+            assertEquals(mins[row], cursor.getString(2));
+            assertEquals(maxTypes[row], cursor.getType(3));
+            assertEquals(maxs[row], cursor.getString(3));
+            assertEquals(sumTypes[row], cursor.getType(4));
+            row += 1;
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        final CursorMock mock = CursorGroupBy.of(CursorMockBuilder.forColumns("key").build(), "key")
+                .count("count")
+                .build();
+        assertEquals(0, mock.getCount());
+        assertEquals(2, mock.getColumnCount());
+    }
+
+    @Test
+    public void testOverflow() {
+        final CursorMock source = CursorMockBuilder.forColumns("key", "value")
+                .addRow(1L, Long.MAX_VALUE)
+                .addRow(1L, 1L)
+                .build();
+        try {
+            CursorGroupBy.of(source, "key").sum("value", "sum").build();
+            assertTrue(false);
+        } catch (ArithmeticException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testUnknownColumn() {
+        try {
+            CursorGroupBy.of(messages(), "conversation_id").sum("unknown", "sum");
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testParallel() {
+
+        final int count = CursorGroupBy.PARALLEL_THRESHOLD * 2 + 17;
+        final int groups = 1000;
+
+        final CursorMockBuilder.ForColumns builder = CursorMockBuilder.forColumns(count, "key", "value", "real");
+        for (int i = 0; i < count; i++) {
+            builder.addRow((long) (i % groups), (long) i, i % 3 == 0 ? null : (double) i);
+        }
+        final CursorMock source = builder.build();
+
+        final CursorMock parallel = aggregate(source, 4);
+        final CursorMock sequential = aggregate(source, 1);
+
+        assertEquals(groups, parallel.getCount());
+        assertEquals(groups, sequential.getCount());
+
+        while (parallel.moveToNext()) {
+            assertTrue(sequential.moveToNext());
+            for (int i = 0; i < parallel.getColumnCount(); i++) {
+                assertEquals(sequential.getString(i), parallel.getString(i));
+            }
+        }
+
+        assertTrue(parallel.moveToFirst());
+        long expected = 0L;
+        for (int i = 0; i < count; i += groups) {
+            expected += i;
+        }
+        assertEquals(0L, parallel.getLong(0));
+        assertEquals(expected, parallel.getLong(2));
+    }
+
+    private static CursorMock aggregate(CursorMock source, int parallelism) {
+        return CursorGroupBy.of(source, "key")
+                .parallelism(parallelism)
+                .count("count")
+                .sum("value", "sum")
+                .min("value", "min")
+                .max("real", "max")
+                .avg("real", "avg")
+                .build();
+    }
+}
@@ -0,0 +1,191 @@
+package ru.noties.cursormock;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class CursorJoinTest {
+
+    private static CursorMock messages() {
+        return CursorMockBuilder.forColumns("_id", "user_id", "text")
+                .addRow(1L, 10L, "first")
+                .addRow(2L, 20L, "second")
+                .addRow(3L, 10L, "third")
+                .addRow(4L, null, "fourth")
+                .addRow(5L, 30L, "fifth")
+                .build();
+    }
+
+    private static CursorMock users() {
+        return CursorMockBuilder.forColumns("_id", "name")
+                .addRow(10L, "Ten")
+                .addRow(20L, "Twenty")
+                .build();
+    }
+
+    @Test
+    public void testInnerIndexSmallerRight() {
+
+        final CursorMock mock = CursorJoin.inner(messages(), "user_id", users(), "_id");
+
+        assertArrayEquals(new String[] { "_id", "user_id", "text", "_id", "name" }, mock.getColumnNames());
+        assertEquals(3, mock.getCount());
+
+        assertRow(mock, 0, 1L, "first", "Ten");
+        assertRow(mock, 1, 2L, "second", "Twenty");
+        assertRow(mock, 2, 3L, "third", "Ten");
+
+        final CursorRowsJoin rows = (CursorRowsJoin) mock.cursorRows();
+        assertEquals(2, rows.leftRow(2));
+        assertEquals(0, rows.rightRow(2));
+    }
+
+    @Test
+    public void testInnerIndexSmallerLeft() {
+
+        final CursorMock mock = CursorJoin.inner(users(), "_id", messages(), "user_id");
+
+        assertEquals(3, mock.getCount());
+
+        // ordered by left rows, then by right rows
+        final CursorRowsJoin rows = (CursorRowsJoin) mock.cursorRows();
+        assertEquals(0, rows.leftRow(0));
+        assertEquals(0, rows.rightRow(0));
+        assertEquals(0, rows.leftRow(1));
+        assertEquals(2, rows.rightRow(1));
+        assertEquals(1, rows.leftRow(2));
+        assertEquals(1, rows.rightRow(2));
+
+        assertTrue(mock.moveToPosition(1));
+        assertEquals("Ten", mock.getString(1));
+        assertEquals("third", mock.getString(4));
+    }
+
+    @Test
+    public void testLeftOuter() {
+
+        final CursorMock mock = CursorJoin.leftOuter(messages(), "user_id", users(), "_id");
+        assertEquals(5, mock.getCount());
+        assertRow(mock, 3, 4L, "fourth", null);
+        assertRow(mock, 4, 5L, "fifth", null);
+        assertTrue(mock.isNull(3));
+
+        final CursorMock reversed = CursorJoin.leftOuter(users(), "_id", messages(), "user_id");
+        assertEquals(3, reversed.getCount());
+
+        final CursorMock empty = CursorJoin.leftOuter(
+                users(),
+                "_id",
+                CursorMockBuilder.forColumns("user_id").build(),
+                "user_id");
+        assertEquals(2, empty.getCount());
+        assertTrue(empty.moveToFirst());
+        assertTrue(empty.isNull(2));
+    }
+
+    @Test
+    public void testTextKeys() {
+
+        final CursorMock left = CursorMockBuilder.forColumns("code", "value")
+                .addRow("a", 1L)
+                .addRow("b", 2L)
+                .addRow("c", 3L)
+                .build();
+
+        final CursorMock right = CursorMockBuilder.forColumns("code", "label")
+                .addRow("c", "C")
+                .addRow("a", "A")
+                .build();
+
+        final CursorMock mock = CursorJoin.inner(left, "code", right, "code");
+        assertEquals(2, mock.getCount());
+        assertTrue(mock.moveToFirst());
+        assertEquals("A", mock.getString(3));
+        assertTrue(mock.moveToNext());
+        assertEquals(3L, mock.getLong(1));
+        assertEquals("C", mock.getString(3));
+    }
+
+    @Test
+    public void testMixedNumericKeys() {
+
+        final CursorMock left = CursorMockBuilder.forColumns("key")
+                .addRow(1.D)
+                .addRow(1.5D)
+                .build();
+
+        final CursorMock right = CursorMockBuilder.forColumns("key")
+                .addRow(1L)
+                .addRow(2L)
+                .build();
+
+        final CursorMock mock = CursorJoin.inner(left, "key", right, "key");
+        assertEquals(1, mock.getCount());
+        assertTrue(mock.moveToFirst());
+        assertEquals(1L, mock.getLong(1));
+    }
+
+    @Test
+    public void testLarge() {
+
+        final int users = 1000;
+        final int messages = 10000;
+
+        final CursorSchema usersSchema = CursorSchemaFactory.raw("_id");
+        final CursorRowsColumnarBuilder usersBuilder = new CursorRowsColumnarBuilder(usersSchema, users);
+        for (int i = 0; i < users; i++) {
+            usersBuilder.nextRow();
+            usersBuilder.putLong(0, i * 7L);
+        }
+
+        final CursorMockBuilder.ForColumns messagesBuilder = CursorMockBuilder.forColumns(messages, "_id", "user_id");
+        for (int i = 0; i < messages; i++) {
+            messagesBuilder.addRow((long) i, (long) i % (users * 2));
+        }
+
+        final CursorMock mock = CursorJoin.inner(
+                messagesBuilder.build(),
+                "user_id",
+                new CursorMock(usersSchema, usersBuilder.build()),
+                "_id");
+
+        int expected = 0;
+        for (int i = 0; i < messages; i++) {
+            final long userId = i % (users * 2);
+            if (userId % 7 == 0 && userId / 7 < users) {
+                expected += 1;
+            }
+        }
+
+        assertEquals(expected, mock.getCount());
+        while (mock.moveToNext()) {
+            assertEquals(mock.getLong(1), mock.getLong(2));
+        }
+    }
+
+    @Test
+    public void testUnknownColumn() {
+        try {
+            CursorJoin.inner(messages(), "unknown", users(), "_id");
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    private static void assertRow(CursorMock mock, int position, long id, String text, String name) {
+        assertTrue(mock.moveToPosition(position));
+        assertEquals(id, mock.getLong(0));
+        assertEquals(text, mock.getString(2));
+        assertEquals(name, mock.getString(4));
+        assertFalse(mock.isAfterLast());
+    }
+}
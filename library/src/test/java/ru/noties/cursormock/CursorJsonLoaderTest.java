@@ -0,0 +1,188 @@
+package ru.noties.cursormock;
+
+import android.database.Cursor;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class CursorJsonLoaderTest {
+
+    @Test
+    public void testValues() throws IOException {
+
+        final String json = "\uFEFF[\n" +
+                "  {\"id\": 1, \"name\": \"First\", \"rating\": 4.5, \"active\": true, \"extra\": {\"a\": [1, {\"b\": \"}\"}]}},\n" +
+                "  {\"NAME\": \"Sec\\\"ond \\u00e9\\ud83d\\ude00\", \"id\": -9223372036854775808, \"active\": false, \"rating\": null},\n" +
+                "  {}\n" +
+                "]";
+
+        final CursorMock mock = CursorJsonLoader.forColumns("id", "name", "rating", "active")
+                .load(stream(json));
+
+        assertEquals(3, mock.getCount());
+
+        assertTrue(mock.moveToFirst());
+        assertEquals(Cursor.FIELD_TYPE_INTEGER, mock.getType(0));
+        assertEquals(Cursor.FIELD_TYPE_STRING, mock.getType(1));
+        assertEquals(Cursor.FIELD_TYPE_FLOAT, mock.getType(2));
+        assertEquals(Cursor.FIELD_TYPE_INTEGER, mock.getType(3));
+        assertEquals(1L, mock.getLong(0));
+        assertEquals("First", mock.getString(1));
+        assertEquals(4.5D, mock.getDouble(2), .0D);
+        assertEquals(1, mock.getInt(3));
+
+        assertTrue(mock.moveToNext());
+        assertEquals(Long.MIN_VALUE, mock.getLong(0));
+        assertEquals("Sec\"ond \u00e9\ud83d\ude00", mock.getString(1));
+        assertTrue(mock.isNull(2));
+        assertEquals(0, mock.getInt(3));
+
+        assertTrue(mock.moveToNext());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(mock.isNull(i));
+        }
+    }
+
+    @Test
+    public void testSmallBuffer() throws IOException {
+
+        final StringBuilder builder = new StringBuilder("[");
+        final int count = 500;
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"id\":").append(i)
+                    .append(",\"value\":").append(i).append(".25")
+                    .append(",\"text\":\"text \\t ").append(i).append("\"}");
+        }
+        builder.append(']');
+
+        final CursorMock mock = CursorJsonLoader.forColumns("id", "value", "text")
+                .bufferSize(16)
+                .load(stream(builder.toString()));
+
+        assertEquals(count, mock.getCount());
+
+        int i = 0;
+        while (mock.moveToNext()) {
+            assertEquals(i, mock.getInt(0));
+            assertEquals(i + .25D, mock.getDouble(1), .0D);
+            assertEquals("text \t " + i, mock.getString(2));
+            i += 1;
+        }
+        assertEquals(count, i);
+    }
+
+    @Test
+    public void testWiden() throws IOException {
+
+        final CursorMock mock = CursorJsonLoader.forColumns("value")
+                .load(stream("[{\"value\": 1}, {\"value\": 2.5}, {\"value\": 1e2}]"));
+
+        assertTrue(mock.moveToFirst());
+        assertEquals(Cursor.FIELD_TYPE_FLOAT, mock.getType(0));
+        assertEquals(1.D, mock.getDouble(0), .0D);
+        assertTrue(mock.moveToLast());
+        assertEquals(100.D, mock.getDouble(0), .0D);
+    }
+
+    @Test
+    public void testTypedSchema() throws IOException {
+
+        final CursorSchema schema = new CursorSchemaImpl(
+                new String[] { "code", "data" },
+                new ColumnType[] { ColumnType.TEXT, ColumnType.BLOB }
+        );
+
+        final CursorMock mock = CursorJsonLoader.forSchema(schema)
+                .load(stream("[{\"code\": 12.50, \"data\": \"AQID\"}]"));
+
+        assertTrue(mock.moveToFirst());
+        assertEquals("12.50", mock.getString(0));
+        assertArrayEquals(new byte[] { 1, 2, 3 }, mock.getBlob(1));
+    }
+
+    @Test
+    public void testManyOtherKeys() throws IOException {
+
+        // distinct unknown keys fill the cache of keys before a key in a different case is met
+        final StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"key").append(i).append("\": ").append(i);
+            if (i >= 100) {
+                json.append(", \"ID\": ").append(i);
+            }
+            json.append('}');
+        }
+        json.append(']');
+
+        final CursorMock mock = CursorJsonLoader.forColumns("id").load(stream(json.toString()));
+
+        assertEquals(1000, mock.getCount());
+        int row = 0;
+        for (CursorMock cursor: mock) {
+            if (row < 100) {
+                assertTrue(cursor.isNull(0));
+            } else {
+                assertEquals(row, cursor.getLong(0));
+            }
+            row += 1;
+        }
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        final CursorMock mock = CursorJsonLoader.forColumns("id").load(stream(" [ ] "));
+        assertEquals(0, mock.getCount());
+        assertFalse(mock.moveToFirst());
+    }
+
+    @Test
+    public void testNestedValueForColumn() throws IOException {
+        assertMalformed("[{\"id\": [1]}]");
+    }
+
+    @Test
+    public void testMalformed() throws IOException {
+        assertMalformed("{\"id\": 1}");
+        assertMalformed("[{\"id\": 1}");
+        assertMalformed("[{\"id\": 1},]");
+        assertMalformed("[{\"id\" 1}]");
+        assertMalformed("[{\"id\": tru}]");
+        assertMalformed("[{\"id\": \"abc}]");
+        assertMalformed("[{\"id\": x}]");
+        assertMalformed("[{\"other\": x}]");
+        assertMalformed("[{\"id\": 1}] 1");
+        assertMalformed("[{\"id\": 1}, {\"id\": \"text\"}]");
+    }
+
+    private static void assertMalformed(String json) throws IOException {
+        try {
+            CursorJsonLoader.forColumns("id").load(stream(json));
+            assertTrue(json, false);
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(Utf8.CHARSET));
+    }
+}
@@ -0,0 +1,98 @@
+package ru.noties.cursormock;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class CursorLatencyModelTest {
+
+    @Test
+    public void testNegativeCost() {
+        try {
+            CursorLatencyModel.builder().getter(-1L);
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testFirstCount() {
+
+        final CursorClock.Simulated clock = new CursorClock.Simulated();
+        final CursorLatencyModel model = CursorLatencyModel.builder()
+                .clock(clock)
+                .firstCount(100L)
+                .windowFill(10L)
+                .build();
+
+        final CursorMock mock = mock(10);
+        final CursorLatency latency = model.inject(mock);
+
+        assertEquals(10, mock.getCount());
+        assertEquals(10, mock.getCount());
+
+        assertEquals(110L, clock.nanoTime());
+        assertEquals(110L, latency.elapsedNanos());
+        assertEquals(1, latency.windowFills());
+    }
+
+    @Test
+    public void testWindowFills() {
+
+        final CursorClock.Simulated clock = new CursorClock.Simulated();
+        final CursorLatencyModel model = CursorLatencyModel.builder()
+                .clock(clock)
+                .windowRows(30)
+                .windowFill(1000L)
+                .rowFill(1L)
+                .getter(5L)
+                .build();
+
+        final CursorMock mock = mock(100);
+        final CursorLatency latency = model.inject(mock);
+
+        int reads = 0;
+        for (CursorMock cursor: mock) {
+            cursor.getLong(0);
+            reads += 1;
+        }
+
+        assertEquals(100, reads);
+
+        // windows: [0, 30), [20, 50), [40, 70), [60, 90), [80, 100)
+        assertEquals(5, latency.windowFills());
+        assertEquals(5 * 1000L + 30 * 4 + 20 + 100 * 5L, clock.nanoTime());
+
+        // moving backwards inside current window doesn't fill it
+        assertTrue(mock.moveToPosition(85));
+        assertEquals(5, latency.windowFills());
+
+        assertTrue(mock.moveToFirst());
+        assertEquals(6, latency.windowFills());
+    }
+
+    @Test
+    public void testKeepsListener() {
+        final CursorMock mock = mock(3);
+        final CursorMetrics metrics = CursorMetrics.instrument(mock);
+        CursorLatencyModel.builder().build().inject(mock);
+        assertTrue(mock.getAccessListener() instanceof CursorAccessListenerComposite);
+        mock.moveToFirst();
+        assertEquals(1, metrics.moves());
+    }
+
+    private static CursorMock mock(int count) {
+        final CursorMockBuilder.ForColumns builder = CursorMockBuilder.forColumns(count, "id");
+        for (long i = 0; i < count; i++) {
+            builder.addRow(i);
+        }
+        return builder.build();
+    }
+}
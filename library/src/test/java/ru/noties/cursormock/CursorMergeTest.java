@@ -0,0 +1,199 @@
+package ru.noties.cursormock;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class CursorMergeTest {
+
+    private static CursorMock messages(String source, long... dates) {
+        final CursorMockBuilder.ForColumns builder = CursorMockBuilder.forColumns("date", "source");
+        for (long date: dates) {
+            builder.addRow(date, source);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testMerge() {
+
+        final CursorMock mock = CursorMerge.of(
+                "date",
+                messages("local", 1L, 4L, 4L, 9L),
+                messages("remote", 2L, 4L, 10L),
+                messages("empty"),
+                messages("other", 0L)
+        ).build();
+
+        final long[] dates = { 0L, 1L, 2L, 4L, 4L, 4L, 9L, 10L };
+        final String[] sources = { "other", "local", "remote", "local", "local", "remote", "local", "remote" };
+
+        assertEquals(dates.length, mock.getCount());
+
+        int row = 0;
+        for (CursorMock cursor: mock) {
+            assertEquals(dates[row], cursor.getLong(0));
+            // equal keys keep the order of cursors
+            assertEquals(sources[row], cursor.getString(1));
+            row += 1;
+        }
+    }
+
+    @Test
+    public void testOutOfBounds() {
+
+        final CursorRows rows = CursorMerge.of("date", messages("a", 1L), messages("b", 2L)).build().cursorRows();
+        assertEquals(2L, (long) rows.get(Long.class, 1, 0));
+
+        try {
+            rows.get(Long.class, -1, 0);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertTrue(true);
+        }
+
+        try {
+            rows.get(Long.class, 2, 0);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testDescendingWithNulls() {
+
+        final CursorMock first = CursorMockBuilder.forColumns("value", "id")
+                .addRow(3.5D, 1L)
+                .addRow(-1.25D, 2L)
+                .addRow(null, 3L)
+                .build();
+
+        final CursorMock second = CursorMockBuilder.forColumns("value", "id")
+                .addRow(10.0D, 4L)
+                .addRow(0.0D, 5L)
+                .addRow(-7.0D, 6L)
+                .build();
+
+        final CursorMock mock = CursorMerge.of("value", first, second).descending().build();
+
+        final long[] ids = { 4L, 1L, 5L, 2L, 6L, 3L };
+        assertEquals(ids.length, mock.getCount());
+        int row = 0;
+        for (CursorMock cursor: mock) {
+            assertEquals(ids[row++], cursor.getLong(1));
+        }
+    }
+
+    @Test
+    public void testZerosAndNaN() {
+
+        // `-0.0` & `0.0` are equal keys, NaN is a NULL key
+        final CursorMock first = CursorDynamic.forColumns("value", "id")
+                .addRow(Double.NaN, 1L)
+                .addRow(0.0D, 2L)
+                .addRow(-0.0D, 3L)
+                .addRow(1.0D, 4L)
+                .build();
+
+        final CursorMock second = CursorDynamic.forColumns("value", "id")
+                .addRow(null, 5L)
+                .addRow(-0.0D, 6L)
+                .addRow(0.0D, 7L)
+                .build();
+
+        final CursorMock mock = CursorMerge.of("value", first, second).build();
+
+        final long[] ids = { 1L, 5L, 2L, 3L, 6L, 7L, 4L };
+        assertEquals(ids.length, mock.getCount());
+        int row = 0;
+        for (CursorMock cursor: mock) {
+            assertEquals(ids[row++], cursor.getLong(1));
+        }
+    }
+
+    @Test
+    public void testRandom() {
+
+        final Random random = new Random(42L);
+        final List<Long> all = new ArrayList<>();
+
+        final CursorMock[] cursors = new CursorMock[7];
+        for (int i = 0; i < cursors.length; i++) {
+            final List<Long> values = new ArrayList<>();
+            for (int j = 0, count = random.nextInt(500); j < count; j++) {
+                values.add((long) random.nextInt(1000) - 500);
+            }
+            Collections.sort(values);
+            all.addAll(values);
+            final CursorMockBuilder.ForColumns builder = CursorMockBuilder.forColumns("key");
+            for (Long value: values) {
+                builder.addRow(value);
+            }
+            cursors[i] = builder.build();
+        }
+        Collections.sort(all);
+
+        final CursorMock[] others = new CursorMock[cursors.length - 1];
+        System.arraycopy(cursors, 1, others, 0, others.length);
+        final CursorMock mock = CursorMerge.of("key", cursors[0], others).build();
+
+        assertEquals(all.size(), mock.getCount());
+        int row = 0;
+        for (CursorMock cursor: mock) {
+            assertEquals((long) all.get(row++), cursor.getLong(0));
+        }
+    }
+
+    @Test
+    public void testNotSorted() {
+        try {
+            CursorMerge.of("date", messages("a", 1L, 3L), messages("b", 2L, 1L)).build();
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("index: 1"));
+        }
+    }
+
+    @Test
+    public void testInvalidKey() {
+
+        try {
+            CursorMerge.of("unknown", messages("a", 1L));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+
+        try {
+            CursorMerge.of("source", messages("a", 1L));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+
+        try {
+            CursorMerge.of("date", messages("a", 1L), CursorMockBuilder.forColumns("date").addRow(1L).build());
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(0, CursorMerge.of("date", messages("a"), messages("b")).build().getCount());
+    }
+}
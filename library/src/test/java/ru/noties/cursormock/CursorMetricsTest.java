@@ -0,0 +1,91 @@
+package ru.noties.cursormock;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class CursorMetricsTest {
+
+    @Test
+    public void testMoves() {
+
+        final CursorMock mock = mock();
+        final CursorMetrics metrics = CursorMetrics.instrument(mock);
+        assertSame(metrics, mock.getAccessListener());
+
+        assertTrue(mock.moveToFirst());
+        assertTrue(mock.moveToNext());
+        assertTrue(mock.moveToPosition(3));
+        assertTrue(mock.moveToPrevious());
+        assertTrue(mock.moveToPosition(2));
+        assertTrue(mock.moveToFirst());
+        assertTrue(mock.moveToLast());
+        assertEquals(false, mock.moveToNext());
+
+        assertEquals(8, metrics.moves());
+        assertEquals(3, metrics.sequentialMoves());
+        assertEquals(2, metrics.forwardSeeks());
+        assertEquals(2, metrics.backwardSeeks());
+        assertEquals(1, metrics.sameRowMoves());
+        assertEquals(6, metrics.rowsVisited());
+    }
+
+    @Test
+    public void testReads() {
+
+        final CursorMock mock = mock();
+        final CursorMetrics metrics = CursorMetrics.instrument(mock);
+
+        for (CursorMock cursor: mock) {
+            cursor.getLong(cursor.getColumnIndex("id"));
+            cursor.getString(cursor.getColumnIndexOrThrow("name"));
+            cursor.getString(1);
+        }
+
+        assertEquals(0, metrics.countCalls());
+        assertEquals(5, mock.getCount());
+        assertEquals(1, metrics.countCalls());
+
+        assertEquals(10, metrics.columnIndexLookups());
+        assertEquals(2.D, metrics.columnIndexLookupsPerRow(), .0001D);
+
+        assertEquals(5, metrics.reads(0, CursorAccessListener.Getter.LONG));
+        assertEquals(0, metrics.reads(0, CursorAccessListener.Getter.STRING));
+        assertEquals(10, metrics.reads(1, CursorAccessListener.Getter.STRING));
+
+        assertEquals(5, metrics.repeatedStringReads(1));
+        assertEquals(5, metrics.repeatedStringReads());
+
+        assertTrue(metrics.report().contains("name"));
+
+        metrics.reset();
+        assertEquals(0, metrics.moves());
+        assertEquals(0, metrics.reads(1, CursorAccessListener.Getter.STRING));
+    }
+
+    @Test
+    public void testRemoveListener() {
+        final CursorMock mock = mock();
+        final CursorMetrics metrics = CursorMetrics.instrument(mock);
+        mock.setAccessListener(null);
+        assertNull(mock.getAccessListener());
+        mock.moveToFirst();
+        assertEquals(0, metrics.moves());
+    }
+
+    private static CursorMock mock() {
+        final CursorMockBuilder.ForColumns builder = CursorMockBuilder.forColumns("id", "name");
+        for (long i = 0; i < 5; i++) {
+            builder.addRow(i, "name" + i);
+        }
+        return builder.build();
+    }
+}
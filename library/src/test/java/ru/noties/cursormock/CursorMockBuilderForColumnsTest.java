@@ -7,6 +7,7 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -62,4 +63,19 @@ public class CursorMockBuilderForColumnsTest {
             assertTrue(true);
         }
     }
+
+    @Test
+    public void testExpectedRowCount() {
+
+        final CursorMock mock = CursorMockBuilder.forColumns(2, "id", "name")
+                .addRow(1L, "first")
+                .addRow(2L, "second")
+                .addRow(3L, "third")
+                .build();
+
+        assertEquals(3, mock.getCount());
+        assertTrue(mock.moveToLast());
+        assertEquals(3L, mock.getLong(0));
+        assertEquals("third", mock.getString(1));
+    }
 }
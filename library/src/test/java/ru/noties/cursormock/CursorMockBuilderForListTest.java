@@ -0,0 +1,143 @@
+package ru.noties.cursormock;
+
+import android.database.Cursor;
+import android.support.annotation.Nullable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class CursorMockBuilderForListTest {
+
+    @Test
+    public void testValues() {
+
+        final List<Item> items = Arrays.asList(new Item(1L, "first"), null, new Item(3L, null));
+
+        final CursorMock mock = CursorMockBuilder.forList(Item.class, items)
+                .build();
+
+        assertEquals(3, mock.getCount());
+        assertEquals(2, mock.getColumnCount());
+
+        final int id = mock.getColumnIndexOrThrow("id");
+        final int name = mock.getColumnIndexOrThrow("name");
+
+        assertTrue(mock.moveToFirst());
+        assertEquals(1L, mock.getLong(id));
+        assertEquals("first", mock.getString(name));
+
+        assertTrue(mock.moveToNext());
+        assertTrue(mock.isNull(id));
+        assertTrue(mock.isNull(name));
+
+        assertTrue(mock.moveToNext());
+        assertEquals(3L, mock.getLong(id));
+        assertNull(mock.getString(name));
+        assertEquals(Cursor.FIELD_TYPE_INTEGER, mock.getType(id));
+        assertEquals(Cursor.FIELD_TYPE_NULL, mock.getType(name));
+    }
+
+    @Test
+    public void testEmpty() {
+        final CursorMock mock = CursorMockBuilder.forList(Item.class, new LinkedList<Item>())
+                .build();
+        assertEquals(0, mock.getCount());
+    }
+
+    @Test
+    public void testLazyAndMemoized() {
+
+        final CountingProcessor processor = new CountingProcessor();
+        final List<Item> items = Arrays.asList(new Item(1L, "1"), new Item(2L, "2"));
+
+        final CursorMock mock = CursorMockBuilder.forList(Item.class, processor, items)
+                .memoize("name")
+                .build();
+
+        // nothing is read at build time
+        assertEquals(0, processor.calls);
+
+        assertTrue(mock.moveToFirst());
+        mock.getLong(0);
+        mock.getLong(0);
+        assertEquals(2, processor.calls);
+
+        mock.getString(1);
+        mock.getString(1);
+        mock.getType(1);
+        assertEquals(3, processor.calls);
+
+        assertTrue(mock.moveToNext());
+        assertEquals("2", mock.getString(1));
+        assertEquals(4, processor.calls);
+    }
+
+    @Test
+    public void testMemoizeUnknownColumn() {
+        try {
+            CursorMockBuilder.forList(Item.class, Arrays.asList(new Item(1L, "1")))
+                    .memoize("not-present");
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testTypeDetectedOnRead() {
+
+        final CursorMockBuilder.ObjectProcessor processor = new CursorMockBuilder.ObjectProcessorImpl() {
+            @Nullable
+            @Override
+            public Object value(Field field, Object holder) {
+                final Object value = super.value(field, holder);
+                return "id".equals(field.getName())
+                        ? String.valueOf(value)
+                        : value;
+            }
+        };
+
+        final CursorMock mock = CursorMockBuilder.forList(Item.class, processor, Arrays.asList(new Item(7L, "7")))
+                .build();
+
+        assertTrue(mock.moveToFirst());
+        assertEquals(Cursor.FIELD_TYPE_STRING, mock.getType(0));
+        assertEquals("7", mock.getString(0));
+    }
+
+    private static class Item {
+
+        long id;
+        String name;
+
+        Item(long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    private static class CountingProcessor extends CursorMockBuilder.ObjectProcessorImpl {
+
+        int calls;
+
+        @Nullable
+        @Override
+        public Object value(Field field, Object holder) {
+            calls += 1;
+            return super.value(field, holder);
+        }
+    }
+}
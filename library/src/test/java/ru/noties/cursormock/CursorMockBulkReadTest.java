@@ -0,0 +1,118 @@
+package ru.noties.cursormock;
+
+import android.database.CursorIndexOutOfBoundsException;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class CursorMockBulkReadTest {
+
+    private static CursorMock columnar() {
+        final CursorSchema schema = CursorSchemaFactory.raw("_id", "value", "name");
+        final CursorRowsColumnarBuilder builder = new CursorRowsColumnarBuilder(schema, 4);
+        for (int i = 0; i < 4; i++) {
+            builder.nextRow();
+            if (i != 2) {
+                builder.putLong(0, i + 10);
+                builder.putDouble(1, i + .5D);
+                builder.putString(2, "name" + i);
+            }
+        }
+        return new CursorMock(schema, builder.build());
+    }
+
+    private static CursorMock rows() {
+        return CursorMockBuilder.forColumns("_id", "value", "name")
+                .addRow(10L, .5D, "name0")
+                .addRow(11L, 1.5D, "name1")
+                .addRow(null, null, null)
+                .addRow(13L, 3.5D, "name3")
+                .build();
+    }
+
+    @Test
+    public void testColumnarAndRows() {
+        for (CursorMock mock: new CursorMock[] { columnar(), rows() }) {
+
+            final long[] longs = new long[5];
+            mock.readLongs(0, 1, longs, 1, 3);
+            assertArrayEquals(new long[] { 0L, 11L, 0L, 13L, 0L }, longs);
+
+            final double[] doubles = new double[4];
+            mock.readDoubles(1, 0, doubles, 0, 4);
+            assertArrayEquals(new double[] { .5D, 1.5D, .0D, 3.5D }, doubles, .0D);
+
+            final String[] strings = new String[4];
+            mock.readStrings(2, 0, strings, 0, 4);
+            assertArrayEquals(new String[] { "name0", "name1", null, "name3" }, strings);
+
+            // converted as getters do
+            mock.readStrings(0, 0, strings, 0, 2);
+            assertArrayEquals(new String[] { "10", "11" }, new String[] { strings[0], strings[1] });
+
+            final boolean[] nulls = new boolean[4];
+            mock.readNulls(1, 0, nulls, 0, 4);
+            assertTrue(nulls[2]);
+            assertTrue(!nulls[0] && !nulls[1] && !nulls[3]);
+
+            // position is not changed
+            assertEquals(-1, mock.getPosition());
+        }
+    }
+
+    @Test
+    public void testTrailingRowsNotWritten() {
+
+        // storage of columns grows only with written values, the last 10 rows hold NULL values
+        final CursorSchema schema = CursorSchemaFactory.raw("_id", "value");
+        final CursorRowsColumnarBuilder builder = new CursorRowsColumnarBuilder(schema, 0);
+        for (int i = 0; i < 20; i++) {
+            builder.nextRow();
+            if (i < 10) {
+                builder.putLong(0, i + 1);
+                builder.putDouble(1, i + .5D);
+            }
+        }
+        final CursorMock mock = new CursorMock(schema, builder.build());
+
+        final long[] longs = new long[20];
+        mock.readLongs(0, 0, longs, 0, 20);
+
+        final double[] doubles = new double[20];
+        mock.readDoubles(1, 0, doubles, 0, 20);
+
+        final boolean[] nulls = new boolean[20];
+        mock.readNulls(0, 0, nulls, 0, 20);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i < 10 ? i + 1 : 0L, longs[i]);
+            assertEquals(i < 10 ? i + .5D : .0D, doubles[i], .0D);
+            assertEquals(i >= 10, nulls[i]);
+        }
+    }
+
+    @Test(expected = CursorIndexOutOfBoundsException.class)
+    public void testRowsOutOfBounds() {
+        rows().readLongs(0, 2, new long[10], 0, 3);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testDestOutOfBounds() {
+        columnar().readLongs(0, 0, new long[2], 1, 2);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClosed() {
+        final CursorMock mock = rows();
+        mock.close();
+        mock.readNulls(0, 0, new boolean[1], 0, 1);
+    }
+}
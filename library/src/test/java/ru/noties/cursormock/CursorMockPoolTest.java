@@ -0,0 +1,112 @@
+package ru.noties.cursormock;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class CursorMockPoolTest {
+
+    @Test
+    public void testIllegalSize() {
+        try {
+            new CursorMockPool(0);
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testObtainRelease() {
+
+        final CursorMockPool pool = new CursorMockPool(1);
+        final CursorSchema schema = CursorSchemaFactory.raw("id");
+
+        final CursorMock first = pool.obtain(schema, CursorRows.EMPTY);
+        assertEquals(0, pool.size());
+
+        assertTrue(pool.release(first));
+        assertTrue(first.isClosed());
+        assertEquals(1, pool.size());
+
+        // released twice
+        assertFalse(pool.release(first));
+
+        final CursorRows rows = new CursorRowsBuilder(schema)
+                .addRow(1L)
+                .build();
+
+        final CursorMock second = pool.obtain(schema, rows);
+        assertSame(first, second);
+        assertEquals(0, pool.size());
+
+        assertFalse(second.isClosed());
+        assertEquals(-1, second.getPosition());
+        assertEquals(1, second.getCount());
+        assertTrue(second.moveToFirst());
+        assertEquals(1L, second.getLong(0));
+
+        assertNotSame(second, pool.obtain(schema, rows));
+    }
+
+    @Test
+    public void testPoolFull() {
+        final CursorMockPool pool = new CursorMockPool(1);
+        final CursorSchema schema = CursorSchemaFactory.raw("id");
+        assertTrue(pool.release(pool.obtain(schema, CursorRows.EMPTY)));
+        assertFalse(pool.release(new CursorMock(schema)));
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    public void testBuilderReuse() {
+
+        final CursorMockPool pool = new CursorMockPool(2);
+        final CursorMockBuilder.ForColumns builder = CursorMockBuilder.forColumns("id", "name");
+
+        for (int i = 0; i < 10; i++) {
+
+            final CursorMock mock = builder.reset()
+                    .addRow((long) i, "first")
+                    .addRow((long) i + 1)
+                    .build(pool);
+
+            assertEquals(2, mock.getCount());
+            assertTrue(mock.moveToFirst());
+            assertEquals(i, mock.getLong(0));
+            assertEquals("first", mock.getString(1));
+            assertTrue(mock.moveToNext());
+            assertEquals(i + 1, mock.getLong(0));
+            assertTrue(mock.isNull(1));
+
+            pool.release(mock);
+        }
+    }
+
+    @Test
+    public void testBuilderResetNotRecycled() {
+
+        final CursorMockBuilder.ForColumns builder = CursorMockBuilder.forColumns("id");
+
+        final CursorMock first = builder.addRow(1L).build();
+
+        // `first` is not released, so its rows must not be affected
+        final CursorMock second = builder.reset().addRow(2L).build();
+
+        assertTrue(first.moveToFirst());
+        assertEquals(1L, first.getLong(0));
+
+        assertTrue(second.moveToFirst());
+        assertEquals(2L, second.getLong(0));
+        assertEquals(1, second.getCount());
+    }
+}
@@ -0,0 +1,250 @@
+package ru.noties.cursormock;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class CursorObjectMapperTest {
+
+    private static class Item {
+
+        static final String CONSTANT = "ignored";
+
+        long id;
+        int count;
+        short small;
+        double value;
+        float ratio;
+        Long boxedLong;
+        Integer boxedInt;
+        Double boxedDouble;
+        String name;
+        byte[] data;
+        transient String ignored;
+
+        private Item() {
+        }
+
+        Item(long id) {
+            this.id = id;
+            this.count = (int) id * 2;
+            this.small = (short) (id % 100);
+            this.value = id / 4.0D;
+            this.ratio = id / 8.0F;
+            this.boxedLong = id % 3 == 0 ? null : id;
+            this.boxedInt = id % 5 == 0 ? null : (int) id;
+            this.boxedDouble = id % 7 == 0 ? null : id / 2.0D;
+            this.name = id % 11 == 0 ? null : "name" + id;
+            this.data = new byte[] { (byte) id };
+        }
+    }
+
+    private static class Partial {
+        long id;
+        String missing = "default";
+    }
+
+    private static class NoConstructor {
+        long id;
+        NoConstructor(long id) {
+            this.id = id;
+        }
+    }
+
+    private static class NotSupported {
+        Object value;
+    }
+
+    private static List<Item> items(int count) {
+        final List<Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(new Item(i));
+        }
+        return items;
+    }
+
+    private static void assertItem(Item expected, Item actual) {
+        assertEquals(expected.id, actual.id);
+        assertEquals(expected.count, actual.count);
+        assertEquals(expected.small, actual.small);
+        assertEquals(expected.value, actual.value, .0D);
+        assertEquals(expected.ratio, actual.ratio, .0F);
+        assertEquals(expected.boxedLong, actual.boxedLong);
+        assertEquals(expected.boxedInt, actual.boxedInt);
+        assertEquals(expected.boxedDouble, actual.boxedDouble);
+        assertEquals(expected.name, actual.name);
+        assertTrue(Arrays.equals(expected.data, actual.data));
+        assertNull(actual.ignored);
+    }
+
+    @Test
+    public void testRoundTrip() {
+
+        final List<Item> source = items(100);
+        final CursorMockBuilder.ForClass<Item> builder = CursorMockBuilder.forClass(Item.class);
+        builder.addAll(source);
+        final CursorMock mock = builder.build();
+        mock.moveToPosition(42);
+
+        final List<Item> mapped = CursorObjectMapper.forClass(Item.class).map(mock);
+
+        assertEquals(source.size(), mapped.size());
+        for (int i = 0; i < source.size(); i++) {
+            assertItem(source.get(i), mapped.get(i));
+        }
+
+        // position is not changed
+        assertEquals(42, mock.getPosition());
+    }
+
+    @Test
+    public void testRoundTripList() {
+        final List<Item> source = items(50);
+        final CursorMock mock = CursorMockBuilder.forList(Item.class, source).build();
+        final List<Item> mapped = CursorObjectMapper.forClass(Item.class).map(mock);
+        assertEquals(source.size(), mapped.size());
+        for (int i = 0; i < source.size(); i++) {
+            assertItem(source.get(i), mapped.get(i));
+        }
+    }
+
+    @Test
+    public void testParallel() {
+
+        final int count = CursorObjectMapper.PARALLEL_THRESHOLD * 2 + 17;
+        final List<Item> source = items(count);
+        final CursorMockBuilder.ForClass<Item> builder = CursorMockBuilder.forClass(Item.class, count);
+        builder.addAll(source);
+
+        final List<Item> mapped = CursorObjectMapper.forClass(Item.class).map(builder.build(), 4);
+
+        assertEquals(count, mapped.size());
+        for (int i = 0; i < count; i++) {
+            assertItem(source.get(i), mapped.get(i));
+        }
+    }
+
+    @Test
+    public void testMissingColumns() {
+
+        final CursorMock mock = CursorMockBuilder.forColumns("other", "id")
+                .addRow("a", "1")
+                .addRow("b", "2")
+                .build();
+
+        final List<Partial> mapped = CursorObjectMapper.forClass(Partial.class).map(mock);
+        assertEquals(2, mapped.size());
+        // converted as CursorMock#getLong does
+        assertEquals(1L, mapped.get(0).id);
+        assertEquals(2L, mapped.get(1).id);
+        assertEquals("default", mapped.get(0).missing);
+    }
+
+    @Test
+    public void testCustomProcessor() {
+
+        final CursorMock mock = CursorMockBuilder.forColumns("_id")
+                .addRow(7L)
+                .build();
+
+        final CursorObjectMapper<Partial> mapper = CursorObjectMapper.forClass(Partial.class, new CursorMockBuilder.ObjectProcessorImpl() {
+            @Override
+            public String columnName(Field field) {
+                return "id".equals(field.getName()) ? "_id" : field.getName();
+            }
+        });
+
+        assertEquals(7L, mapper.map(mock).get(0).id);
+    }
+
+    @Test
+    public void testCached() {
+        assertTrue(CursorObjectMapper.forClass(Item.class) == CursorObjectMapper.forClass(Item.class));
+    }
+
+    @Test
+    public void testNoConstructor() {
+        try {
+            CursorObjectMapper.forClass(NoConstructor.class);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testNotSupportedType() {
+        try {
+            CursorObjectMapper.forClass(NotSupported.class);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testParallelismValidated() {
+        final CursorMock mock = CursorMockBuilder.forColumns("id").addRow(1L).build();
+        try {
+            CursorObjectMapper.forClass(Partial.class).map(mock, 0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testParallelError() {
+
+        // the last row is mapped by a worker thread
+        final int count = CursorObjectMapper.PARALLEL_THRESHOLD * 2;
+        final CursorRows rows = new CursorRows() {
+            @Override
+            public int count() {
+                return count;
+            }
+
+            @Override
+            public <T> T get(Class<T> cl, int row, int column) {
+                if (row == count - 1) {
+                    throw new StackOverflowError();
+                }
+                //noinspection unchecked
+                return (T) (Long) (long) row;
+            }
+        };
+        final CursorSchema schema = new CursorSchemaImpl(new String[] { "id" }, new ColumnType[] { ColumnType.INT });
+
+        try {
+            CursorObjectMapper.forClass(Partial.class).map(new CursorMock(schema, rows), 4);
+            fail();
+        } catch (StackOverflowError e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testClosed() {
+        final CursorMock mock = CursorMockBuilder.forColumns("id").addRow(1L).build();
+        mock.close();
+        try {
+            CursorObjectMapper.forClass(Partial.class).map(mock);
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(true);
+        }
+    }
+}
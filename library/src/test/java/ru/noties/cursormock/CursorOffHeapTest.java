@@ -0,0 +1,159 @@
+package ru.noties.cursormock;
+
+import android.database.Cursor;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class CursorOffHeapTest {
+
+    @Test
+    public void testBuilder() {
+
+        final CursorMock mock = CursorOffHeap.forColumns("_id", "name", "value", "data")
+                .slabSize(64)
+                .addRow(1L, "first", 1, new byte[] { 1, 2 })
+                .addRow(2L, null, 2.5D)
+                .addRow(3L, "\u0442\u0440\u0438", null, new byte[200])
+                .build();
+
+        assertEquals(3, mock.getCount());
+
+        assertTrue(mock.moveToFirst());
+        assertEquals(1L, mock.getLong(0));
+        assertEquals("first", mock.getString(1));
+        // widened to FLOAT
+        assertEquals(1.D, mock.getDouble(2), .0D);
+        assertEquals(Cursor.FIELD_TYPE_FLOAT, mock.getType(2));
+        assertArrayEquals(new byte[] { 1, 2 }, mock.getBlob(3));
+
+        assertTrue(mock.moveToNext());
+        assertTrue(mock.isNull(1));
+        assertEquals(2.5D, mock.getDouble(2), .0D);
+        assertTrue(mock.isNull(3));
+
+        assertTrue(mock.moveToNext());
+        assertEquals("\u0442\u0440\u0438", mock.getString(1));
+        assertTrue(mock.isNull(2));
+        // larger than a slab
+        assertEquals(200, mock.getBlob(3).length);
+
+        mock.close();
+        assertTrue(((CursorRowsOffHeap) mock.cursorRows()).isClosed());
+        try {
+            mock.cursorRows().get(Object.class, 0, 0);
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testBitsetSize() {
+
+        final CursorOffHeap.Builder builder = CursorOffHeap.forColumns("_id", "value")
+                .slabSize(1024);
+        for (int i = 0; i < 1000; i++) {
+            builder.addRow((long) i, null);
+        }
+        final CursorMock mock = builder.build();
+        try {
+            // 128 values in a slab of 1024 bytes, a bitset of them takes 16 bytes
+            assertEquals(8 * (1024 + 16), ((CursorRowsOffHeap) mock.cursorRows()).allocated());
+        } finally {
+            mock.close();
+        }
+    }
+
+    @Test
+    public void testCopyOf() {
+
+        final CursorMockBuilder.ForColumns builder = CursorMockBuilder.forColumns("_id", "text", "value");
+        for (int i = 0; i < 10000; i++) {
+            builder.addRow((long) i, i % 3 == 0 ? null : "text" + i, i / 3.D);
+        }
+        final CursorMock heap = builder.build();
+
+        final CursorMock offHeap = CursorOffHeap.copyOf(heap, 1024);
+        try {
+            assertArrayEquals(heap.getColumnNames(), offHeap.getColumnNames());
+            final CursorDiff.Result result = CursorDiff.of(heap, offHeap).compare();
+            assertTrue(result.toString(), result.isEqual());
+        } finally {
+            offHeap.close();
+        }
+    }
+
+    @Test
+    public void testCloseWhileReading() throws InterruptedException {
+
+        final CursorOffHeap.Builder builder = CursorOffHeap.forColumns("_id", "text").slabSize(64);
+        for (int i = 0; i < 1000; i++) {
+            builder.addRow((long) i, "text" + i);
+        }
+        final CursorMock mock = builder.build();
+        final CursorRows rows = mock.cursorRows();
+
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final CountDownLatch started = new CountDownLatch(4);
+
+        final Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    started.countDown();
+                    try {
+                        for (int i = 0; ; i = (i + 1) % 1000) {
+                            // values are either read completely or an exception is thrown
+                            assertEquals((long) i, (long) rows.get(Long.class, i, 0));
+                            assertEquals("text" + i, rows.get(String.class, i, 1));
+                        }
+                    } catch (IllegalStateException e) {
+                        // closed
+                    } catch (Throwable throwable) {
+                        error.set(throwable);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+
+        started.await();
+        mock.close();
+
+        for (Thread thread: threads) {
+            thread.join();
+        }
+
+        assertNull(String.valueOf(error.get()), error.get());
+        assertTrue(((CursorRowsOffHeap) rows).isClosed());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDifferentTypes() {
+        CursorOffHeap.forColumns("value")
+                .addRow(1L)
+                .addRow("text");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBuiltOnce() {
+        final CursorOffHeap.Builder builder = CursorOffHeap.forColumns("value").addRow(1L);
+        builder.build().close();
+        builder.addRow(2L);
+    }
+}
@@ -0,0 +1,208 @@
+package ru.noties.cursormock;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class CursorPublisherTest {
+
+    private static class Recorder implements CursorPublisher.Subscriber {
+
+        final List<Integer> starts = new ArrayList<>();
+        final List<Integer> sizes = new ArrayList<>();
+        long sum;
+        int nulls;
+        Throwable error;
+        boolean completed;
+        CursorPublisher.Subscription subscription;
+
+        @Override
+        public void onSubscribe(@NonNull CursorPublisher.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(@NonNull CursorBatch batch) {
+            starts.add(batch.startRow());
+            sizes.add(batch.size());
+            final long[] ids = batch.longs(0);
+            assertNotNull(ids);
+            for (int i = 0; i < batch.size(); i++) {
+                sum += ids[i];
+                if (batch.isNull(1, i)) {
+                    nulls += 1;
+                }
+            }
+        }
+
+        @Override
+        public void onError(@NonNull Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    private static CursorMock mock(int count) {
+        final CursorMockBuilder.ForColumns builder = CursorMockBuilder.forColumns("_id", "name");
+        for (int i = 0; i < count; i++) {
+            builder.addRow((long) i, i % 10 == 0 ? null : "name" + i);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testDemand() {
+
+        final Recorder recorder = new Recorder();
+        CursorPublisher.of(mock(250)).batchSize(100).subscribe(recorder);
+
+        assertEquals(0, recorder.sizes.size());
+
+        recorder.subscription.request(1);
+        assertEquals(1, recorder.sizes.size());
+        assertFalse(recorder.completed);
+
+        recorder.subscription.request(5);
+        assertEquals(3, recorder.sizes.size());
+        assertEquals(Integer.valueOf(200), recorder.starts.get(2));
+        assertEquals(Integer.valueOf(50), recorder.sizes.get(2));
+        assertTrue(recorder.completed);
+
+        assertEquals(250L * 249L / 2L, recorder.sum);
+        assertEquals(25, recorder.nulls);
+        assertNull(recorder.error);
+    }
+
+    @Test
+    public void testCancelAndInvalidRequest() {
+
+        final Recorder recorder = new Recorder() {
+            @Override
+            public void onNext(@NonNull CursorBatch batch) {
+                super.onNext(batch);
+                subscription.cancel();
+            }
+        };
+        CursorPublisher.of(mock(1000)).batchSize(10).subscribe(recorder);
+        recorder.subscription.request(Long.MAX_VALUE);
+        assertEquals(1, recorder.sizes.size());
+        assertFalse(recorder.completed);
+
+        final Recorder invalid = new Recorder();
+        CursorPublisher.of(mock(10)).subscribe(invalid);
+        invalid.subscription.request(0);
+        assertTrue(invalid.error instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void testColumnar() {
+
+        final CursorSchema schema = CursorSchemaFactory.raw("value");
+        final CursorRowsColumnarBuilder builder = new CursorRowsColumnarBuilder(schema, 4);
+        builder.nextRow();
+        builder.putDouble(0, 1.5D);
+        builder.nextRow();
+        builder.nextRow();
+        builder.putDouble(0, 3.5D);
+        final CursorMock columnar = new CursorMock(schema, builder.build());
+
+        final List<double[]> doubles = new ArrayList<>();
+        CursorPublisher.of(columnar).subscribe(new CursorPublisher.Subscriber() {
+            @Override
+            public void onSubscribe(@NonNull CursorPublisher.Subscription subscription) {
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(@NonNull CursorBatch batch) {
+                final double[] values = batch.doubles(0);
+                assertNotNull(values);
+                assertTrue(batch.isNull(0, 1));
+                doubles.add(new double[] { values[0], values[2] });
+            }
+
+            @Override
+            public void onError(@NonNull Throwable throwable) {
+                throw new AssertionError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        assertEquals(1, doubles.size());
+        assertEquals(1.5D, doubles.get(0)[0], .0D);
+        assertEquals(3.5D, doubles.get(0)[1], .0D);
+    }
+
+    @Test
+    public void testMixedTypes() {
+
+        final CursorSchema schema = CursorSchemaFactory.raw("value");
+        ((CursorSchemaMutable) schema).columnType(0, ColumnType.INT);
+
+        final Object[] values = { 1L, null, "text" };
+        final CursorMock mock = new CursorMock(schema, new CursorRows() {
+            @Override
+            public int count() {
+                return values.length;
+            }
+
+            @Override
+            public <T> T get(Class<T> cl, int row, int column) {
+                //noinspection unchecked
+                return (T) values[row];
+            }
+        });
+
+        final List<Object> result = new ArrayList<>();
+        CursorPublisher.of(mock).subscribe(new CursorPublisher.Subscriber() {
+            @Override
+            public void onSubscribe(@NonNull CursorPublisher.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(@NonNull CursorBatch batch) {
+                assertNull(batch.longs(0));
+                final Object[] objects = batch.objects(0);
+                assertNotNull(objects);
+                for (int i = 0; i < batch.size(); i++) {
+                    result.add(objects[i]);
+                }
+            }
+
+            @Override
+            public void onError(@NonNull Throwable throwable) {
+                throw new AssertionError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        assertEquals(3, result.size());
+        assertEquals(1L, result.get(0));
+        assertNull(result.get(1));
+        assertEquals("text", result.get(2));
+    }
+}
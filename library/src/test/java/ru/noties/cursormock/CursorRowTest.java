@@ -0,0 +1,141 @@
+package ru.noties.cursormock;
+
+import android.database.Cursor;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class CursorRowTest {
+
+    private static CursorMock rowMock() {
+        return CursorMockBuilder.forColumns("_id", "value", "name", "data")
+                .addRow(1L, 1.5D, "first", new byte[] { 1 })
+                .addRow(2L, null, null, null)
+                .addRow(null, 3.25D, "42", new byte[] { 3 })
+                .build();
+    }
+
+    private static CursorMock columnarMock() {
+        final CursorSchema schema = CursorSchemaFactory.raw("_id", "value", "name", "data");
+        final CursorRowsColumnarBuilder builder = new CursorRowsColumnarBuilder(schema, 3);
+        builder.nextRow();
+        builder.putLong(0, 1L);
+        builder.putDouble(1, 1.5D);
+        builder.putString(2, "first");
+        builder.putBlob(3, new byte[] { 1 });
+        builder.nextRow();
+        builder.putLong(0, 2L);
+        builder.nextRow();
+        builder.putDouble(1, 3.25D);
+        builder.putString(2, "42");
+        builder.putBlob(3, new byte[] { 3 });
+        return new CursorMock(schema, builder.build());
+    }
+
+    private static void assertRows(CursorMock mock) {
+
+        final CursorRow row = mock.row();
+        assertEquals(3, row.count());
+        assertEquals(-1, row.position());
+
+        assertTrue(row.moveToNext());
+        assertEquals(1L, row.getLong(0));
+        assertEquals(1, row.getInt(0));
+        assertEquals(1.5D, row.getDouble(1), .0D);
+        assertEquals(1L, row.getLong(1));
+        assertEquals("1.5", row.getString(1));
+        assertEquals("first", row.getString(2));
+        assertTrue(Arrays.equals(new byte[] { 1 }, row.getBlob(3)));
+        assertEquals(Cursor.FIELD_TYPE_INTEGER, row.getType(0));
+        assertEquals(Cursor.FIELD_TYPE_FLOAT, row.getType(1));
+        assertEquals(Cursor.FIELD_TYPE_STRING, row.getType(2));
+        assertEquals(Cursor.FIELD_TYPE_BLOB, row.getType(3));
+
+        assertTrue(row.moveToNext());
+        assertEquals(2L, row.getLong(0));
+        assertTrue(row.isNull(1));
+        assertEquals(.0D, row.getDouble(1), .0D);
+        assertNull(row.getString(2));
+        assertNull(row.getBlob(3));
+        assertEquals(Cursor.FIELD_TYPE_NULL, row.getType(1));
+
+        assertTrue(row.moveToNext());
+        assertTrue(row.isNull(0));
+        assertEquals(0L, row.getLong(0));
+        assertEquals(42L, row.getLong(2));
+        assertFalse(row.isNull(3));
+
+        assertFalse(row.moveToNext());
+        assertEquals(3, row.position());
+
+        assertTrue(row.moveToFirst());
+        assertEquals(0, row.position());
+        assertFalse(row.moveToPosition(-5));
+        assertEquals(-1, row.position());
+    }
+
+    @Test
+    public void testRows() {
+        assertRows(rowMock());
+    }
+
+    @Test
+    public void testColumnar() {
+        assertRows(columnarMock());
+    }
+
+    @Test
+    public void testPosition() {
+
+        final CursorMock mock = rowMock();
+        mock.moveToPosition(1);
+
+        final CursorRow row = mock.row();
+        assertEquals(1, row.position());
+        assertEquals(2L, row.getLong(0));
+
+        // independent of the cursor
+        row.moveToNext();
+        assertEquals(1, mock.getPosition());
+    }
+
+    @Test
+    public void testDynamic() {
+
+        final CursorMock mock = CursorDynamic.forColumns("value")
+                .addRow(1L)
+                .addRow("text")
+                .build();
+
+        final CursorRow row = mock.row();
+        row.moveToFirst();
+        assertEquals(Cursor.FIELD_TYPE_INTEGER, row.getType(0));
+        row.moveToNext();
+        assertEquals(Cursor.FIELD_TYPE_STRING, row.getType(0));
+        assertEquals("text", row.getString(0));
+    }
+
+    @Test
+    public void testClosed() {
+        final CursorMock mock = rowMock();
+        mock.close();
+        try {
+            mock.row();
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(true);
+        }
+    }
+}
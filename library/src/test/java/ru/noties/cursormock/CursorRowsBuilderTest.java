@@ -7,6 +7,7 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 @RunWith(RobolectricTestRunner.class)
@@ -139,6 +140,145 @@ public class CursorRowsBuilderTest {
         assertRow(rows, 3, 14L, "14L");
     }
 
+    @Test
+    public void testNegativeCapacity() {
+        try {
+            new CursorRowsBuilder(new CursorSchemaNoOp(), -1);
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testCapacityHint() {
+        final CursorSchema schema = CursorSchemaFactory.raw("id");
+        final CursorRowsBuilder builder = new CursorRowsBuilder(schema, 10);
+        for (long i = 0; i < 5; i++) {
+            builder.addRow(i);
+        }
+        final CursorRows rows = builder.build();
+        assertTrue(rows instanceof CursorRowsImpl);
+        assertEquals(5, rows.count());
+        for (int i = 0; i < 5; i++) {
+            assertRow(rows, i, (long) i);
+        }
+    }
+
+    @Test
+    public void testChunkedGrowth() {
+        final CursorSchema schema = CursorSchemaFactory.raw("id", "name");
+        final CursorRowsBuilder builder = new CursorRowsBuilder(schema, 3);
+        final int count = CursorRowsBuilder.CHUNK_SIZE * 3 + 7;
+        for (long i = 0; i < count; i++) {
+            builder.addRow(i, String.valueOf(i));
+        }
+        final CursorRows rows = builder.build();
+        assertTrue(rows instanceof CursorRowsChunked);
+        assertEquals(count, rows.count());
+        for (int i = 0; i < count; i++) {
+            assertRow(rows, i, (long) i, String.valueOf(i));
+        }
+    }
+
+    @Test
+    public void testBuildThenAdd() {
+        final CursorSchema schema = CursorSchemaFactory.raw("id");
+        final CursorRowsBuilder builder = new CursorRowsBuilder(schema, 2);
+        builder.addRow(1L);
+
+        final CursorRows first = builder.build();
+
+        builder.addRow(2L)
+                .addRow(3L);
+
+        final CursorRows second = builder.build();
+
+        assertEquals(1, first.count());
+        assertRow(first, 0, 1L);
+
+        assertEquals(3, second.count());
+        assertRow(second, 0, 1L);
+        assertRow(second, 1, 2L);
+        assertRow(second, 2, 3L);
+    }
+
+    @Test
+    public void testResetRecycledBuiltTwice() {
+        final CursorSchema schema = CursorSchemaFactory.raw("id");
+        final CursorRowsBuilder builder = new CursorRowsBuilder(schema);
+
+        final CursorRows first = builder.addRow(1L).build();
+        final CursorRows second = builder.addRow(2L).build();
+        ((CursorRowsBuilder.Recyclable) second).recycle();
+
+        // `first` shares row arrays with `second`, so they must not be reused
+        builder.reset()
+                .addRow(3L)
+                .addRow(4L);
+
+        assertEquals(1, first.count());
+        assertRow(first, 0, 1L);
+    }
+
+    @Test
+    public void testSparse() {
+
+        final CursorSchema schema = CursorSchemaFactory.raw("id", "a", "b", "c", "d", "e", "f", "g", "h", "i");
+        final CursorRowsBuilder builder = new CursorRowsBuilder(schema);
+
+        final int count = 500;
+        for (int i = 0; i < count; i++) {
+            if (i % 10 == 0) {
+                builder.addRow((long) i, null, "b" + i);
+            } else {
+                builder.addRow();
+            }
+        }
+
+        final CursorRows rows = builder.build();
+        assertTrue(rows instanceof CursorRowsColumnar);
+        assertTrue(((CursorRowsColumnar) rows).column(0) instanceof CursorRowsColumnar.SparseColumn);
+        assertTrue(((CursorRowsColumnar) rows).column(1) instanceof CursorRowsColumnar.NullColumn);
+        assertEquals(count, rows.count());
+
+        for (int i = 0; i < count; i++) {
+            if (i % 10 == 0) {
+                assertRow(rows, i, (long) i, null, "b" + i, null);
+            } else {
+                assertRow(rows, i, null, null, null, null);
+            }
+        }
+
+        // storage was copied, so builder can continue
+        builder.addRow(1L, 2L, "3", "4", "5", "6", "7", "8", "9", "10");
+        assertEquals(count, rows.count());
+        assertEquals(count + 1, builder.build().count());
+    }
+
+    @Test
+    public void testEmptyRowsReused() {
+
+        final CursorSchema schema = CursorSchemaFactory.raw("id");
+        final CursorRowsBuilder builder = new CursorRowsBuilder(schema);
+
+        final CursorRows first = builder.addRow(1L).addRow().addRow(2L).build();
+        ((CursorRowsBuilder.Recyclable) first).recycle();
+
+        // shared empty row must not be written to
+        final CursorRows second = builder.reset()
+                .addRow()
+                .addRow(3L)
+                .addRow(4L)
+                .addRow()
+                .build();
+
+        assertRow(second, 0, (Object) null);
+        assertRow(second, 1, 3L);
+        assertRow(second, 2, 4L);
+        assertRow(second, 3, (Object) null);
+    }
+
     private static void assertRow(CursorRows rows, int row, Object... values) {
         Object rowValue;
         for (int i = 0, length = values.length; i < length; i++) {
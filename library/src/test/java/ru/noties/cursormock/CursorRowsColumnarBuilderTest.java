@@ -0,0 +1,161 @@
+package ru.noties.cursormock;
+
+import android.database.Cursor;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class CursorRowsColumnarBuilderTest {
+
+    @Test
+    public void testNullsAndGrowth() {
+
+        final CursorSchema schema = CursorSchemaFactory.raw("id", "name", "data", "empty");
+        final CursorRowsColumnarBuilder builder = new CursorRowsColumnarBuilder(schema, 2);
+
+        final int count = 100;
+        for (int i = 0; i < count; i++) {
+            builder.nextRow();
+            if (i % 3 != 0) {
+                builder.putLong(0, i);
+            }
+            if (i % 2 == 0) {
+                builder.putString(1, String.valueOf(i));
+            }
+            if (i == 5) {
+                builder.putBlob(2, new byte[] { 5 });
+            }
+        }
+
+        final CursorRows rows = builder.build();
+        assertTrue(rows instanceof CursorRowsColumnar);
+        assertEquals(count, rows.count());
+
+        assertEquals(ColumnType.INT, schema.columnType(0));
+        assertEquals(ColumnType.TEXT, schema.columnType(1));
+        assertEquals(ColumnType.BLOB, schema.columnType(2));
+        assertNull(schema.columnType(3));
+
+        for (int i = 0; i < count; i++) {
+            assertEquals(i % 3 != 0 ? (Object) (long) i : null, rows.get(Object.class, i, 0));
+            assertEquals(i % 2 == 0 ? String.valueOf(i) : null, rows.get(String.class, i, 1));
+            if (i == 5) {
+                assertArrayEquals(new byte[] { 5 }, rows.get(byte[].class, i, 2));
+            } else {
+                assertNull(rows.get(Object.class, i, 2));
+            }
+            assertNull(rows.get(Object.class, i, 3));
+        }
+    }
+
+    @Test
+    public void testNullsOnlyInFirstRows() {
+
+        // NULL bit set is allocated with the first NULL value and must cover rows written after it
+        final CursorSchema schema = CursorSchemaFactory.raw("id", "value");
+        final CursorRowsColumnarBuilder builder = new CursorRowsColumnarBuilder(schema, 0);
+
+        final int count = 200;
+        for (int i = 0; i < count; i++) {
+            builder.nextRow();
+            if (i > 0) {
+                builder.putLong(0, i);
+                builder.putDouble(1, i);
+            }
+        }
+
+        final CursorRows rows = builder.build();
+        assertNull(rows.get(Object.class, 0, 0));
+        assertNull(rows.get(Object.class, 0, 1));
+        for (int i = 1; i < count; i++) {
+            assertEquals((long) i, (long) rows.get(Long.class, i, 0));
+            assertEquals(i, rows.get(Double.class, i, 1), .0D);
+        }
+    }
+
+    @Test
+    public void testWiden() {
+
+        final CursorSchema schema = CursorSchemaFactory.raw("value");
+        final CursorRowsColumnarBuilder builder = new CursorRowsColumnarBuilder(schema, 0);
+
+        builder.nextRow();
+        builder.putLong(0, 1L);
+        builder.nextRow();
+        builder.nextRow();
+        builder.putDouble(0, .5D);
+        builder.nextRow();
+        builder.putLong(0, 2L);
+
+        final CursorRows rows = builder.build();
+
+        assertEquals(ColumnType.FLOAT, schema.columnType(0));
+        assertEquals(1.D, rows.get(Double.class, 0, 0), .0D);
+        assertNull(rows.get(Object.class, 1, 0));
+        assertEquals(.5D, rows.get(Double.class, 2, 0), .0D);
+        assertEquals(2.D, rows.get(Double.class, 3, 0), .0D);
+    }
+
+    @Test
+    public void testTypeMismatch() {
+        final CursorRowsColumnarBuilder builder = new CursorRowsColumnarBuilder(CursorSchemaFactory.raw("value"), 0);
+        builder.nextRow();
+        builder.putLong(0, 1L);
+        try {
+            builder.putString(0, "1");
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testSparse() {
+
+        final CursorSchema schema = CursorSchemaFactory.raw("id", "value", "name", "dense");
+        final CursorRowsColumnarBuilder builder = new CursorRowsColumnarBuilder(schema, 0);
+
+        final int count = 1000;
+        for (int i = 0; i < count; i++) {
+            builder.nextRow();
+            if (i % 50 == 0) {
+                builder.putLong(0, i);
+                builder.putDouble(1, i / 2.0D);
+                builder.putString(2, String.valueOf(i));
+            }
+            builder.putLong(3, i);
+        }
+
+        final CursorRowsColumnar rows = (CursorRowsColumnar) builder.build();
+        assertTrue(rows.column(0) instanceof CursorRowsColumnar.SparseColumn);
+        assertTrue(rows.column(1) instanceof CursorRowsColumnar.SparseColumn);
+        assertTrue(rows.column(2) instanceof CursorRowsColumnar.SparseColumn);
+        assertTrue(rows.column(3) instanceof CursorRowsColumnar.LongColumn);
+        assertEquals(20, ((CursorRowsColumnar.SparseColumn) rows.column(0)).size);
+
+        final CursorMock mock = new CursorMock(schema, rows);
+        for (int i = 0; i < count; i++) {
+            mock.moveToPosition(i);
+            if (i % 50 == 0) {
+                assertEquals(i, mock.getLong(0));
+                assertEquals(i / 2.0D, mock.getDouble(1), .0D);
+                assertEquals(String.valueOf(i), mock.getString(2));
+                assertEquals(Cursor.FIELD_TYPE_INTEGER, mock.getType(0));
+            } else {
+                assertTrue(mock.isNull(0));
+                assertTrue(mock.isNull(1));
+                assertNull(mock.getString(2));
+            }
+            assertEquals(i, mock.getLong(3));
+        }
+    }
+}
@@ -7,6 +7,7 @@ import org.robolectric.annotation.Config;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 @RunWith(RobolectricTestRunner.class)
@@ -32,4 +33,62 @@ public class CursorSchemaFactoryTest {
         assertTrue(schema.columnType(1) == null);
         assertTrue(schema.columnType(2) == null);
     }
+
+    @Test
+    public void testIntern() {
+
+        final CursorSchema first = CursorSchemaFactory.intern(CursorSchemaFactory.raw("id", "name"));
+        final CursorSchema second = CursorSchemaFactory.intern(CursorSchemaFactory.raw("id", "name"));
+        assertTrue(first == second);
+        assertTrue(first == CursorSchemaFactory.intern(first));
+        assertTrue(first.columnNames() == first.columnNames());
+        assertArrayEquals(new String[] { "id", "name" }, first.columnNames());
+
+        assertFalse(first == CursorSchemaFactory.intern(CursorSchemaFactory.raw("id", "title")));
+
+        // types are part of identity
+        final CursorSchemaMutable typed = (CursorSchemaMutable) CursorSchemaFactory.raw("id", "name");
+        typed.columnType(0, ColumnType.INT);
+        final CursorSchema internedTyped = CursorSchemaFactory.intern(typed);
+        assertFalse(first == internedTyped);
+        assertEquals(ColumnType.INT, internedTyped.columnType(0));
+
+        // later changes are not reflected
+        typed.columnType(1, ColumnType.TEXT);
+        assertTrue(internedTyped.columnType(1) == null);
+    }
+
+    @Test
+    public void testInternedNamesModified() {
+
+        final CursorSchema schema = CursorSchemaFactory.intern(CursorSchemaFactory.raw("a", "b"));
+
+        // returned array is shared, but lookups & identity of the schema do not depend on it
+        schema.columnNames()[0] = "zzz";
+
+        assertEquals(0, schema.columnIndex("a"));
+        assertEquals(-1, schema.columnIndex("zzz"));
+        assertEquals("a", schema.columnName(0));
+        assertTrue(schema == CursorSchemaFactory.intern(CursorSchemaFactory.raw("a", "b")));
+    }
+
+    @Test
+    public void testBuildInterned() {
+
+        final CursorMock first = CursorMockBuilder.forColumns("id", "name")
+                .addRow(1L, "first")
+                .buildInterned();
+
+        final CursorMock second = CursorMockBuilder.forColumns("id", "name")
+                .addRow(2L, "second")
+                .buildInterned();
+
+        assertTrue(first.cursorSchema() == second.cursorSchema());
+        assertTrue(first.getColumnNames() == second.getColumnNames());
+        assertEquals(ColumnType.TEXT, first.cursorSchema().columnType(1));
+
+        assertTrue(second.moveToFirst());
+        assertEquals(2L, second.getLong(0));
+        assertEquals("second", second.getString(1));
+    }
 }
@@ -0,0 +1,158 @@
+package ru.noties.cursormock;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class CursorSliceTest {
+
+    private static CursorMock sequence(int count) {
+        final CursorMockBuilder.ForColumns builder = CursorMockBuilder.forColumns("_id");
+        for (int i = 0; i < count; i++) {
+            builder.addRow((long) i);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testLimit() {
+
+        final CursorMock mock = CursorSlice.limit(sequence(100), 20, 40);
+        assertEquals(20, mock.getCount());
+        int row = 0;
+        for (CursorMock cursor: mock) {
+            assertEquals(40 + row++, cursor.getLong(0));
+        }
+
+        assertEquals(5, CursorSlice.limit(sequence(100), 20, 95).getCount());
+        assertEquals(0, CursorSlice.limit(sequence(100), 20, 100).getCount());
+        assertEquals(0, CursorSlice.limit(sequence(100), 0).getCount());
+        assertEquals(10, CursorSlice.limit(sequence(10), Integer.MAX_VALUE, 0).getCount());
+
+        try {
+            CursorSlice.limit(sequence(1), -1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testLimitOutOfBounds() {
+
+        final CursorRows rows = CursorSlice.limit(sequence(100), 20, 40).cursorRows();
+        assertEquals(40L, (long) rows.get(Long.class, 0, 0));
+
+        try {
+            rows.get(Long.class, -1, 0);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertTrue(true);
+        }
+
+        try {
+            rows.get(Long.class, 20, 0);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testTopK() {
+
+        final CursorMock source = CursorMockBuilder.forColumns("date", "id")
+                .addRow(5L, 1L)
+                .addRow(null, 2L)
+                .addRow(9L, 3L)
+                .addRow(5L, 4L)
+                .addRow(1L, 5L)
+                .addRow(7L, 6L)
+                .build();
+
+        assertIds(CursorSlice.orderBy(source, "date").build(), 2L, 5L, 1L, 4L, 6L, 3L);
+        assertIds(CursorSlice.orderBy(source, "date").limit(3).build(), 2L, 5L, 1L);
+        assertIds(CursorSlice.orderBy(source, "date").limit(2, 2).build(), 1L, 4L);
+        assertIds(CursorSlice.orderBy(source, "date").descending().limit(3).build(), 3L, 6L, 1L);
+        assertIds(CursorSlice.orderBy(source, "date").descending().limit(10, 3).build(), 4L, 5L, 2L);
+        assertIds(CursorSlice.orderBy(source, "date").limit(3, 6).build());
+    }
+
+    @Test
+    public void testTopKZerosAndNaN() {
+
+        // `-0.0` & `0.0` are equal keys (keep their order), NaN is a NULL key
+        final CursorMock source = CursorMockBuilder.forColumns("value", "id")
+                .addRow(0.0D, 1L)
+                .addRow(Double.NaN, 2L)
+                .addRow(-0.0D, 3L)
+                .addRow(-1.0D, 4L)
+                .addRow(0.0D, 5L)
+                .addRow(null, 6L)
+                .build();
+
+        assertIds(CursorSlice.orderBy(source, "value").build(), 2L, 6L, 4L, 1L, 3L, 5L);
+        assertIds(CursorSlice.orderBy(source, "value").descending().limit(4).build(), 1L, 3L, 5L, 4L);
+    }
+
+    @Test
+    public void testTopKRandom() {
+
+        final Random random = new Random(7L);
+        final CursorMockBuilder.ForColumns builder = CursorMockBuilder.forColumns("value");
+        final List<Double> values = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            final double value = random.nextGaussian();
+            values.add(value);
+            builder.addRow(value);
+        }
+        Collections.sort(values, Collections.<Double>reverseOrder());
+
+        final CursorMock mock = CursorSlice.orderBy(builder.build(), "value")
+                .descending()
+                .limit(50, 100)
+                .build();
+
+        assertEquals(50, mock.getCount());
+        int row = 0;
+        for (CursorMock cursor: mock) {
+            assertEquals(values.get(100 + row++), cursor.getDouble(0), .0D);
+        }
+    }
+
+    @Test
+    public void testInvalidKey() {
+        try {
+            CursorSlice.orderBy(CursorMockBuilder.forColumns("name").addRow("a").build(), "name");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+        try {
+            CursorSlice.orderBy(sequence(1), "unknown");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    private static void assertIds(CursorMock mock, long... ids) {
+        assertEquals(ids.length, mock.getCount());
+        int row = 0;
+        for (CursorMock cursor: mock) {
+            assertEquals(ids[row++], cursor.getLong(1));
+        }
+    }
+}